@@ -48,27 +48,51 @@ public final class Resources extends Localization<Resources.ResourceKeys> {
 	public enum ResourceKeys {
 		About("about"),
 		AboutMessage("about_message"),
+		Analyze("analyze"),
+		Black("black"),
 		CheckMate("checkmate_x"),
 		Clear("clear"),
 		Debug("debug"),
 		DebugWindow("debug_window"),
+		Depth("depth"),
 		Exit("exit"),
+		Fen("fen"),
 		File("file"),
+		FirstMoveCutoffs("first_move_cutoffs"),
+		Games("games"),
 		Help("help"),
+		Hint("hint"),
 		Inspector("inspector"),
+		Lines("lines"),
 		MemClear("mem_clear"),
 		MemPrint("mem_print"),
 		MemRecall("mem_recall"),
 		MemStore("mem_store"),
+		Move("move"),
 		NeighborTiles("neighbor_tiles"),
+		NeuralNetwork("neural_network"),
 		NewGame("new_game"),
+		NewGameComputer("new_game_computer"),
 		NewGameDebug("new_game_debug"),
+		NodesPerSecond("nodes_per_second"),
+		Openings("openings"),
 		Pieces("pieces"),
+		PrincipalVariation("principal_variation"),
+		Rating("rating"),
+		RestoreGame("restore_game"),
+		Result("result"),
+		Score("score"),
+		SelectiveDepth("selective_depth"),
 		Start("start"),
 		Stop("stop"),
+		TableFill("table_fill"),
+		TableHits("table_hits"),
+		TablebaseDraw("tablebase_draw"),
+		TablebaseWin("tablebase_win"),
 		Teams("teams"),
 		TileIdentifier("tile_identifier"),
 		Title("title"),
+		White("white"),
 		Quit("quit"),
 		QuitMessage("quit_question");
 		 
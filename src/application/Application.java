@@ -36,7 +36,11 @@ import java.util.ResourceBundle;
 
 import javax.swing.JOptionPane;
 
+import controllers.BoardController;
+import controllers.ComputerController;
+import controllers.DebuggerSettingsController;
 import engine.core.factories.AbstractSignalFactory;
+import engine.core.factories.ControllerFactory;
 import engine.core.menu.MenuBuilder;
 import engine.core.system.AbstractApplication;
 import engine.core.system.EngineProperties;
@@ -44,7 +48,10 @@ import engine.core.system.EngineProperties.Property;
 import menu.AboutItem;
 import menu.DebuggerWindowItem;
 import menu.ExitItem;
+import menu.FenItem;
+import menu.HintItem;
 import menu.NeighboursItem;
+import menu.NewGameComputerItem;
 import menu.NewGameDebugItem;
 import menu.NewGameItem;
 import menu.TileIdentifierItem;
@@ -136,6 +143,9 @@ public final class Application extends AbstractApplication {
 		MenuBuilder.start(getJMenuBar())
 			.AddMenu(Resources.instance().getLocalizedString(ResourceKeys.File))
 				.AddMenuItem(NewGameItem.class)
+				.AddMenuItem(NewGameComputerItem.class)
+			.AddSeparator()
+				.AddMenuItem(HintItem.class)
 			.AddSeparator()
 				.AddMenuItem(ExitItem.class);
 	}
@@ -147,6 +157,7 @@ public final class Application extends AbstractApplication {
 		MenuBuilder.start(getJMenuBar())
 			.AddMenu(Resources.instance().getLocalizedString(ResourceKeys.Debug))
 				.AddMenuItem(NewGameDebugItem.class)
+				.AddMenuItem(FenItem.class)
 				.AddSeparator()
 				.AddMenuItem(DebuggerWindowItem.class)
 				.AddSeparator()
@@ -214,6 +225,20 @@ public final class Application extends AbstractApplication {
 		
 		this.getContentPane().removeAll();
 		
+		// Stop the computer player, the hint of the board and the analysis of the debugger from searching in the background
+		BoardController boardController = AbstractSignalFactory.getFactory(ControllerFactory.class).get(BoardController.class);
+		if(boardController != null) {
+			boardController.flush();
+		}
+		ComputerController computerController = AbstractSignalFactory.getFactory(ControllerFactory.class).get(ComputerController.class);
+		if(computerController != null) {
+			computerController.flush();
+		}
+		DebuggerSettingsController debuggerSettingsController = AbstractSignalFactory.getFactory(ControllerFactory.class).get(DebuggerSettingsController.class);
+		if(debuggerSettingsController != null) {
+			debuggerSettingsController.flush();
+		}
+		
 		// Clear the factory
 		AbstractSignalFactory.reset();
 		
@@ -0,0 +1,477 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import engine.utils.io.logging.Tracelog;
+import game.engine.board.Fen;
+import game.engine.board.Move;
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+import game.engine.book.PolyglotBook;
+import game.engine.evaluation.NeuralNetwork;
+import game.engine.evaluation.NeuralNetworkEvaluator;
+import game.engine.evaluation.PawnStructureEvaluator;
+import game.engine.interfaces.IProgressListener;
+import game.engine.search.Search;
+import game.engine.search.SearchLimits;
+import game.engine.search.SearchResult;
+import game.engine.search.SearchSettings;
+import game.engine.search.SearchStatistics;
+import game.engine.search.SearchWorker;
+import game.engine.search.TimeManager;
+import game.engine.search.TranspositionTable;
+
+/**
+ * The entry point of the engine when played through the Universal Chess Interface.
+ *
+ * Commands are read from the standard input and answered on the standard output, and nothing of the
+ * user interface is initialized.  The search runs on the thread of a {@link SearchWorker}, so the
+ * reading thread is always free to act on a stop or ponderhit command while the engine is thinking
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class UciApplication implements IProgressListener {
+
+	/**
+	 * The name reported to the graphical interface
+	 */
+	private static final String NAME = "Chess";
+
+	/**
+	 * The author reported to the graphical interface
+	 */
+	private static final String AUTHOR = "Daniel Ricci";
+
+	/**
+	 * The default size of the transposition table in megabytes
+	 */
+	private static final int DEFAULT_TABLE_SIZE = 16;
+
+	/**
+	 * The largest transposition table that can be requested in megabytes
+	 */
+	private static final int MAX_TABLE_SIZE = 4096;
+
+	/**
+	 * The largest number of lines that can be requested
+	 */
+	private static final int MAX_LINES = 64;
+
+	/**
+	 * The stream the answers are written to
+	 */
+	private final PrintStream _output;
+
+	/**
+	 * The switches of the selective search techniques
+	 */
+	private final SearchSettings _settings = new SearchSettings();
+
+	/**
+	 * The time manager of the searches played with a clock
+	 */
+	private final TimeManager _timeManager = new TimeManager();
+
+	/**
+	 * The worker running the searches
+	 */
+	private SearchWorker _worker;
+
+	/**
+	 * The position set by the last position command
+	 */
+	private Position _position = Fen.parse(Fen.STARTING_POSITION);
+
+	/**
+	 * The number of lines searched
+	 */
+	private int _lines = 1;
+
+	/**
+	 * Indicates if the moves of the opening book are played
+	 */
+	private boolean _isBookEnabled;
+
+	/**
+	 * Indicates if the neural network is used to evaluate
+	 */
+	private boolean _isNeuralNetworkEnabled;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param output The stream the answers are written to
+	 */
+	public UciApplication(PrintStream output) {
+		_output = output;
+		createWorker(DEFAULT_TABLE_SIZE);
+	}
+
+	/**
+	 * Main entry point of the engine
+	 *
+	 * @param args The arguments passed to the engine, which are not used
+	 *
+	 * @throws IOException If the standard input cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		// The standard output belongs to the protocol, so anything else written to it, such as the
+		// messages of the log, is sent to the standard error instead
+		PrintStream output = System.out;
+		System.setOut(System.err);
+		Tracelog.disableOutputStream(true);
+
+		UciApplication application = new UciApplication(output);
+		BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+		String line;
+		while((line = reader.readLine()) != null) {
+			if(!application.execute(line.trim())) {
+				break;
+			}
+		}
+		application._worker.cancel();
+	}
+
+	/**
+	 * Executes a single command
+	 *
+	 * @param command The command line
+	 *
+	 * @return FALSE if the engine must quit
+	 */
+	public boolean execute(String command) {
+		int end = command.indexOf(' ');
+		String name = end == -1 ? command : command.substring(0, end);
+		String arguments = end == -1 ? "" : command.substring(end + 1).trim();
+		switch(name) {
+		case "uci":
+			send("id name " + NAME);
+			send("id author " + AUTHOR);
+			send("option name Hash type spin default " + DEFAULT_TABLE_SIZE + " min 1 max " + MAX_TABLE_SIZE);
+			send("option name Clear Hash type button");
+			send("option name MultiPV type spin default 1 min 1 max " + MAX_LINES);
+			send("option name Ponder type check default false");
+			send("option name OwnBook type check default false");
+			send("option name UseNNUE type check default false");
+			send("uciok");
+			break;
+		case "isready":
+			send("readyok");
+			break;
+		case "setoption":
+			setOption(arguments);
+			break;
+		case "ucinewgame":
+			_worker.cancel();
+			_worker.getSearch().clear();
+			break;
+		case "position":
+			_worker.cancel();
+			setPosition(arguments);
+			break;
+		case "go":
+			go(arguments);
+			break;
+		case "stop":
+			// The best move must be reported before the next command is read
+			_worker.stop();
+			_worker.join();
+			break;
+		case "ponderhit":
+			_worker.ponderHit();
+			break;
+		case "quit":
+			return false;
+		case "":
+			break;
+		default:
+			send("info string Unknown command " + name);
+			break;
+		}
+		return true;
+	}
+
+	/**
+	 * Creates the worker of the searches, with a new transposition table
+	 *
+	 * @param tableSize The size of the transposition table in megabytes
+	 */
+	private void createWorker(int tableSize) {
+		if(_worker != null) {
+			_worker.cancel();
+		}
+		Search search = new Search(new TranspositionTable(tableSize), _settings);
+		search.setProgressListener(this);
+		if(_isNeuralNetworkEnabled) {
+			search.setEvaluator(new NeuralNetworkEvaluator(NeuralNetwork.instance()));
+		}
+		_worker = new SearchWorker(search);
+	}
+
+	/**
+	 * Executes the setoption command
+	 *
+	 * @param arguments The arguments of the command, such as "name Hash value 64"
+	 */
+	private void setOption(String arguments) {
+		int valueIndex = arguments.indexOf(" value ");
+		String name = (valueIndex == -1 ? arguments : arguments.substring(0, valueIndex)).replaceFirst("^name ", "").trim();
+		String value = valueIndex == -1 ? "" : arguments.substring(valueIndex + 7).trim();
+		try {
+			switch(name.toLowerCase()) {
+			case "hash":
+				createWorker(Math.max(1, Math.min(Integer.parseInt(value), MAX_TABLE_SIZE)));
+				break;
+			case "clear hash":
+				_worker.cancel();
+				_worker.getSearch().getTable().clear();
+				break;
+			case "multipv":
+				_lines = Math.max(1, Math.min(Integer.parseInt(value), MAX_LINES));
+				break;
+			case "ponder":
+				break;
+			case "ownbook":
+				_isBookEnabled = Boolean.parseBoolean(value);
+				if(_isBookEnabled && PolyglotBook.instance() == null) {
+					send("info string No opening book is configured, set the " + PolyglotBook.BOOK_PROPERTY + " property");
+				}
+				break;
+			case "usennue":
+				boolean isEnabled = Boolean.parseBoolean(value);
+				if(isEnabled && NeuralNetwork.instance() == null) {
+					send("info string No neural network is configured, set the " + NeuralNetwork.PATH_PROPERTY + " property");
+					break;
+				}
+				_isNeuralNetworkEnabled = isEnabled;
+				_worker.cancel();
+				_worker.getSearch().setEvaluator(isEnabled ? new NeuralNetworkEvaluator(NeuralNetwork.instance()) : new PawnStructureEvaluator());
+				break;
+			default:
+				send("info string Unknown option " + name);
+				break;
+			}
+		}
+		catch(NumberFormatException exception) {
+			send("info string Invalid value " + value + " for option " + name);
+		}
+	}
+
+	/**
+	 * Executes the position command
+	 *
+	 * @param arguments The arguments of the command, such as "startpos moves e2e4 e7e5"
+	 */
+	private void setPosition(String arguments) {
+		Position position = new Position();
+		int movesIndex = arguments.indexOf("moves");
+		try {
+			if(arguments.startsWith("startpos")) {
+				position.setStartingPosition();
+			}
+			else if(arguments.startsWith("fen ")) {
+				Fen.parse(movesIndex == -1 ? arguments : arguments.substring(0, movesIndex), 4, position);
+			}
+			else {
+				send("info string Invalid position " + arguments);
+				return;
+			}
+		}
+		catch(IllegalArgumentException exception) {
+			send("info string " + exception.getMessage());
+			return;
+		}
+
+		if(movesIndex != -1) {
+			for(String text : arguments.substring(movesIndex + 5).trim().split("\\s+")) {
+				if(text.isEmpty()) {
+					continue;
+				}
+				int move = Move.parse(position, text);
+				if(move == Move.NONE) {
+					send("info string Illegal move " + text);
+					break;
+				}
+				if(position.getHistoryLength() >= Search.MAX_GAME_HISTORY) {
+					position.discardIrreversibleHistory();
+					if(position.getHistoryLength() >= Search.MAX_GAME_HISTORY) {
+						send("info string The game is too long, the moves from " + text + " are ignored");
+						break;
+					}
+				}
+				position.makeMove(move);
+			}
+		}
+		_position = position;
+	}
+
+	/**
+	 * Executes the go command
+	 *
+	 * @param arguments The arguments of the command, such as "wtime 60000 btime 60000 winc 1000 binc 1000"
+	 */
+	private void go(String arguments) {
+		SearchLimits limits = new SearchLimits();
+		limits.lines = _lines;
+		long time = -1;
+		long increment = 0;
+		int movesToGo = 0;
+		boolean isInfinite = false;
+		String[] tokens = arguments.isEmpty() ? new String[0] : arguments.split("\\s+");
+		boolean isWhite = _position.getSideToMove() == Pieces.WHITE;
+		try {
+			for(int i = 0; i < tokens.length; ++i) {
+				switch(tokens[i]) {
+				case "wtime":
+					time = isWhite ? Long.parseLong(tokens[++i]) : time;
+					i += isWhite ? 0 : 1;
+					break;
+				case "btime":
+					time = isWhite ? time : Long.parseLong(tokens[++i]);
+					i += isWhite ? 1 : 0;
+					break;
+				case "winc":
+					increment = isWhite ? Long.parseLong(tokens[++i]) : increment;
+					i += isWhite ? 0 : 1;
+					break;
+				case "binc":
+					increment = isWhite ? increment : Long.parseLong(tokens[++i]);
+					i += isWhite ? 1 : 0;
+					break;
+				case "movestogo":
+					movesToGo = Integer.parseInt(tokens[++i]);
+					break;
+				case "movetime":
+					limits.time = Long.parseLong(tokens[++i]);
+					break;
+				case "depth":
+					limits.depth = Math.max(1, Math.min(Integer.parseInt(tokens[++i]), Search.MAX_PLY - 1));
+					break;
+				case "nodes":
+					limits.nodes = Long.parseLong(tokens[++i]);
+					break;
+				case "infinite":
+					isInfinite = true;
+					break;
+				case "ponder":
+					limits.ponder = true;
+					break;
+				default:
+					break;
+				}
+			}
+		}
+		catch(NumberFormatException | ArrayIndexOutOfBoundsException exception) {
+			send("info string Invalid go command " + arguments);
+			return;
+		}
+
+		// A move of the opening book is played at once
+		PolyglotBook book = PolyglotBook.instance();
+		int bookMove = _isBookEnabled && !isInfinite && !limits.ponder && book != null ? book.getMove(_position) : Move.NONE;
+		if(bookMove != Move.NONE) {
+			_worker.cancel();
+			send("bestmove " + Move.toString(bookMove));
+			return;
+		}
+
+		// The previous search reads the time manager until it has finished, so it is cancelled before the time is allocated again
+		_worker.cancel();
+		if(time >= 0 && limits.time == 0) {
+			_timeManager.start(time, increment, movesToGo, _position);
+			limits.timeManager = _timeManager;
+		}
+
+		// An infinite search holds its result until it is stopped, the same way a ponder search does
+		limits.ponder |= isInfinite;
+		_worker.start(_position, limits, result -> {
+			if(result == null) {
+				send("bestmove 0000");
+			}
+			else {
+				send("bestmove " + Move.toString(result.getBestMove()) + (result.getPonderMove() == Move.NONE ? "" : " ponder " + Move.toString(result.getPonderMove())));
+			}
+		});
+	}
+
+	@Override public void onIterationCompleted(Search search, SearchResult[] lines) {
+		SearchStatistics statistics = search.getStatistics();
+		long elapsed = search.getElapsedTime();
+		for(int i = 0; i < lines.length; ++i) {
+			SearchResult line = lines[i];
+			StringBuilder builder = new StringBuilder("info");
+			builder.append(" depth ").append(line.depth);
+			builder.append(" seldepth ").append(Math.max(line.depth, statistics.selectiveDepth));
+			builder.append(" multipv ").append(i + 1);
+			builder.append(" score ").append(getScore(line.score));
+			builder.append(" nodes ").append(statistics.nodes);
+			builder.append(" nps ").append(statistics.nodes * 1000 / Math.max(1, elapsed));
+			builder.append(" hashfull ").append(search.getTable().getFill());
+			builder.append(" tbhits ").append(statistics.tablebaseHits);
+			builder.append(" time ").append(elapsed);
+			builder.append(" pv");
+			for(int move : line.principalVariation) {
+				builder.append(' ').append(Move.toString(move));
+			}
+			send(builder.toString());
+		}
+	}
+
+	/**
+	 * Formats a score of the search for the protocol
+	 *
+	 * @param score The score from the point of view of the player to move
+	 *
+	 * @return The score in centipawns, or in moves when the score is a forced mate
+	 */
+	private static String getScore(int score) {
+		if(score >= Search.MATE_BOUND) {
+			return "mate " + (Search.MATE - score + 1) / 2;
+		}
+		if(score <= -Search.MATE_BOUND) {
+			return "mate " + -(Search.MATE + score) / 2;
+		}
+		return "cp " + score;
+	}
+
+	/**
+	 * Writes a line to the graphical interface, from either the reading or the searching thread
+	 *
+	 * @param line The line
+	 */
+	private void send(String line) {
+		synchronized(_output) {
+			_output.println(line);
+			_output.flush();
+		}
+	}
+}
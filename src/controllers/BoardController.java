@@ -25,11 +25,17 @@
 package controllers;
 
 import java.awt.Dimension;
+import java.awt.EventQueue;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 
+import javax.swing.JOptionPane;
+
 import engine.api.IModel;
 import engine.communication.internal.signal.ISignalReceiver;
 import engine.communication.internal.signal.arguments.ModelEventArgs;
@@ -40,15 +46,34 @@ import engine.core.factories.ViewFactory;
 import engine.core.mvc.controller.BaseController;
 import engine.utils.io.logging.Tracelog;
 import game.components.BoardComponent;
+import game.components.PositionComponent;
 import game.components.MovementComponent;
 import game.components.MovementComponent.EntityMovements;
 import game.components.MovementComponent.PlayerActions;
+import game.engine.board.Fen;
+import game.engine.board.Move;
+import game.engine.board.MoveGenerator;
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+import game.engine.board.San;
+import game.engine.book.PolyglotBook;
+import game.engine.interfaces.ITablebase;
+import game.engine.journal.MoveJournal;
+import game.engine.search.Search;
+import game.engine.search.SearchLimits;
+import game.engine.search.SearchResult;
+import game.engine.search.SearchSettings;
+import game.engine.search.SearchWorker;
+import game.engine.search.TranspositionTable;
+import game.engine.tablebase.Tablebases;
 import game.entities.concrete.AbstractChessEntity;
 import game.events.EntityEventArgs;
 import generated.DataLookup;
 import models.PlayerModel;
 import models.PlayerModel.PlayerTeam;
 import models.TileModel;
+import resources.Resources;
+import resources.Resources.ResourceKeys;
 import views.BoardView;
 import views.DebuggerView;
 import views.PromotionView;
@@ -67,6 +92,11 @@ import views.PromotionView;
  */
 public final class BoardController extends BaseController {
 
+	/**
+	 * The size of the transposition table used by the hint search in megabytes
+	 */
+	private static final int HINT_TABLE_SIZE = 16;
+
     /**
      * The board component of the board game 
      */
@@ -94,6 +124,26 @@ public final class BoardController extends BaseController {
 	 */
 	private TileModel _previouslySelectedTile;
 	
+	/**
+	 * The piece that the pawn of the move being performed is promoted to, or null to let the player choose
+	 */
+	private DataLookup.DataLayerName _promotion;
+	
+	/**
+	 * The worker that searches the position of the player to move in the background, created when first needed
+	 */
+	private SearchWorker _hintWorker;
+	
+	/**
+	 * The team that plays first when the game starts, black when a position with black to move was set up
+	 */
+	private PlayerTeam _startingTeam = PlayerTeam.WHITE;
+	
+	/**
+	 * The journal of the moves of the running game, or null if the game is not journaled
+	 */
+	private MoveJournal _journal;
+	
 	/**
 	 * Constructs a new instance of this class
 	 * 
@@ -210,6 +260,422 @@ public final class BoardController extends BaseController {
 		return _dimensions;
 	}
 		
+	/**
+     * Gets the list of tiles of the board
+     * 
+     * @return The list of tiles of the board, row by row starting from the top left corner of the board
+     */
+    public List<TileModel> getTiles() {
+    	return _boardComponent.getTiles();
+    }
+    
+    /**
+     * Performs the specified engine move on the board by selecting its tiles, the same way a player would
+     * 
+     * @param move The move of the engine
+     */
+    public void performMove(int move) {
+    	List<TileModel> tiles = _boardComponent.getTiles();
+    	TileModel fromTile = tiles.get(PositionComponent.getTileIndex(Move.from(move)));
+    	TileModel toTile = tiles.get(PositionComponent.getTileIndex(Move.to(move)));
+    	
+    	// Remove any selection that could interfere with the move
+    	clearBoardHighlights();
+    	
+    	_promotion = Move.promotion(move) == 0 ? null : Pieces.toDataLayerName(Move.promotion(move));
+    	fromTile.setSelected(true);
+    	toTile.setSelected(true);
+    	_promotion = null;
+    	
+    	if(fromTile.getEntity() != null) {
+    		Tracelog.log(Level.SEVERE, true, "The board did not accept the move " + Move.toString(move));
+    	}
+    }
+    
+    /**
+     * Sets up the position of the specified Forsyth-Edwards notation on the board
+     * 
+     * @param fen The notation of the position
+     * 
+     * @throws IllegalArgumentException If the notation is not valid, in which case the board is left as it is
+     */
+    public void loadFen(CharSequence fen) {
+    	setPosition(Fen.parse(fen));
+    }
+    
+    /**
+     * Gets the Forsyth-Edwards notation of the position on the board
+     * 
+     * @return The notation of the position, the move counters are not tracked by the board and start over
+     */
+    public String getFen() {
+    	PlayerController playerController = AbstractFactory.getFactory(ControllerFactory.class).get(PlayerController.class);
+    	PlayerTeam team = _isGameRunning ? playerController.getCurrentPlayerTeam() : _startingTeam;
+    	return Fen.toString(PositionComponent.createPosition(_boardComponent.getTiles(), team));
+    }
+    
+    /**
+     * Sets up the specified engine position on the board.  Only the tiles whose piece differs are
+     * changed, and the whole board is updated within a single event of the event dispatching thread
+     * so that it is repainted once rather than once per piece
+     * 
+     * @param position The position
+     */
+    public void setPosition(Position position) {
+    	Position copy = new Position(position);
+    	Runnable update = () -> {
+    		PlayerController playerController = AbstractFactory.getFactory(ControllerFactory.class).get(PlayerController.class);
+    		List<TileModel> tiles = _boardComponent.getTiles();
+    		clearBoardHighlights();
+    		
+    		// The pawn that can be captured en passant stands right past the square it passed over
+    		int enPassent = copy.getEnPassentSquare();
+    		int enPassentPawn = enPassent < 0 ? -1 : copy.getSideToMove() == Pieces.WHITE ? enPassent - 8 : enPassent + 8;
+    		
+    		for(int index = 0; index < tiles.size(); ++index) {
+    			TileModel tile = tiles.get(index);
+    			int square = PositionComponent.getSquare(index);
+    			int piece = copy.getPiece(square);
+    			AbstractChessEntity entity = tile.getEntity();
+    			if(!isSameEntity(entity, copy, square)) {
+    				if(entity != null) {
+    					playerController.getPlayer(entity.getTeam()).removeEntity(entity);
+    				}
+    				entity = null;
+    				if(piece != Pieces.NONE) {
+    					entity = playerController.createEntity(PositionComponent.getTeam(Pieces.color(piece)), Pieces.toDataLayerName(Pieces.type(piece)));
+    					entity.setHasMoved(hasMoved(copy, square));
+    				}
+    				tile.setEntity(entity);
+    			}
+    			if(entity != null) {
+    				entity.setEnPassentCapturable(false);
+    			}
+    		}
+    		if(enPassentPawn >= 0 && tiles.get(PositionComponent.getTileIndex(enPassentPawn)).getEntity() != null) {
+    			tiles.get(PositionComponent.getTileIndex(enPassentPawn)).getEntity().setEnPassentCapturable(true);
+    		}
+    		
+    		// The player to move plays first, or right away when the game is already running
+    		_startingTeam = PositionComponent.getTeam(copy.getSideToMove());
+    		if(_isGameRunning) {
+    			stopHintSearch();
+    			startJournal(copy);
+    			if(playerController.getCurrentPlayerTeam() != _startingTeam) {
+    				playerController.nextPlayer();
+    			}
+    			ComputerController computerController = AbstractFactory.getFactory(ControllerFactory.class).get(ComputerController.class);
+    			if(computerController != null) {
+    				computerController.onTurnChanged();
+    			}
+    			startHintSearch();
+    		}
+    		Tracelog.log(Level.INFO, true, "The board was set up to " + Fen.toString(copy));
+    		refreshDebugger();
+    	};
+    	if(EventQueue.isDispatchThread()) {
+    		update.run();
+    	}
+    	else {
+    		EventQueue.invokeLater(update);
+    	}
+    }
+    
+    /**
+     * Verifies if the entity on a tile already stands for the piece of the specified square.  The moved
+     * state of pawns, kings and rooks must also match, as it decides their double step and castling
+     * 
+     * @param entity The entity on the tile, or null
+     * @param position The position being set up
+     * @param square The square of the tile
+     * 
+     * @return TRUE if the entity can be kept
+     */
+    private static boolean isSameEntity(AbstractChessEntity entity, Position position, int square) {
+    	int piece = position.getPiece(square);
+    	if(entity == null || piece == Pieces.NONE) {
+    		return entity == null && piece == Pieces.NONE;
+    	}
+    	int type = Pieces.fromDataLayerName(entity.getDataLayerName());
+    	if(Pieces.make(PositionComponent.getColor(entity.getTeam()), type) != piece) {
+    		return false;
+    	}
+    	return (type != Pieces.PAWN && type != Pieces.KING && type != Pieces.ROOK) || entity.hasMovedOnce() == hasMoved(position, square);
+    }
+    
+    /**
+     * Infers if the piece of the specified square has moved, which the notation only tells through the
+     * castling rights and the starting rank of the pawns
+     * 
+     * @param position The position
+     * @param square The square of the piece
+     * 
+     * @return TRUE if the piece is considered as moved
+     */
+    private static boolean hasMoved(Position position, int square) {
+    	int piece = position.getPiece(square);
+    	int castling = position.getCastlingRights();
+    	boolean isWhite = Pieces.color(piece) == Pieces.WHITE;
+    	switch(Pieces.type(piece)) {
+    	case Pieces.PAWN:
+    		return square / 8 != (isWhite ? 1 : 6);
+    	case Pieces.KING:
+    		return square != (isWhite ? 4 : 60) || (castling & (isWhite ? Position.CASTLE_WHITE_KING | Position.CASTLE_WHITE_QUEEN : Position.CASTLE_BLACK_KING | Position.CASTLE_BLACK_QUEEN)) == 0;
+    	case Pieces.ROOK:
+    		if(square == (isWhite ? 7 : 63)) {
+    			return (castling & (isWhite ? Position.CASTLE_WHITE_KING : Position.CASTLE_BLACK_KING)) == 0;
+    		}
+    		if(square == (isWhite ? 0 : 56)) {
+    			return (castling & (isWhite ? Position.CASTLE_WHITE_QUEEN : Position.CASTLE_BLACK_QUEEN)) == 0;
+    		}
+    		return true;
+    	default:
+    		return false;
+    	}
+    }
+    
+    /**
+     * Indicates if the player to move is played by the computer
+     * 
+     * @return TRUE if the computer is to move
+     */
+    public boolean isComputerTurn() {
+    	ComputerController computerController = AbstractFactory.getFactory(ControllerFactory.class).get(ComputerController.class);
+    	PlayerController playerController = AbstractFactory.getFactory(ControllerFactory.class).get(PlayerController.class);
+    	return computerController != null && computerController.isComputer(playerController.getCurrentPlayerTeam());
+    }
+    
+    /**
+     * Ends the game if the endgame tablebases hold the result of the position on the board
+     * 
+     * @param team The team of the player to move
+     */
+    private void adjudicate(PlayerTeam team) {
+    	ITablebase tablebase = Tablebases.getDefault();
+    	if(tablebase == null) {
+    		return;
+    	}
+    	
+    	Position position = PositionComponent.createPosition(_boardComponent.getTiles(), team);
+    	int wdl = tablebase.probeWdl(position);
+    	if(wdl == ITablebase.UNKNOWN) {
+    		return;
+    	}
+    	
+    	// The fifty move rule turns the cursed wins and the blessed losses into draws
+    	String message;
+    	if(wdl == ITablebase.WIN || wdl == ITablebase.LOSS) {
+    		PlayerTeam winner = wdl == ITablebase.WIN ? team : team == PlayerTeam.WHITE ? PlayerTeam.BLACK : PlayerTeam.WHITE;
+    		message = String.format(Resources.instance().getLocalizedString(ResourceKeys.TablebaseWin), winner);
+    	}
+    	else {
+    		message = Resources.instance().getLocalizedString(ResourceKeys.TablebaseDraw);
+    	}
+    	
+    	stopGame();
+    	Tracelog.log(Level.INFO, true, message);
+    	EventQueue.invokeLater(() -> JOptionPane.showMessageDialog(null, message, Resources.instance().getLocalizedString(ResourceKeys.Title), JOptionPane.INFORMATION_MESSAGE));
+    }
+    
+    /**
+     * Highlights the tiles of the move suggested to the current player.  The move of the opening book
+     * is preferred, otherwise the best move of the search running in the background since the turn
+     * started is used, so the hint is given at once
+     * 
+     * @return TRUE if a hint was shown
+     */
+    public boolean showHint() {
+    	if(!_isGameRunning || isComputerTurn()) {
+    		return false;
+    	}
+    	
+    	PlayerController playerController = AbstractFactory.getFactory(ControllerFactory.class).get(PlayerController.class);
+    	Position position = PositionComponent.createPosition(_boardComponent.getTiles(), playerController.getCurrentPlayerTeam());
+    	PolyglotBook book = PolyglotBook.instance();
+    	int move = book == null ? Move.NONE : book.getBestMove(position);
+    	if(move != Move.NONE) {
+    		Tracelog.log(Level.INFO, true, "The opening book suggests " + San.toString(position, move));
+    		highlightMove(move);
+    		return true;
+    	}
+    	
+    	// The last result may still belong to the previous turn if the search of this turn has not started yet
+    	SearchResult result = _hintWorker == null ? null : _hintWorker.getSearch().getLastResult();
+    	move = result == null ? Move.NONE : result.getBestMove();
+    	if(move == Move.NONE || !isLegal(position, move)) {
+    		Tracelog.log(Level.INFO, true, "The hint is not ready yet");
+    		return false;
+    	}
+    	
+    	Tracelog.log(Level.INFO, true, "The engine suggests " + San.toString(position, move) + " at depth " + result.depth);
+    	highlightMove(move);
+    	return true;
+    }
+    
+    /**
+     * Highlights the from and to tiles of the specified move.  The previous highlights are cleared and
+     * the tiles are highlighted within a single event of the event dispatching thread, so the board is
+     * repainted once for the whole update
+     * 
+     * @param move The encoded move
+     */
+    private void highlightMove(int move) {
+    	List<TileModel> tiles = _boardComponent.getTiles();
+    	Runnable update = () -> {
+    		clearBoardHighlights();
+    		tiles.get(PositionComponent.getTileIndex(Move.from(move))).setHighlighted(true);
+    		tiles.get(PositionComponent.getTileIndex(Move.to(move))).setHighlighted(true);
+    	};
+    	if(EventQueue.isDispatchThread()) {
+    		update.run();
+    	}
+    	else {
+    		EventQueue.invokeLater(update);
+    	}
+    }
+    
+    /**
+     * Verifies if the specified move is a legal move of the specified position
+     * 
+     * @param position The position
+     * @param move The encoded move
+     * 
+     * @return TRUE if the move is legal
+     */
+    private static boolean isLegal(Position position, int move) {
+    	int[] moves = new int[MoveGenerator.MAX_MOVES];
+    	int count = MoveGenerator.generateLegal(position, moves);
+    	for(int i = 0; i < count; ++i) {
+    		if(moves[i] == move) {
+    			return true;
+    		}
+    	}
+    	return false;
+    }
+    
+    /**
+     * Starts searching the position of the player to move in the background so that a hint is ready when
+     * requested.  Nothing is searched on the turn of the computer, which runs its own search
+     */
+    private void startHintSearch() {
+    	if(!_isGameRunning || isComputerTurn()) {
+    		return;
+    	}
+    	if(_hintWorker == null) {
+    		_hintWorker = new SearchWorker(new Search(new TranspositionTable(HINT_TABLE_SIZE), new SearchSettings()));
+    	}
+    	PlayerController playerController = AbstractFactory.getFactory(ControllerFactory.class).get(PlayerController.class);
+    	_hintWorker.start(PositionComponent.createPosition(_boardComponent.getTiles(), playerController.getCurrentPlayerTeam()), new SearchLimits(), result -> {});
+    }
+    
+    /**
+     * Cancels the background search of the hint, if any
+     */
+    private void stopHintSearch() {
+    	if(_hintWorker != null) {
+    		_hintWorker.cancel();
+    	}
+    }
+    
+    /**
+     * Offers to continue the game of the journal that was not finished, whose position is then set up on
+     * the board.  A game that is not continued has its journal removed
+     */
+    private void restoreJournal() {
+    	Path file = MoveJournal.findInterrupted(MoveJournal.getDirectory());
+    	if(file == null) {
+    		return;
+    	}
+    	try {
+    		int option = JOptionPane.showConfirmDialog(null, Resources.instance().getLocalizedString(ResourceKeys.RestoreGame), Resources.instance().getLocalizedString(ResourceKeys.Title), JOptionPane.YES_NO_OPTION);
+    		if(option != JOptionPane.YES_OPTION) {
+    			Files.deleteIfExists(file);
+    			return;
+    		}
+    		MoveJournal journal = MoveJournal.restore(file);
+    		setPosition(journal.getPosition());
+    		_journal = journal;
+    		Tracelog.log(Level.INFO, true, "Restored " + journal.getMoveCount() + " moves of the game journaled in " + file);
+    	}
+    	catch(IOException exception) {
+    		Tracelog.log(Level.SEVERE, true, exception);
+    	}
+    }
+    
+    /**
+     * Starts a new journal for the running game, replacing the journal of the game if it had one
+     * 
+     * @param position The position the game is journaled from
+     */
+    private void startJournal(Position position) {
+    	endJournal();
+    	Path directory = MoveJournal.getDirectory();
+    	if(directory == null) {
+    		return;
+    	}
+    	try {
+    		_journal = MoveJournal.create(directory, position);
+    	}
+    	catch(IOException exception) {
+    		Tracelog.log(Level.SEVERE, true, exception);
+    	}
+    }
+    
+    /**
+     * Removes the journal of the game, which does not need to be restored once the game is over
+     */
+    private void endJournal() {
+    	if(_journal == null) {
+    		return;
+    	}
+    	try {
+    		_journal.delete();
+    	}
+    	catch(IOException exception) {
+    		Tracelog.log(Level.SEVERE, true, exception);
+    	}
+    	_journal = null;
+    }
+    
+    /**
+     * Appends the move that was just played on the board to the journal.  The move is found among the
+     * legal moves of the journal, and the journal starts over from the board when the board was changed
+     * in a way that no legal move explains
+     */
+    private void journalMove() {
+    	if(_journal == null) {
+    		return;
+    	}
+    	PlayerController playerController = AbstractFactory.getFactory(ControllerFactory.class).get(PlayerController.class);
+    	PlayerTeam team = playerController.getCurrentPlayerTeam() == PlayerTeam.WHITE ? PlayerTeam.BLACK : PlayerTeam.WHITE;
+    	List<TileModel> tiles = _boardComponent.getTiles();
+    	
+    	Position position = new Position(_journal.getPosition());
+    	int[] moves = new int[MoveGenerator.MAX_MOVES];
+    	int count = MoveGenerator.generateLegal(position, moves);
+    	for(int i = 0; i < count; ++i) {
+    		position.makeMove(moves[i]);
+    		if(PositionComponent.isSamePlacement(position, tiles)) {
+    			if(_journal.isFull()) {
+    				startJournal(position);
+    				return;
+    			}
+    			try {
+    				_journal.append(moves[i]);
+    			}
+    			catch(IOException exception) {
+    				Tracelog.log(Level.SEVERE, true, exception);
+    				endJournal();
+    			}
+    			return;
+    		}
+    		position.unmakeMove(moves[i]);
+    	}
+    	
+    	Tracelog.log(Level.WARNING, true, "The move played is not a legal move of the journal, the journal starts over from the board");
+    	startJournal(PositionComponent.createPosition(tiles, team));
+    }
+    
 	/**
      * @return The previously selected tile
      */
@@ -228,11 +694,41 @@ public final class BoardController extends BaseController {
      * Starts the board game
      */
     public void startGame() {
+    	// A game that was interrupted is offered to be continued before anything else is set up
+    	if(_journal == null) {
+    		restoreJournal();
+    	}
+    	
     	_isGameRunning = true;
     	Tracelog.log(Level.INFO, true, "The game is now starting");
     	
     	PlayerController playerController = AbstractFactory.getFactory(ControllerFactory.class).get(PlayerController.class, true); 
     	playerController.queuePlayers();
+    	if(playerController.getCurrentPlayerTeam() != _startingTeam) {
+    		playerController.nextPlayer();
+    	}
+    	
+    	// Let the computer know that the game has started in case it plays first
+    	ComputerController computerController = AbstractFactory.getFactory(ControllerFactory.class).get(ComputerController.class);
+    	if(computerController != null) {
+    		computerController.onTurnChanged();
+    	}
+    	
+    	if(_journal == null) {
+    		startJournal(PositionComponent.createPosition(_boardComponent.getTiles(), _startingTeam));
+    	}
+    	startHintSearch();
+    	refreshDebugger();
+    }
+    
+    /**
+     * Lets the debugger know that the position on the board changed, so that its opening explorer follows the board
+     */
+    private void refreshDebugger() {
+    	DebuggerSettingsController debuggerSettingsController = AbstractFactory.getFactory(ControllerFactory.class).get(DebuggerSettingsController.class);
+    	if(debuggerSettingsController != null) {
+    		debuggerSettingsController.onBoardChanged();
+    	}
     }
 
     /**
@@ -240,6 +736,8 @@ public final class BoardController extends BaseController {
      */
     public void stopGame() {
     	_isGameRunning = false;
+    	stopHintSearch();
+    	endJournal();
     	Tracelog.log(Level.INFO, true, "The game is now stopped");
     }
     
@@ -459,15 +957,30 @@ public final class BoardController extends BaseController {
 				
 				if(isSuccessful && currentMovement.isMoveFinal) {
 				
+					// The hint of the position that was just left is no longer needed
+					stopHintSearch();
+					
 					// If the tile has reached the end of the board then display the promotion view
 					if(currentlySelectedTile.getEntity().isPromotable() && !_boardComponent.canMoveForward(currentlySelectedTile)) {
-						PromotionView view = AbstractFactory.getFactory(ViewFactory.class).get(PromotionView.class, true);
-						view.getViewProperties().getEntity(PromotionController.class).setTile(currentlySelectedTile);
-						view.render();
+						if(_promotion != null) {
+							// The piece was chosen ahead of time, replace the pawn without asking
+							PlayerController playerController = AbstractFactory.getFactory(ControllerFactory.class).get(PlayerController.class, true);
+							AbstractChessEntity pawn = currentlySelectedTile.getEntity();
+							playerController.getPlayer(pawn.getTeam()).removeEntity(pawn);
+							currentlySelectedTile.setEntity(playerController.createEntity(pawn.getTeam(), _promotion));
+						}
+						else {
+							PromotionView view = AbstractFactory.getFactory(ViewFactory.class).get(PromotionView.class, true);
+							view.getViewProperties().getEntity(PromotionController.class).setTile(currentlySelectedTile);
+							view.render();
+						}
 					}
 					
 				    // Indicate that the tile has moved at least once
 				    currentlySelectedTile.getEntity().setHasMoved(true);
+				    
+				    // Journal the move so that the game can be restored if the application ends before the game does
+				    journalMove();
 
 				    // Set the player action of the event to be sent out
 					entityEventArgs.playerAction = currentMovement;
@@ -546,11 +1059,34 @@ public final class BoardController extends BaseController {
                     
 					// Switch to the next player in turn
 					playerController.nextPlayer();
+					
+					// Settle the game at once if the endgame tablebases know its result
+					if(_isGameRunning) {
+						adjudicate(playerController.getCurrentPlayerTeam());
+					}
+					
+					// Let the computer know that the turn has changed
+					ComputerController computerController = AbstractFactory.getFactory(ControllerFactory.class).get(ComputerController.class);
+					if(computerController != null) {
+						computerController.onTurnChanged();
+					}
+					
+					// Prepare the hint of the player now to move
+					startHintSearch();
+					refreshDebugger();
 				}
 				
 				// Register back this listener
 				registerSignalListener(listenerIdentifier, this);
 			}			
 		});
-	}	
-}
\ No newline at end of file
+	}
+    
+    @Override public boolean flush() {
+    	stopHintSearch();
+    	
+    	// The game is abandoned on purpose, so its journal is removed and only a game that was interrupted can be restored
+    	endJournal();
+    	return super.flush();
+    }
+}
@@ -0,0 +1,395 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package controllers;
+
+import java.awt.EventQueue;
+import java.util.List;
+import java.util.logging.Level;
+
+import engine.core.factories.AbstractFactory;
+import engine.core.factories.ControllerFactory;
+import engine.core.mvc.controller.BaseController;
+import engine.utils.io.logging.Tracelog;
+import game.components.PositionComponent;
+import game.engine.book.PolyglotBook;
+import game.engine.board.Move;
+import game.engine.board.MoveGenerator;
+import game.engine.board.Position;
+import game.engine.search.Search;
+import game.engine.search.SearchLimits;
+import game.engine.search.SearchResult;
+import game.engine.search.SearchSettings;
+import game.engine.search.SearchWorker;
+import game.engine.search.TimeManager;
+import game.engine.search.TranspositionTable;
+import models.PlayerModel.PlayerTeam;
+import models.TileModel;
+
+/**
+ * This controller plays the moves of the computer player.
+ * 
+ * The engine searches on a background thread and plays its move through the board controller as
+ * if the tiles had been selected.  Once it has played, the engine keeps searching on the reply that
+ * it predicts from the human player, and if that reply is played the search carries on as the real
+ * search with its transposition table already filled
+ * 
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class ComputerController extends BaseController {
+
+	/**
+	 * The default time on the clock of the computer in milliseconds
+	 */
+	public static final long DEFAULT_TIME = 5 * 60 * 1000;
+
+	/**
+	 * The default time added to the clock of the computer after each move in milliseconds
+	 */
+	public static final long DEFAULT_INCREMENT = 2000;
+
+	/**
+	 * The size of the transposition table in megabytes
+	 */
+	private static final int TABLE_SIZE = 64;
+
+	/**
+	 * The transposition table of the engine, kept across the moves of the game
+	 */
+	private final TranspositionTable _table = new TranspositionTable(TABLE_SIZE);
+
+	/**
+	 * The worker running the searches of the engine
+	 */
+	private final SearchWorker _worker = new SearchWorker(new Search(_table, new SearchSettings()));
+
+	/**
+	 * The time manager of the engine
+	 */
+	private final TimeManager _timeManager = new TimeManager();
+
+	/**
+	 * The position of the game, including the moves played so that repetitions are detected
+	 */
+	private final Position _gamePosition = new Position();
+
+	/**
+	 * Indicates if the position of the game has been created from the board
+	 */
+	private boolean _isPositionSynchronized;
+
+	/**
+	 * The team played by the computer
+	 */
+	private PlayerTeam _team = PlayerTeam.BLACK;
+
+	/**
+	 * The time left on the clock of the computer in milliseconds
+	 */
+	private long _remainingTime = DEFAULT_TIME;
+
+	/**
+	 * The time added to the clock of the computer after each move in milliseconds
+	 */
+	private long _increment = DEFAULT_INCREMENT;
+
+	/**
+	 * The time at which the computer started thinking about its current move
+	 */
+	private long _thinkingStartTime;
+
+	/**
+	 * Indicates if the engine searches while the human player is thinking
+	 */
+	private boolean _isPonderEnabled = true;
+
+	/**
+	 * Indicates if the engine plays the moves of the opening book when there are any
+	 */
+	private boolean _isBookEnabled = true;
+
+	/**
+	 * Indicates if the current search is a ponder search
+	 */
+	private boolean _isPondering;
+
+	/**
+	 * The hash of the position being pondered on
+	 */
+	private long _ponderKey;
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	public ComputerController() {
+		super(null);
+	}
+
+	/**
+	 * Sets the team played by the computer
+	 * 
+	 * @param team The team
+	 */
+	public void setTeam(PlayerTeam team) {
+		_team = team;
+	}
+
+	/**
+	 * @return The team played by the computer
+	 */
+	public PlayerTeam getTeam() {
+		return _team;
+	}
+
+	/**
+	 * Sets the time control of the computer
+	 * 
+	 * @param time The time on the clock in milliseconds
+	 * @param increment The time added to the clock after each move in milliseconds
+	 */
+	public void setTimeControl(long time, long increment) {
+		_remainingTime = time;
+		_increment = increment;
+	}
+
+	/**
+	 * @return The time left on the clock of the computer in milliseconds
+	 */
+	public long getRemainingTime() {
+		return _remainingTime;
+	}
+
+	/**
+	 * Sets if the engine plays the moves of the opening book
+	 * 
+	 * @param isBookEnabled If the opening book is enabled
+	 */
+	public void setBookEnabled(boolean isBookEnabled) {
+		_isBookEnabled = isBookEnabled;
+	}
+
+	/**
+	 * Sets if the engine searches while the human player is thinking
+	 * 
+	 * @param isPonderEnabled If pondering is enabled
+	 */
+	public void setPonderEnabled(boolean isPonderEnabled) {
+		_isPonderEnabled = isPonderEnabled;
+		if(!isPonderEnabled && _isPondering) {
+			_worker.cancel();
+			_isPondering = false;
+		}
+	}
+
+	/**
+	 * @return The search of the engine
+	 */
+	public Search getSearch() {
+		return _worker.getSearch();
+	}
+
+	/**
+	 * @return The transposition table of the engine
+	 */
+	public TranspositionTable getTable() {
+		return _table;
+	}
+
+	/**
+	 * Indicates if the specified team is played by the computer
+	 * 
+	 * @param team The team
+	 * 
+	 * @return TRUE if the team is played by the computer
+	 */
+	public boolean isComputer(PlayerTeam team) {
+		return team == _team;
+	}
+
+	/**
+	 * Notifies the computer that the turn has changed, either because the game started or because a
+	 * move was played on the board
+	 */
+	public void onTurnChanged() {
+		BoardController boardController = AbstractFactory.getFactory(ControllerFactory.class).get(BoardController.class);
+		PlayerController playerController = AbstractFactory.getFactory(ControllerFactory.class).get(PlayerController.class);
+		PlayerTeam team = playerController.getCurrentPlayerTeam();
+
+		synchronizePosition(boardController.getTiles(), team);
+
+		if(!boardController.isGameRunning()) {
+			_worker.cancel();
+			_isPondering = false;
+			return;
+		}
+
+		// The ponder search continues while it is the turn of the human player
+		if(team != _team) {
+			return;
+		}
+
+		_thinkingStartTime = System.currentTimeMillis();
+		if(_isPondering && _ponderKey == _gamePosition.getKey()) {
+			Tracelog.log(Level.INFO, true, "The computer predicted the move that was played and continues its search");
+			_isPondering = false;
+			_worker.ponderHit();
+		}
+		else {
+			_isPondering = false;
+
+			// A move of the opening book is played instantly without searching
+			PolyglotBook book = PolyglotBook.instance();
+			int bookMove = _isBookEnabled && book != null ? book.getMove(_gamePosition) : Move.NONE;
+			if(bookMove != Move.NONE) {
+				_worker.cancel();
+				long key = _gamePosition.getKey();
+				SearchResult result = new SearchResult(0, 0, new int[] { bookMove });
+				Tracelog.log(Level.INFO, true, "The computer plays " + Move.toString(bookMove) + " from its opening book");
+				EventQueue.invokeLater(() -> onSearchCompleted(result, key));
+				return;
+			}
+
+			// The previous search reads the time manager until it has finished, so it is cancelled before the time is allocated again
+			_worker.cancel();
+			_timeManager.start(_remainingTime, _increment, 0, _gamePosition);
+			SearchLimits limits = new SearchLimits();
+			limits.timeManager = _timeManager;
+			startSearch(_gamePosition, limits);
+		}
+	}
+
+	/**
+	 * Starts a search in the background and plays its result once it completes
+	 * 
+	 * @param position The position to search
+	 * @param limits The limits of the search
+	 */
+	private void startSearch(Position position, SearchLimits limits) {
+		// The key of the position that will be reached if the search is played, used to discard stale results
+		long key = position.getKey();
+		_worker.start(position, limits, result -> EventQueue.invokeLater(() -> onSearchCompleted(result, key)));
+	}
+
+	/**
+	 * Plays the result of a search on the board
+	 * 
+	 * @param result The result of the search
+	 * @param key The hash of the position that was searched
+	 */
+	private void onSearchCompleted(SearchResult result, long key) {
+		BoardController boardController = AbstractFactory.getFactory(ControllerFactory.class).get(BoardController.class);
+		PlayerController playerController = AbstractFactory.getFactory(ControllerFactory.class).get(PlayerController.class);
+		if(boardController == null || !boardController.isGameRunning() || playerController.getCurrentPlayerTeam() != _team || key != _gamePosition.getKey()) {
+			return;
+		}
+		if(result == null) {
+			Tracelog.log(Level.WARNING, true, "The computer has no legal move to play");
+			return;
+		}
+
+		// Update the clock of the computer
+		_remainingTime = Math.max(0, _remainingTime - (System.currentTimeMillis() - _thinkingStartTime)) + _increment;
+		Tracelog.log(Level.INFO, true, "The computer plays " + result);
+
+		// Playing the move changes the turn, which synchronizes the position of the game with the board
+		boardController.performMove(result.getBestMove());
+
+		startPondering(result.getPonderMove());
+	}
+
+	/**
+	 * Starts searching on the predicted reply of the human player
+	 * 
+	 * @param ponderMove The predicted reply
+	 */
+	private void startPondering(int ponderMove) {
+		BoardController boardController = AbstractFactory.getFactory(ControllerFactory.class).get(BoardController.class);
+		if(!_isPonderEnabled || ponderMove == Move.NONE || !boardController.isGameRunning()) {
+			return;
+		}
+
+		Position position = new Position(_gamePosition);
+		if(!MoveGenerator.isPseudoLegal(position, ponderMove)) {
+			return;
+		}
+		position.makeMove(ponderMove);
+		if(!position.wasLegal()) {
+			return;
+		}
+
+		// The time is allocated now so that the search can measure its stability, the clock only starts on a ponder hit
+		_worker.cancel();
+		_timeManager.start(_remainingTime, _increment, 0, position);
+		SearchLimits limits = new SearchLimits();
+		limits.timeManager = _timeManager;
+		limits.ponder = true;
+		_ponderKey = position.getKey();
+		_isPondering = true;
+		startSearch(position, limits);
+		Tracelog.log(Level.INFO, true, "The computer is pondering on " + Move.toString(ponderMove));
+	}
+
+	/**
+	 * Synchronizes the position of the game with the board.  The move that was played is found among
+	 * the legal moves of the previous position so that the history of the game is kept, otherwise the
+	 * position is recreated from the board.  The moves before the last irreversible one are dropped
+	 * once the history fills up, so that the search always has room for its own moves
+	 * 
+	 * @param tiles The tiles of the board
+	 * @param team The team of the player to move
+	 */
+	private void synchronizePosition(List<TileModel> tiles, PlayerTeam team) {
+		if(_isPositionSynchronized && _gamePosition.getHistoryLength() >= Search.MAX_GAME_HISTORY) {
+			_gamePosition.discardIrreversibleHistory();
+			if(_gamePosition.getHistoryLength() >= Search.MAX_GAME_HISTORY) {
+				Tracelog.log(Level.WARNING, true, "The game is too long to keep its history, the position is recreated from the board");
+				_isPositionSynchronized = false;
+			}
+		}
+		if(_isPositionSynchronized && _gamePosition.getSideToMove() != PositionComponent.getColor(team)) {
+			int[] moves = new int[MoveGenerator.MAX_MOVES];
+			int count = MoveGenerator.generateLegal(_gamePosition, moves);
+			for(int i = 0; i < count; ++i) {
+				_gamePosition.makeMove(moves[i]);
+				if(PositionComponent.isSamePlacement(_gamePosition, tiles)) {
+					return;
+				}
+				_gamePosition.unmakeMove(moves[i]);
+			}
+		}
+		else if(_isPositionSynchronized && PositionComponent.isSamePlacement(_gamePosition, tiles)) {
+			return;
+		}
+
+		_gamePosition.copyFrom(PositionComponent.createPosition(tiles, team));
+		_isPositionSynchronized = true;
+	}
+
+	@Override public boolean flush() {
+		_worker.cancel();
+		_isPondering = false;
+		return super.flush();
+	}
+}
@@ -24,14 +24,36 @@
 
 package controllers;
 
+import java.awt.Component;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.logging.Level;
 
 import javax.swing.DefaultComboBoxModel;
+import javax.swing.JOptionPane;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
 
 import engine.core.factories.AbstractFactory;
 import engine.core.factories.ControllerFactory;
 import engine.core.mvc.controller.BaseController;
+import engine.utils.io.logging.Tracelog;
+import game.components.PositionComponent;
+import game.engine.archive.OpeningTree;
+import game.engine.archive.PositionIndex;
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+import game.engine.evaluation.NeuralNetwork;
+import game.engine.evaluation.NeuralNetworkEvaluator;
+import game.engine.evaluation.PawnStructureEvaluator;
+import game.engine.interfaces.IEvaluator;
+import game.engine.search.Search;
+import game.engine.search.SearchLimits;
+import game.engine.search.SearchResult;
+import game.engine.search.SearchSettings;
+import game.engine.search.SearchWorker;
+import game.engine.search.TranspositionTable;
+import game.engine.pgn.PgnGame;
 import game.entities.concrete.AbstractChessEntity;
 import generated.DataLookup;
 import generated.DataLookup.DataLayerName;
@@ -48,6 +70,31 @@ import views.DebuggerSettingsView;
  */
 public final class DebuggerSettingsController extends BaseController {
 	
+	/**
+	 * The size of the transposition table used by the analysis in megabytes
+	 */
+	private static final int ANALYSIS_TABLE_SIZE = 16;
+
+	/**
+	 * The maximum number of lines that the analysis can report
+	 */
+	public static final int MAX_ANALYSIS_LINES = 8;
+
+	/**
+	 * The maximum number of games listed when looking up the games of the board
+	 */
+	private static final int MAX_LISTED_GAMES = 100;
+
+	/**
+	 * The number of rows of the text of an opened game
+	 */
+	private static final int GAME_ROWS = 20;
+
+	/**
+	 * The number of columns of the text of an opened game
+	 */
+	private static final int GAME_COLUMNS = 60;
+	
     /**
      * The memory mappings for keeping track of the last saved debugger state
      */
@@ -63,6 +110,16 @@ public final class DebuggerSettingsController extends BaseController {
 	 */
 	public final DefaultComboBoxModel<PlayerTeam> _teamCollection = new DefaultComboBoxModel(PlayerModel.PlayerTeam.values());
 
+	/**
+	 * The worker that analyzes the board in the background
+	 */
+	private final SearchWorker _analysisWorker = new SearchWorker(new Search(new TranspositionTable(ANALYSIS_TABLE_SIZE), new SearchSettings()));
+
+	/**
+	 * The number of best moves reported by the analysis
+	 */
+	private int _analysisLines = 1;
+
 	/**
 	 * Constructs a new instance of this class type
 	 * 
@@ -115,6 +172,211 @@ public final class DebuggerSettingsController extends BaseController {
 		return selectedItem != null && selectedItem instanceof PlayerTeam ? (PlayerTeam)selectedItem : null;
 	}
 	   
+	/**
+	 * @return The search used to analyze the board
+	 */
+	public Search getAnalysisSearch() {
+		return _analysisWorker.getSearch();
+	}
+	
+	/**
+	 * Sets the number of best moves reported by the analysis, taking effect when the next analysis starts
+	 * 
+	 * @param lines The number of lines, between one and {@link #MAX_ANALYSIS_LINES}
+	 */
+	public void setAnalysisLines(int lines) {
+		_analysisLines = Math.max(1, Math.min(lines, MAX_ANALYSIS_LINES));
+	}
+
+	/**
+	 * @return TRUE if a neural network is configured and can be used to evaluate
+	 */
+	public boolean isNeuralNetworkAvailable() {
+		return NeuralNetwork.instance() != null;
+	}
+
+	/**
+	 * Switches the evaluator of the analysis and of the computer player between the neural network
+	 * and the hand-written evaluation.  The switch takes effect from the next search
+	 *
+	 * @param enabled If the neural network should be used
+	 */
+	public void setNeuralNetworkEnabled(boolean enabled) {
+		NeuralNetwork network = NeuralNetwork.instance();
+		if(enabled && network == null) {
+			Tracelog.log(Level.WARNING, true, "No neural network is configured, set the " + NeuralNetwork.PATH_PROPERTY + " property to a weights file");
+			return;
+		}
+		getAnalysisSearch().setEvaluator(createEvaluator(enabled ? network : null));
+		ComputerController computerController = AbstractFactory.getFactory(ControllerFactory.class).get(ComputerController.class);
+		if(computerController != null) {
+			computerController.getSearch().setEvaluator(createEvaluator(enabled ? network : null));
+		}
+		Tracelog.log(Level.INFO, true, "Evaluating with the " + (enabled ? "neural network" : "hand-written evaluation"));
+	}
+
+	/**
+	 * Creates an evaluator, each search needs its own as the evaluators are not thread safe
+	 *
+	 * @param network The network to evaluate with, or null for the hand-written evaluation
+	 *
+	 * @return The evaluator
+	 */
+	private static IEvaluator createEvaluator(NeuralNetwork network) {
+		return network != null ? new NeuralNetworkEvaluator(network) : new PawnStructureEvaluator();
+	}
+
+	/**
+	 * Starts analyzing the pieces on the board until {@link #stopAnalysis()} is called
+	 * 
+	 * @param team The team of the player to move
+	 * 
+	 * @return TRUE if the analysis started, FALSE if the board is not a valid position
+	 */
+	public boolean startAnalysis(PlayerTeam team) {
+		BoardController boardController = AbstractFactory.getFactory(ControllerFactory.class).get(BoardController.class);
+		Position position = PositionComponent.createPosition(boardController.getTiles(), team);
+		if(position.getKingSquare(Pieces.WHITE) == -1 || position.getKingSquare(Pieces.BLACK) == -1) {
+			Tracelog.log(Level.WARNING, true, "Cannot analyze a board where a player does not have a king");
+			return false;
+		}
+		SearchLimits limits = new SearchLimits();
+		limits.lines = _analysisLines;
+		_analysisWorker.start(position, limits, result -> {
+			for(SearchResult line : _analysisWorker.getSearch().getLines()) {
+				Tracelog.log(Level.INFO, true, "Analysis stopped at " + line);
+			}
+		});
+		return true;
+	}
+	
+	/**
+	 * Displays the games of the position index that reached the position on the board
+	 */
+	public void findGames() {
+		PositionIndex index = PositionIndex.instance();
+		if(index == null) {
+			Tracelog.log(Level.WARNING, true, "No position index is configured, set the " + PositionIndex.ARCHIVE_PROPERTY + " property to a game archive");
+			return;
+		}
+		showGames(index);
+	}
+	
+	/**
+	 * Opens a game of the position index, showing its tags and moves in the notation of a PGN file
+	 * 
+	 * @param game The index of the game within the archive
+	 */
+	public void openGame(long game) {
+		PositionIndex index = PositionIndex.instance();
+		if(index == null) {
+			return;
+		}
+		PgnGame pgnGame = index.getArchive().getGame(game);
+		StringBuilder builder = new StringBuilder();
+		for(Map.Entry<String, String> tag : pgnGame.getTags().entrySet()) {
+			builder.append('[').append(tag.getKey()).append(" \"").append(tag.getValue()).append("\"]\n");
+		}
+		builder.append('\n').append(pgnGame.getMovetext());
+		
+		JTextArea text = new JTextArea(builder.toString(), GAME_ROWS, GAME_COLUMNS);
+		text.setEditable(false);
+		text.setLineWrap(true);
+		text.setWrapStyleWord(true);
+		text.setCaretPosition(0);
+		JOptionPane.showMessageDialog((Component)getView(), new JScrollPane(text), pgnGame.toString(), JOptionPane.PLAIN_MESSAGE);
+	}
+	
+	/**
+	 * Displays the games of the position index that reached the position on the board
+	 * 
+	 * @param index The position index
+	 */
+	private void showGames(PositionIndex index) {
+		Position position = getBoardPosition();
+		((DebuggerSettingsView)getView()).setGames(index.getArchive(), index.getGames(position, MAX_LISTED_GAMES));
+	}
+	
+	/**
+	 * Displays the moves of the opening tree that were played from the position on the board, along
+	 * with the number of games, the score and the average rating of the players of each move
+	 */
+	public void exploreOpenings() {
+		OpeningTree tree = OpeningTree.instance();
+		if(tree == null) {
+			Tracelog.log(Level.WARNING, true, "No opening tree is configured, set the " + PositionIndex.ARCHIVE_PROPERTY + " or " + OpeningTree.TREE_PROPERTY + " property");
+			return;
+		}
+		showOpenings(tree);
+	}
+	
+	/**
+	 * Refreshes the games of the position index and the moves of the opening tree once the position on the board changed
+	 */
+	public void onBoardChanged() {
+		PositionIndex index = PositionIndex.instance();
+		if(index != null) {
+			showGames(index);
+		}
+		OpeningTree tree = OpeningTree.instance();
+		if(tree != null) {
+			showOpenings(tree);
+		}
+	}
+	
+	/**
+	 * Follows a move of the opening tree from the position on the board.  The move is played on the
+	 * board when the game is running, otherwise the board is set up to the position that it reaches
+	 * 
+	 * @param move The move
+	 */
+	public void followOpeningMove(int move) {
+		BoardController boardController = AbstractFactory.getFactory(ControllerFactory.class).get(BoardController.class);
+		if(boardController.isGameRunning()) {
+			if(boardController.isComputerTurn()) {
+				Tracelog.log(Level.WARNING, true, "Cannot follow an opening move while the computer is to move");
+				return;
+			}
+			boardController.performMove(move);
+			return;
+		}
+		Position position = getBoardPosition();
+		position.makeMove(move);
+		_teamCollection.setSelectedItem(PositionComponent.getTeam(position.getSideToMove()));
+		boardController.setPosition(position);
+	}
+	
+	/**
+	 * Displays the moves of the opening tree played from the position on the board
+	 * 
+	 * @param tree The opening tree
+	 */
+	private void showOpenings(OpeningTree tree) {
+		Position position = getBoardPosition();
+		((DebuggerSettingsView)getView()).setOpeningMoves(position, tree.getMoves(position));
+	}
+	
+	/**
+	 * Gets the position on the board, with the player currently playing to move or the selected team
+	 * when the game is not running
+	 * 
+	 * @return The position on the board
+	 */
+	private Position getBoardPosition() {
+		BoardController boardController = AbstractFactory.getFactory(ControllerFactory.class).get(BoardController.class);
+		PlayerTeam team = boardController.isGameRunning() 
+			? AbstractFactory.getFactory(ControllerFactory.class).get(PlayerController.class).getCurrentPlayerTeam() 
+			: getSelectedTeamItem();
+		return PositionComponent.createPosition(boardController.getTiles(), team);
+	}
+	
+	/**
+	 * Stops analyzing the board
+	 */
+	public void stopAnalysis() {
+		_analysisWorker.stop();
+	}
+	
     /**
      * Performs a memory clear of the memory structure
      */
@@ -171,8 +433,14 @@ public final class DebuggerSettingsController extends BaseController {
 	@Override public void unregisterSignalListeners() {
 		super.unregisterSignalListeners();
 		memoryClear();
+		_analysisWorker.cancel();
 	}
     
+	@Override public boolean flush() {
+		_analysisWorker.cancel();
+		return super.flush();
+	}
+	
     @Override public String toString() {
     
         // Create a string builder to store our strings
@@ -96,8 +96,8 @@ public final class TileController extends BaseController {
 		// Get a reference to the board controller
 		BoardController boardController = AbstractFactory.getFactory(ControllerFactory.class).get(BoardController.class);
 		
-		// Make sure that the game is running before continuing
-		if(!boardController.isGameRunning()) {
+		// Make sure that the game is running and that it is not the turn of the computer before continuing
+		if(!boardController.isGameRunning() || boardController.isComputerTurn()) {
 			return;
 		}
 		
@@ -137,6 +137,15 @@ public class BoardComponent {
 	    }
 	}
 
+	/**
+	 * Gets the list of tiles of the board, row by row starting from the top left corner of the board
+	 * 
+	 * @return The list of tiles of the board
+	 */
+	public List<TileModel> getTiles() {
+		return new ArrayList<>(_neighbors.keySet());
+	}
+	
 	/**
 	 * Gets all the neighbors associated to the particular model
 	 * 
@@ -0,0 +1,179 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.components;
+
+import java.util.List;
+
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+import game.entities.concrete.AbstractChessEntity;
+import models.PlayerModel.PlayerTeam;
+import models.TileModel;
+
+/**
+ * This class converts between the tiles of the board and the positions used by the engine.
+ *
+ * The tiles of the board are laid out row by row starting with the eighth rank, while the squares
+ * of the engine start at a1, so a tile index maps to a square by flipping its rank
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class PositionComponent {
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	private PositionComponent() {
+	}
+
+	/**
+	 * Gets the index of the tile of the specified square
+	 * 
+	 * @param square The square of the engine
+	 * 
+	 * @return The index of the tile within the list of tiles of the board
+	 */
+	public static int getTileIndex(int square) {
+		return square ^ 56;
+	}
+
+	/**
+	 * Gets the square of the tile at the specified index
+	 * 
+	 * @param tileIndex The index of the tile within the list of tiles of the board
+	 * 
+	 * @return The square of the engine
+	 */
+	public static int getSquare(int tileIndex) {
+		return tileIndex ^ 56;
+	}
+
+	/**
+	 * Gets the color of the engine of the specified team
+	 * 
+	 * @param team The team
+	 * 
+	 * @return The color of the team
+	 */
+	public static int getColor(PlayerTeam team) {
+		return team == PlayerTeam.WHITE ? Pieces.WHITE : Pieces.BLACK;
+	}
+
+	/**
+	 * Gets the team of the specified engine color
+	 * 
+	 * @param color The color of the engine
+	 * 
+	 * @return The team
+	 */
+	public static PlayerTeam getTeam(int color) {
+		return color == Pieces.WHITE ? PlayerTeam.WHITE : PlayerTeam.BLACK;
+	}
+
+	/**
+	 * Creates a position from the entities on the specified tiles.  The castling rights are derived
+	 * from the kings and rooks that have not moved, and the en-passent square from the pawn that can
+	 * receive an en-passent capture
+	 * 
+	 * @param tiles The tiles of the board, row by row starting from the top left corner of the board
+	 * @param sideToMove The team of the player to move
+	 * 
+	 * @return The position
+	 */
+	public static Position createPosition(List<TileModel> tiles, PlayerTeam sideToMove) {
+		Position position = new Position();
+		int enPassent = -1;
+		for(int index = 0; index < tiles.size(); ++index) {
+			AbstractChessEntity entity = tiles.get(index).getEntity();
+			if(entity == null) {
+				continue;
+			}
+
+			int square = getSquare(index);
+			int color = getColor(entity.getTeam());
+			int piece = Pieces.make(color, Pieces.fromDataLayerName(entity.getDataLayerName()));
+			position.setPiece(square, piece);
+
+			// The pawn that just moved two squares can be captured on the square it passed over
+			if(entity.isEnPassentCapturable() && entity.getTeam() != sideToMove) {
+				enPassent = color == Pieces.WHITE ? square - 8 : square + 8;
+			}
+		}
+
+		int castling = 0;
+		if(isUnmoved(tiles, 4, Pieces.WHITE, Pieces.KING)) {
+			castling |= isUnmoved(tiles, 7, Pieces.WHITE, Pieces.ROOK) ? Position.CASTLE_WHITE_KING : 0;
+			castling |= isUnmoved(tiles, 0, Pieces.WHITE, Pieces.ROOK) ? Position.CASTLE_WHITE_QUEEN : 0;
+		}
+		if(isUnmoved(tiles, 60, Pieces.BLACK, Pieces.KING)) {
+			castling |= isUnmoved(tiles, 63, Pieces.BLACK, Pieces.ROOK) ? Position.CASTLE_BLACK_KING : 0;
+			castling |= isUnmoved(tiles, 56, Pieces.BLACK, Pieces.ROOK) ? Position.CASTLE_BLACK_QUEEN : 0;
+		}
+
+		position.setSideToMove(getColor(sideToMove));
+		position.setCastlingRights(castling);
+		position.setEnPassentSquare(enPassent);
+		return position;
+	}
+
+	/**
+	 * Indicates if the specified square holds a piece that has never moved
+	 * 
+	 * @param tiles The tiles of the board
+	 * @param square The square
+	 * @param color The color of the piece
+	 * @param type The type of the piece
+	 * 
+	 * @return TRUE if the piece is on the square and has never moved
+	 */
+	private static boolean isUnmoved(List<TileModel> tiles, int square, int color, int type) {
+		AbstractChessEntity entity = tiles.get(getTileIndex(square)).getEntity();
+		return entity != null 
+			&& !entity.hasMovedOnce()
+			&& getColor(entity.getTeam()) == color
+			&& Pieces.fromDataLayerName(entity.getDataLayerName()) == type;
+	}
+
+	/**
+	 * Indicates if the pieces of the specified position are placed on the same squares as the
+	 * entities of the specified tiles
+	 * 
+	 * @param position The position
+	 * @param tiles The tiles of the board
+	 * 
+	 * @return TRUE if the placements are the same
+	 */
+	public static boolean isSamePlacement(Position position, List<TileModel> tiles) {
+		for(int index = 0; index < tiles.size(); ++index) {
+			AbstractChessEntity entity = tiles.get(index).getEntity();
+			int piece = position.getPiece(getSquare(index));
+			if(entity == null ? piece != Pieces.NONE : piece != Pieces.make(getColor(entity.getTeam()), Pieces.fromDataLayerName(entity.getDataLayerName()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,413 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import game.engine.board.Fen;
+import game.engine.board.MoveGenerator;
+import game.engine.board.Position;
+import game.engine.pgn.PgnGame;
+
+/**
+ * A read-only archive of games in a compact binary format.
+ *
+ * Each move is stored as its index among the pseudo-legal moves of the position, which takes a
+ * single byte, so an archive is several times smaller than the same games written as text.  The
+ * moves were verified when they were archived, so decoding a move only has to generate the moves of
+ * the position and never plays them to check their legality.  The file starts
+ * with a header, followed by the tags and moves of every game and then by a table of fixed-width
+ * records, one per game, which gives the location of the game along with its result and ratings.
+ * The file is memory-mapped, so any game is found in constant time and decoded without reading the
+ * others, and the archive can be read by several threads at once.  The index of a move depends on
+ * the order of the move generator, which must not change without changing the version
+ *
+ * <pre>
+ * header  : magic (int), version (int), games (long), record offset (long), reserved (8 bytes)
+ * game    : tags as name, 0, value, 0 in UTF-8, one byte per move
+ * record  : offset (long), tag length (int), moves (int), white rating (short), black rating (short),
+ *           result (byte), flags (byte), reserved (10 bytes)
+ * </pre>
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class GameArchive implements Closeable {
+
+	/**
+	 * The first bytes of an archive, the characters "CHGA"
+	 */
+	public static final int MAGIC = 0x43484741;
+
+	/**
+	 * The version of the format
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The size in bytes of the header
+	 */
+	static final int HEADER_SIZE = 32;
+
+	/**
+	 * The size in bytes of a record
+	 */
+	static final int RECORD_SIZE = 32;
+
+	/**
+	 * The flag of a game that did not start from the standard position, its FEN tag gives the position
+	 */
+	static final int FLAG_SET_UP = 1;
+
+	/**
+	 * The flag of a game whose movetext could not be read up to its end
+	 */
+	static final int FLAG_INVALID = 2;
+
+	/**
+	 * The results of a game in the order of their encoding
+	 */
+	private static final String[] RESULTS = { PgnGame.UNKNOWN_RESULT, "1-0", "0-1", "1/2-1/2" };
+
+	/**
+	 * The path of the archive
+	 */
+	private final Path _file;
+
+	/**
+	 * The mapping of the archive
+	 */
+	private final MappedFile _mapping;
+
+	/**
+	 * The number of games of the archive
+	 */
+	private final long _games;
+
+	/**
+	 * The location of the first record
+	 */
+	private final long _recordOffset;
+
+	/**
+	 * Constructs a new instance of this class type, the archive is mapped at once
+	 *
+	 * @param file The path of the archive
+	 *
+	 * @throws IOException If the archive cannot be read or is not a game archive
+	 */
+	public GameArchive(Path file) throws IOException {
+		_file = file;
+		_mapping = new MappedFile(file);
+		long size = _mapping.size();
+		if(size < HEADER_SIZE || _mapping.getInt(0) != MAGIC || _mapping.getInt(4) != VERSION) {
+			throw new IOException(file + " is not a game archive of version " + VERSION);
+		}
+		_games = _mapping.getLong(8);
+		_recordOffset = _mapping.getLong(16);
+		if(_recordOffset + _games * RECORD_SIZE > size) {
+			throw new IOException(file + " is truncated");
+		}
+	}
+
+	/**
+	 * @return The path of the archive
+	 */
+	public Path getFile() {
+		return _file;
+	}
+
+	/**
+	 * @return The number of games of the archive
+	 */
+	public long getGameCount() {
+		return _games;
+	}
+
+	/**
+	 * @param game The index of a game
+	 *
+	 * @return The number of half moves of the game
+	 */
+	public int getMoveCount(long game) {
+		return getRecordInt(game, 12);
+	}
+
+	/**
+	 * @param game The index of a game
+	 *
+	 * @return The result of the game, such as "1-0", "0-1", "1/2-1/2" or "*"
+	 */
+	public String getResult(long game) {
+		return RESULTS[getRecordByte(game, 20)];
+	}
+
+	/**
+	 * @param game The index of a game
+	 *
+	 * @return The rating of the white player, or 0 if it is not known
+	 */
+	public int getWhiteRating(long game) {
+		return getRecordShort(game, 16);
+	}
+
+	/**
+	 * @param game The index of a game
+	 *
+	 * @return The rating of the black player, or 0 if it is not known
+	 */
+	public int getBlackRating(long game) {
+		return getRecordShort(game, 18);
+	}
+
+	/**
+	 * @param game The index of a game
+	 *
+	 * @return TRUE if every move of the game was read when it was archived
+	 */
+	public boolean isValid(long game) {
+		return (getRecordByte(game, 21) & FLAG_INVALID) == 0;
+	}
+
+	/**
+	 * Gets the tags of a game
+	 *
+	 * @param game The index of a game
+	 *
+	 * @return The tags of the game in the order they were read
+	 */
+	public Map<String, String> getTags(long game) {
+		long offset = getRecordLong(game, 0);
+		byte[] bytes = new byte[getRecordInt(game, 8)];
+		for(int i = 0; i < bytes.length; ++i) {
+			bytes[i] = getByte(offset + i);
+		}
+
+		Map<String, String> tags = new LinkedHashMap<>();
+		for(int start = 0; start < bytes.length;) {
+			int separator = start;
+			while(bytes[separator] != 0) {
+				++separator;
+			}
+			int end = separator + 1;
+			while(bytes[end] != 0) {
+				++end;
+			}
+			tags.put(new String(bytes, start, separator - start, StandardCharsets.UTF_8), new String(bytes, separator + 1, end - separator - 1, StandardCharsets.UTF_8));
+			start = end + 1;
+		}
+		return tags;
+	}
+
+	/**
+	 * Creates the position a game started from
+	 *
+	 * @param game The index of a game
+	 *
+	 * @return The starting position
+	 */
+	public Position createStartingPosition(long game) {
+		if((getRecordByte(game, 21) & FLAG_SET_UP) == 0) {
+			Position position = new Position();
+			position.setStartingPosition();
+			return position;
+		}
+		return Fen.parse(getTags(game).get("FEN"));
+	}
+
+	/**
+	 * Decodes the moves of a game, which are played on the specified position
+	 *
+	 * @param game The index of a game
+	 * @param position The starting position of the game, which is left at the end of the game
+	 * @param moves The buffer that receives the moves, of at least {@link #getMoveCount(long)} moves
+	 *
+	 * @return The number of moves decoded
+	 */
+	public int getMoves(long game, Position position, int[] moves) {
+		int[] pseudoLegalMoves = new int[MoveGenerator.MAX_MOVES];
+		long offset = getRecordLong(game, 0) + getRecordInt(game, 8);
+		int count = getMoveCount(game);
+		for(int i = 0; i < count; ++i) {
+			MoveGenerator.generatePseudoLegal(position, pseudoLegalMoves);
+			moves[i] = pseudoLegalMoves[getByte(offset + i) & 0xFF];
+			position.makeMove(moves[i]);
+		}
+		return count;
+	}
+
+	/**
+	 * Decodes a game along with its tags
+	 *
+	 * @param game The index of a game
+	 *
+	 * @return The game
+	 */
+	public PgnGame getGame(long game) {
+		// A game without moves may have been archived with a position that cannot be read
+		int[] moves = new int[getMoveCount(game)];
+		if(moves.length > 0) {
+			getMoves(game, createStartingPosition(game), moves);
+		}
+		return new PgnGame(getTags(game), moves, getResult(game), isValid(game) ? null : "The game was not read up to its end");
+	}
+
+	/**
+	 * Releases the mapped regions, which are unmapped once they are collected
+	 */
+	@Override public void close() {
+		_mapping.close();
+	}
+
+	/**
+	 * @param offset A location in the archive
+	 *
+	 * @return The byte at the location
+	 */
+	private byte getByte(long offset) {
+		return _mapping.getByte(offset);
+	}
+
+	/**
+	 * @param game The index of a game
+	 * @param field The location of the field within the record
+	 *
+	 * @return The field of the record of the game
+	 */
+	private long getRecordLong(long game, int field) {
+		return _mapping.getLong(getRecordOffset(game) + field);
+	}
+
+	/**
+	 * @param game The index of a game
+	 * @param field The location of the field within the record
+	 *
+	 * @return The field of the record of the game
+	 */
+	private int getRecordInt(long game, int field) {
+		return _mapping.getInt(getRecordOffset(game) + field);
+	}
+
+	/**
+	 * @param game The index of a game
+	 * @param field The location of the field within the record
+	 *
+	 * @return The field of the record of the game
+	 */
+	private int getRecordShort(long game, int field) {
+		return _mapping.getShort(getRecordOffset(game) + field);
+	}
+
+	/**
+	 * @param game The index of a game
+	 * @param field The location of the field within the record
+	 *
+	 * @return The field of the record of the game
+	 */
+	private int getRecordByte(long game, int field) {
+		return getByte(getRecordOffset(game) + field) & 0xFF;
+	}
+
+	/**
+	 * @param game The index of a game
+	 *
+	 * @return The location of the record of the game
+	 *
+	 * @throws IndexOutOfBoundsException If the archive has no such game
+	 */
+	private long getRecordOffset(long game) {
+		if(game < 0 || game >= _games) {
+			throw new IndexOutOfBoundsException("The archive has no game " + game);
+		}
+		return _recordOffset + game * RECORD_SIZE;
+	}
+
+	/**
+	 * Encodes a result
+	 *
+	 * @param result The result, such as "1-0", "0-1", "1/2-1/2" or "*"
+	 *
+	 * @return The encoded result
+	 */
+	static int encodeResult(String result) {
+		return Math.max(0, Arrays.asList(RESULTS).indexOf(result));
+	}
+
+	/**
+	 * Prints a game of an archive, or decodes all of them to measure the speed of the archive
+	 *
+	 * @param args The arguments, see the usage
+	 *
+	 * @throws IOException If the archive cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		String file = null;
+		long game = -1;
+		for(int i = 0; i < args.length; ++i) {
+			switch(args[i]) {
+			case "-archive":
+				file = args[++i];
+				break;
+			case "-game":
+				game = Long.parseLong(args[++i]);
+				break;
+			default:
+				file = null;
+				i = args.length;
+				break;
+			}
+		}
+		if(file == null) {
+			System.out.println("Usage: GameArchive -archive <file> [-game <index>]");
+			return;
+		}
+
+		try(GameArchive archive = new GameArchive(Paths.get(file))) {
+			if(game >= 0) {
+				PgnGame pgnGame = archive.getGame(game);
+				pgnGame.getTags().forEach((name, value) -> System.out.println("[" + name + " \"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"]"));
+				System.out.println();
+				System.out.println(pgnGame.getMovetext());
+				return;
+			}
+
+			long startTime = System.currentTimeMillis();
+			long moves = 0;
+			int[] buffer = new int[Position.MAX_HISTORY];
+			for(long i = 0; i < archive.getGameCount(); ++i) {
+				moves += archive.getMoves(i, archive.createStartingPosition(i), buffer);
+			}
+			long elapsedTime = Math.max(1, System.currentTimeMillis() - startTime);
+			System.out.println(String.format("Decoded %d games and %d moves in %.1fs: %.0f games/s", archive.getGameCount(), moves, elapsedTime / 1000.0, archive.getGameCount() * 1000.0 / elapsedTime));
+		}
+	}
+}
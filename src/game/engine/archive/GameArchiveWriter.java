@@ -0,0 +1,258 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import game.engine.board.MoveGenerator;
+import game.engine.board.Position;
+import game.engine.interfaces.IGameWriter;
+import game.engine.pgn.PgnGame;
+import game.engine.pgn.PgnImporter;
+
+/**
+ * Writes games into a game archive, see {@link GameArchive} for the layout of the file.
+ *
+ * The tags and moves of each game are appended as they come while the fixed-width records are kept
+ * in a temporary file next to the archive, which is copied after the games once they are all
+ * written.  Neither grows the heap, so an archive of any size can be written
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class GameArchiveWriter implements IGameWriter, Closeable {
+
+	/**
+	 * The path of the archive
+	 */
+	private final Path _file;
+
+	/**
+	 * The path of the temporary file holding the records
+	 */
+	private final Path _recordFile;
+
+	/**
+	 * The stream writing the tags and moves of the games
+	 */
+	private final DataOutputStream _data;
+
+	/**
+	 * The stream writing the records of the games
+	 */
+	private final DataOutputStream _records;
+
+	/**
+	 * The number of bytes written to the archive so far
+	 */
+	private long _offset = GameArchive.HEADER_SIZE;
+
+	/**
+	 * The number of games written
+	 */
+	private long _games;
+
+	/**
+	 * The position used to find the index of each move among the pseudo-legal moves
+	 */
+	private final Position _position = new Position();
+
+	/**
+	 * The pseudo-legal moves of the position
+	 */
+	private final int[] _pseudoLegalMoves = new int[MoveGenerator.MAX_MOVES];
+
+	/**
+	 * The buffer receiving the encoded moves of a game
+	 */
+	private final byte[] _moves = new byte[Position.MAX_HISTORY];
+
+	/**
+	 * Constructs a new instance of this class type, the archive is created or replaced
+	 *
+	 * @param file The path of the archive
+	 *
+	 * @throws IOException If the archive cannot be created
+	 */
+	public GameArchiveWriter(Path file) throws IOException {
+		_file = file;
+		_recordFile = file.resolveSibling(file.getFileName() + ".records");
+		_data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+		_records = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(_recordFile), 1 << 16));
+
+		// The header is written again once the number of games and the location of the records are known
+		_data.write(new byte[GameArchive.HEADER_SIZE]);
+	}
+
+	/**
+	 * @return The number of games written
+	 */
+	public long getGames() {
+		return _games;
+	}
+
+	@Override public void write(PgnGame game) throws IOException {
+		int[] moves = game.getMoves();
+		Position position = _position;
+		if(game.getTag("FEN") != null && moves.length > 0) {
+			position = game.createStartingPosition();
+		}
+		else {
+			_position.setStartingPosition();
+		}
+		for(int i = 0; i < moves.length; ++i) {
+			MoveGenerator.generatePseudoLegal(position, _pseudoLegalMoves);
+			int index = 0;
+			while(_pseudoLegalMoves[index] != moves[i]) {
+				++index;
+			}
+			_moves[i] = (byte)index;
+			position.makeMove(moves[i]);
+		}
+
+		int tagLength = 0;
+		for(Map.Entry<String, String> tag : game.getTags().entrySet()) {
+			byte[] name = tag.getKey().getBytes(StandardCharsets.UTF_8);
+			byte[] value = tag.getValue().getBytes(StandardCharsets.UTF_8);
+			_data.write(name);
+			_data.write(0);
+			_data.write(value);
+			_data.write(0);
+			tagLength += name.length + value.length + 2;
+		}
+		_data.write(_moves, 0, moves.length);
+
+		int flags = (game.getTag("FEN") == null ? 0 : GameArchive.FLAG_SET_UP) | (game.isValid() ? 0 : GameArchive.FLAG_INVALID);
+		_records.writeLong(_offset);
+		_records.writeInt(tagLength);
+		_records.writeInt(moves.length);
+		_records.writeShort(getRating(game.getTag("WhiteElo")));
+		_records.writeShort(getRating(game.getTag("BlackElo")));
+		_records.writeByte(GameArchive.encodeResult(game.getResult()));
+		_records.writeByte(flags);
+		_records.write(new byte[GameArchive.RECORD_SIZE - 22]);
+
+		_offset += tagLength + moves.length;
+		++_games;
+	}
+
+	/**
+	 * Writes the records after the games and completes the header
+	 *
+	 * @throws IOException If the archive cannot be written
+	 */
+	@Override public void close() throws IOException {
+		// The records are aligned on their size so that none of them crosses two mapped regions
+		int padding = (int)((GameArchive.RECORD_SIZE - _offset % GameArchive.RECORD_SIZE) % GameArchive.RECORD_SIZE);
+		_data.write(new byte[padding]);
+		long recordOffset = _offset + padding;
+		_data.close();
+		_records.close();
+
+		try(FileChannel channel = FileChannel.open(_file, StandardOpenOption.WRITE); FileChannel records = FileChannel.open(_recordFile, StandardOpenOption.READ)) {
+			long size = records.size();
+			for(long copied = 0; copied < size;) {
+				copied += records.transferTo(copied, size - copied, channel.position(recordOffset + copied));
+			}
+
+			ByteBuffer header = ByteBuffer.allocate(GameArchive.HEADER_SIZE);
+			header.putInt(GameArchive.MAGIC).putInt(GameArchive.VERSION).putLong(_games).putLong(recordOffset);
+			header.rewind();
+			channel.write(header, 0);
+		}
+		finally {
+			Files.deleteIfExists(_recordFile);
+		}
+	}
+
+	/**
+	 * Reads a rating tag
+	 *
+	 * @param value The value of the tag, or null
+	 *
+	 * @return The rating, or 0 if it is not known
+	 */
+	private static int getRating(String value) {
+		try {
+			return value == null ? 0 : Math.max(0, Math.min(Short.MAX_VALUE, Integer.parseInt(value.trim())));
+		}
+		catch(NumberFormatException exception) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Converts a Portable Game Notation file into a game archive
+	 *
+	 * @param args The arguments of the conversion, see the usage
+	 *
+	 * @throws Exception If the conversion fails
+	 */
+	public static void main(String[] args) throws Exception {
+		String pgn = null;
+		String archive = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		for(int i = 0; i < args.length; ++i) {
+			switch(args[i]) {
+			case "-pgn":
+				pgn = args[++i];
+				break;
+			case "-archive":
+				archive = args[++i];
+				break;
+			case "-threads":
+				threads = Integer.parseInt(args[++i]);
+				break;
+			default:
+				pgn = null;
+				i = args.length;
+				break;
+			}
+		}
+		if(pgn == null || archive == null) {
+			System.out.println("Usage: GameArchiveWriter -pgn <file> -archive <file> [-threads <count>]");
+			return;
+		}
+
+		try(GameArchiveWriter writer = new GameArchiveWriter(Paths.get(archive))) {
+			PgnImporter importer = new PgnImporter(Paths.get(pgn), writer);
+			importer.setThreads(threads);
+			importer.run();
+			System.out.println(String.format("Wrote %d games and %d moves in %.1fs", importer.getGames(), importer.getMoves(), importer.getElapsedTime() / 1000.0));
+		}
+		System.out.println(String.format("%d bytes of text into %d bytes", Files.size(Paths.get(pgn)), Files.size(Paths.get(archive))));
+	}
+}
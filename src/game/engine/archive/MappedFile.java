@@ -0,0 +1,146 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only file mapped into memory as a sequence of regions, since a single mapping cannot exceed
+ * two gigabytes.  The values are read at a location in the file, in big-endian order, and a value
+ * that crosses two regions is read one byte at a time
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+final class MappedFile implements Closeable {
+
+	/**
+	 * The size in bytes of each mapped region
+	 */
+	private static final int REGION_SIZE = 1 << 30;
+
+	/**
+	 * The mapped regions of the file
+	 */
+	private MappedByteBuffer[] _regions;
+
+	/**
+	 * The size in bytes of the file
+	 */
+	private final long _size;
+
+	/**
+	 * Constructs a new instance of this class type, the file is mapped at once
+	 *
+	 * @param file The path of the file
+	 *
+	 * @throws IOException If the file cannot be mapped
+	 */
+	MappedFile(Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			_size = channel.size();
+			_regions = new MappedByteBuffer[(int)((_size + REGION_SIZE - 1) / REGION_SIZE)];
+			for(int i = 0; i < _regions.length; ++i) {
+				long start = (long)i * REGION_SIZE;
+				_regions[i] = channel.map(MapMode.READ_ONLY, start, Math.min(REGION_SIZE, _size - start));
+			}
+		}
+	}
+
+	/**
+	 * @return The size in bytes of the file
+	 */
+	long size() {
+		return _size;
+	}
+
+	/**
+	 * @param offset A location in the file
+	 *
+	 * @return The byte at the location
+	 */
+	byte getByte(long offset) {
+		return _regions[(int)(offset / REGION_SIZE)].get((int)(offset % REGION_SIZE));
+	}
+
+	/**
+	 * @param offset A location in the file
+	 *
+	 * @return The short at the location
+	 */
+	short getShort(long offset) {
+		int local = (int)(offset % REGION_SIZE);
+		return local <= REGION_SIZE - Short.BYTES ? _regions[(int)(offset / REGION_SIZE)].getShort(local) : (short)read(offset, Short.BYTES);
+	}
+
+	/**
+	 * @param offset A location in the file
+	 *
+	 * @return The int at the location
+	 */
+	int getInt(long offset) {
+		int local = (int)(offset % REGION_SIZE);
+		return local <= REGION_SIZE - Integer.BYTES ? _regions[(int)(offset / REGION_SIZE)].getInt(local) : (int)read(offset, Integer.BYTES);
+	}
+
+	/**
+	 * @param offset A location in the file
+	 *
+	 * @return The long at the location
+	 */
+	long getLong(long offset) {
+		int local = (int)(offset % REGION_SIZE);
+		return local <= REGION_SIZE - Long.BYTES ? _regions[(int)(offset / REGION_SIZE)].getLong(local) : read(offset, Long.BYTES);
+	}
+
+	/**
+	 * Releases the mapped regions, which are unmapped once they are collected
+	 */
+	@Override public void close() {
+		_regions = null;
+	}
+
+	/**
+	 * Reads a value one byte at a time, for the values that cross two regions
+	 *
+	 * @param offset The location of the value
+	 * @param size The size in bytes of the value
+	 *
+	 * @return The value
+	 */
+	private long read(long offset, int size) {
+		long value = 0;
+		for(int i = 0; i < size; ++i) {
+			value = (value << 8) | (getByte(offset + i) & 0xFF);
+		}
+		return value;
+	}
+}
@@ -0,0 +1,396 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+import engine.utils.io.logging.Tracelog;
+import game.engine.board.Fen;
+import game.engine.board.Position;
+import game.engine.board.San;
+
+/**
+ * The opening tree of a game archive, which gives for a position the moves that were played from it
+ * along with the number of games, the score and the average rating of the players of each move.
+ *
+ * The statistics are computed once by the {@link OpeningTreeBuilder} and are mapped from the file as
+ * they are.  The positions are held by an open addressing table whose size is a power of two, so a
+ * position is found by hashing its key and probing the next slots until it or an empty slot is
+ * reached, which takes a single read of the mapped table in most cases.  The slot of a position then
+ * gives the location of its moves, which are listed from the most played.
+ *
+ * <pre>
+ * header  : magic (int), version (int), positions (long), slots (long), plies (int), reserved (4 bytes)
+ * slot    : key (long), first move (int), moves (int), no moves for an empty slot
+ * move    : move (int), games (int), wins (int), draws (int), rating sum (long), rated games (int), reserved (4 bytes)
+ * </pre>
+ *
+ * The wins and the ratings are the ones of the player of the move
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class OpeningTree implements Closeable {
+
+	/**
+	 * The first bytes of an opening tree, the characters "CHOT"
+	 */
+	public static final int MAGIC = 0x43484F54;
+
+	/**
+	 * The version of the format
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The system property holding the path of the opening tree of the default game archive, which defaults to the archive with the .openings extension
+	 */
+	public static final String TREE_PROPERTY = "chess.openings";
+
+	/**
+	 * The size in bytes of the header
+	 */
+	static final int HEADER_SIZE = 32;
+
+	/**
+	 * The size in bytes of a slot of the table
+	 */
+	static final int SLOT_SIZE = 16;
+
+	/**
+	 * The size in bytes of the statistics of a move
+	 */
+	static final int MOVE_SIZE = 32;
+
+	/**
+	 * The statistics of a move played from a position
+	 *
+	 * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+	 *
+	 */
+	public static final class OpeningMove {
+
+		/**
+		 * The move
+		 */
+		private final int _move;
+
+		/**
+		 * The number of games where the move was played
+		 */
+		private final int _games;
+
+		/**
+		 * The number of those games won by the player of the move
+		 */
+		private final int _wins;
+
+		/**
+		 * The number of those games drawn
+		 */
+		private final int _draws;
+
+		/**
+		 * The sum of the ratings of the player of the move, over the games where it is known
+		 */
+		private final long _ratingSum;
+
+		/**
+		 * The number of games where the rating of the player of the move is known
+		 */
+		private final int _ratedGames;
+
+		/**
+		 * Constructs a new instance of this class type
+		 *
+		 * @param move The move
+		 * @param games The number of games where the move was played
+		 * @param wins The number of those games won by the player of the move
+		 * @param draws The number of those games drawn
+		 * @param ratingSum The sum of the known ratings of the player of the move
+		 * @param ratedGames The number of games where the rating of the player of the move is known
+		 */
+		private OpeningMove(int move, int games, int wins, int draws, long ratingSum, int ratedGames) {
+			_move = move;
+			_games = games;
+			_wins = wins;
+			_draws = draws;
+			_ratingSum = ratingSum;
+			_ratedGames = ratedGames;
+		}
+
+		/**
+		 * @return The move
+		 */
+		public int getMove() {
+			return _move;
+		}
+
+		/**
+		 * @return The number of games where the move was played
+		 */
+		public int getGames() {
+			return _games;
+		}
+
+		/**
+		 * @return The number of those games won by the player of the move
+		 */
+		public int getWins() {
+			return _wins;
+		}
+
+		/**
+		 * @return The number of those games drawn
+		 */
+		public int getDraws() {
+			return _draws;
+		}
+
+		/**
+		 * @return The number of those games lost by the player of the move
+		 */
+		public int getLosses() {
+			return _games - _wins - _draws;
+		}
+
+		/**
+		 * @return The score of the player of the move in percent, a draw counting for half a win
+		 */
+		public double getScore() {
+			return _games == 0 ? 0 : (_wins + _draws / 2.0) * 100 / _games;
+		}
+
+		/**
+		 * @return The average rating of the player of the move, or 0 if none is known
+		 */
+		public int getAverageRating() {
+			return _ratedGames == 0 ? 0 : (int)(_ratingSum / _ratedGames);
+		}
+	}
+
+	/**
+	 * The default opening tree
+	 */
+	private static OpeningTree _instance;
+
+	/**
+	 * Indicates if opening the default opening tree failed, in which case it is not attempted again
+	 */
+	private static boolean _isUnavailable;
+
+	/**
+	 * The mapping of the tree
+	 */
+	private final MappedFile _mapping;
+
+	/**
+	 * The number of positions of the tree
+	 */
+	private final long _positions;
+
+	/**
+	 * The number of slots of the table, a power of two
+	 */
+	private final long _slots;
+
+	/**
+	 * The number of plies of each game that were added to the tree
+	 */
+	private final int _plies;
+
+	/**
+	 * Constructs a new instance of this class type, the tree is mapped at once
+	 *
+	 * @param file The path of the opening tree
+	 *
+	 * @throws IOException If the tree cannot be read or is not an opening tree
+	 */
+	public OpeningTree(Path file) throws IOException {
+		_mapping = new MappedFile(file);
+		long size = _mapping.size();
+		if(size < HEADER_SIZE || _mapping.getInt(0) != MAGIC || _mapping.getInt(4) != VERSION) {
+			throw new IOException(file + " is not an opening tree of version " + VERSION);
+		}
+		_positions = _mapping.getLong(8);
+		_slots = _mapping.getLong(16);
+		_plies = _mapping.getInt(24);
+		if(Long.bitCount(_slots) != 1 || HEADER_SIZE + _slots * SLOT_SIZE > size) {
+			throw new IOException(file + " is truncated");
+		}
+	}
+
+	/**
+	 * Gets the default opening tree, configured by the {@link PositionIndex#ARCHIVE_PROPERTY} and {@link #TREE_PROPERTY} system properties
+	 *
+	 * @return The default opening tree, or null if no archive is configured or its tree cannot be opened
+	 */
+	public static synchronized OpeningTree instance() {
+		if(_instance == null && !_isUnavailable) {
+			String archive = System.getProperty(PositionIndex.ARCHIVE_PROPERTY);
+			String tree = System.getProperty(TREE_PROPERTY, archive == null || archive.isEmpty() ? null : archive + ".openings");
+			if(tree == null || tree.isEmpty()) {
+				return null;
+			}
+			try {
+				_instance = new OpeningTree(Paths.get(tree));
+				Tracelog.log(Level.INFO, true, "Opened the opening tree " + tree + " with " + _instance.getPositionCount() + " positions");
+			}
+			catch(IOException exception) {
+				Tracelog.log(Level.SEVERE, true, exception);
+				_isUnavailable = true;
+			}
+		}
+		return _instance;
+	}
+
+	/**
+	 * @return The number of distinct positions of the tree
+	 */
+	public long getPositionCount() {
+		return _positions;
+	}
+
+	/**
+	 * @return The number of plies of each game that were added to the tree
+	 */
+	public int getPlies() {
+		return _plies;
+	}
+
+	/**
+	 * Gets the moves played from a position
+	 *
+	 * @param position The position
+	 *
+	 * @return The statistics of the moves, from the most played, or an empty list if the position is not part of the tree
+	 */
+	public List<OpeningMove> getMoves(Position position) {
+		return getMoves(position.getKey());
+	}
+
+	/**
+	 * Gets the moves played from a position
+	 *
+	 * @param key The key of the position
+	 *
+	 * @return The statistics of the moves, from the most played, or an empty list if the position is not part of the tree
+	 */
+	public List<OpeningMove> getMoves(long key) {
+		long mask = _slots - 1;
+		for(long slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+			long offset = HEADER_SIZE + slot * SLOT_SIZE;
+			int count = _mapping.getInt(offset + 12);
+			if(count == 0) {
+				return new ArrayList<>();
+			}
+			if(_mapping.getLong(offset) == key) {
+				return readMoves(_mapping.getInt(offset + 8), count);
+			}
+		}
+	}
+
+	/**
+	 * Releases the mapped regions, which are unmapped once they are collected
+	 */
+	@Override public void close() {
+		_mapping.close();
+	}
+
+	/**
+	 * Reads the statistics of the moves of a position
+	 *
+	 * @param first The index of the first move of the position
+	 * @param count The number of moves of the position
+	 *
+	 * @return The statistics of the moves
+	 */
+	private List<OpeningMove> readMoves(int first, int count) {
+		List<OpeningMove> moves = new ArrayList<>(count);
+		for(int i = 0; i < count; ++i) {
+			long offset = HEADER_SIZE + _slots * SLOT_SIZE + (long)(first + i) * MOVE_SIZE;
+			moves.add(new OpeningMove(_mapping.getInt(offset), _mapping.getInt(offset + 4), _mapping.getInt(offset + 8), _mapping.getInt(offset + 12), _mapping.getLong(offset + 16), _mapping.getInt(offset + 24)));
+		}
+		return moves;
+	}
+
+	/**
+	 * Gets the slot where the probing of a position starts.  The keys are already uniformly
+	 * distributed, the high bits are folded in so that small tables use all of them
+	 *
+	 * @param key The key of the position
+	 *
+	 * @return The hash of the key, to be masked by the size of the table
+	 */
+	static long hash(long key) {
+		return key ^ (key >>> 32);
+	}
+
+	/**
+	 * Prints the moves played from a position
+	 *
+	 * @param args The arguments, see the usage
+	 *
+	 * @throws IOException If the opening tree cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		String file = null;
+		String fen = Fen.STARTING_POSITION;
+		for(int i = 0; i < args.length; ++i) {
+			switch(args[i]) {
+			case "-tree":
+				file = args[++i];
+				break;
+			case "-fen":
+				fen = args[++i];
+				break;
+			default:
+				file = null;
+				i = args.length;
+				break;
+			}
+		}
+		if(file == null) {
+			System.out.println("Usage: OpeningTree -tree <file> [-fen <position>]");
+			return;
+		}
+
+		try(OpeningTree tree = new OpeningTree(Paths.get(file))) {
+			Position position = Fen.parse(fen);
+			long startTime = System.nanoTime();
+			List<OpeningMove> moves = tree.getMoves(position);
+			System.out.println(String.format("%d moves in %.3fms", moves.size(), (System.nanoTime() - startTime) / 1000000.0));
+			for(OpeningMove move : moves) {
+				System.out.println(String.format("%-8s %8d games %6.1f%% %5d", San.toString(position, move.getMove()), move.getGames(), move.getScore(), move.getAverageRating()));
+			}
+		}
+	}
+}
@@ -0,0 +1,500 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+import game.engine.pgn.PgnGame;
+
+/**
+ * Builds the opening tree of a game archive, see {@link OpeningTree} for the layout of the file.
+ *
+ * A pool of threads decodes the games, each thread adding the first plies of its games to a table of
+ * its own so that no lock is taken while aggregating.  The tables of the threads are then added
+ * together, the moves are sorted by position with a radix sort and written from the most played, and
+ * the open addressing table of the positions is filled last
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class OpeningTreeBuilder {
+
+	/**
+	 * The default number of plies of each game added to the tree
+	 */
+	public static final int DEFAULT_PLIES = 30;
+
+	/**
+	 * The number of games decoded by a thread before it claims more
+	 */
+	private static final int BLOCK_SIZE = 1024;
+
+	/**
+	 * The statistics of the moves aggregated by a thread, held by an open addressing table keyed by
+	 * the position and the move
+	 *
+	 * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+	 *
+	 */
+	private static final class Aggregate {
+
+		/**
+		 * The keys of the positions
+		 */
+		private long[] _keys;
+
+		/**
+		 * The moves played from the positions
+		 */
+		private int[] _moves;
+
+		/**
+		 * The number of games of each move, 0 for an empty slot
+		 */
+		private int[] _games;
+
+		/**
+		 * The number of games won by the player of each move
+		 */
+		private int[] _wins;
+
+		/**
+		 * The number of games drawn of each move
+		 */
+		private int[] _draws;
+
+		/**
+		 * The sum of the known ratings of the player of each move
+		 */
+		private long[] _ratingSums;
+
+		/**
+		 * The number of games where the rating of the player of each move is known
+		 */
+		private int[] _ratedGames;
+
+		/**
+		 * The number of slots in use
+		 */
+		private int _size;
+
+		/**
+		 * Constructs a new instance of this class type
+		 *
+		 * @param capacity The number of slots, a power of two
+		 */
+		private Aggregate(int capacity) {
+			_keys = new long[capacity];
+			_moves = new int[capacity];
+			_games = new int[capacity];
+			_wins = new int[capacity];
+			_draws = new int[capacity];
+			_ratingSums = new long[capacity];
+			_ratedGames = new int[capacity];
+		}
+
+		/**
+		 * Adds games to the statistics of a move
+		 *
+		 * @param key The key of the position
+		 * @param move The move played from the position
+		 * @param games The number of games
+		 * @param wins The number of those games won by the player of the move
+		 * @param draws The number of those games drawn
+		 * @param ratingSum The sum of the known ratings of the player of the move
+		 * @param ratedGames The number of games where the rating of the player of the move is known
+		 */
+		private void add(long key, int move, int games, int wins, int draws, long ratingSum, int ratedGames) {
+			// The table is kept at most half full so that the probes stay short
+			if(_size * 2 >= _keys.length) {
+				grow();
+			}
+			int mask = _keys.length - 1;
+			int slot = (int)OpeningTree.hash(key ^ move * 0x9E3779B97F4A7C15L) & mask;
+			while(_games[slot] != 0 && (_keys[slot] != key || _moves[slot] != move)) {
+				slot = (slot + 1) & mask;
+			}
+			if(_games[slot] == 0) {
+				_keys[slot] = key;
+				_moves[slot] = move;
+				++_size;
+			}
+			_games[slot] += games;
+			_wins[slot] += wins;
+			_draws[slot] += draws;
+			_ratingSums[slot] += ratingSum;
+			_ratedGames[slot] += ratedGames;
+		}
+
+		/**
+		 * Adds the statistics of another table to this table
+		 *
+		 * @param aggregate The other table
+		 */
+		private void addAll(Aggregate aggregate) {
+			for(int i = 0; i < aggregate._keys.length; ++i) {
+				if(aggregate._games[i] != 0) {
+					add(aggregate._keys[i], aggregate._moves[i], aggregate._games[i], aggregate._wins[i], aggregate._draws[i], aggregate._ratingSums[i], aggregate._ratedGames[i]);
+				}
+			}
+		}
+
+		/**
+		 * Doubles the number of slots of the table
+		 */
+		private void grow() {
+			Aggregate aggregate = new Aggregate(_keys.length * 2);
+			aggregate.addAll(this);
+			_keys = aggregate._keys;
+			_moves = aggregate._moves;
+			_games = aggregate._games;
+			_wins = aggregate._wins;
+			_draws = aggregate._draws;
+			_ratingSums = aggregate._ratingSums;
+			_ratedGames = aggregate._ratedGames;
+		}
+	}
+
+	/**
+	 * The archive being aggregated
+	 */
+	private final GameArchive _archive;
+
+	/**
+	 * The path of the opening tree
+	 */
+	private final Path _file;
+
+	/**
+	 * The number of threads decoding the games
+	 */
+	private int _threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The number of plies of each game added to the tree
+	 */
+	private int _plies = DEFAULT_PLIES;
+
+	/**
+	 * The number of games a move needs to be kept in the tree
+	 */
+	private int _minimumGames = 1;
+
+	/**
+	 * The next game to be claimed by a thread
+	 */
+	private final AtomicLong _nextGame = new AtomicLong();
+
+	/**
+	 * The number of games added to the tree, the games without a result are left out
+	 */
+	private final AtomicLong _games = new AtomicLong();
+
+	/**
+	 * The number of distinct positions of the tree
+	 */
+	private long _positions;
+
+	/**
+	 * The number of distinct moves of the tree
+	 */
+	private long _moves;
+
+	/**
+	 * The elapsed time of the build in milliseconds
+	 */
+	private long _elapsedTime;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param archive The archive to aggregate
+	 * @param file The path of the opening tree, which is created or replaced
+	 */
+	public OpeningTreeBuilder(GameArchive archive, Path file) {
+		_archive = archive;
+		_file = file;
+	}
+
+	/**
+	 * @param threads The number of threads decoding the games
+	 */
+	public void setThreads(int threads) {
+		_threads = Math.max(1, threads);
+	}
+
+	/**
+	 * @param plies The number of plies of each game added to the tree
+	 */
+	public void setPlies(int plies) {
+		_plies = Math.max(1, Math.min(plies, Position.MAX_HISTORY));
+	}
+
+	/**
+	 * @param minimumGames The number of games a move needs to be kept in the tree
+	 */
+	public void setMinimumGames(int minimumGames) {
+		_minimumGames = Math.max(1, minimumGames);
+	}
+
+	/**
+	 * @return The number of games added to the tree
+	 */
+	public long getGames() {
+		return _games.get();
+	}
+
+	/**
+	 * @return The number of distinct positions of the tree
+	 */
+	public long getPositions() {
+		return _positions;
+	}
+
+	/**
+	 * @return The number of distinct moves of the tree
+	 */
+	public long getMoves() {
+		return _moves;
+	}
+
+	/**
+	 * @return The elapsed time of the build in milliseconds
+	 */
+	public long getElapsedTime() {
+		return _elapsedTime;
+	}
+
+	/**
+	 * Builds the opening tree and waits for its end
+	 *
+	 * @throws IOException If the opening tree cannot be written
+	 * @throws InterruptedException If the calling thread is interrupted while waiting
+	 */
+	public void run() throws IOException, InterruptedException {
+		long startTime = System.currentTimeMillis();
+		ExecutorService executor = Executors.newFixedThreadPool(_threads);
+		try {
+			List<Future<Aggregate>> workers = new ArrayList<>();
+			for(int i = 0; i < _threads; ++i) {
+				workers.add(executor.submit(this::collect));
+			}
+			Aggregate aggregate = workers.get(0).get();
+			for(int i = 1; i < workers.size(); ++i) {
+				aggregate.addAll(workers.get(i).get());
+			}
+			write(aggregate);
+		}
+		catch(ExecutionException exception) {
+			throw exception.getCause() instanceof IOException ? (IOException)exception.getCause() : new IOException(exception.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+			_elapsedTime = System.currentTimeMillis() - startTime;
+		}
+	}
+
+	/**
+	 * Decodes blocks of games until none is left, adding their first plies to the table of the thread
+	 *
+	 * @return The table of the thread
+	 */
+	private Aggregate collect() {
+		Aggregate aggregate = new Aggregate(1 << 16);
+		int[] moves = new int[Position.MAX_HISTORY];
+		long block;
+		while((block = _nextGame.getAndAdd(BLOCK_SIZE)) < _archive.getGameCount()) {
+			for(long game = block; game < Math.min(block + BLOCK_SIZE, _archive.getGameCount()); ++game) {
+				String result = _archive.getResult(game);
+				if(result.equals(PgnGame.UNKNOWN_RESULT)) {
+					continue;
+				}
+				int whiteWin = result.equals("1-0") ? 1 : 0;
+				int blackWin = result.equals("0-1") ? 1 : 0;
+				int draw = whiteWin + blackWin == 0 ? 1 : 0;
+				int whiteRating = _archive.getWhiteRating(game);
+				int blackRating = _archive.getBlackRating(game);
+
+				// The moves are taken back from the end of the game, the position before each move being the one it was played from
+				Position position = _archive.createStartingPosition(game);
+				int moveCount = _archive.getMoves(game, position, moves);
+				for(int i = moveCount - 1; i >= 0; --i) {
+					position.unmakeMove(moves[i]);
+					if(i < _plies) {
+						boolean isWhite = position.getSideToMove() == Pieces.WHITE;
+						int rating = isWhite ? whiteRating : blackRating;
+						aggregate.add(position.getKey(), moves[i], 1, isWhite ? whiteWin : blackWin, draw, rating, rating == 0 ? 0 : 1);
+					}
+				}
+				_games.incrementAndGet();
+			}
+		}
+		return aggregate;
+	}
+
+	/**
+	 * Writes the moves of the tree grouped by position, then the table of the positions and the header
+	 *
+	 * @param aggregate The statistics of all the moves
+	 *
+	 * @throws IOException If the opening tree cannot be written
+	 */
+	private void write(Aggregate aggregate) throws IOException {
+		// The moves kept are sorted by position, their slots following them through the sort
+		long[] keys = new long[aggregate._size];
+		int[] slots = new int[aggregate._size];
+		int count = 0;
+		for(int i = 0; i < aggregate._keys.length; ++i) {
+			if(aggregate._games[i] >= _minimumGames) {
+				keys[count] = aggregate._keys[i];
+				slots[count++] = i;
+			}
+		}
+		PositionIndexBuilder.sort(keys, slots, count);
+		_moves = count;
+
+		// Each position is given a slot of the table and its moves are ordered from the most played
+		_positions = 0;
+		for(int i = 0; i < count; ++i) {
+			if(i == 0 || keys[i] != keys[i - 1]) {
+				++_positions;
+			}
+		}
+		long tableSlots = Long.highestOneBit(Math.max(1, _positions) * 2 - 1) * 2;
+		if(tableSlots > Integer.MAX_VALUE) {
+			throw new IOException("An opening tree cannot hold more than " + Integer.MAX_VALUE / 2 + " positions");
+		}
+		long[] tableKeys = new long[(int)tableSlots];
+		int[] tableFirst = new int[(int)tableSlots];
+		int[] tableCounts = new int[(int)tableSlots];
+		for(int first = 0, last; first < count; first = last) {
+			for(last = first + 1; last < count && keys[last] == keys[first]; ++last) {
+				int slot = slots[last];
+				int i = last;
+				for(; i > first && aggregate._games[slots[i - 1]] < aggregate._games[slot]; --i) {
+					slots[i] = slots[i - 1];
+				}
+				slots[i] = slot;
+			}
+			int slot = (int)(OpeningTree.hash(keys[first]) & (tableSlots - 1));
+			while(tableCounts[slot] != 0) {
+				slot = (int)((slot + 1) & (tableSlots - 1));
+			}
+			tableKeys[slot] = keys[first];
+			tableFirst[slot] = first;
+			tableCounts[slot] = last - first;
+		}
+
+		try(DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(_file), 1 << 16))) {
+			stream.writeInt(OpeningTree.MAGIC);
+			stream.writeInt(OpeningTree.VERSION);
+			stream.writeLong(_positions);
+			stream.writeLong(tableSlots);
+			stream.writeInt(_plies);
+			stream.writeInt(0);
+			for(int i = 0; i < tableSlots; ++i) {
+				stream.writeLong(tableKeys[i]);
+				stream.writeInt(tableFirst[i]);
+				stream.writeInt(tableCounts[i]);
+			}
+			for(int i = 0; i < count; ++i) {
+				int slot = slots[i];
+				stream.writeInt(aggregate._moves[slot]);
+				stream.writeInt(aggregate._games[slot]);
+				stream.writeInt(aggregate._wins[slot]);
+				stream.writeInt(aggregate._draws[slot]);
+				stream.writeLong(aggregate._ratingSums[slot]);
+				stream.writeInt(aggregate._ratedGames[slot]);
+				stream.writeInt(0);
+			}
+		}
+	}
+
+	/**
+	 * Builds the opening tree of a game archive from the command line
+	 *
+	 * @param args The arguments of the build, see the usage
+	 *
+	 * @throws Exception If the build fails
+	 */
+	public static void main(String[] args) throws Exception {
+		String archive = null;
+		String tree = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int plies = DEFAULT_PLIES;
+		int minimumGames = 1;
+		for(int i = 0; i < args.length; ++i) {
+			switch(args[i]) {
+			case "-archive":
+				archive = args[++i];
+				break;
+			case "-tree":
+				tree = args[++i];
+				break;
+			case "-threads":
+				threads = Integer.parseInt(args[++i]);
+				break;
+			case "-plies":
+				plies = Integer.parseInt(args[++i]);
+				break;
+			case "-min":
+				minimumGames = Integer.parseInt(args[++i]);
+				break;
+			default:
+				archive = null;
+				i = args.length;
+				break;
+			}
+		}
+		if(archive == null) {
+			System.out.println("Usage: OpeningTreeBuilder -archive <file> [-tree <file>] [-threads <count>] [-plies <count>] [-min <games>]");
+			return;
+		}
+
+		Path file = Paths.get(tree == null ? archive + ".openings" : tree);
+		try(GameArchive gameArchive = new GameArchive(Paths.get(archive))) {
+			OpeningTreeBuilder builder = new OpeningTreeBuilder(gameArchive, file);
+			builder.setThreads(threads);
+			builder.setPlies(plies);
+			builder.setMinimumGames(minimumGames);
+			builder.run();
+			System.out.println(String.format("Aggregated the first %d plies of %d games into %d moves of %d positions in %.1fs, %d bytes", plies, builder.getGames(), builder.getMoves(), builder.getPositions(), builder.getElapsedTime() / 1000.0, Files.size(file)));
+		}
+	}
+}
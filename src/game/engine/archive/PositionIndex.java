@@ -0,0 +1,326 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.logging.Level;
+
+import engine.utils.io.logging.Tracelog;
+import game.engine.board.Fen;
+import game.engine.board.Position;
+
+/**
+ * An index of the positions reached by the games of a game archive.
+ *
+ * The index maps the key of each position to the list of the games that reached it.  The lists are
+ * written one after the other, each as its number of games followed by the differences between
+ * consecutive games in variable-length bytes, which takes about a byte per game.  A table sorted by
+ * key then gives the location of each list, so a position is found by a binary search over the
+ * mapped table without reading the rest of the index.
+ *
+ * <pre>
+ * header  : magic (int), version (int), keys (long), table offset (long), reserved (8 bytes)
+ * list    : games (varint), first game (varint), differences (varint)...
+ * entry   : key (long), list offset (long), sorted by key as an unsigned number
+ * </pre>
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class PositionIndex implements Closeable {
+
+	/**
+	 * The first bytes of an index, the characters "CHPI"
+	 */
+	public static final int MAGIC = 0x43485049;
+
+	/**
+	 * The version of the format
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The system property holding the path of the default game archive
+	 */
+	public static final String ARCHIVE_PROPERTY = "chess.archive";
+
+	/**
+	 * The system property holding the path of the index of the default game archive, which defaults to the archive with the .index extension
+	 */
+	public static final String INDEX_PROPERTY = "chess.index";
+
+	/**
+	 * The size in bytes of the header
+	 */
+	static final int HEADER_SIZE = 32;
+
+	/**
+	 * The size in bytes of an entry of the table
+	 */
+	static final int ENTRY_SIZE = 16;
+
+	/**
+	 * The default index
+	 */
+	private static PositionIndex _instance;
+
+	/**
+	 * Indicates if opening the default index failed, in which case it is not attempted again
+	 */
+	private static boolean _isUnavailable;
+
+	/**
+	 * The archive holding the games of the index
+	 */
+	private final GameArchive _archive;
+
+	/**
+	 * The mapping of the index
+	 */
+	private final MappedFile _mapping;
+
+	/**
+	 * The number of positions of the index
+	 */
+	private final long _keys;
+
+	/**
+	 * The location of the first entry of the table
+	 */
+	private final long _tableOffset;
+
+	/**
+	 * Constructs a new instance of this class type, the index is mapped at once
+	 *
+	 * @param file The path of the index
+	 * @param archive The archive holding the games of the index
+	 *
+	 * @throws IOException If the index cannot be read or is not a position index
+	 */
+	public PositionIndex(Path file, GameArchive archive) throws IOException {
+		_archive = archive;
+		_mapping = new MappedFile(file);
+		long size = _mapping.size();
+		if(size < HEADER_SIZE || _mapping.getInt(0) != MAGIC || _mapping.getInt(4) != VERSION) {
+			throw new IOException(file + " is not a position index of version " + VERSION);
+		}
+		_keys = _mapping.getLong(8);
+		_tableOffset = _mapping.getLong(16);
+		if(_tableOffset + _keys * ENTRY_SIZE > size) {
+			throw new IOException(file + " is truncated");
+		}
+	}
+
+	/**
+	 * Gets the default index, configured by the {@link #ARCHIVE_PROPERTY} and {@link #INDEX_PROPERTY} system properties
+	 *
+	 * @return The default index, or null if no archive is configured or it cannot be opened
+	 */
+	public static synchronized PositionIndex instance() {
+		if(_instance == null && !_isUnavailable) {
+			String archive = System.getProperty(ARCHIVE_PROPERTY);
+			if(archive == null || archive.isEmpty()) {
+				return null;
+			}
+			try {
+				_instance = new PositionIndex(Paths.get(System.getProperty(INDEX_PROPERTY, archive + ".index")), new GameArchive(Paths.get(archive)));
+				Tracelog.log(Level.INFO, true, "Opened the position index of " + archive + " with " + _instance.getKeyCount() + " positions");
+			}
+			catch(IOException exception) {
+				Tracelog.log(Level.SEVERE, true, exception);
+				_isUnavailable = true;
+			}
+		}
+		return _instance;
+	}
+
+	/**
+	 * @return The archive holding the games of the index
+	 */
+	public GameArchive getArchive() {
+		return _archive;
+	}
+
+	/**
+	 * @return The number of distinct positions of the index
+	 */
+	public long getKeyCount() {
+		return _keys;
+	}
+
+	/**
+	 * Gets the number of games that reached a position
+	 *
+	 * @param position The position
+	 *
+	 * @return The number of games
+	 */
+	public int getGameCount(Position position) {
+		long offset = find(position.getKey());
+		return offset == -1 ? 0 : (int)readVarint(new long[] { offset });
+	}
+
+	/**
+	 * Gets the games that reached a position
+	 *
+	 * @param position The position
+	 * @param limit The maximum number of games returned
+	 *
+	 * @return The indices of the games within the archive, in increasing order
+	 */
+	public long[] getGames(Position position, int limit) {
+		return getGames(position.getKey(), limit);
+	}
+
+	/**
+	 * Gets the games that reached a position
+	 *
+	 * @param key The key of the position
+	 * @param limit The maximum number of games returned
+	 *
+	 * @return The indices of the games within the archive, in increasing order
+	 */
+	public long[] getGames(long key, int limit) {
+		long offset = find(key);
+		if(offset == -1) {
+			return new long[0];
+		}
+		long[] cursor = { offset };
+		long[] games = new long[(int)Math.min(limit, readVarint(cursor))];
+		long game = 0;
+		for(int i = 0; i < games.length; ++i) {
+			game += readVarint(cursor);
+			games[i] = game;
+		}
+		return games;
+	}
+
+	/**
+	 * Releases the mapped regions, which are unmapped once they are collected
+	 */
+	@Override public void close() {
+		_mapping.close();
+		_archive.close();
+	}
+
+	/**
+	 * Finds the list of a position by a binary search over the table
+	 *
+	 * @param key The key of the position
+	 *
+	 * @return The location of the list of the position, or -1 if no game reached it
+	 */
+	private long find(long key) {
+		long low = 0;
+		long high = _keys - 1;
+		while(low <= high) {
+			long middle = (low + high) >>> 1;
+			long offset = _tableOffset + middle * ENTRY_SIZE;
+			int comparison = Long.compareUnsigned(_mapping.getLong(offset), key);
+			if(comparison == 0) {
+				return _mapping.getLong(offset + 8);
+			}
+			if(comparison < 0) {
+				low = middle + 1;
+			}
+			else {
+				high = middle - 1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Reads a number written with seven bits per byte, the high bit of a byte telling that more follow
+	 *
+	 * @param cursor The location of the number, which is moved past it
+	 *
+	 * @return The number
+	 */
+	private long readVarint(long[] cursor) {
+		long value = 0;
+		for(int shift = 0;; shift += 7) {
+			long offset = cursor[0]++;
+			int current = _mapping.getByte(offset);
+			value |= (long)(current & 0x7F) << shift;
+			if((current & 0x80) == 0) {
+				return value;
+			}
+		}
+	}
+
+	/**
+	 * Lists the games of an archive that reached a position
+	 *
+	 * @param args The arguments, see the usage
+	 *
+	 * @throws IOException If the archive or its index cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		String archive = null;
+		String index = null;
+		String fen = Fen.STARTING_POSITION;
+		int limit = 20;
+		for(int i = 0; i < args.length; ++i) {
+			switch(args[i]) {
+			case "-archive":
+				archive = args[++i];
+				break;
+			case "-index":
+				index = args[++i];
+				break;
+			case "-fen":
+				fen = args[++i];
+				break;
+			case "-limit":
+				limit = Integer.parseInt(args[++i]);
+				break;
+			default:
+				archive = null;
+				i = args.length;
+				break;
+			}
+		}
+		if(archive == null) {
+			System.out.println("Usage: PositionIndex -archive <file> [-index <file>] [-fen <position>] [-limit <games>]");
+			return;
+		}
+
+		try(PositionIndex positionIndex = new PositionIndex(Paths.get(index == null ? archive + ".index" : index), new GameArchive(Paths.get(archive)))) {
+			Position position = Fen.parse(fen);
+			long startTime = System.nanoTime();
+			int count = positionIndex.getGameCount(position);
+			long[] games = positionIndex.getGames(position, limit);
+			System.out.println(String.format("%d games in %.3fms %s", count, (System.nanoTime() - startTime) / 1000000.0, Arrays.toString(games)));
+			for(long game : games) {
+				System.out.println(game + ": " + positionIndex.getArchive().getGame(game));
+			}
+		}
+	}
+}
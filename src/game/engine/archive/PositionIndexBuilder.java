@@ -0,0 +1,537 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import game.engine.board.Position;
+
+/**
+ * Builds the position index of a game archive, see {@link PositionIndex} for the layout of the file.
+ *
+ * The index is built by an external sort so that its size is not bound by the heap.  A pool of
+ * threads decodes the games, each thread collecting the key of every position along with its game
+ * into a buffer of fixed size that is sorted and written to a run file once full.  The runs are then
+ * merged into the lists of the index in a single pass, which reads each run from its start to its
+ * end and only keeps in the heap the games of the position being written
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class PositionIndexBuilder {
+
+	/**
+	 * The default number of positions sorted in the heap by each thread
+	 */
+	public static final int DEFAULT_RUN_SIZE = 1 << 21;
+
+	/**
+	 * The number of games decoded by a thread before it claims more
+	 */
+	private static final int BLOCK_SIZE = 1024;
+
+	/**
+	 * The size in bytes of the buffer of each run read by the merge
+	 */
+	private static final int MERGE_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * The run being read by the merge
+	 *
+	 * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+	 *
+	 */
+	private static final class Run {
+
+		/**
+		 * The stream of the run
+		 */
+		private final DataInputStream _stream;
+
+		/**
+		 * The key of the current position of the run
+		 */
+		private long _key;
+
+		/**
+		 * The game of the current position of the run
+		 */
+		private int _game;
+
+		/**
+		 * Constructs a new instance of this class type
+		 *
+		 * @param file The path of the run
+		 *
+		 * @throws IOException If the run cannot be read
+		 */
+		private Run(Path file) throws IOException {
+			_stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), MERGE_BUFFER_SIZE));
+		}
+
+		/**
+		 * Reads the next position of the run
+		 *
+		 * @return TRUE if a position was read, FALSE at the end of the run
+		 *
+		 * @throws IOException If the run cannot be read
+		 */
+		private boolean next() throws IOException {
+			try {
+				_key = _stream.readLong();
+				_game = _stream.readInt();
+				return true;
+			}
+			catch(EOFException exception) {
+				_stream.close();
+				return false;
+			}
+		}
+
+		/**
+		 * Compares the current positions of two runs by key and then by game
+		 *
+		 * @param run The other run
+		 *
+		 * @return The comparison of the current positions
+		 */
+		private int compareTo(Run run) {
+			int comparison = Long.compareUnsigned(_key, run._key);
+			return comparison != 0 ? comparison : Integer.compare(_game, run._game);
+		}
+	}
+
+	/**
+	 * The archive being indexed
+	 */
+	private final GameArchive _archive;
+
+	/**
+	 * The path of the index
+	 */
+	private final Path _file;
+
+	/**
+	 * The number of threads decoding the games
+	 */
+	private int _threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The number of positions sorted in the heap by each thread
+	 */
+	private int _runSize = DEFAULT_RUN_SIZE;
+
+	/**
+	 * The next game to be claimed by a thread
+	 */
+	private final AtomicLong _nextGame = new AtomicLong();
+
+	/**
+	 * The number of positions collected from the games, including the repetitions within a game
+	 */
+	private final AtomicLong _positions = new AtomicLong();
+
+	/**
+	 * The runs written, in the order they were written
+	 */
+	private final List<Path> _runs = new ArrayList<>();
+
+	/**
+	 * The number of distinct positions of the index
+	 */
+	private long _keys;
+
+	/**
+	 * The elapsed time of the build in milliseconds
+	 */
+	private long _elapsedTime;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param archive The archive to index
+	 * @param file The path of the index, which is created or replaced
+	 */
+	public PositionIndexBuilder(GameArchive archive, Path file) {
+		_archive = archive;
+		_file = file;
+	}
+
+	/**
+	 * @param threads The number of threads decoding the games
+	 */
+	public void setThreads(int threads) {
+		_threads = Math.max(1, threads);
+	}
+
+	/**
+	 * @param runSize The number of positions sorted in the heap by each thread
+	 */
+	public void setRunSize(int runSize) {
+		_runSize = Math.max(Position.MAX_HISTORY, runSize);
+	}
+
+	/**
+	 * @return The number of positions collected from the games, including the repetitions within a game
+	 */
+	public long getPositions() {
+		return _positions.get();
+	}
+
+	/**
+	 * @return The number of distinct positions of the index
+	 */
+	public long getKeys() {
+		return _keys;
+	}
+
+	/**
+	 * @return The number of runs written by the sort
+	 */
+	public int getRuns() {
+		return _runs.size();
+	}
+
+	/**
+	 * @return The elapsed time of the build in milliseconds
+	 */
+	public long getElapsedTime() {
+		return _elapsedTime;
+	}
+
+	/**
+	 * Builds the index and waits for its end
+	 *
+	 * @throws IOException If the index cannot be written
+	 * @throws InterruptedException If the calling thread is interrupted while waiting
+	 */
+	public void run() throws IOException, InterruptedException {
+		if(_archive.getGameCount() > Integer.MAX_VALUE) {
+			throw new IOException("An index cannot hold more than " + Integer.MAX_VALUE + " games");
+		}
+		long startTime = System.currentTimeMillis();
+		ExecutorService executor = Executors.newFixedThreadPool(_threads);
+		try {
+			List<Future<Void>> workers = new ArrayList<>();
+			for(int i = 0; i < _threads; ++i) {
+				workers.add(executor.submit(() -> {
+					collect();
+					return null;
+				}));
+			}
+			for(Future<Void> worker : workers) {
+				worker.get();
+			}
+			merge();
+		}
+		catch(ExecutionException exception) {
+			throw exception.getCause() instanceof IOException ? (IOException)exception.getCause() : new IOException(exception.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+			for(Path run : _runs) {
+				Files.deleteIfExists(run);
+			}
+			_elapsedTime = System.currentTimeMillis() - startTime;
+		}
+	}
+
+	/**
+	 * Decodes blocks of games until none is left, writing a run whenever the buffer of the thread is full
+	 *
+	 * @throws IOException If a run cannot be written
+	 */
+	private void collect() throws IOException {
+		long[] keys = new long[_runSize];
+		int[] games = new int[_runSize];
+		int[] moves = new int[Position.MAX_HISTORY];
+		int count = 0;
+		long block;
+		while((block = _nextGame.getAndAdd(BLOCK_SIZE)) < _archive.getGameCount()) {
+			for(long game = block; game < Math.min(block + BLOCK_SIZE, _archive.getGameCount()); ++game) {
+				if(_archive.getMoveCount(game) + 1 > _runSize - count) {
+					writeRun(keys, games, count);
+					count = 0;
+				}
+
+				// The moves are taken back from the end of the game, which visits every position without playing them twice
+				Position position = _archive.createStartingPosition(game);
+				int moveCount = _archive.getMoves(game, position, moves);
+				keys[count] = position.getKey();
+				games[count++] = (int)game;
+				for(int i = moveCount - 1; i >= 0; --i) {
+					position.unmakeMove(moves[i]);
+					keys[count] = position.getKey();
+					games[count++] = (int)game;
+				}
+				_positions.addAndGet(moveCount + 1);
+			}
+		}
+		if(count > 0) {
+			writeRun(keys, games, count);
+		}
+	}
+
+	/**
+	 * Sorts the positions collected by a thread and writes them to a run
+	 *
+	 * @param keys The keys of the positions
+	 * @param games The games of the positions
+	 * @param count The number of positions
+	 *
+	 * @throws IOException If the run cannot be written
+	 */
+	private void writeRun(long[] keys, int[] games, int count) throws IOException {
+		sort(keys, games, count);
+		Path run;
+		synchronized(_runs) {
+			run = _file.resolveSibling(_file.getFileName() + ".run" + _runs.size());
+			_runs.add(run);
+		}
+		try(DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+			for(int i = 0; i < count; ++i) {
+				stream.writeLong(keys[i]);
+				stream.writeInt(games[i]);
+			}
+		}
+	}
+
+	/**
+	 * Sorts positions by key with a radix sort on each byte of the key.  The sort is stable, and a
+	 * thread claims its games in increasing order, so the games of a key stay in increasing order
+	 *
+	 * @param keys The keys of the positions
+	 * @param games The games of the positions
+	 * @param count The number of positions
+	 */
+	static void sort(long[] keys, int[] games, int count) {
+		long[] sortedKeys = new long[count];
+		int[] sortedGames = new int[count];
+		int[] offsets = new int[257];
+		for(int shift = 0; shift < 64; shift += 8) {
+			Arrays.fill(offsets, 0);
+			for(int i = 0; i < count; ++i) {
+				++offsets[(int)(keys[i] >>> shift & 0xFF) + 1];
+			}
+			for(int i = 1; i < offsets.length; ++i) {
+				offsets[i] += offsets[i - 1];
+			}
+			for(int i = 0; i < count; ++i) {
+				int target = offsets[(int)(keys[i] >>> shift & 0xFF)]++;
+				sortedKeys[target] = keys[i];
+				sortedGames[target] = games[i];
+			}
+			System.arraycopy(sortedKeys, 0, keys, 0, count);
+			System.arraycopy(sortedGames, 0, games, 0, count);
+		}
+	}
+
+	/**
+	 * Merges the runs into the lists of the index, then writes the table and the header
+	 *
+	 * @throws IOException If the index cannot be written
+	 */
+	private void merge() throws IOException {
+		Path tableFile = _file.resolveSibling(_file.getFileName() + ".table");
+		long tableOffset;
+		try(OutputStream lists = new BufferedOutputStream(Files.newOutputStream(_file), 1 << 16);
+			DataOutputStream table = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tableFile), 1 << 16))) {
+
+			// The header is written again once the number of positions and the location of the table are known
+			lists.write(new byte[PositionIndex.HEADER_SIZE]);
+			long offset = PositionIndex.HEADER_SIZE;
+
+			PriorityQueue<Run> queue = new PriorityQueue<>(Math.max(1, _runs.size()), Run::compareTo);
+			for(Path path : _runs) {
+				Run run = new Run(path);
+				if(run.next()) {
+					queue.add(run);
+				}
+			}
+
+			int[] games = new int[1024];
+			int count = 0;
+			long key = 0;
+			while(!queue.isEmpty()) {
+				Run run = queue.poll();
+				if(count > 0 && run._key != key) {
+					table.writeLong(key);
+					table.writeLong(offset);
+					offset += writeList(lists, games, count);
+					++_keys;
+					count = 0;
+				}
+
+				// A position repeated within a game is listed once
+				key = run._key;
+				if(count == 0 || games[count - 1] != run._game) {
+					if(count == games.length) {
+						games = Arrays.copyOf(games, count * 2);
+					}
+					games[count++] = run._game;
+				}
+				if(run.next()) {
+					queue.add(run);
+				}
+			}
+			if(count > 0) {
+				table.writeLong(key);
+				table.writeLong(offset);
+				offset += writeList(lists, games, count);
+				++_keys;
+			}
+
+			// The table is aligned on the size of its entries so that none of them crosses two mapped regions
+			int padding = (int)((PositionIndex.ENTRY_SIZE - offset % PositionIndex.ENTRY_SIZE) % PositionIndex.ENTRY_SIZE);
+			lists.write(new byte[padding]);
+			tableOffset = offset + padding;
+		}
+
+		try(FileChannel channel = FileChannel.open(_file, StandardOpenOption.WRITE); FileChannel table = FileChannel.open(tableFile, StandardOpenOption.READ)) {
+			long size = table.size();
+			for(long copied = 0; copied < size;) {
+				copied += table.transferTo(copied, size - copied, channel.position(tableOffset + copied));
+			}
+
+			ByteBuffer header = ByteBuffer.allocate(PositionIndex.HEADER_SIZE);
+			header.putInt(PositionIndex.MAGIC).putInt(PositionIndex.VERSION).putLong(_keys).putLong(tableOffset);
+			header.rewind();
+			channel.write(header, 0);
+		}
+		finally {
+			Files.deleteIfExists(tableFile);
+		}
+	}
+
+	/**
+	 * Writes the list of the games of a position
+	 *
+	 * @param stream The stream of the index
+	 * @param games The games in increasing order
+	 * @param count The number of games
+	 *
+	 * @return The number of bytes written
+	 *
+	 * @throws IOException If the list cannot be written
+	 */
+	private static int writeList(OutputStream stream, int[] games, int count) throws IOException {
+		int length = writeVarint(stream, count);
+		int previous = 0;
+		for(int i = 0; i < count; ++i) {
+			length += writeVarint(stream, games[i] - previous);
+			previous = games[i];
+		}
+		return length;
+	}
+
+	/**
+	 * Writes a number with seven bits per byte, the high bit of a byte telling that more follow
+	 *
+	 * @param stream The stream
+	 * @param value The number, which cannot be negative
+	 *
+	 * @return The number of bytes written
+	 *
+	 * @throws IOException If the number cannot be written
+	 */
+	private static int writeVarint(OutputStream stream, int value) throws IOException {
+		int length = 1;
+		while((value & ~0x7F) != 0) {
+			stream.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+			++length;
+		}
+		stream.write(value);
+		return length;
+	}
+
+	/**
+	 * Builds the position index of a game archive from the command line
+	 *
+	 * @param args The arguments of the build, see the usage
+	 *
+	 * @throws Exception If the build fails
+	 */
+	public static void main(String[] args) throws Exception {
+		String archive = null;
+		String index = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int runSize = DEFAULT_RUN_SIZE;
+		for(int i = 0; i < args.length; ++i) {
+			switch(args[i]) {
+			case "-archive":
+				archive = args[++i];
+				break;
+			case "-index":
+				index = args[++i];
+				break;
+			case "-threads":
+				threads = Integer.parseInt(args[++i]);
+				break;
+			case "-run":
+				runSize = Integer.parseInt(args[++i]);
+				break;
+			default:
+				archive = null;
+				i = args.length;
+				break;
+			}
+		}
+		if(archive == null) {
+			System.out.println("Usage: PositionIndexBuilder -archive <file> [-index <file>] [-threads <count>] [-run <positions>]");
+			return;
+		}
+
+		Path file = Paths.get(index == null ? archive + ".index" : index);
+		try(GameArchive gameArchive = new GameArchive(Paths.get(archive))) {
+			PositionIndexBuilder builder = new PositionIndexBuilder(gameArchive, file);
+			builder.setThreads(threads);
+			builder.setRunSize(runSize);
+			builder.run();
+			System.out.println(String.format("Indexed %d positions of %d games into %d keys with %d runs in %.1fs, %d bytes", builder.getPositions(), gameArchive.getGameCount(), builder.getKeys(), builder.getRuns(), builder.getElapsedTime() / 1000.0, Files.size(file)));
+		}
+	}
+}
@@ -0,0 +1,237 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.board;
+
+/**
+ * Precomputed attack tables and square helpers used by the engine.
+ *
+ * Squares are numbered from 0 (a1) to 63 (h8), file first.  Sliding attacks are computed
+ * with the classical ray approach, where the ray is cut at the first blocker found on it
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class Bitboards {
+
+	/**
+	 * The bitboard of the A file
+	 */
+	public static final long FILE_A = 0x0101010101010101L;
+
+	/**
+	 * The bitboard of the H file
+	 */
+	public static final long FILE_H = FILE_A << 7;
+
+	/**
+	 * The bitboard of the first rank
+	 */
+	public static final long RANK_1 = 0xFFL;
+
+	/**
+	 * The bitboard of the eighth rank
+	 */
+	public static final long RANK_8 = RANK_1 << 56;
+
+	/**
+	 * The attacks of a knight from each square
+	 */
+	public static final long[] KNIGHT_ATTACKS = new long[64];
+
+	/**
+	 * The attacks of a king from each square
+	 */
+	public static final long[] KING_ATTACKS = new long[64];
+
+	/**
+	 * The capture attacks of a pawn from each square, indexed by color and then square
+	 */
+	public static final long[][] PAWN_ATTACKS = new long[2][64];
+
+	/**
+	 * The eight ray directions, in the order N, NE, E, SE, S, SW, W, NW
+	 */
+	private static final int[][] DIRECTIONS = {
+		{ 0, 1 }, { 1, 1 }, { 1, 0 }, { 1, -1 }, { 0, -1 }, { -1, -1 }, { -1, 0 }, { -1, 1 }
+	};
+
+	/**
+	 * The empty-board rays from each square, indexed by direction and then square
+	 */
+	private static final long[][] RAYS = new long[8][64];
+
+	static {
+		for(int square = 0; square < 64; ++square) {
+			int file = file(square);
+			int rank = rank(square);
+
+			KNIGHT_ATTACKS[square] = offsets(file, rank, new int[][] { { 1, 2 }, { 2, 1 }, { 2, -1 }, { 1, -2 }, { -1, -2 }, { -2, -1 }, { -2, 1 }, { -1, 2 } });
+			KING_ATTACKS[square] = offsets(file, rank, DIRECTIONS);
+			PAWN_ATTACKS[Pieces.WHITE][square] = offsets(file, rank, new int[][] { { -1, 1 }, { 1, 1 } });
+			PAWN_ATTACKS[Pieces.BLACK][square] = offsets(file, rank, new int[][] { { -1, -1 }, { 1, -1 } });
+
+			for(int direction = 0; direction < DIRECTIONS.length; ++direction) {
+				long ray = 0;
+				for(int f = file + DIRECTIONS[direction][0], r = rank + DIRECTIONS[direction][1]; isOnBoard(f, r); f += DIRECTIONS[direction][0], r += DIRECTIONS[direction][1]) {
+					ray |= 1L << (r * 8 + f);
+				}
+				RAYS[direction][square] = ray;
+			}
+		}
+	}
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	private Bitboards() {
+	}
+
+	/**
+	 * Builds the bitboard of all the squares reachable from the specified coordinates using the specified offsets
+	 *
+	 * @param file The file of the origin
+	 * @param rank The rank of the origin
+	 * @param offsets The list of file and rank offsets
+	 *
+	 * @return The bitboard of the reachable squares
+	 */
+	private static long offsets(int file, int rank, int[][] offsets) {
+		long bitboard = 0;
+		for(int[] offset : offsets) {
+			if(isOnBoard(file + offset[0], rank + offset[1])) {
+				bitboard |= 1L << ((rank + offset[1]) * 8 + file + offset[0]);
+			}
+		}
+		return bitboard;
+	}
+
+	/**
+	 * Indicates if the specified coordinates are on the board
+	 *
+	 * @param file The file
+	 * @param rank The rank
+	 *
+	 * @return TRUE if the coordinates are on the board
+	 */
+	private static boolean isOnBoard(int file, int rank) {
+		return file >= 0 && file < 8 && rank >= 0 && rank < 8;
+	}
+
+	/**
+	 * Gets the attacks along a single ray, stopping at (and including) the first blocker
+	 *
+	 * @param square The origin square
+	 * @param occupied The occupied squares of the board
+	 * @param direction The ray direction
+	 *
+	 * @return The attacked squares along the ray
+	 */
+	private static long rayAttacks(int square, long occupied, int direction) {
+		long attacks = RAYS[direction][square];
+		long blockers = attacks & occupied;
+		if(blockers != 0) {
+			// Directions N, NE, E and NW grow in square index, so their nearest blocker is the lowest bit
+			int blocker = direction <= 2 || direction == 7
+				? Long.numberOfTrailingZeros(blockers)
+				: 63 - Long.numberOfLeadingZeros(blockers);
+			attacks ^= RAYS[direction][blocker];
+		}
+		return attacks;
+	}
+
+	/**
+	 * Gets the attacks of a rook on the specified square
+	 *
+	 * @param square The square of the rook
+	 * @param occupied The occupied squares of the board
+	 *
+	 * @return The attacked squares
+	 */
+	public static long rookAttacks(int square, long occupied) {
+		return rayAttacks(square, occupied, 0) | rayAttacks(square, occupied, 2) | rayAttacks(square, occupied, 4) | rayAttacks(square, occupied, 6);
+	}
+
+	/**
+	 * Gets the attacks of a bishop on the specified square
+	 *
+	 * @param square The square of the bishop
+	 * @param occupied The occupied squares of the board
+	 *
+	 * @return The attacked squares
+	 */
+	public static long bishopAttacks(int square, long occupied) {
+		return rayAttacks(square, occupied, 1) | rayAttacks(square, occupied, 3) | rayAttacks(square, occupied, 5) | rayAttacks(square, occupied, 7);
+	}
+
+	/**
+	 * Gets the file of the specified square
+	 *
+	 * @param square The square
+	 *
+	 * @return The file, where 0 is the A file
+	 */
+	public static int file(int square) {
+		return square & 7;
+	}
+
+	/**
+	 * Gets the rank of the specified square
+	 *
+	 * @param square The square
+	 *
+	 * @return The rank, where 0 is the first rank
+	 */
+	public static int rank(int square) {
+		return square >>> 3;
+	}
+
+	/**
+	 * Gets the algebraic name of the specified square
+	 *
+	 * @param square The square
+	 *
+	 * @return The name of the square, such as "e4"
+	 */
+	public static String toSquareName(int square) {
+		return new String(new char[] { (char)('a' + file(square)), (char)('1' + rank(square)) });
+	}
+
+	/**
+	 * Gets the square of the specified algebraic name
+	 *
+	 * @param name The characters holding the square name
+	 * @param index The index of the file character within the name
+	 *
+	 * @return The square, or -1 if the characters are not a valid square
+	 */
+	public static int fromSquareName(CharSequence name, int index) {
+		if(index + 1 >= name.length()) {
+			return -1;
+		}
+		int file = name.charAt(index) - 'a';
+		int rank = name.charAt(index + 1) - '1';
+		return isOnBoard(file, rank) ? rank * 8 + file : -1;
+	}
+}
@@ -0,0 +1,339 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.board;
+
+/**
+ * The Forsyth-Edwards Notation of a position.
+ *
+ * The parser reads the characters of the notation in place, without splitting them into strings,
+ * so that large numbers of positions can be loaded without creating garbage.  The move counters are
+ * optional, which also allows the first four fields of an EPD record to be read.  A notation whose
+ * position could never arise in a game, such as one missing a king or with the player that just moved
+ * left in check, is rejected so that the move generator is never given a board it cannot handle
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class Fen {
+
+	/**
+	 * The notation of the standard starting position
+	 */
+	public static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+	/**
+	 * The largest value accepted for either move counter, which keeps the counters from overflowing
+	 */
+	private static final int MAX_MOVE_COUNTER = 99999;
+
+	/**
+	 * The squares of the first and eighth ranks, where no pawn can stand
+	 */
+	private static final long BACK_RANKS = 0xFF000000000000FFL;
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	private Fen() {
+	}
+
+	/**
+	 * Creates the position of the specified notation
+	 *
+	 * @param fen The notation
+	 *
+	 * @return The position
+	 *
+	 * @throws IllegalArgumentException If the notation is not valid
+	 */
+	public static Position parse(CharSequence fen) {
+		Position position = new Position();
+		parse(fen, 0, position);
+		return position;
+	}
+
+	/**
+	 * Sets the specified position to the notation found at the specified index
+	 *
+	 * @param text The characters holding the notation
+	 * @param index The index of the first character of the notation
+	 * @param position The position to set
+	 *
+	 * @return The index following the last character of the notation
+	 *
+	 * @throws IllegalArgumentException If the notation is not valid
+	 */
+	public static int parse(CharSequence text, int index, Position position) {
+		int length = text.length();
+		position.clear();
+
+		// The placement of the pieces, from the eighth rank to the first
+		index = skipSpaces(text, index);
+		int rank = 7;
+		int file = 0;
+		for(; index < length && text.charAt(index) != ' '; ++index) {
+			char character = text.charAt(index);
+			if(character == '/') {
+				if(file != 8 || rank == 0) {
+					throw invalid(text, "rank " + (rank + 1) + " does not hold eight squares");
+				}
+				--rank;
+				file = 0;
+			}
+			else if(character >= '1' && character <= '8') {
+				file += character - '0';
+			}
+			else {
+				int piece = Pieces.fromCharacter(character);
+				if(piece == Pieces.NONE) {
+					throw invalid(text, "'" + character + "' is not a piece");
+				}
+				if(file < 8) {
+					position.setPiece(rank * 8 + file, piece);
+				}
+				++file;
+			}
+			if(file > 8) {
+				throw invalid(text, "rank " + (rank + 1) + " holds more than eight squares");
+			}
+		}
+		if(rank != 0 || file != 8) {
+			throw invalid(text, "the board does not hold eight ranks of eight squares");
+		}
+		for(int color : new int[] { Pieces.WHITE, Pieces.BLACK }) {
+			if(Long.bitCount(position.getPieces(Pieces.make(color, Pieces.KING))) != 1) {
+				throw invalid(text, (color == Pieces.WHITE ? "white" : "black") + " does not have exactly one king");
+			}
+			if((position.getPieces(Pieces.make(color, Pieces.PAWN)) & BACK_RANKS) != 0) {
+				throw invalid(text, "a pawn stands on the first or eighth rank");
+			}
+		}
+
+		// The player to move
+		index = skipSpaces(text, index);
+		if(index >= length || (text.charAt(index) != 'w' && text.charAt(index) != 'b')) {
+			throw invalid(text, "the player to move is missing");
+		}
+		position.setSideToMove(text.charAt(index++) == 'w' ? Pieces.WHITE : Pieces.BLACK);
+
+		// The castling rights
+		index = skipSpaces(text, index);
+		int castling = 0;
+		if(index < length && text.charAt(index) == '-') {
+			++index;
+		}
+		else {
+			for(; index < length && text.charAt(index) != ' '; ++index) {
+				switch(text.charAt(index)) {
+				case 'K':
+					castling |= Position.CASTLE_WHITE_KING;
+					break;
+				case 'Q':
+					castling |= Position.CASTLE_WHITE_QUEEN;
+					break;
+				case 'k':
+					castling |= Position.CASTLE_BLACK_KING;
+					break;
+				case 'q':
+					castling |= Position.CASTLE_BLACK_QUEEN;
+					break;
+				default:
+					throw invalid(text, "'" + text.charAt(index) + "' is not a castling right");
+				}
+			}
+		}
+		if(!hasCastlingPieces(position, castling, Position.CASTLE_WHITE_KING, Pieces.WHITE, 4, 7)
+			|| !hasCastlingPieces(position, castling, Position.CASTLE_WHITE_QUEEN, Pieces.WHITE, 4, 0)
+			|| !hasCastlingPieces(position, castling, Position.CASTLE_BLACK_KING, Pieces.BLACK, 60, 63)
+			|| !hasCastlingPieces(position, castling, Position.CASTLE_BLACK_QUEEN, Pieces.BLACK, 60, 56)) {
+			throw invalid(text, "a castling right does not have its king and rook on their starting squares");
+		}
+		position.setCastlingRights(castling);
+
+		// The en-passent square
+		index = skipSpaces(text, index);
+		if(index < length && text.charAt(index) == '-') {
+			++index;
+		}
+		else {
+			int square = Bitboards.fromSquareName(text, index);
+			if(square == -1) {
+				throw invalid(text, "the en-passent square is missing");
+			}
+			if(Bitboards.rank(square) != (position.getSideToMove() == Pieces.WHITE ? 5 : 2)) {
+				throw invalid(text, "the en-passent square is not on the rank skipped by the last pawn push");
+			}
+			position.setEnPassentSquare(square);
+			index += 2;
+		}
+
+		// The optional move counters
+		int counterIndex = skipSpaces(text, index);
+		if(counterIndex < length && isDigit(text.charAt(counterIndex))) {
+			int halfMoveClock = 0;
+			for(index = counterIndex; index < length && isDigit(text.charAt(index)); ++index) {
+				halfMoveClock = halfMoveClock * 10 + text.charAt(index) - '0';
+				if(halfMoveClock > MAX_MOVE_COUNTER) {
+					throw invalid(text, "the half-move clock exceeds " + MAX_MOVE_COUNTER);
+				}
+			}
+			int fullMoveNumber = 0;
+			counterIndex = skipSpaces(text, index);
+			for(index = counterIndex; index < length && isDigit(text.charAt(index)); ++index) {
+				fullMoveNumber = fullMoveNumber * 10 + text.charAt(index) - '0';
+				if(fullMoveNumber > MAX_MOVE_COUNTER) {
+					throw invalid(text, "the full-move number exceeds " + MAX_MOVE_COUNTER);
+				}
+			}
+			position.setMoveCounters(halfMoveClock, Math.max(1, fullMoveNumber));
+		}
+
+		// The player that just moved cannot have left its king in check
+		if(!position.wasLegal()) {
+			throw invalid(text, "the player not to move is in check");
+		}
+		return index;
+	}
+
+	/**
+	 * Gets the notation of the specified position
+	 *
+	 * @param position The position
+	 *
+	 * @return The notation
+	 */
+	public static String toString(Position position) {
+		StringBuilder builder = new StringBuilder(90);
+		append(builder, position);
+		return builder.toString();
+	}
+
+	/**
+	 * Appends the notation of the specified position
+	 *
+	 * @param builder The builder to append to
+	 * @param position The position
+	 */
+	public static void append(StringBuilder builder, Position position) {
+		for(int rank = 7; rank >= 0; --rank) {
+			int empty = 0;
+			for(int file = 0; file < 8; ++file) {
+				int piece = position.getPiece(rank * 8 + file);
+				if(piece == Pieces.NONE) {
+					++empty;
+					continue;
+				}
+				if(empty > 0) {
+					builder.append((char)('0' + empty));
+					empty = 0;
+				}
+				builder.append(Pieces.toCharacter(piece));
+			}
+			if(empty > 0) {
+				builder.append((char)('0' + empty));
+			}
+			if(rank > 0) {
+				builder.append('/');
+			}
+		}
+
+		builder.append(position.getSideToMove() == Pieces.WHITE ? " w " : " b ");
+
+		int castling = position.getCastlingRights();
+		if(castling == 0) {
+			builder.append('-');
+		}
+		else {
+			if((castling & Position.CASTLE_WHITE_KING) != 0) {
+				builder.append('K');
+			}
+			if((castling & Position.CASTLE_WHITE_QUEEN) != 0) {
+				builder.append('Q');
+			}
+			if((castling & Position.CASTLE_BLACK_KING) != 0) {
+				builder.append('k');
+			}
+			if((castling & Position.CASTLE_BLACK_QUEEN) != 0) {
+				builder.append('q');
+			}
+		}
+
+		builder.append(' ').append(position.getEnPassentSquare() == -1 ? "-" : Bitboards.toSquareName(position.getEnPassentSquare()));
+		builder.append(' ').append(position.getHalfMoveClock()).append(' ').append(position.getFullMoveNumber());
+	}
+
+	/**
+	 * Skips the spaces starting at the specified index
+	 *
+	 * @param text The characters
+	 * @param index The index of the first character to verify
+	 *
+	 * @return The index of the first character that is not a space
+	 */
+	private static int skipSpaces(CharSequence text, int index) {
+		while(index < text.length() && text.charAt(index) == ' ') {
+			++index;
+		}
+		return index;
+	}
+
+	/**
+	 * Indicates if the pieces needed by a castling right are on their starting squares
+	 *
+	 * @param position The position
+	 * @param castling The castling rights that were read
+	 * @param right The castling right to verify
+	 * @param color The color of the pieces
+	 * @param kingSquare The starting square of the king
+	 * @param rookSquare The starting square of the rook
+	 *
+	 * @return TRUE if the right is not held, or if its king and rook are on their starting squares
+	 */
+	private static boolean hasCastlingPieces(Position position, int castling, int right, int color, int kingSquare, int rookSquare) {
+		return (castling & right) == 0
+			|| (position.getPiece(kingSquare) == Pieces.make(color, Pieces.KING) && position.getPiece(rookSquare) == Pieces.make(color, Pieces.ROOK));
+	}
+
+	/**
+	 * @param character The character
+	 *
+	 * @return TRUE if the character is a decimal digit
+	 */
+	private static boolean isDigit(char character) {
+		return character >= '0' && character <= '9';
+	}
+
+	/**
+	 * Creates the exception thrown for an invalid notation
+	 *
+	 * @param text The characters holding the notation
+	 * @param reason The reason the notation is not valid
+	 *
+	 * @return The exception
+	 */
+	private static IllegalArgumentException invalid(CharSequence text, String reason) {
+		return new IllegalArgumentException("Invalid FEN, " + reason + ": " + text);
+	}
+}
@@ -0,0 +1,168 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.board;
+
+/**
+ * The integer encoding of a move.
+ *
+ * Bits 0-5 hold the from square, bits 6-11 the to square, bits 12-14 the promotion
+ * piece type (zero when there is no promotion) and bits 15-16 the move flag
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class Move {
+
+	/**
+	 * Indicates that there is no move
+	 */
+	public static final int NONE = 0;
+
+	/**
+	 * A regular move or capture
+	 */
+	public static final int FLAG_NORMAL = 0;
+
+	/**
+	 * A pawn moving two squares forward
+	 */
+	public static final int FLAG_DOUBLE_PUSH = 1;
+
+	/**
+	 * A pawn capturing with en-passent
+	 */
+	public static final int FLAG_EN_PASSENT = 2;
+
+	/**
+	 * A king castling, where the to square is the destination of the king
+	 */
+	public static final int FLAG_CASTLE = 3;
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	private Move() {
+	}
+
+	/**
+	 * Creates a move
+	 *
+	 * @param from The from square
+	 * @param to The to square
+	 * @param flag The move flag
+	 *
+	 * @return The encoded move
+	 */
+	public static int create(int from, int to, int flag) {
+		return from | (to << 6) | (flag << 15);
+	}
+
+	/**
+	 * Creates a promotion move
+	 *
+	 * @param from The from square
+	 * @param to The to square
+	 * @param promotion The piece type being promoted to
+	 *
+	 * @return The encoded move
+	 */
+	public static int createPromotion(int from, int to, int promotion) {
+		return from | (to << 6) | (promotion << 12);
+	}
+
+	/**
+	 * @param move The encoded move
+	 *
+	 * @return The from square of the move
+	 */
+	public static int from(int move) {
+		return move & 63;
+	}
+
+	/**
+	 * @param move The encoded move
+	 *
+	 * @return The to square of the move
+	 */
+	public static int to(int move) {
+		return (move >>> 6) & 63;
+	}
+
+	/**
+	 * @param move The encoded move
+	 *
+	 * @return The piece type being promoted to, or zero if the move is not a promotion
+	 */
+	public static int promotion(int move) {
+		return (move >>> 12) & 7;
+	}
+
+	/**
+	 * @param move The encoded move
+	 *
+	 * @return The flag of the move
+	 */
+	public static int flag(int move) {
+		return (move >>> 15) & 3;
+	}
+
+	/**
+	 * Gets the coordinate representation of the move, such as "e2e4" or "e7e8q"
+	 *
+	 * @param move The encoded move
+	 *
+	 * @return The coordinate representation of the move
+	 */
+	public static String toString(int move) {
+		if(move == NONE) {
+			return "0000";
+		}
+
+		String text = Bitboards.toSquareName(from(move)) + Bitboards.toSquareName(to(move));
+		if(promotion(move) != 0) {
+			text += Character.toLowerCase(Pieces.toCharacter(promotion(move)));
+		}
+		return text;
+	}
+
+	/**
+	 * Gets the legal move of the specified position that matches a coordinate representation
+	 *
+	 * @param position The position
+	 * @param text The coordinate representation of the move, such as "e2e4" or "e7e8q"
+	 *
+	 * @return The encoded move, or {@link #NONE} if no legal move matches
+	 */
+	public static int parse(Position position, CharSequence text) {
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegal(position, moves);
+		for(int i = 0; i < count; ++i) {
+			if(toString(moves[i]).contentEquals(text)) {
+				return moves[i];
+			}
+		}
+		return NONE;
+	}
+}
@@ -0,0 +1,309 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.board;
+
+/**
+ * Generates the moves of a position into a caller supplied buffer.
+ *
+ * The rules followed here are the same rules that the board component enforces for the tiles
+ * of the game, including castling through unattacked squares and en-passent captures
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class MoveGenerator {
+
+	/**
+	 * The maximum number of moves that a single position can have
+	 */
+	public static final int MAX_MOVES = 256;
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	private MoveGenerator() {
+	}
+
+	/**
+	 * Generates all the pseudo-legal moves of the player to move.  A pseudo-legal move may leave the
+	 * king of the player in check, which is verified with {@link Position#wasLegal()} once made
+	 *
+	 * @param position The position
+	 * @param moves The buffer that receives the moves
+	 *
+	 * @return The number of moves generated
+	 */
+	public static int generatePseudoLegal(Position position, int[] moves) {
+		return generate(position, moves, false);
+	}
+
+	/**
+	 * Generates the pseudo-legal captures and queen promotions of the player to move
+	 *
+	 * @param position The position
+	 * @param moves The buffer that receives the moves
+	 *
+	 * @return The number of moves generated
+	 */
+	public static int generateCaptures(Position position, int[] moves) {
+		return generate(position, moves, true);
+	}
+
+	/**
+	 * Generates all the legal moves of the player to move
+	 *
+	 * @param position The position
+	 * @param moves The buffer that receives the moves
+	 *
+	 * @return The number of moves generated
+	 */
+	public static int generateLegal(Position position, int[] moves) {
+		int count = generatePseudoLegal(position, moves);
+		int legal = 0;
+		for(int i = 0; i < count; ++i) {
+			position.makeMove(moves[i]);
+			if(position.wasLegal()) {
+				moves[legal++] = moves[i];
+			}
+			position.unmakeMove(moves[i]);
+		}
+		return legal;
+	}
+
+	/**
+	 * Indicates if the player to move has at least one legal move
+	 *
+	 * @param position The position
+	 *
+	 * @return TRUE if there is a legal move
+	 */
+	public static boolean hasLegalMove(Position position) {
+		int[] moves = new int[MAX_MOVES];
+		int count = generatePseudoLegal(position, moves);
+		for(int i = 0; i < count; ++i) {
+			position.makeMove(moves[i]);
+			boolean legal = position.wasLegal();
+			position.unmakeMove(moves[i]);
+			if(legal) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Indicates if the specified move is pseudo-legal in the specified position.  This is used to
+	 * validate moves that come from outside of the generator, such as from the transposition table
+	 *
+	 * @param position The position
+	 * @param move The encoded move
+	 *
+	 * @return TRUE if the move would have been generated by {@link #generatePseudoLegal(Position, int[])}
+	 */
+	public static boolean isPseudoLegal(Position position, int move) {
+		if(move == Move.NONE) {
+			return false;
+		}
+		int piece = position.getPiece(Move.from(move));
+		if(piece == Pieces.NONE || Pieces.color(piece) != position.getSideToMove()) {
+			return false;
+		}
+		int[] moves = new int[MAX_MOVES];
+		int count = generatePseudoLegal(position, moves);
+		for(int i = 0; i < count; ++i) {
+			if(moves[i] == move) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Generates the moves of the player to move
+	 *
+	 * @param position The position
+	 * @param moves The buffer that receives the moves
+	 * @param capturesOnly If only captures and queen promotions should be generated
+	 *
+	 * @return The number of moves generated
+	 */
+	private static int generate(Position position, int[] moves, boolean capturesOnly) {
+		int us = position.getSideToMove();
+		int them = us ^ 1;
+		long own = position.getColor(us);
+		long enemy = position.getColor(them);
+		long occupied = own | enemy;
+		long targets = capturesOnly ? enemy : ~own;
+		int count = generatePawnMoves(position, moves, 0, us, enemy, occupied, capturesOnly);
+
+		for(long knights = position.getPieces(Pieces.make(us, Pieces.KNIGHT)); knights != 0; knights &= knights - 1) {
+			int from = Long.numberOfTrailingZeros(knights);
+			count = addMoves(moves, count, from, Bitboards.KNIGHT_ATTACKS[from] & targets);
+		}
+		for(long bishops = position.getPieces(Pieces.make(us, Pieces.BISHOP)) | position.getPieces(Pieces.make(us, Pieces.QUEEN)); bishops != 0; bishops &= bishops - 1) {
+			int from = Long.numberOfTrailingZeros(bishops);
+			count = addMoves(moves, count, from, Bitboards.bishopAttacks(from, occupied) & targets);
+		}
+		for(long rooks = position.getPieces(Pieces.make(us, Pieces.ROOK)) | position.getPieces(Pieces.make(us, Pieces.QUEEN)); rooks != 0; rooks &= rooks - 1) {
+			int from = Long.numberOfTrailingZeros(rooks);
+			count = addMoves(moves, count, from, Bitboards.rookAttacks(from, occupied) & targets);
+		}
+
+		int king = position.getKingSquare(us);
+		if(king != -1) {
+			count = addMoves(moves, count, king, Bitboards.KING_ATTACKS[king] & targets);
+			if(!capturesOnly) {
+				count = generateCastlingMoves(position, moves, count, us, king, occupied);
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Adds a move from the specified square to each of the target squares
+	 *
+	 * @param moves The buffer that receives the moves
+	 * @param count The number of moves already in the buffer
+	 * @param from The from square
+	 * @param targets The bitboard of the to squares
+	 *
+	 * @return The number of moves in the buffer
+	 */
+	private static int addMoves(int[] moves, int count, int from, long targets) {
+		for(; targets != 0; targets &= targets - 1) {
+			moves[count++] = Move.create(from, Long.numberOfTrailingZeros(targets), Move.FLAG_NORMAL);
+		}
+		return count;
+	}
+
+	/**
+	 * Generates the pawn moves of the specified player
+	 *
+	 * @param position The position
+	 * @param moves The buffer that receives the moves
+	 * @param count The number of moves already in the buffer
+	 * @param us The color of the player
+	 * @param enemy The bitboard of the enemy pieces
+	 * @param occupied The bitboard of all the pieces
+	 * @param capturesOnly If only captures and queen promotions should be generated
+	 *
+	 * @return The number of moves in the buffer
+	 */
+	private static int generatePawnMoves(Position position, int[] moves, int count, int us, long enemy, long occupied, boolean capturesOnly) {
+		int forward = us == Pieces.WHITE ? 8 : -8;
+		long promotionRank = us == Pieces.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+		long doublePushRank = us == Pieces.WHITE ? 0xFF000000L : 0xFF00000000L;
+		int enPassent = position.getEnPassentSquare();
+
+		for(long pawns = position.getPieces(Pieces.make(us, Pieces.PAWN)); pawns != 0; pawns &= pawns - 1) {
+			int from = Long.numberOfTrailingZeros(pawns);
+			int to = from + forward;
+
+			// Forward movement, only a promotion is considered when captures are requested
+			if((occupied & (1L << to)) == 0) {
+				if(((1L << to) & promotionRank) != 0) {
+					count = addPromotions(moves, count, from, to, capturesOnly);
+				}
+				else if(!capturesOnly) {
+					moves[count++] = Move.create(from, to, Move.FLAG_NORMAL);
+					int twoSquares = to + forward;
+					if(((1L << twoSquares) & doublePushRank) != 0 && (occupied & (1L << twoSquares)) == 0) {
+						moves[count++] = Move.create(from, twoSquares, Move.FLAG_DOUBLE_PUSH);
+					}
+				}
+			}
+
+			// Diagonal captures
+			for(long captures = Bitboards.PAWN_ATTACKS[us][from] & enemy; captures != 0; captures &= captures - 1) {
+				int target = Long.numberOfTrailingZeros(captures);
+				if(((1L << target) & promotionRank) != 0) {
+					count = addPromotions(moves, count, from, target, false);
+				}
+				else {
+					moves[count++] = Move.create(from, target, Move.FLAG_NORMAL);
+				}
+			}
+
+			if(enPassent != -1 && (Bitboards.PAWN_ATTACKS[us][from] & (1L << enPassent)) != 0) {
+				moves[count++] = Move.create(from, enPassent, Move.FLAG_EN_PASSENT);
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Adds the promotions of a pawn moving to the last rank
+	 *
+	 * @param moves The buffer that receives the moves
+	 * @param count The number of moves already in the buffer
+	 * @param from The from square
+	 * @param to The to square
+	 * @param queenOnly If only the queen promotion should be added
+	 *
+	 * @return The number of moves in the buffer
+	 */
+	private static int addPromotions(int[] moves, int count, int from, int to, boolean queenOnly) {
+		moves[count++] = Move.createPromotion(from, to, Pieces.QUEEN);
+		if(!queenOnly) {
+			moves[count++] = Move.createPromotion(from, to, Pieces.KNIGHT);
+			moves[count++] = Move.createPromotion(from, to, Pieces.ROOK);
+			moves[count++] = Move.createPromotion(from, to, Pieces.BISHOP);
+		}
+		return count;
+	}
+
+	/**
+	 * Generates the castling moves of the specified player.  The king may not castle out of check
+	 * or through an attacked square, and the destination square is verified when the move is made
+	 *
+	 * @param position The position
+	 * @param moves The buffer that receives the moves
+	 * @param count The number of moves already in the buffer
+	 * @param us The color of the player
+	 * @param king The square of the king
+	 * @param occupied The bitboard of all the pieces
+	 *
+	 * @return The number of moves in the buffer
+	 */
+	private static int generateCastlingMoves(Position position, int[] moves, int count, int us, int king, long occupied) {
+		int rights = position.getCastlingRights();
+		int kingSide = us == Pieces.WHITE ? Position.CASTLE_WHITE_KING : Position.CASTLE_BLACK_KING;
+		int queenSide = us == Pieces.WHITE ? Position.CASTLE_WHITE_QUEEN : Position.CASTLE_BLACK_QUEEN;
+		if((rights & (kingSide | queenSide)) == 0 || position.isSquareAttacked(king, us ^ 1)) {
+			return count;
+		}
+
+		if((rights & kingSide) != 0 && (occupied & ((1L << (king + 1)) | (1L << (king + 2)))) == 0 && !position.isSquareAttacked(king + 1, us ^ 1)) {
+			moves[count++] = Move.create(king, king + 2, Move.FLAG_CASTLE);
+		}
+		if((rights & queenSide) != 0 && (occupied & ((1L << (king - 1)) | (1L << (king - 2)) | (1L << (king - 3)))) == 0 && !position.isSquareAttacked(king - 1, us ^ 1)) {
+			moves[count++] = Move.create(king, king - 2, Move.FLAG_CASTLE);
+		}
+
+		return count;
+	}
+}
@@ -0,0 +1,208 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.board;
+
+import generated.DataLookup.DataLayerName;
+
+/**
+ * The integer encoding of colors, piece types and pieces used by the engine.
+ *
+ * A piece is encoded as {@code color * 6 + type}, which gives the values 0 through 11
+ * and allows the piece to be used directly as an index into per-piece tables
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class Pieces {
+
+	/**
+	 * The white color
+	 */
+	public static final int WHITE = 0;
+
+	/**
+	 * The black color
+	 */
+	public static final int BLACK = 1;
+
+	/**
+	 * The pawn piece type
+	 */
+	public static final int PAWN = 0;
+
+	/**
+	 * The knight piece type
+	 */
+	public static final int KNIGHT = 1;
+
+	/**
+	 * The bishop piece type
+	 */
+	public static final int BISHOP = 2;
+
+	/**
+	 * The rook piece type
+	 */
+	public static final int ROOK = 3;
+
+	/**
+	 * The queen piece type
+	 */
+	public static final int QUEEN = 4;
+
+	/**
+	 * The king piece type
+	 */
+	public static final int KING = 5;
+
+	/**
+	 * The number of distinct pieces (both colors)
+	 */
+	public static final int COUNT = 12;
+
+	/**
+	 * Indicates that there is no piece
+	 */
+	public static final int NONE = -1;
+
+	/**
+	 * The character representation of each piece, indexed by piece
+	 */
+	private static final String PIECE_CHARACTERS = "PNBRQKpnbrqk";
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	private Pieces() {
+	}
+
+	/**
+	 * Creates the piece of the specified color and type
+	 *
+	 * @param color The color of the piece
+	 * @param type The type of the piece
+	 *
+	 * @return The encoded piece
+	 */
+	public static int make(int color, int type) {
+		return color * 6 + type;
+	}
+
+	/**
+	 * Gets the color of the specified piece
+	 *
+	 * @param piece The encoded piece
+	 *
+	 * @return The color of the piece
+	 */
+	public static int color(int piece) {
+		return piece < 6 ? WHITE : BLACK;
+	}
+
+	/**
+	 * Gets the type of the specified piece
+	 *
+	 * @param piece The encoded piece
+	 *
+	 * @return The type of the piece
+	 */
+	public static int type(int piece) {
+		return piece < 6 ? piece : piece - 6;
+	}
+
+	/**
+	 * Gets the character representation of the specified piece, upper case for white and lower case for black
+	 *
+	 * @param piece The encoded piece
+	 *
+	 * @return The character of the piece
+	 */
+	public static char toCharacter(int piece) {
+		return PIECE_CHARACTERS.charAt(piece);
+	}
+
+	/**
+	 * Gets the piece associated to the specified character
+	 *
+	 * @param character The character, upper case for white and lower case for black
+	 *
+	 * @return The encoded piece, or {@link #NONE} if the character is not a piece
+	 */
+	public static int fromCharacter(char character) {
+		return PIECE_CHARACTERS.indexOf(character);
+	}
+
+	/**
+	 * Gets the piece type associated to the specified data layer name
+	 *
+	 * @param layerName The data layer name
+	 *
+	 * @return The piece type, or {@link #NONE} if the layer is not a chess piece
+	 */
+	public static int fromDataLayerName(DataLayerName layerName) {
+		switch(layerName) {
+		case PAWN:
+			return PAWN;
+		case KNIGHT:
+			return KNIGHT;
+		case BISHOP:
+			return BISHOP;
+		case ROOK:
+			return ROOK;
+		case QUEEN:
+			return QUEEN;
+		case KING:
+			return KING;
+		default:
+			return NONE;
+		}
+	}
+
+	/**
+	 * Gets the data layer name associated to the specified piece type
+	 *
+	 * @param type The piece type
+	 *
+	 * @return The data layer name of the piece type
+	 */
+	public static DataLayerName toDataLayerName(int type) {
+		switch(type) {
+		case PAWN:
+			return DataLayerName.PAWN;
+		case KNIGHT:
+			return DataLayerName.KNIGHT;
+		case BISHOP:
+			return DataLayerName.BISHOP;
+		case ROOK:
+			return DataLayerName.ROOK;
+		case QUEEN:
+			return DataLayerName.QUEEN;
+		case KING:
+			return DataLayerName.KING;
+		default:
+			return null;
+		}
+	}
+}
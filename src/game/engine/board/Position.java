@@ -0,0 +1,817 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.board;
+
+import java.util.Arrays;
+
+import game.engine.evaluation.PieceSquareTables;
+import game.engine.interfaces.IAccumulator;
+
+/**
+ * This class represents a chess position used by the engine.
+ *
+ * Unlike the tile models of the board, a position holds no references to views or controllers and
+ * can be copied freely, which allows the engine to search on its own copy without firing any signals.
+ * Moves are applied with {@link #makeMove(int)} and reverted with {@link #unmakeMove(int)}, and the
+ * hash of the position as well as its material and piece-square scores are kept up to date
+ * incrementally by both
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class Position {
+
+	/**
+	 * White may castle on the king side
+	 */
+	public static final int CASTLE_WHITE_KING = 1;
+
+	/**
+	 * White may castle on the queen side
+	 */
+	public static final int CASTLE_WHITE_QUEEN = 2;
+
+	/**
+	 * Black may castle on the king side
+	 */
+	public static final int CASTLE_BLACK_KING = 4;
+
+	/**
+	 * Black may castle on the queen side
+	 */
+	public static final int CASTLE_BLACK_QUEEN = 8;
+
+	/**
+	 * The maximum number of moves that can be made on a single position
+	 */
+	public static final int MAX_HISTORY = 1024;
+
+	/**
+	 * The castling rights that remain after a piece moves from or to each square
+	 */
+	private static final int[] CASTLING_MASK = new int[64];
+
+	static {
+		Arrays.fill(CASTLING_MASK, 15);
+		CASTLING_MASK[0] &= ~CASTLE_WHITE_QUEEN;
+		CASTLING_MASK[4] &= ~(CASTLE_WHITE_KING | CASTLE_WHITE_QUEEN);
+		CASTLING_MASK[7] &= ~CASTLE_WHITE_KING;
+		CASTLING_MASK[56] &= ~CASTLE_BLACK_QUEEN;
+		CASTLING_MASK[60] &= ~(CASTLE_BLACK_KING | CASTLE_BLACK_QUEEN);
+		CASTLING_MASK[63] &= ~CASTLE_BLACK_KING;
+	}
+
+	/**
+	 * The bitboards of each piece
+	 */
+	private final long[] _pieces = new long[Pieces.COUNT];
+
+	/**
+	 * The bitboards of each color
+	 */
+	private final long[] _colors = new long[2];
+
+	/**
+	 * The piece on each square, or {@link Pieces#NONE}
+	 */
+	private final int[] _board = new int[64];
+
+	/**
+	 * The color of the player to move
+	 */
+	private int _sideToMove;
+
+	/**
+	 * The castling rights, as a combination of the CASTLE flags
+	 */
+	private int _castling;
+
+	/**
+	 * The square that can be captured onto with en-passent, or -1
+	 */
+	private int _enPassent = -1;
+
+	/**
+	 * The number of half moves since the last capture or pawn move
+	 */
+	private int _halfMoveClock;
+
+	/**
+	 * The number of the full move, starting at 1 and incremented after black moves
+	 */
+	private int _fullMoveNumber = 1;
+
+	/**
+	 * The hash of the position
+	 */
+	private long _key;
+
+	/**
+	 * The hash of the pawns of the position, used to cache the evaluation of the pawn structure
+	 */
+	private long _pawnKey;
+
+	/**
+	 * The midgame material and piece-square score, from the point of view of white
+	 */
+	private int _midgameScore;
+
+	/**
+	 * The endgame material and piece-square score, from the point of view of white
+	 */
+	private int _endgameScore;
+
+	/**
+	 * The game phase of the material on the board, see {@link PieceSquareTables#MAX_PHASE}
+	 */
+	private int _phase;
+
+	/**
+	 * The number of moves made on this position that can be unmade
+	 */
+	private int _historyLength;
+
+	/**
+	 * The hash of the position before each move
+	 */
+	private final long[] _keyHistory = new long[MAX_HISTORY];
+
+	/**
+	 * The packed state of the position before each move, holding the captured piece, the castling
+	 * rights, the en-passent square and the half move clock
+	 */
+	private final int[] _stateHistory = new int[MAX_HISTORY];
+
+	/**
+	 * The state updated with every piece placed and removed, or null
+	 */
+	private IAccumulator _accumulator;
+
+	/**
+	 * Constructs a new instance of this class type, representing an empty board
+	 */
+	public Position() {
+		Arrays.fill(_board, Pieces.NONE);
+	}
+
+	/**
+	 * Constructs a new instance of this class type as a copy of the specified position
+	 *
+	 * @param position The position to copy
+	 */
+	public Position(Position position) {
+		copyFrom(position);
+	}
+
+	/**
+	 * Copies the contents of the specified position into this position, including its move history
+	 *
+	 * @param position The position to copy
+	 */
+	public void copyFrom(Position position) {
+		System.arraycopy(position._pieces, 0, _pieces, 0, _pieces.length);
+		System.arraycopy(position._colors, 0, _colors, 0, _colors.length);
+		System.arraycopy(position._board, 0, _board, 0, _board.length);
+		System.arraycopy(position._keyHistory, 0, _keyHistory, 0, position._historyLength);
+		System.arraycopy(position._stateHistory, 0, _stateHistory, 0, position._historyLength);
+		_sideToMove = position._sideToMove;
+		_castling = position._castling;
+		_enPassent = position._enPassent;
+		_halfMoveClock = position._halfMoveClock;
+		_fullMoveNumber = position._fullMoveNumber;
+		_key = position._key;
+		_pawnKey = position._pawnKey;
+		_midgameScore = position._midgameScore;
+		_endgameScore = position._endgameScore;
+		_phase = position._phase;
+		_historyLength = position._historyLength;
+		if(_accumulator != null) {
+			_accumulator.refresh(this);
+		}
+	}
+
+	/**
+	 * Sets this position to the standard starting position
+	 */
+	public void setStartingPosition() {
+		clear();
+		int[] backRank = { Pieces.ROOK, Pieces.KNIGHT, Pieces.BISHOP, Pieces.QUEEN, Pieces.KING, Pieces.BISHOP, Pieces.KNIGHT, Pieces.ROOK };
+		for(int file = 0; file < 8; ++file) {
+			setPiece(file, Pieces.make(Pieces.WHITE, backRank[file]));
+			setPiece(8 + file, Pieces.make(Pieces.WHITE, Pieces.PAWN));
+			setPiece(48 + file, Pieces.make(Pieces.BLACK, Pieces.PAWN));
+			setPiece(56 + file, Pieces.make(Pieces.BLACK, backRank[file]));
+		}
+		setCastlingRights(CASTLE_WHITE_KING | CASTLE_WHITE_QUEEN | CASTLE_BLACK_KING | CASTLE_BLACK_QUEEN);
+	}
+
+	/**
+	 * Clears the board of all pieces and resets the state of the position
+	 */
+	public void clear() {
+		Arrays.fill(_pieces, 0);
+		Arrays.fill(_colors, 0);
+		Arrays.fill(_board, Pieces.NONE);
+		_sideToMove = Pieces.WHITE;
+		_castling = 0;
+		_enPassent = -1;
+		_halfMoveClock = 0;
+		_fullMoveNumber = 1;
+		_key = 0;
+		_pawnKey = 0;
+		_midgameScore = 0;
+		_endgameScore = 0;
+		_phase = 0;
+		_historyLength = 0;
+		if(_accumulator != null) {
+			_accumulator.refresh(this);
+		}
+	}
+
+	/**
+	 * Sets the state that follows the pieces of this position.  The accumulator is not copied
+	 * along with the position, it is refreshed instead when another position is copied into this one
+	 *
+	 * @param accumulator The accumulator, or null to stop updating one
+	 */
+	public void setAccumulator(IAccumulator accumulator) {
+		_accumulator = accumulator;
+		if(_accumulator != null) {
+			_accumulator.refresh(this);
+		}
+	}
+
+	/**
+	 * @return The state that follows the pieces of this position, or null
+	 */
+	public IAccumulator getAccumulator() {
+		return _accumulator;
+	}
+
+	/**
+	 * Places the specified piece on the specified square, replacing whatever was there.
+	 *
+	 * Note: This is used to set up a position, it clears the move history of the position
+	 *
+	 * @param square The square
+	 * @param piece The piece, or {@link Pieces#NONE} to clear the square
+	 */
+	public void setPiece(int square, int piece) {
+		if(_board[square] != Pieces.NONE) {
+			removePiece(square);
+		}
+		if(piece != Pieces.NONE) {
+			putPiece(square, piece);
+		}
+		_historyLength = 0;
+	}
+
+	/**
+	 * Sets the color of the player to move
+	 *
+	 * @param color The color of the player to move
+	 */
+	public void setSideToMove(int color) {
+		if(color != _sideToMove) {
+			_sideToMove = color;
+			_key ^= Zobrist.SIDE;
+		}
+		_historyLength = 0;
+	}
+
+	/**
+	 * Sets the castling rights of the position.  Rights that are not backed by a king and rook on
+	 * their original squares are discarded
+	 *
+	 * @param castling The castling rights, as a combination of the CASTLE flags
+	 */
+	public void setCastlingRights(int castling) {
+		if(_board[4] != Pieces.make(Pieces.WHITE, Pieces.KING)) {
+			castling &= ~(CASTLE_WHITE_KING | CASTLE_WHITE_QUEEN);
+		}
+		if(_board[7] != Pieces.make(Pieces.WHITE, Pieces.ROOK)) {
+			castling &= ~CASTLE_WHITE_KING;
+		}
+		if(_board[0] != Pieces.make(Pieces.WHITE, Pieces.ROOK)) {
+			castling &= ~CASTLE_WHITE_QUEEN;
+		}
+		if(_board[60] != Pieces.make(Pieces.BLACK, Pieces.KING)) {
+			castling &= ~(CASTLE_BLACK_KING | CASTLE_BLACK_QUEEN);
+		}
+		if(_board[63] != Pieces.make(Pieces.BLACK, Pieces.ROOK)) {
+			castling &= ~CASTLE_BLACK_KING;
+		}
+		if(_board[56] != Pieces.make(Pieces.BLACK, Pieces.ROOK)) {
+			castling &= ~CASTLE_BLACK_QUEEN;
+		}
+		_key ^= Zobrist.CASTLING[_castling] ^ Zobrist.CASTLING[castling];
+		_castling = castling;
+		_historyLength = 0;
+	}
+
+	/**
+	 * Sets the en-passent square of the position.  The square is only retained if a pawn of the
+	 * player to move is able to capture onto it
+	 *
+	 * @param square The square that was skipped by the double pawn push, or -1
+	 */
+	public void setEnPassentSquare(int square) {
+		if(_enPassent != -1) {
+			_key ^= Zobrist.EN_PASSENT[Bitboards.file(_enPassent)];
+			_enPassent = -1;
+		}
+		if(square != -1 && (Bitboards.PAWN_ATTACKS[_sideToMove ^ 1][square] & _pieces[Pieces.make(_sideToMove, Pieces.PAWN)]) != 0) {
+			_enPassent = square;
+			_key ^= Zobrist.EN_PASSENT[Bitboards.file(square)];
+		}
+		_historyLength = 0;
+	}
+
+	/**
+	 * Sets the move counters of the position
+	 *
+	 * @param halfMoveClock The number of half moves since the last capture or pawn move
+	 * @param fullMoveNumber The number of the full move
+	 */
+	public void setMoveCounters(int halfMoveClock, int fullMoveNumber) {
+		_halfMoveClock = halfMoveClock;
+		_fullMoveNumber = fullMoveNumber;
+	}
+
+	/**
+	 * Places a piece on an empty square
+	 *
+	 * @param square The square
+	 * @param piece The piece
+	 */
+	private void putPiece(int square, int piece) {
+		long bit = 1L << square;
+		_pieces[piece] |= bit;
+		_colors[Pieces.color(piece)] |= bit;
+		_board[square] = piece;
+		_key ^= Zobrist.PIECE_SQUARE[piece][square];
+		if(Pieces.type(piece) == Pieces.PAWN) {
+			_pawnKey ^= Zobrist.PIECE_SQUARE[piece][square];
+		}
+		_midgameScore += PieceSquareTables.MIDGAME[piece][square];
+		_endgameScore += PieceSquareTables.ENDGAME[piece][square];
+		_phase += PieceSquareTables.PHASE[Pieces.type(piece)];
+		if(_accumulator != null) {
+			_accumulator.add(piece, square);
+		}
+	}
+
+	/**
+	 * Removes the piece on the specified square
+	 *
+	 * @param square The square
+	 *
+	 * @return The piece that was removed
+	 */
+	private int removePiece(int square) {
+		int piece = _board[square];
+		long bit = 1L << square;
+		_pieces[piece] ^= bit;
+		_colors[Pieces.color(piece)] ^= bit;
+		_board[square] = Pieces.NONE;
+		_key ^= Zobrist.PIECE_SQUARE[piece][square];
+		if(Pieces.type(piece) == Pieces.PAWN) {
+			_pawnKey ^= Zobrist.PIECE_SQUARE[piece][square];
+		}
+		_midgameScore -= PieceSquareTables.MIDGAME[piece][square];
+		_endgameScore -= PieceSquareTables.ENDGAME[piece][square];
+		_phase -= PieceSquareTables.PHASE[Pieces.type(piece)];
+		if(_accumulator != null) {
+			_accumulator.remove(piece, square);
+		}
+		return piece;
+	}
+
+	/**
+	 * Moves the piece on the from square to the empty to square
+	 *
+	 * @param from The from square
+	 * @param to The to square
+	 */
+	private void movePiece(int from, int to) {
+		int piece = _board[from];
+		long bits = (1L << from) | (1L << to);
+		_pieces[piece] ^= bits;
+		_colors[Pieces.color(piece)] ^= bits;
+		_board[from] = Pieces.NONE;
+		_board[to] = piece;
+		_key ^= Zobrist.PIECE_SQUARE[piece][from] ^ Zobrist.PIECE_SQUARE[piece][to];
+		if(Pieces.type(piece) == Pieces.PAWN) {
+			_pawnKey ^= Zobrist.PIECE_SQUARE[piece][from] ^ Zobrist.PIECE_SQUARE[piece][to];
+		}
+		_midgameScore += PieceSquareTables.MIDGAME[piece][to] - PieceSquareTables.MIDGAME[piece][from];
+		_endgameScore += PieceSquareTables.ENDGAME[piece][to] - PieceSquareTables.ENDGAME[piece][from];
+		if(_accumulator != null) {
+			_accumulator.move(piece, from, to);
+		}
+	}
+
+	/**
+	 * Makes the specified move.  The move must be pseudo-legal, use {@link #wasLegal()} after
+	 * making it to verify that it did not leave the king of the mover in check
+	 *
+	 * @param move The encoded move
+	 */
+	public void makeMove(int move) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int flag = Move.flag(move);
+		int us = _sideToMove;
+		int piece = _board[from];
+
+		// Determine the piece being captured, if any
+		int captureSquare = flag == Move.FLAG_EN_PASSENT ? to + (us == Pieces.WHITE ? -8 : 8) : to;
+		int captured = _board[captureSquare];
+
+		// Record the state that cannot be recovered from the move itself
+		_keyHistory[_historyLength] = _key;
+		_stateHistory[_historyLength] = (captured + 1) | (_castling << 4) | ((_enPassent + 1) << 8) | (_halfMoveClock << 15);
+		++_historyLength;
+
+		if(_enPassent != -1) {
+			_key ^= Zobrist.EN_PASSENT[Bitboards.file(_enPassent)];
+			_enPassent = -1;
+		}
+
+		if(captured != Pieces.NONE) {
+			removePiece(captureSquare);
+		}
+		movePiece(from, to);
+
+		int promotion = Move.promotion(move);
+		if(promotion != 0) {
+			removePiece(to);
+			putPiece(to, Pieces.make(us, promotion));
+		}
+		else if(flag == Move.FLAG_CASTLE) {
+			if(to > from) {
+				movePiece(to + 1, to - 1);
+			}
+			else {
+				movePiece(to - 2, to + 1);
+			}
+		}
+		else if(flag == Move.FLAG_DOUBLE_PUSH) {
+			int skipped = (from + to) >>> 1;
+			if((Bitboards.PAWN_ATTACKS[us][skipped] & _pieces[Pieces.make(us ^ 1, Pieces.PAWN)]) != 0) {
+				_enPassent = skipped;
+				_key ^= Zobrist.EN_PASSENT[Bitboards.file(skipped)];
+			}
+		}
+
+		int castling = _castling & CASTLING_MASK[from] & CASTLING_MASK[to];
+		if(castling != _castling) {
+			_key ^= Zobrist.CASTLING[_castling] ^ Zobrist.CASTLING[castling];
+			_castling = castling;
+		}
+
+		_halfMoveClock = captured != Pieces.NONE || Pieces.type(piece) == Pieces.PAWN ? 0 : _halfMoveClock + 1;
+		if(us == Pieces.BLACK) {
+			++_fullMoveNumber;
+		}
+
+		_sideToMove = us ^ 1;
+		_key ^= Zobrist.SIDE;
+	}
+
+	/**
+	 * Unmakes the specified move, which must be the last move made on this position
+	 *
+	 * @param move The encoded move
+	 */
+	public void unmakeMove(int move) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int flag = Move.flag(move);
+		int us = _sideToMove ^ 1;
+
+		--_historyLength;
+		int state = _stateHistory[_historyLength];
+		int captured = (state & 15) - 1;
+
+		if(Move.promotion(move) != 0) {
+			removePiece(to);
+			putPiece(to, Pieces.make(us, Pieces.PAWN));
+		}
+		else if(flag == Move.FLAG_CASTLE) {
+			if(to > from) {
+				movePiece(to - 1, to + 1);
+			}
+			else {
+				movePiece(to + 1, to - 2);
+			}
+		}
+		movePiece(to, from);
+
+		if(captured != Pieces.NONE) {
+			putPiece(flag == Move.FLAG_EN_PASSENT ? to + (us == Pieces.WHITE ? -8 : 8) : to, captured);
+		}
+
+		_castling = (state >>> 4) & 15;
+		_enPassent = ((state >>> 8) & 127) - 1;
+		_halfMoveClock = state >>> 15;
+		if(us == Pieces.BLACK) {
+			--_fullMoveNumber;
+		}
+		_sideToMove = us;
+		_key = _keyHistory[_historyLength];
+	}
+
+	/**
+	 * Makes a null move, passing the turn to the other player
+	 */
+	public void makeNullMove() {
+		_keyHistory[_historyLength] = _key;
+		_stateHistory[_historyLength] = (_castling << 4) | ((_enPassent + 1) << 8) | (_halfMoveClock << 15);
+		++_historyLength;
+
+		if(_enPassent != -1) {
+			_key ^= Zobrist.EN_PASSENT[Bitboards.file(_enPassent)];
+			_enPassent = -1;
+		}
+		_halfMoveClock = 0;
+		_sideToMove ^= 1;
+		_key ^= Zobrist.SIDE;
+	}
+
+	/**
+	 * Unmakes a null move, which must be the last move made on this position
+	 */
+	public void unmakeNullMove() {
+		--_historyLength;
+		int state = _stateHistory[_historyLength];
+		_enPassent = ((state >>> 8) & 127) - 1;
+		_halfMoveClock = state >>> 15;
+		_sideToMove ^= 1;
+		_key = _keyHistory[_historyLength];
+	}
+
+	/**
+	 * Indicates if the last move made left the king of the player that made it out of check
+	 *
+	 * @return TRUE if the last move was legal
+	 */
+	public boolean wasLegal() {
+		long king = _pieces[Pieces.make(_sideToMove ^ 1, Pieces.KING)];
+		return king == 0 || !isSquareAttacked(Long.numberOfTrailingZeros(king), _sideToMove);
+	}
+
+	/**
+	 * Indicates if the player to move is in check
+	 *
+	 * @return TRUE if the player to move is in check
+	 */
+	public boolean isInCheck() {
+		long king = _pieces[Pieces.make(_sideToMove, Pieces.KING)];
+		return king != 0 && isSquareAttacked(Long.numberOfTrailingZeros(king), _sideToMove ^ 1);
+	}
+
+	/**
+	 * Indicates if the specified square is attacked by the specified color
+	 *
+	 * @param square The square
+	 * @param color The color of the attacker
+	 *
+	 * @return TRUE if the square is attacked
+	 */
+	public boolean isSquareAttacked(int square, int color) {
+		long occupied = _colors[0] | _colors[1];
+		int offset = color * 6;
+		return (Bitboards.PAWN_ATTACKS[color ^ 1][square] & _pieces[offset + Pieces.PAWN]) != 0
+			|| (Bitboards.KNIGHT_ATTACKS[square] & _pieces[offset + Pieces.KNIGHT]) != 0
+			|| (Bitboards.KING_ATTACKS[square] & _pieces[offset + Pieces.KING]) != 0
+			|| (Bitboards.bishopAttacks(square, occupied) & (_pieces[offset + Pieces.BISHOP] | _pieces[offset + Pieces.QUEEN])) != 0
+			|| (Bitboards.rookAttacks(square, occupied) & (_pieces[offset + Pieces.ROOK] | _pieces[offset + Pieces.QUEEN])) != 0;
+	}
+
+	/**
+	 * Gets the bitboard of all the pieces of either color attacking the specified square
+	 *
+	 * @param square The square
+	 * @param occupied The occupied squares to use for sliding pieces
+	 *
+	 * @return The bitboard of the attackers
+	 */
+	public long getAttackers(int square, long occupied) {
+		long bishops = _pieces[Pieces.BISHOP] | _pieces[Pieces.QUEEN] | _pieces[6 + Pieces.BISHOP] | _pieces[6 + Pieces.QUEEN];
+		long rooks = _pieces[Pieces.ROOK] | _pieces[Pieces.QUEEN] | _pieces[6 + Pieces.ROOK] | _pieces[6 + Pieces.QUEEN];
+		return (Bitboards.PAWN_ATTACKS[Pieces.BLACK][square] & _pieces[Pieces.PAWN])
+			| (Bitboards.PAWN_ATTACKS[Pieces.WHITE][square] & _pieces[6 + Pieces.PAWN])
+			| (Bitboards.KNIGHT_ATTACKS[square] & (_pieces[Pieces.KNIGHT] | _pieces[6 + Pieces.KNIGHT]))
+			| (Bitboards.KING_ATTACKS[square] & (_pieces[Pieces.KING] | _pieces[6 + Pieces.KING]))
+			| (Bitboards.bishopAttacks(square, occupied) & bishops)
+			| (Bitboards.rookAttacks(square, occupied) & rooks);
+	}
+
+	/**
+	 * Indicates if the current position has occurred before since the last irreversible move
+	 *
+	 * @return TRUE if the position is a repetition
+	 */
+	public boolean isRepetition() {
+		for(int i = _historyLength - 2, end = Math.max(0, _historyLength - _halfMoveClock); i >= end; i -= 2) {
+			if(_keyHistory[i] == _key) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Counts the number of times the current position has occurred before since the last irreversible move
+	 *
+	 * @return The number of earlier occurrences, two meaning that the position has occurred three times
+	 */
+	public int getRepetitionCount() {
+		int count = 0;
+		for(int i = _historyLength - 2, end = Math.max(0, _historyLength - _halfMoveClock); i >= end; i -= 2) {
+			if(_keyHistory[i] == _key) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Indicates if the player to move has any piece other than pawns and the king
+	 *
+	 * @return TRUE if the player to move has a knight, bishop, rook or queen
+	 */
+	public boolean hasNonPawnMaterial() {
+		int offset = _sideToMove * 6;
+		return (_pieces[offset + Pieces.KNIGHT] | _pieces[offset + Pieces.BISHOP] | _pieces[offset + Pieces.ROOK] | _pieces[offset + Pieces.QUEEN]) != 0;
+	}
+
+	/**
+	 * @param piece The piece
+	 *
+	 * @return The bitboard of the specified piece
+	 */
+	public long getPieces(int piece) {
+		return _pieces[piece];
+	}
+
+	/**
+	 * @param color The color
+	 *
+	 * @return The bitboard of all the pieces of the specified color
+	 */
+	public long getColor(int color) {
+		return _colors[color];
+	}
+
+	/**
+	 * @return The bitboard of all the occupied squares
+	 */
+	public long getOccupied() {
+		return _colors[0] | _colors[1];
+	}
+
+	/**
+	 * @param square The square
+	 *
+	 * @return The piece on the specified square, or {@link Pieces#NONE}
+	 */
+	public int getPiece(int square) {
+		return _board[square];
+	}
+
+	/**
+	 * @param color The color
+	 *
+	 * @return The square of the king of the specified color, or -1 if there is no king
+	 */
+	public int getKingSquare(int color) {
+		long king = _pieces[Pieces.make(color, Pieces.KING)];
+		return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+	}
+
+	/**
+	 * @return The color of the player to move
+	 */
+	public int getSideToMove() {
+		return _sideToMove;
+	}
+
+	/**
+	 * @return The castling rights, as a combination of the CASTLE flags
+	 */
+	public int getCastlingRights() {
+		return _castling;
+	}
+
+	/**
+	 * @return The en-passent square, or -1 if there is none
+	 */
+	public int getEnPassentSquare() {
+		return _enPassent;
+	}
+
+	/**
+	 * @return The number of half moves since the last capture or pawn move
+	 */
+	public int getHalfMoveClock() {
+		return _halfMoveClock;
+	}
+
+	/**
+	 * @return The number of the full move
+	 */
+	public int getFullMoveNumber() {
+		return _fullMoveNumber;
+	}
+
+	/**
+	 * @return The hash of the position
+	 */
+	public long getKey() {
+		return _key;
+	}
+
+	/**
+	 * @return The hash of the pawns of the position
+	 */
+	public long getPawnKey() {
+		return _pawnKey;
+	}
+
+	/**
+	 * @return The midgame material and piece-square score, from the point of view of white
+	 */
+	public int getMidgameScore() {
+		return _midgameScore;
+	}
+
+	/**
+	 * @return The endgame material and piece-square score, from the point of view of white
+	 */
+	public int getEndgameScore() {
+		return _endgameScore;
+	}
+
+	/**
+	 * @return The game phase of the material on the board, where {@link PieceSquareTables#MAX_PHASE} is the starting material
+	 */
+	public int getPhase() {
+		return _phase;
+	}
+
+	/**
+	 * Discards the history of the moves made before the last irreversible move.  Those moves can no
+	 * longer be unmade, but no position before them can be repeated, so the detection of repetitions
+	 * is unchanged while room is made for the moves that follow
+	 */
+	public void discardIrreversibleHistory() {
+		int kept = Math.min(_halfMoveClock, _historyLength);
+		System.arraycopy(_keyHistory, _historyLength - kept, _keyHistory, 0, kept);
+		System.arraycopy(_stateHistory, _historyLength - kept, _stateHistory, 0, kept);
+		_historyLength = kept;
+	}
+
+	/**
+	 * @return The number of moves made on this position that can be unmade
+	 */
+	public int getHistoryLength() {
+		return _historyLength;
+	}
+
+	@Override public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for(int rank = 7; rank >= 0; --rank) {
+			for(int file = 0; file < 8; ++file) {
+				int piece = _board[rank * 8 + file];
+				builder.append(piece == Pieces.NONE ? '.' : Pieces.toCharacter(piece));
+			}
+			builder.append('\n');
+		}
+		builder.append(_sideToMove == Pieces.WHITE ? "White" : "Black").append(" to move\n");
+		return builder.toString();
+	}
+}
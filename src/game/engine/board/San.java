@@ -0,0 +1,282 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.board;
+
+/**
+ * The Standard Algebraic Notation of a move, such as "Nbd7", "exd6", "O-O-O" or "e8=Q+".
+ *
+ * A move is read by matching its piece, destination, promotion and disambiguation against the moves
+ * of the position, so a move that is not legal is never returned.  A move is written from the legal
+ * moves of the position, which the caller usually has already, to find the other pieces that could
+ * reach the same square.  Both directions work in place on the characters, which lets a game be read
+ * or written without creating a string per move
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class San {
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	private San() {
+	}
+
+	/**
+	 * Gets the notation of a legal move
+	 *
+	 * @param position The position before the move
+	 * @param move The encoded move
+	 *
+	 * @return The notation of the move
+	 */
+	public static String toString(Position position, int move) {
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegal(position, moves);
+		return append(new StringBuilder(8), position, move, moves, count).toString();
+	}
+
+	/**
+	 * Appends the notation of a legal move, including the check or checkmate suffix
+	 *
+	 * @param builder The builder receiving the notation
+	 * @param position The position before the move, which is left as it was
+	 * @param move The encoded move
+	 * @param moves The legal moves of the position
+	 * @param count The number of legal moves
+	 *
+	 * @return The builder
+	 */
+	public static StringBuilder append(StringBuilder builder, Position position, int move, int[] moves, int count) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int type = Pieces.type(position.getPiece(from));
+		boolean isCapture = position.getPiece(to) != Pieces.NONE || Move.flag(move) == Move.FLAG_EN_PASSENT;
+
+		if(Move.flag(move) == Move.FLAG_CASTLE) {
+			builder.append(Bitboards.file(to) == 6 ? "O-O" : "O-O-O");
+		}
+		else if(type == Pieces.PAWN) {
+			if(isCapture) {
+				builder.append((char)('a' + Bitboards.file(from))).append('x');
+			}
+			appendSquare(builder, to);
+			if(Move.promotion(move) != 0) {
+				builder.append('=').append(Pieces.toCharacter(Pieces.make(Pieces.WHITE, Move.promotion(move))));
+			}
+		}
+		else {
+			builder.append(Pieces.toCharacter(Pieces.make(Pieces.WHITE, type)));
+
+			// The origin is only given when another piece of the same type can reach the square, the file is
+			// preferred and the rank is used when the file is shared, both when neither is enough
+			boolean isAmbiguous = false;
+			boolean isFileShared = false;
+			boolean isRankShared = false;
+			for(int i = 0; i < count; ++i) {
+				int other = Move.from(moves[i]);
+				if(Move.to(moves[i]) != to || other == from || Pieces.type(position.getPiece(other)) != type) {
+					continue;
+				}
+				isAmbiguous = true;
+				isFileShared |= Bitboards.file(other) == Bitboards.file(from);
+				isRankShared |= Bitboards.rank(other) == Bitboards.rank(from);
+			}
+			if(isAmbiguous && (!isFileShared || isRankShared)) {
+				builder.append((char)('a' + Bitboards.file(from)));
+			}
+			if(isAmbiguous && isFileShared) {
+				builder.append((char)('1' + Bitboards.rank(from)));
+			}
+			if(isCapture) {
+				builder.append('x');
+			}
+			appendSquare(builder, to);
+		}
+
+		// The suffix needs the position after the move, the replies are only generated when the move checks
+		position.makeMove(move);
+		if(position.isInCheck()) {
+			builder.append(MoveGenerator.hasLegalMove(position) ? '+' : '#');
+		}
+		position.unmakeMove(move);
+		return builder;
+	}
+
+	/**
+	 * Gets the legal move of the specified position that matches a notation
+	 *
+	 * @param position The position
+	 * @param text The notation of the move
+	 *
+	 * @return The encoded move, or {@link Move#NONE} if the notation is not valid or matches no legal move or more than one
+	 */
+	public static int parse(Position position, CharSequence text) {
+		return parse(position, text, 0, text.length(), new int[MoveGenerator.MAX_MOVES]);
+	}
+
+	/**
+	 * Gets the legal move of the specified position that matches a notation.  The check and annotation
+	 * suffixes such as "+", "#", "!?" and " e.p." are ignored
+	 *
+	 * @param position The position
+	 * @param text The characters holding the notation
+	 * @param start The index of the first character of the notation
+	 * @param end The index following the last character of the notation
+	 * @param moves The buffer that receives the moves of the position, of at least {@link MoveGenerator#MAX_MOVES} moves
+	 *
+	 * @return The encoded move, or {@link Move#NONE} if the notation is not valid or matches no legal move or more than one
+	 */
+	public static int parse(Position position, CharSequence text, int start, int end, int[] moves) {
+		// Remove the suffixes, which carry nothing needed to find the move
+		if(end - start > 4 && text.charAt(end - 1) == '.' && text.charAt(end - 2) == 'p' && text.charAt(end - 3) == '.' && text.charAt(end - 4) == 'e') {
+			end -= 4;
+		}
+		while(end > start && " +#!?".indexOf(text.charAt(end - 1)) != -1) {
+			--end;
+		}
+		if(end - start < 2) {
+			return Move.NONE;
+		}
+
+		// Castling is written with the letter O, or with zeros by some programs
+		char first = text.charAt(start);
+		if(first == 'O' || first == '0') {
+			int length = end - start;
+			if((length != 3 && length != 5) || text.charAt(start + 1) != '-' || text.charAt(start + 2) != first || (length == 5 && (text.charAt(start + 3) != '-' || text.charAt(start + 4) != first))) {
+				return Move.NONE;
+			}
+			int count = MoveGenerator.generatePseudoLegal(position, moves);
+			int file = length == 3 ? 6 : 2;
+			for(int i = 0; i < count; ++i) {
+				if(Move.flag(moves[i]) == Move.FLAG_CASTLE && Bitboards.file(Move.to(moves[i])) == file) {
+					return isLegal(position, moves[i]) ? moves[i] : Move.NONE;
+				}
+			}
+			return Move.NONE;
+		}
+
+		// The piece letter comes first, a pawn has none
+		int type = Pieces.PAWN;
+		if("NBRQK".indexOf(first) != -1) {
+			type = Pieces.type(Pieces.fromCharacter(first));
+			++start;
+		}
+
+		// The promotion comes last, with or without the equal sign
+		int promotion = 0;
+		char last = text.charAt(end - 1);
+		if(type == Pieces.PAWN && "NBRQnbrq".indexOf(last) != -1) {
+			promotion = Pieces.type(Pieces.fromCharacter(Character.toUpperCase(last)));
+			--end;
+			if(end > start && text.charAt(end - 1) == '=') {
+				--end;
+			}
+		}
+
+		// The destination is right before the promotion
+		if(end - start < 2) {
+			return Move.NONE;
+		}
+		int toFile = text.charAt(end - 2) - 'a';
+		int toRank = text.charAt(end - 1) - '1';
+		if(toFile < 0 || toFile > 7 || toRank < 0 || toRank > 7) {
+			return Move.NONE;
+		}
+		end -= 2;
+		if(end > start && (text.charAt(end - 1) == 'x' || text.charAt(end - 1) == ':')) {
+			--end;
+		}
+
+		// What remains is the file, the rank or both of the origin
+		int fromFile = -1;
+		int fromRank = -1;
+		for(int i = start; i < end; ++i) {
+			char character = text.charAt(i);
+			if(character >= 'a' && character <= 'h') {
+				fromFile = character - 'a';
+			}
+			else if(character >= '1' && character <= '8') {
+				fromRank = character - '1';
+			}
+			else {
+				return Move.NONE;
+			}
+		}
+
+		// A pawn that does not name its file moves straight ahead
+		if(type == Pieces.PAWN && fromFile == -1) {
+			fromFile = toFile;
+		}
+
+		// Only the moves that match the notation are played to verify that they are legal, which spares
+		// playing every move of the position the way the legal move generator does
+		int to = toRank * 8 + toFile;
+		int count = MoveGenerator.generatePseudoLegal(position, moves);
+		int match = Move.NONE;
+		for(int i = 0; i < count; ++i) {
+			int move = moves[i];
+			int from = Move.from(move);
+			if(Move.to(move) != to
+				|| Move.promotion(move) != promotion
+				|| Pieces.type(position.getPiece(from)) != type
+				|| (fromFile != -1 && Bitboards.file(from) != fromFile)
+				|| (fromRank != -1 && Bitboards.rank(from) != fromRank)
+				|| !isLegal(position, move)) {
+				continue;
+			}
+			if(match != Move.NONE) {
+				return Move.NONE;
+			}
+			match = move;
+		}
+		return match;
+	}
+
+	/**
+	 * Appends the name of a square, such as "e4"
+	 *
+	 * @param builder The builder receiving the name
+	 * @param square The square
+	 */
+	private static void appendSquare(StringBuilder builder, int square) {
+		builder.append((char)('a' + Bitboards.file(square))).append((char)('1' + Bitboards.rank(square)));
+	}
+
+	/**
+	 * Indicates if a pseudo-legal move leaves the king of the player that makes it out of check
+	 *
+	 * @param position The position
+	 * @param move The encoded move
+	 *
+	 * @return TRUE if the move is legal
+	 */
+	private static boolean isLegal(Position position, int move) {
+		position.makeMove(move);
+		boolean isLegal = position.wasLegal();
+		position.unmakeMove(move);
+		return isLegal;
+	}
+}
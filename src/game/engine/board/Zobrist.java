@@ -0,0 +1,93 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.board;
+
+/**
+ * The random keys used to hash a position.
+ *
+ * The keys are generated from a fixed seed so that the hash of a position is identical
+ * between runs, which allows hashes to be persisted
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class Zobrist {
+
+	/**
+	 * The keys of each piece on each square, indexed by piece and then square
+	 */
+	public static final long[][] PIECE_SQUARE = new long[Pieces.COUNT][64];
+
+	/**
+	 * The keys of each combination of castling rights
+	 */
+	public static final long[] CASTLING = new long[16];
+
+	/**
+	 * The keys of each en-passent file
+	 */
+	public static final long[] EN_PASSENT = new long[8];
+
+	/**
+	 * The key applied when black is to move
+	 */
+	public static final long SIDE;
+
+	static {
+		long seed = 0x2545F4914F6CDD1DL;
+		for(int piece = 0; piece < Pieces.COUNT; ++piece) {
+			for(int square = 0; square < 64; ++square) {
+				PIECE_SQUARE[piece][square] = seed = next(seed);
+			}
+		}
+		for(int rights = 1; rights < CASTLING.length; ++rights) {
+			CASTLING[rights] = seed = next(seed);
+		}
+		for(int file = 0; file < EN_PASSENT.length; ++file) {
+			EN_PASSENT[file] = seed = next(seed);
+		}
+		SIDE = next(seed);
+	}
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	private Zobrist() {
+	}
+
+	/**
+	 * Gets the next value of the splitmix64 sequence
+	 *
+	 * @param state The previous value
+	 *
+	 * @return The next value
+	 */
+	private static long next(long state) {
+		long z = state + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
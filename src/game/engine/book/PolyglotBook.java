@@ -0,0 +1,346 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.book;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+
+import engine.utils.io.logging.Tracelog;
+import game.engine.board.Bitboards;
+import game.engine.board.Move;
+import game.engine.board.MoveGenerator;
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+
+/**
+ * A Polyglot opening book read from a local file.
+ *
+ * The file is memory-mapped rather than read, so that a book of any size costs no heap and is only
+ * paged in by the operating system where it is looked up.  The entries of a Polyglot book are sorted
+ * by key, so the moves of a position are found with a binary search.  The book is only opened on
+ * the first lookup so that starting the game does not pay for it
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class PolyglotBook {
+
+	/**
+	 * A move of the book with its weight
+	 *
+	 * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+	 *
+	 */
+	public static final class BookMove {
+
+		/**
+		 * The move of the engine
+		 */
+		public final int move;
+
+		/**
+		 * The weight of the move, relative to the other moves of the position
+		 */
+		public final int weight;
+
+		/**
+		 * Constructs a new instance of this class type
+		 *
+		 * @param move The move of the engine
+		 * @param weight The weight of the move
+		 */
+		public BookMove(int move, int weight) {
+			this.move = move;
+			this.weight = weight;
+		}
+
+		@Override public String toString() {
+			return Move.toString(move) + " (" + weight + ")";
+		}
+	}
+
+	/**
+	 * The system property holding the path of the default book
+	 */
+	public static final String BOOK_PROPERTY = "chess.book";
+
+	/**
+	 * The system property holding the path of a Polyglot key file for the default book, only needed
+	 * by a book that was not made with the keys of the Polyglot specification
+	 */
+	public static final String KEYS_PROPERTY = "chess.book.keys";
+
+	/**
+	 * The size in bytes of an entry of the book
+	 */
+	private static final int ENTRY_SIZE = 16;
+
+	/**
+	 * The number of entries held by each mapped region, a single mapping cannot exceed two gigabytes
+	 */
+	private static final int ENTRIES_PER_REGION = 1 << 26;
+
+	/**
+	 * The default book
+	 */
+	private static PolyglotBook _instance;
+
+	/**
+	 * The path of the book file
+	 */
+	private final Path _bookFile;
+
+	/**
+	 * The path of the Polyglot key file, or null to use {@link PolyglotKeys#DEFAULT}
+	 */
+	private final Path _keysFile;
+
+	/**
+	 * The mapped regions of the book, or null if the book is not opened yet
+	 */
+	private MappedByteBuffer[] _regions;
+
+	/**
+	 * The number of entries of the book
+	 */
+	private long _entries;
+
+	/**
+	 * The Polyglot keys
+	 */
+	private PolyglotKeys _keys;
+
+	/**
+	 * Indicates if opening the book failed, in which case it is not attempted again
+	 */
+	private boolean _isUnavailable;
+
+	/**
+	 * The random generator used to pick between the moves of a position
+	 */
+	private final Random _random = new Random();
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param bookFile The path of the book file
+	 * @param keysFile The path of the Polyglot key file, or null to use the keys of the Polyglot specification
+	 */
+	public PolyglotBook(Path bookFile, Path keysFile) {
+		_bookFile = bookFile;
+		_keysFile = keysFile;
+	}
+
+	/**
+	 * Gets the default book, configured by the {@link #BOOK_PROPERTY} and {@link #KEYS_PROPERTY} system properties
+	 *
+	 * @return The default book, or null if no book is configured
+	 */
+	public static synchronized PolyglotBook instance() {
+		if(_instance == null) {
+			String book = System.getProperty(BOOK_PROPERTY);
+			if(book == null || book.isEmpty()) {
+				return null;
+			}
+			String keys = System.getProperty(KEYS_PROPERTY);
+			_instance = new PolyglotBook(Paths.get(book), keys == null || keys.isEmpty() ? null : Paths.get(keys));
+		}
+		return _instance;
+	}
+
+	/**
+	 * Opens the book if it is not opened yet
+	 *
+	 * @return TRUE if the book can be read
+	 */
+	private synchronized boolean open() {
+		if(_regions != null) {
+			return true;
+		}
+		if(_isUnavailable) {
+			return false;
+		}
+		try(FileChannel channel = FileChannel.open(_bookFile, StandardOpenOption.READ)) {
+			_keys = _keysFile == null ? PolyglotKeys.DEFAULT : PolyglotKeys.load(_keysFile);
+			_entries = channel.size() / ENTRY_SIZE;
+			MappedByteBuffer[] regions = new MappedByteBuffer[(int)((_entries + ENTRIES_PER_REGION - 1) / ENTRIES_PER_REGION)];
+			for(int i = 0; i < regions.length; ++i) {
+				long start = (long)i * ENTRIES_PER_REGION;
+				long count = Math.min(ENTRIES_PER_REGION, _entries - start);
+				regions[i] = channel.map(MapMode.READ_ONLY, start * ENTRY_SIZE, count * ENTRY_SIZE);
+			}
+			_regions = regions;
+			Tracelog.log(Level.INFO, true, "Opened the opening book " + _bookFile + " with " + _entries + " entries");
+			return true;
+		}
+		catch(IOException exception) {
+			Tracelog.log(Level.SEVERE, true, exception);
+			_isUnavailable = true;
+			return false;
+		}
+	}
+
+	/**
+	 * @param index The index of an entry
+	 *
+	 * @return The key of the entry
+	 */
+	private long getEntryKey(long index) {
+		return _regions[(int)(index / ENTRIES_PER_REGION)].getLong((int)(index % ENTRIES_PER_REGION) * ENTRY_SIZE);
+	}
+
+	/**
+	 * @param index The index of an entry
+	 *
+	 * @return The move of the entry, in the Polyglot encoding
+	 */
+	private int getEntryMove(long index) {
+		return _regions[(int)(index / ENTRIES_PER_REGION)].getShort((int)(index % ENTRIES_PER_REGION) * ENTRY_SIZE + 8) & 0xFFFF;
+	}
+
+	/**
+	 * @param index The index of an entry
+	 *
+	 * @return The weight of the entry
+	 */
+	private int getEntryWeight(long index) {
+		return _regions[(int)(index / ENTRIES_PER_REGION)].getShort((int)(index % ENTRIES_PER_REGION) * ENTRY_SIZE + 10) & 0xFFFF;
+	}
+
+	/**
+	 * Gets the moves of the book for the specified position
+	 *
+	 * @param position The position
+	 *
+	 * @return The legal moves of the book with their weights, empty if the position is not in the book
+	 */
+	public List<BookMove> getMoves(Position position) {
+		List<BookMove> moves = new ArrayList<>();
+		if(!open()) {
+			return moves;
+		}
+
+		// Find the first entry of the key, the keys are compared unsigned
+		long key = _keys.getKey(position);
+		long low = 0;
+		long high = _entries;
+		while(low < high) {
+			long middle = (low + high) >>> 1;
+			if(Long.compareUnsigned(getEntryKey(middle), key) < 0) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+
+		int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegal(position, legalMoves);
+		for(long index = low; index < _entries && getEntryKey(index) == key; ++index) {
+			int move = toMove(position, getEntryMove(index), legalMoves, count);
+			if(move != Move.NONE) {
+				moves.add(new BookMove(move, getEntryWeight(index)));
+			}
+		}
+		return moves;
+	}
+
+	/**
+	 * Picks a move of the book for the specified position, randomly in proportion to the weights of the moves
+	 *
+	 * @param position The position
+	 *
+	 * @return The move, or {@link Move#NONE} if the position is not in the book
+	 */
+	public int getMove(Position position) {
+		List<BookMove> moves = getMoves(position);
+		int total = moves.stream().mapToInt(z -> z.weight).sum();
+		if(total == 0) {
+			return moves.isEmpty() ? Move.NONE : moves.get(0).move;
+		}
+		int pick;
+		synchronized(_random) {
+			pick = _random.nextInt(total);
+		}
+		for(BookMove move : moves) {
+			pick -= move.weight;
+			if(pick < 0) {
+				return move.move;
+			}
+		}
+		return moves.get(0).move;
+	}
+
+	/**
+	 * Gets the move of the book with the highest weight for the specified position
+	 *
+	 * @param position The position
+	 *
+	 * @return The move, or {@link Move#NONE} if the position is not in the book
+	 */
+	public int getBestMove(Position position) {
+		return getMoves(position).stream().max((a, b) -> Integer.compare(a.weight, b.weight)).map(z -> z.move).orElse(Move.NONE);
+	}
+
+	/**
+	 * Converts a move of the Polyglot encoding into the legal move of the engine it represents
+	 *
+	 * @param position The position
+	 * @param bookMove The move in the Polyglot encoding
+	 * @param legalMoves The legal moves of the position
+	 * @param count The number of legal moves
+	 *
+	 * @return The move of the engine, or {@link Move#NONE} if the move is not legal
+	 */
+	private static int toMove(Position position, int bookMove, int[] legalMoves, int count) {
+		int to = bookMove & 0x3F;
+		int from = (bookMove >> 6) & 0x3F;
+		int promotion = (bookMove >> 12) & 0x7;
+
+		// Polyglot encodes castling as the king capturing its own rook
+		int piece = position.getPiece(from);
+		if(piece != Pieces.NONE && Pieces.type(piece) == Pieces.KING && position.getPiece(to) == Pieces.make(Pieces.color(piece), Pieces.ROOK)) {
+			to = Bitboards.file(to) > Bitboards.file(from) ? from + 2 : from - 2;
+		}
+
+		for(int i = 0; i < count; ++i) {
+			int move = legalMoves[i];
+			if(Move.from(move) == from && Move.to(move) == to && Move.promotion(move) == promotion) {
+				return move;
+			}
+		}
+		return Move.NONE;
+	}
+}
@@ -0,0 +1,54 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.evaluation;
+
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+import game.engine.interfaces.IEvaluator;
+
+/**
+ * An evaluator that only counts the material of each player
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public class MaterialEvaluator implements IEvaluator {
+
+	/**
+	 * The value of each piece type in centipawns
+	 */
+	public static final int[] PIECE_VALUES = { 100, 320, 330, 500, 900, 0 };
+
+	@Override public int evaluate(Position position) {
+		int score = 0;
+		for(int type = Pieces.PAWN; type < Pieces.KING; ++type) {
+			score += PIECE_VALUES[type] * (
+				Long.bitCount(position.getPieces(Pieces.make(Pieces.WHITE, type))) -
+				Long.bitCount(position.getPieces(Pieces.make(Pieces.BLACK, type)))
+			);
+		}
+		return position.getSideToMove() == Pieces.WHITE ? score : -score;
+	}
+}
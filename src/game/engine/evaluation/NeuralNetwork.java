@@ -0,0 +1,334 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.evaluation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+
+import engine.utils.io.logging.Tracelog;
+import game.engine.board.Pieces;
+
+/**
+ * The quantized weights of an efficiently updatable neural network.
+ *
+ * The network has one input for each piece on each square, seen from the point of view of each
+ * player, feeding a hidden layer per player.  The hidden layer of the player to move and the one of
+ * its opponent are passed through a clipped activation and combined by a single output neuron.
+ * Because every input is either one or zero, the hidden layer is the sum of the weights of the pieces
+ * on the board and can be updated by adding and subtracting the weights of the pieces that move.
+ *
+ * The weights are read from a little-endian file laid out as
+ * <ul>
+ * <li>the magic number and the size of the hidden layer, as two ints</li>
+ * <li>the input weights, as 768 times the hidden size shorts ordered by input and then neuron</li>
+ * <li>the hidden biases, as hidden size shorts</li>
+ * <li>the output weights, as twice the hidden size shorts, for the player to move first</li>
+ * <li>the output bias, as an int</li>
+ * </ul>
+ * The input weights and hidden biases are scaled by {@link #QA} and the output weights by {@link #QB}
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class NeuralNetwork {
+
+	/**
+	 * The system property holding the path of the weights file
+	 */
+	public static final String PATH_PROPERTY = "chess.nnue";
+
+	/**
+	 * The number of inputs of the network, one for each piece on each square
+	 */
+	public static final int INPUTS = Pieces.COUNT * 64;
+
+	/**
+	 * The quantization factor of the input weights and hidden biases, which is also where the hidden activation is clipped
+	 */
+	public static final int QA = 255;
+
+	/**
+	 * The quantization factor of the output weights
+	 */
+	public static final int QB = 64;
+
+	/**
+	 * The number of centipawns of an output of one
+	 */
+	public static final int SCALE = 400;
+
+	/**
+	 * The largest hidden layer of a network, which keeps the sizes of the weights and of the weights
+	 * file within the range of an int
+	 */
+	public static final int MAX_HIDDEN_SIZE = 1 << 16;
+
+	/**
+	 * The largest score of the output in centipawns, which stays below the scores of the search for
+	 * mates and tablebase wins whatever the weights are
+	 */
+	public static final int MAX_OUTPUT = 20000;
+
+	/**
+	 * The magic number at the start of a weights file
+	 */
+	private static final int MAGIC = 0x4E4E5545;
+
+	/**
+	 * The network of the weights file of the {@link #PATH_PROPERTY} system property
+	 */
+	private static NeuralNetwork _instance;
+
+	/**
+	 * Indicates if loading the default network has failed
+	 */
+	private static boolean _isUnavailable;
+
+	/**
+	 * The number of neurons of the hidden layer of each player
+	 */
+	private final int _hiddenSize;
+
+	/**
+	 * The weights from each input to each hidden neuron, ordered by input and then neuron
+	 */
+	private final short[] _inputWeights;
+
+	/**
+	 * The bias of each hidden neuron
+	 */
+	private final short[] _hiddenBiases;
+
+	/**
+	 * The weights from each hidden neuron to the output, for the player to move first
+	 */
+	private final short[] _outputWeights;
+
+	/**
+	 * The bias of the output
+	 */
+	private final int _outputBias;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param hiddenSize The number of neurons of the hidden layer of each player
+	 * @param inputWeights The weights from each input to each hidden neuron, ordered by input and then neuron
+	 * @param hiddenBiases The bias of each hidden neuron
+	 * @param outputWeights The weights from each hidden neuron to the output, for the player to move first
+	 * @param outputBias The bias of the output
+	 */
+	public NeuralNetwork(int hiddenSize, short[] inputWeights, short[] hiddenBiases, short[] outputWeights, int outputBias) {
+		if(hiddenSize <= 0 || hiddenSize > MAX_HIDDEN_SIZE) {
+			throw new IllegalArgumentException("A hidden layer of " + hiddenSize + " neurons is not supported");
+		}
+		if(inputWeights.length != INPUTS * hiddenSize || hiddenBiases.length != hiddenSize || outputWeights.length != 2 * hiddenSize) {
+			throw new IllegalArgumentException("The weights do not match a hidden layer of " + hiddenSize + " neurons");
+		}
+		_hiddenSize = hiddenSize;
+		_inputWeights = inputWeights;
+		_hiddenBiases = hiddenBiases;
+		_outputWeights = outputWeights;
+		_outputBias = outputBias;
+	}
+
+	/**
+	 * Gets the default network, loaded from the file of the {@link #PATH_PROPERTY} system property
+	 *
+	 * @return The default network, or null if no network is configured or it cannot be loaded
+	 */
+	public static synchronized NeuralNetwork instance() {
+		if(_instance == null && !_isUnavailable) {
+			String path = System.getProperty(PATH_PROPERTY);
+			if(path == null || path.isEmpty()) {
+				return null;
+			}
+			try {
+				_instance = load(Paths.get(path));
+				Tracelog.log(Level.INFO, true, "Loaded a neural network of " + _instance.getHiddenSize() + " hidden neurons from " + path);
+			}
+			catch(IOException exception) {
+				Tracelog.log(Level.SEVERE, true, exception);
+				_isUnavailable = true;
+			}
+		}
+		return _instance;
+	}
+
+	/**
+	 * Loads the network of the specified weights file
+	 *
+	 * @param file The path of the file
+	 *
+	 * @return The network
+	 *
+	 * @throws IOException If the file cannot be read or is not a weights file
+	 */
+	public static NeuralNetwork load(Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate((int)channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+			while(buffer.hasRemaining() && channel.read(buffer) >= 0);
+			buffer.flip();
+			if(buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+				throw new IOException("The file " + file + " is not a neural network");
+			}
+			int hiddenSize = buffer.getInt();
+			if(hiddenSize <= 0 || hiddenSize > MAX_HIDDEN_SIZE || buffer.remaining() != (INPUTS + 3) * (long)hiddenSize * 2 + 4) {
+				throw new IOException("The file " + file + " does not match a hidden layer of " + hiddenSize + " neurons");
+			}
+			short[] inputWeights = new short[INPUTS * hiddenSize];
+			short[] hiddenBiases = new short[hiddenSize];
+			short[] outputWeights = new short[2 * hiddenSize];
+			buffer.asShortBuffer().get(inputWeights).get(hiddenBiases).get(outputWeights);
+			buffer.position(buffer.position() + (inputWeights.length + hiddenBiases.length + outputWeights.length) * 2);
+			return new NeuralNetwork(hiddenSize, inputWeights, hiddenBiases, outputWeights, buffer.getInt());
+		}
+	}
+
+	/**
+	 * Saves this network to the specified file
+	 *
+	 * @param file The path of the file
+	 *
+	 * @throws IOException If the file cannot be written
+	 */
+	public void save(Path file) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(12 + (INPUTS + 3) * _hiddenSize * 2).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).putInt(_hiddenSize);
+		buffer.asShortBuffer().put(_inputWeights).put(_hiddenBiases).put(_outputWeights);
+		buffer.position(buffer.position() + (_inputWeights.length + _hiddenBiases.length + _outputWeights.length) * 2);
+		buffer.putInt(_outputBias);
+		buffer.rewind();
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while(buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * @return The number of neurons of the hidden layer of each player
+	 */
+	public int getHiddenSize() {
+		return _hiddenSize;
+	}
+
+	/**
+	 * Gets the input of a piece on a square, from the point of view of the specified player.  Black
+	 * sees the board flipped with the colors swapped, so that both players share the same weights
+	 *
+	 * @param perspective The color of the player
+	 * @param piece The piece
+	 * @param square The square
+	 *
+	 * @return The index of the input
+	 */
+	public static int getInput(int perspective, int piece, int square) {
+		if(perspective == Pieces.WHITE) {
+			return piece * 64 + square;
+		}
+		return Pieces.make(Pieces.color(piece) ^ 1, Pieces.type(piece)) * 64 + (square ^ 56);
+	}
+
+	/**
+	 * Sets the hidden layer to its biases, which is the hidden layer of an empty board
+	 *
+	 * @param hidden The hidden layer
+	 */
+	void reset(short[] hidden) {
+		System.arraycopy(_hiddenBiases, 0, hidden, 0, _hiddenSize);
+	}
+
+	/**
+	 * Adds the weights of an input to the hidden layer
+	 *
+	 * @param hidden The hidden layer
+	 * @param input The index of the input
+	 */
+	void add(short[] hidden, int input) {
+		short[] weights = _inputWeights;
+		int offset = input * _hiddenSize;
+		for(int i = 0; i < hidden.length; ++i) {
+			hidden[i] += weights[offset + i];
+		}
+	}
+
+	/**
+	 * Subtracts the weights of an input from the hidden layer
+	 *
+	 * @param hidden The hidden layer
+	 * @param input The index of the input
+	 */
+	void subtract(short[] hidden, int input) {
+		short[] weights = _inputWeights;
+		int offset = input * _hiddenSize;
+		for(int i = 0; i < hidden.length; ++i) {
+			hidden[i] -= weights[offset + i];
+		}
+	}
+
+	/**
+	 * Adds the weights of an input and subtracts the weights of another in a single pass over the hidden layer
+	 *
+	 * @param hidden The hidden layer
+	 * @param added The index of the input to add
+	 * @param subtracted The index of the input to subtract
+	 */
+	void addSubtract(short[] hidden, int added, int subtracted) {
+		short[] weights = _inputWeights;
+		int addedOffset = added * _hiddenSize;
+		int subtractedOffset = subtracted * _hiddenSize;
+		for(int i = 0; i < hidden.length; ++i) {
+			hidden[i] += weights[addedOffset + i] - weights[subtractedOffset + i];
+		}
+	}
+
+	/**
+	 * Computes the output of the network
+	 *
+	 * @param us The hidden layer of the player to move
+	 * @param them The hidden layer of the opponent
+	 *
+	 * @return The score in centipawns, from the point of view of the player to move, bounded by {@link #MAX_OUTPUT}
+	 */
+	int evaluate(short[] us, short[] them) {
+		short[] weights = _outputWeights;
+		long sum = 0;
+		for(int i = 0; i < us.length; ++i) {
+			sum += Math.min(Math.max(us[i], 0), QA) * weights[i];
+		}
+		for(int i = 0; i < them.length; ++i) {
+			sum += Math.min(Math.max(them[i], 0), QA) * weights[_hiddenSize + i];
+		}
+		long score = (sum + _outputBias) * SCALE / (QA * QB);
+		return (int)Math.min(Math.max(score, -MAX_OUTPUT), MAX_OUTPUT);
+	}
+}
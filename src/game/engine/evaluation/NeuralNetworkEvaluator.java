@@ -0,0 +1,154 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.evaluation;
+
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+import game.engine.interfaces.IAccumulator;
+import game.engine.interfaces.IEvaluator;
+
+/**
+ * An evaluator that scores a position with a {@link NeuralNetwork}.
+ *
+ * The hidden layers of the network are held by an {@link Accumulator} attached to the position being
+ * searched, so that making and unmaking a move only adds and subtracts the weights of the pieces that
+ * moved rather than recomputing the whole layer.  A position without an accumulator of this network is
+ * still evaluated correctly, by refreshing a spare accumulator from all of its pieces
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public class NeuralNetworkEvaluator implements IEvaluator {
+
+	/**
+	 * The hidden layers of a network for the pieces of a position
+	 *
+	 * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+	 *
+	 */
+	public static final class Accumulator implements IAccumulator {
+
+		/**
+		 * The network of the hidden layers
+		 */
+		private final NeuralNetwork _network;
+
+		/**
+		 * The hidden layer of each player, indexed by color
+		 */
+		private final short[][] _hidden;
+
+		/**
+		 * Constructs a new instance of this class type
+		 *
+		 * @param network The network of the hidden layers
+		 */
+		public Accumulator(NeuralNetwork network) {
+			_network = network;
+			_hidden = new short[2][network.getHiddenSize()];
+			_network.reset(_hidden[Pieces.WHITE]);
+			_network.reset(_hidden[Pieces.BLACK]);
+		}
+
+		@Override public void add(int piece, int square) {
+			_network.add(_hidden[Pieces.WHITE], NeuralNetwork.getInput(Pieces.WHITE, piece, square));
+			_network.add(_hidden[Pieces.BLACK], NeuralNetwork.getInput(Pieces.BLACK, piece, square));
+		}
+
+		@Override public void remove(int piece, int square) {
+			_network.subtract(_hidden[Pieces.WHITE], NeuralNetwork.getInput(Pieces.WHITE, piece, square));
+			_network.subtract(_hidden[Pieces.BLACK], NeuralNetwork.getInput(Pieces.BLACK, piece, square));
+		}
+
+		@Override public void move(int piece, int from, int to) {
+			_network.addSubtract(_hidden[Pieces.WHITE], NeuralNetwork.getInput(Pieces.WHITE, piece, to), NeuralNetwork.getInput(Pieces.WHITE, piece, from));
+			_network.addSubtract(_hidden[Pieces.BLACK], NeuralNetwork.getInput(Pieces.BLACK, piece, to), NeuralNetwork.getInput(Pieces.BLACK, piece, from));
+		}
+
+		@Override public void refresh(Position position) {
+			_network.reset(_hidden[Pieces.WHITE]);
+			_network.reset(_hidden[Pieces.BLACK]);
+			for(int square = 0; square < 64; ++square) {
+				int piece = position.getPiece(square);
+				if(piece != Pieces.NONE) {
+					add(piece, square);
+				}
+			}
+		}
+
+		/**
+		 * Computes the output of the network
+		 *
+		 * @param sideToMove The color of the player to move
+		 *
+		 * @return The score in centipawns, from the point of view of the player to move
+		 */
+		public int evaluate(int sideToMove) {
+			return _network.evaluate(_hidden[sideToMove], _hidden[sideToMove ^ 1]);
+		}
+	}
+
+	/**
+	 * The network used to evaluate
+	 */
+	private final NeuralNetwork _network;
+
+	/**
+	 * The accumulator refreshed for positions that do not have one of this network, created when first needed
+	 */
+	private Accumulator _spare;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param network The network used to evaluate
+	 */
+	public NeuralNetworkEvaluator(NeuralNetwork network) {
+		_network = network;
+	}
+
+	/**
+	 * @return The network used to evaluate
+	 */
+	public NeuralNetwork getNetwork() {
+		return _network;
+	}
+
+	@Override public IAccumulator createAccumulator() {
+		return new Accumulator(_network);
+	}
+
+	@Override public int evaluate(Position position) {
+		IAccumulator accumulator = position.getAccumulator();
+		if(accumulator instanceof Accumulator && ((Accumulator)accumulator)._network == _network) {
+			return ((Accumulator)accumulator).evaluate(position.getSideToMove());
+		}
+		if(_spare == null) {
+			_spare = new Accumulator(_network);
+		}
+		_spare.refresh(position);
+		return _spare.evaluate(position.getSideToMove());
+	}
+}
@@ -0,0 +1,183 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.evaluation;
+
+import java.util.Arrays;
+
+/**
+ * The cache of the pawn structure evaluation, mapping the pawn hash of a position to its scores.
+ *
+ * The pawn structure rarely changes between sibling nodes of the search, so most lookups are hits
+ * and the more expensive pawn analysis is only performed when a pawn has moved or been captured
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class PawnHashTable {
+
+	/**
+	 * The default number of entries of the table
+	 */
+	public static final int DEFAULT_ENTRIES = 1 << 14;
+
+	/**
+	 * The pawn hash of each entry
+	 */
+	private final long[] _keys;
+
+	/**
+	 * The midgame score of each entry, from the point of view of white
+	 */
+	private final int[] _midgame;
+
+	/**
+	 * The endgame score of each entry, from the point of view of white
+	 */
+	private final int[] _endgame;
+
+	/**
+	 * The passed pawns of both colors of each entry
+	 */
+	private final long[] _passedPawns;
+
+	/**
+	 * The mask applied to a key to get its entry
+	 */
+	private final int _mask;
+
+	/**
+	 * The number of lookups
+	 */
+	private long _probes;
+
+	/**
+	 * The number of lookups that found an entry
+	 */
+	private long _hits;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param entries The number of entries, rounded down to a power of two
+	 */
+	public PawnHashTable(int entries) {
+		int size = Integer.highestOneBit(Math.max(entries, 1));
+		_keys = new long[size];
+		_midgame = new int[size];
+		_endgame = new int[size];
+		_passedPawns = new long[size];
+		_mask = size - 1;
+	}
+
+	/**
+	 * Looks up the entry of the specified pawn hash
+	 *
+	 * @param key The pawn hash
+	 *
+	 * @return The index of the entry, or -1 if the table holds no entry for the key
+	 */
+	public int probe(long key) {
+		++_probes;
+		int index = (int)key & _mask;
+		if(_keys[index] == key) {
+			++_hits;
+			return index;
+		}
+		return -1;
+	}
+
+	/**
+	 * Stores the evaluation of a pawn structure, replacing whatever entry was there
+	 *
+	 * @param key The pawn hash
+	 * @param midgame The midgame score, from the point of view of white
+	 * @param endgame The endgame score, from the point of view of white
+	 * @param passedPawns The passed pawns of both colors
+	 *
+	 * @return The index of the entry
+	 */
+	public int store(long key, int midgame, int endgame, long passedPawns) {
+		int index = (int)key & _mask;
+		_keys[index] = key;
+		_midgame[index] = midgame;
+		_endgame[index] = endgame;
+		_passedPawns[index] = passedPawns;
+		return index;
+	}
+
+	/**
+	 * @param index The index of the entry
+	 *
+	 * @return The midgame score of the entry, from the point of view of white
+	 */
+	public int getMidgame(int index) {
+		return _midgame[index];
+	}
+
+	/**
+	 * @param index The index of the entry
+	 *
+	 * @return The endgame score of the entry, from the point of view of white
+	 */
+	public int getEndgame(int index) {
+		return _endgame[index];
+	}
+
+	/**
+	 * @param index The index of the entry
+	 *
+	 * @return The passed pawns of both colors of the entry
+	 */
+	public long getPassedPawns(int index) {
+		return _passedPawns[index];
+	}
+
+	/**
+	 * @return The number of lookups
+	 */
+	public long getProbes() {
+		return _probes;
+	}
+
+	/**
+	 * @return The number of lookups that found an entry
+	 */
+	public long getHits() {
+		return _hits;
+	}
+
+	/**
+	 * Removes all the entries of the table and resets its counters
+	 */
+	public void clear() {
+		// A pawn hash of zero is a position without pawns, whose scores are zero
+		Arrays.fill(_keys, 0);
+		Arrays.fill(_midgame, 0);
+		Arrays.fill(_endgame, 0);
+		Arrays.fill(_passedPawns, 0);
+		_probes = 0;
+		_hits = 0;
+	}
+}
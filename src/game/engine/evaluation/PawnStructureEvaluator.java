@@ -0,0 +1,266 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.evaluation;
+
+import game.engine.board.Bitboards;
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+
+/**
+ * An evaluator that adds the pawn structure to the material and piece-square tables.
+ *
+ * Doubled, isolated, backward and passed pawns only depend on the pawns of the position, so their
+ * scores are cached in a {@link PawnHashTable} keyed by the pawn hash of the position.  The pawn
+ * shield in front of each king also depends on the king and is computed on every call, which is
+ * cheap as it is a single mask per king
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public class PawnStructureEvaluator extends PieceSquareEvaluator {
+
+	/**
+	 * The midgame and endgame penalty of each extra pawn on a file
+	 */
+	private static final int DOUBLED_MIDGAME = 10, DOUBLED_ENDGAME = 20;
+
+	/**
+	 * The midgame and endgame penalty of a pawn without friendly pawns on its adjacent files
+	 */
+	private static final int ISOLATED_MIDGAME = 10, ISOLATED_ENDGAME = 15;
+
+	/**
+	 * The midgame and endgame penalty of a pawn that cannot be supported and whose advance is controlled by an enemy pawn
+	 */
+	private static final int BACKWARD_MIDGAME = 8, BACKWARD_ENDGAME = 10;
+
+	/**
+	 * The midgame bonus of a passed pawn, indexed by its rank from the point of view of its owner
+	 */
+	private static final int[] PASSED_MIDGAME = { 0, 5, 10, 15, 25, 40, 60, 0 };
+
+	/**
+	 * The endgame bonus of a passed pawn, indexed by its rank from the point of view of its owner
+	 */
+	private static final int[] PASSED_ENDGAME = { 0, 10, 20, 35, 60, 100, 150, 0 };
+
+	/**
+	 * The midgame bonus of each friendly pawn directly in front of the king, and one rank further
+	 */
+	private static final int SHIELD_NEAR = 12, SHIELD_FAR = 6;
+
+	/**
+	 * The squares on the same file in front of each square, indexed by color and then square
+	 */
+	private static final long[][] FRONT_SPAN = new long[2][64];
+
+	/**
+	 * The squares that must be free of enemy pawns for a pawn on each square to be passed, indexed by color and then square
+	 */
+	private static final long[][] PASSED_MASK = new long[2][64];
+
+	/**
+	 * The squares on the adjacent files on the same rank or behind each square, indexed by color and then square
+	 */
+	private static final long[][] SUPPORT_MASK = new long[2][64];
+
+	/**
+	 * The squares on the files adjacent to each file
+	 */
+	private static final long[] ADJACENT_FILES = new long[8];
+
+	/**
+	 * The squares of the pawn shield one rank in front of a king on each square, indexed by color and then square
+	 */
+	private static final long[][] SHIELD_NEAR_MASK = new long[2][64];
+
+	/**
+	 * The squares of the pawn shield two ranks in front of a king on each square, indexed by color and then square
+	 */
+	private static final long[][] SHIELD_FAR_MASK = new long[2][64];
+
+	static {
+		for(int file = 0; file < 8; ++file) {
+			ADJACENT_FILES[file] = (file > 0 ? Bitboards.FILE_A << (file - 1) : 0) | (file < 7 ? Bitboards.FILE_A << (file + 1) : 0);
+		}
+		for(int square = 0; square < 64; ++square) {
+			int file = Bitboards.file(square);
+			int rank = Bitboards.rank(square);
+			long files = ADJACENT_FILES[file] | (Bitboards.FILE_A << file);
+			for(int other = 0; other < 64; ++other) {
+				long bit = 1L << other;
+				int otherRank = Bitboards.rank(other);
+				if(Bitboards.file(other) == file) {
+					if(otherRank > rank) {
+						FRONT_SPAN[Pieces.WHITE][square] |= bit;
+					}
+					else if(otherRank < rank) {
+						FRONT_SPAN[Pieces.BLACK][square] |= bit;
+					}
+				}
+				if((files & bit) != 0) {
+					if(otherRank > rank) {
+						PASSED_MASK[Pieces.WHITE][square] |= bit;
+					}
+					else if(otherRank < rank) {
+						PASSED_MASK[Pieces.BLACK][square] |= bit;
+					}
+					if(otherRank == rank + 1) {
+						SHIELD_NEAR_MASK[Pieces.WHITE][square] |= bit;
+					}
+					else if(otherRank == rank + 2) {
+						SHIELD_FAR_MASK[Pieces.WHITE][square] |= bit;
+					}
+					if(otherRank == rank - 1) {
+						SHIELD_NEAR_MASK[Pieces.BLACK][square] |= bit;
+					}
+					else if(otherRank == rank - 2) {
+						SHIELD_FAR_MASK[Pieces.BLACK][square] |= bit;
+					}
+				}
+				if((ADJACENT_FILES[file] & bit) != 0) {
+					if(otherRank <= rank) {
+						SUPPORT_MASK[Pieces.WHITE][square] |= bit;
+					}
+					if(otherRank >= rank) {
+						SUPPORT_MASK[Pieces.BLACK][square] |= bit;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * The cache of the pawn structure scores
+	 */
+	private final PawnHashTable _pawnTable;
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	public PawnStructureEvaluator() {
+		this(PawnHashTable.DEFAULT_ENTRIES);
+	}
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param entries The number of entries of the pawn hash table
+	 */
+	public PawnStructureEvaluator(int entries) {
+		_pawnTable = new PawnHashTable(entries);
+	}
+
+	/**
+	 * @return The cache of the pawn structure scores
+	 */
+	public PawnHashTable getPawnTable() {
+		return _pawnTable;
+	}
+
+	@Override public int evaluate(Position position) {
+		int index = _pawnTable.probe(position.getPawnKey());
+		if(index == -1) {
+			index = analyze(position);
+		}
+
+		int shield = getShield(position, Pieces.WHITE) - getShield(position, Pieces.BLACK);
+
+		int phase = Math.min(position.getPhase(), PieceSquareTables.MAX_PHASE);
+		int midgame = _pawnTable.getMidgame(index) + shield;
+		int endgame = _pawnTable.getEndgame(index);
+		int score = (midgame * phase + endgame * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+
+		return super.evaluate(position) + (position.getSideToMove() == Pieces.WHITE ? score : -score);
+	}
+
+	/**
+	 * Gets the midgame score of the pawn shield in front of the king of the specified color
+	 *
+	 * @param position The position
+	 * @param color The color of the king
+	 *
+	 * @return The shield score, or zero if the player has no king
+	 */
+	private static int getShield(Position position, int color) {
+		int king = position.getKingSquare(color);
+		if(king == -1) {
+			return 0;
+		}
+		long pawns = position.getPieces(Pieces.make(color, Pieces.PAWN));
+		return SHIELD_NEAR * Long.bitCount(pawns & SHIELD_NEAR_MASK[color][king]) + SHIELD_FAR * Long.bitCount(pawns & SHIELD_FAR_MASK[color][king]);
+	}
+
+	/**
+	 * Analyzes the pawn structure of the specified position and stores the result in the pawn hash table
+	 *
+	 * @param position The position
+	 *
+	 * @return The index of the entry that was stored
+	 */
+	private int analyze(Position position) {
+		int midgame = 0;
+		int endgame = 0;
+		long passedPawns = 0;
+		for(int color = Pieces.WHITE; color <= Pieces.BLACK; ++color) {
+			int sign = color == Pieces.WHITE ? 1 : -1;
+			long pawns = position.getPieces(Pieces.make(color, Pieces.PAWN));
+			long enemyPawns = position.getPieces(Pieces.make(color ^ 1, Pieces.PAWN));
+
+			for(int file = 0; file < 8; ++file) {
+				int count = Long.bitCount(pawns & (Bitboards.FILE_A << file));
+				if(count > 1) {
+					midgame -= sign * DOUBLED_MIDGAME * (count - 1);
+					endgame -= sign * DOUBLED_ENDGAME * (count - 1);
+				}
+			}
+
+			for(long remaining = pawns; remaining != 0; remaining &= remaining - 1) {
+				int square = Long.numberOfTrailingZeros(remaining);
+				int file = Bitboards.file(square);
+				if((pawns & ADJACENT_FILES[file]) == 0) {
+					midgame -= sign * ISOLATED_MIDGAME;
+					endgame -= sign * ISOLATED_ENDGAME;
+				}
+				else if((pawns & SUPPORT_MASK[color][square]) == 0) {
+					int stop = color == Pieces.WHITE ? square + 8 : square - 8;
+					if((Bitboards.PAWN_ATTACKS[color][stop] & enemyPawns) != 0) {
+						midgame -= sign * BACKWARD_MIDGAME;
+						endgame -= sign * BACKWARD_ENDGAME;
+					}
+				}
+
+				// Only the front-most pawn of a file can be passed
+				if((enemyPawns & PASSED_MASK[color][square]) == 0 && (pawns & FRONT_SPAN[color][square]) == 0) {
+					int rank = color == Pieces.WHITE ? Bitboards.rank(square) : 7 - Bitboards.rank(square);
+					midgame += sign * PASSED_MIDGAME[rank];
+					endgame += sign * PASSED_ENDGAME[rank];
+					passedPawns |= 1L << square;
+				}
+			}
+		}
+		return _pawnTable.store(position.getPawnKey(), midgame, endgame, passedPawns);
+	}
+}
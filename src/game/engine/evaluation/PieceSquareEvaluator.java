@@ -0,0 +1,52 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.evaluation;
+
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+import game.engine.interfaces.IEvaluator;
+
+/**
+ * An evaluator that combines the material and piece-square tables of each piece.
+ *
+ * The midgame and endgame scores are maintained by the position itself as pieces are placed and
+ * removed, so evaluating a leaf only blends the two scores by the remaining game phase
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public class PieceSquareEvaluator implements IEvaluator {
+
+	/**
+	 * The bonus given to the player to move
+	 */
+	private static final int TEMPO = 10;
+
+	@Override public int evaluate(Position position) {
+		int phase = Math.min(position.getPhase(), PieceSquareTables.MAX_PHASE);
+		int score = (position.getMidgameScore() * phase + position.getEndgameScore() * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+		return (position.getSideToMove() == Pieces.WHITE ? score : -score) + TEMPO;
+	}
+}
@@ -0,0 +1,228 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.evaluation;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import game.engine.board.Pieces;
+import generated.DataLookup.DataLayerName;
+
+/**
+ * The material and piece-square tables of each chess piece.
+ *
+ * The tables are written from the point of view of white with the eighth rank first, the way the
+ * board is displayed.  They are flattened at load time into per-piece arrays that already include
+ * the material value of the piece and are negated for black, so that a position can add or subtract
+ * a single entry whenever a piece is placed or removed
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class PieceSquareTables {
+
+	/**
+	 * The total game phase of the starting material, knights and bishops count for one, rooks for two and queens for four
+	 */
+	public static final int MAX_PHASE = 24;
+
+	/**
+	 * The game phase contributed by each piece type
+	 */
+	public static final int[] PHASE = { 0, 1, 1, 2, 4, 0 };
+
+	/**
+	 * The midgame score of each piece on each square from the point of view of white, indexed by piece and then square
+	 */
+	public static final int[][] MIDGAME = new int[Pieces.COUNT][64];
+
+	/**
+	 * The endgame score of each piece on each square from the point of view of white, indexed by piece and then square
+	 */
+	public static final int[][] ENDGAME = new int[Pieces.COUNT][64];
+
+	/**
+	 * The midgame material value of each piece
+	 */
+	private static final Map<DataLayerName, Integer> MIDGAME_MATERIAL = new EnumMap<>(DataLayerName.class);
+
+	/**
+	 * The endgame material value of each piece
+	 */
+	private static final Map<DataLayerName, Integer> ENDGAME_MATERIAL = new EnumMap<>(DataLayerName.class);
+
+	/**
+	 * The midgame placement table of each piece
+	 */
+	private static final Map<DataLayerName, int[]> MIDGAME_TABLES = new EnumMap<>(DataLayerName.class);
+
+	/**
+	 * The endgame placement table of each piece
+	 */
+	private static final Map<DataLayerName, int[]> ENDGAME_TABLES = new EnumMap<>(DataLayerName.class);
+
+	static {
+		MIDGAME_MATERIAL.put(DataLayerName.PAWN, 100);
+		MIDGAME_MATERIAL.put(DataLayerName.KNIGHT, 320);
+		MIDGAME_MATERIAL.put(DataLayerName.BISHOP, 330);
+		MIDGAME_MATERIAL.put(DataLayerName.ROOK, 500);
+		MIDGAME_MATERIAL.put(DataLayerName.QUEEN, 900);
+		MIDGAME_MATERIAL.put(DataLayerName.KING, 0);
+
+		ENDGAME_MATERIAL.put(DataLayerName.PAWN, 120);
+		ENDGAME_MATERIAL.put(DataLayerName.KNIGHT, 300);
+		ENDGAME_MATERIAL.put(DataLayerName.BISHOP, 320);
+		ENDGAME_MATERIAL.put(DataLayerName.ROOK, 520);
+		ENDGAME_MATERIAL.put(DataLayerName.QUEEN, 930);
+		ENDGAME_MATERIAL.put(DataLayerName.KING, 0);
+
+		MIDGAME_TABLES.put(DataLayerName.PAWN, new int[] {
+			  0,  0,  0,  0,  0,  0,  0,  0,
+			 50, 50, 50, 50, 50, 50, 50, 50,
+			 10, 10, 20, 30, 30, 20, 10, 10,
+			  5,  5, 10, 25, 25, 10,  5,  5,
+			  0,  0,  0, 20, 20,  0,  0,  0,
+			  5, -5,-10,  0,  0,-10, -5,  5,
+			  5, 10, 10,-20,-20, 10, 10,  5,
+			  0,  0,  0,  0,  0,  0,  0,  0
+		});
+		ENDGAME_TABLES.put(DataLayerName.PAWN, new int[] {
+			  0,  0,  0,  0,  0,  0,  0,  0,
+			 80, 80, 80, 80, 80, 80, 80, 80,
+			 50, 50, 50, 50, 50, 50, 50, 50,
+			 30, 30, 30, 30, 30, 30, 30, 30,
+			 15, 15, 15, 15, 15, 15, 15, 15,
+			  5,  5,  5,  5,  5,  5,  5,  5,
+			  0,  0,  0,  0,  0,  0,  0,  0,
+			  0,  0,  0,  0,  0,  0,  0,  0
+		});
+		MIDGAME_TABLES.put(DataLayerName.KNIGHT, new int[] {
+			-50,-40,-30,-30,-30,-30,-40,-50,
+			-40,-20,  0,  0,  0,  0,-20,-40,
+			-30,  0, 10, 15, 15, 10,  0,-30,
+			-30,  5, 15, 20, 20, 15,  5,-30,
+			-30,  0, 15, 20, 20, 15,  0,-30,
+			-30,  5, 10, 15, 15, 10,  5,-30,
+			-40,-20,  0,  5,  5,  0,-20,-40,
+			-50,-40,-30,-30,-30,-30,-40,-50
+		});
+		ENDGAME_TABLES.put(DataLayerName.KNIGHT, MIDGAME_TABLES.get(DataLayerName.KNIGHT));
+		MIDGAME_TABLES.put(DataLayerName.BISHOP, new int[] {
+			-20,-10,-10,-10,-10,-10,-10,-20,
+			-10,  0,  0,  0,  0,  0,  0,-10,
+			-10,  0,  5, 10, 10,  5,  0,-10,
+			-10,  5,  5, 10, 10,  5,  5,-10,
+			-10,  0, 10, 10, 10, 10,  0,-10,
+			-10, 10, 10, 10, 10, 10, 10,-10,
+			-10,  5,  0,  0,  0,  0,  5,-10,
+			-20,-10,-10,-10,-10,-10,-10,-20
+		});
+		ENDGAME_TABLES.put(DataLayerName.BISHOP, MIDGAME_TABLES.get(DataLayerName.BISHOP));
+		MIDGAME_TABLES.put(DataLayerName.ROOK, new int[] {
+			  0,  0,  0,  0,  0,  0,  0,  0,
+			  5, 10, 10, 10, 10, 10, 10,  5,
+			 -5,  0,  0,  0,  0,  0,  0, -5,
+			 -5,  0,  0,  0,  0,  0,  0, -5,
+			 -5,  0,  0,  0,  0,  0,  0, -5,
+			 -5,  0,  0,  0,  0,  0,  0, -5,
+			 -5,  0,  0,  0,  0,  0,  0, -5,
+			  0,  0,  0,  5,  5,  0,  0,  0
+		});
+		ENDGAME_TABLES.put(DataLayerName.ROOK, new int[] {
+			  5,  5,  5,  5,  5,  5,  5,  5,
+			 10, 10, 10, 10, 10, 10, 10, 10,
+			  0,  0,  0,  0,  0,  0,  0,  0,
+			  0,  0,  0,  0,  0,  0,  0,  0,
+			  0,  0,  0,  0,  0,  0,  0,  0,
+			  0,  0,  0,  0,  0,  0,  0,  0,
+			  0,  0,  0,  0,  0,  0,  0,  0,
+			  0,  0,  0,  0,  0,  0,  0,  0
+		});
+		MIDGAME_TABLES.put(DataLayerName.QUEEN, new int[] {
+			-20,-10,-10, -5, -5,-10,-10,-20,
+			-10,  0,  0,  0,  0,  0,  0,-10,
+			-10,  0,  5,  5,  5,  5,  0,-10,
+			 -5,  0,  5,  5,  5,  5,  0, -5,
+			  0,  0,  5,  5,  5,  5,  0, -5,
+			-10,  5,  5,  5,  5,  5,  0,-10,
+			-10,  0,  5,  0,  0,  0,  0,-10,
+			-20,-10,-10, -5, -5,-10,-10,-20
+		});
+		ENDGAME_TABLES.put(DataLayerName.QUEEN, MIDGAME_TABLES.get(DataLayerName.QUEEN));
+		MIDGAME_TABLES.put(DataLayerName.KING, new int[] {
+			-30,-40,-40,-50,-50,-40,-40,-30,
+			-30,-40,-40,-50,-50,-40,-40,-30,
+			-30,-40,-40,-50,-50,-40,-40,-30,
+			-30,-40,-40,-50,-50,-40,-40,-30,
+			-20,-30,-30,-40,-40,-30,-30,-20,
+			-10,-20,-20,-20,-20,-20,-20,-10,
+			 20, 20,  0,  0,  0,  0, 20, 20,
+			 20, 30, 10,  0,  0, 10, 30, 20
+		});
+		ENDGAME_TABLES.put(DataLayerName.KING, new int[] {
+			-50,-40,-30,-20,-20,-30,-40,-50,
+			-30,-20,-10,  0,  0,-10,-20,-30,
+			-30,-10, 20, 30, 30, 20,-10,-30,
+			-30,-10, 30, 40, 40, 30,-10,-30,
+			-30,-10, 30, 40, 40, 30,-10,-30,
+			-30,-10, 20, 30, 30, 20,-10,-30,
+			-30,-30,  0,  0,  0,  0,-30,-30,
+			-50,-30,-30,-30,-30,-30,-30,-50
+		});
+
+		// Flatten the tables so that the square index of the engine can be used directly
+		for(int type = Pieces.PAWN; type <= Pieces.KING; ++type) {
+			DataLayerName layerName = Pieces.toDataLayerName(type);
+			int[] midgame = MIDGAME_TABLES.get(layerName);
+			int[] endgame = ENDGAME_TABLES.get(layerName);
+			for(int square = 0; square < 64; ++square) {
+				// The tables list the eighth rank first, so white reads them with the rank flipped
+				int whiteIndex = square ^ 56;
+				int blackIndex = square;
+				MIDGAME[Pieces.make(Pieces.WHITE, type)][square] = MIDGAME_MATERIAL.get(layerName) + midgame[whiteIndex];
+				ENDGAME[Pieces.make(Pieces.WHITE, type)][square] = ENDGAME_MATERIAL.get(layerName) + endgame[whiteIndex];
+				MIDGAME[Pieces.make(Pieces.BLACK, type)][square] = -(MIDGAME_MATERIAL.get(layerName) + midgame[blackIndex]);
+				ENDGAME[Pieces.make(Pieces.BLACK, type)][square] = -(ENDGAME_MATERIAL.get(layerName) + endgame[blackIndex]);
+			}
+		}
+	}
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	private PieceSquareTables() {
+	}
+
+	/**
+	 * Gets the midgame material value of the specified piece
+	 *
+	 * @param layerName The data layer name of the piece
+	 *
+	 * @return The midgame material value in centipawns
+	 */
+	public static int getMaterial(DataLayerName layerName) {
+		return MIDGAME_MATERIAL.getOrDefault(layerName, 0);
+	}
+}
@@ -0,0 +1,69 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.interfaces;
+
+import game.engine.board.Position;
+
+/**
+ * This interface defines the functionality of a state that follows every piece placed on or
+ * removed from a position, so that it can be updated incrementally as moves are made and unmade
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public interface IAccumulator {
+
+	/**
+	 * Adds a piece placed on the specified square
+	 *
+	 * @param piece The piece
+	 * @param square The square
+	 */
+	public void add(int piece, int square);
+
+	/**
+	 * Removes a piece taken from the specified square
+	 *
+	 * @param piece The piece
+	 * @param square The square
+	 */
+	public void remove(int piece, int square);
+
+	/**
+	 * Moves a piece from one square to another
+	 *
+	 * @param piece The piece
+	 * @param from The from square
+	 * @param to The to square
+	 */
+	public void move(int piece, int from, int to);
+
+	/**
+	 * Recomputes the state from all the pieces of the specified position
+	 *
+	 * @param position The position
+	 */
+	public void refresh(Position position);
+}
@@ -0,0 +1,55 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.interfaces;
+
+import game.engine.board.Position;
+
+/**
+ * This interface defines the functionality of a static evaluation of a position
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public interface IEvaluator {
+
+	/**
+	 * Evaluates the specified position
+	 *
+	 * @param position The position to evaluate
+	 *
+	 * @return The score of the position in centipawns, from the point of view of the player to move
+	 */
+	public int evaluate(Position position);
+
+	/**
+	 * Creates the state that this evaluator needs a position to update incrementally, see
+	 * {@link Position#setAccumulator(IAccumulator)}
+	 *
+	 * @return The accumulator, or null if this evaluator only reads the position
+	 */
+	public default IAccumulator createAccumulator() {
+		return null;
+	}
+}
@@ -0,0 +1,94 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.interfaces;
+
+import game.engine.board.Position;
+
+/**
+ * This interface defines the functionality of an endgame tablebase, which holds the exact result
+ * of the positions with few pieces
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public interface ITablebase {
+
+	/**
+	 * The result of a position that is not held by the tablebase
+	 */
+	public static final int UNKNOWN = Integer.MIN_VALUE;
+
+	/**
+	 * The player to move loses
+	 */
+	public static final int LOSS = -2;
+
+	/**
+	 * The player to move loses, however the fifty move rule saves the game
+	 */
+	public static final int BLESSED_LOSS = -1;
+
+	/**
+	 * The position is a draw
+	 */
+	public static final int DRAW = 0;
+
+	/**
+	 * The player to move wins, however the fifty move rule prevents the win
+	 */
+	public static final int CURSED_WIN = 1;
+
+	/**
+	 * The player to move wins
+	 */
+	public static final int WIN = 2;
+
+	/**
+	 * @return The largest number of pieces, kings included, of the positions held by the tablebase
+	 */
+	public int getMaxPieces();
+
+	/**
+	 * Gets the win, draw or loss result of the specified position.  The position may be modified
+	 * while it is probed however it is restored before returning
+	 *
+	 * @param position The position, which must not have any castling rights
+	 *
+	 * @return The result from the point of view of the player to move, or {@link #UNKNOWN}
+	 */
+	public int probeWdl(Position position);
+
+	/**
+	 * Gets the distance to zero of the specified position, the number of plies until the next capture
+	 * or pawn move on the optimal path.  The position may be modified while it is probed however it is
+	 * restored before returning
+	 *
+	 * @param position The position, which must not have any castling rights
+	 *
+	 * @return The distance in plies, positive if the player to move wins and negative if it loses, zero
+	 * for a draw, or {@link #UNKNOWN} if the distance is not held by the tablebase
+	 */
+	public int probeDtz(Position position);
+}
@@ -0,0 +1,481 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+import engine.utils.io.logging.Tracelog;
+import game.engine.board.Fen;
+import game.engine.board.MoveGenerator;
+import game.engine.board.Position;
+
+/**
+ * An append-only journal of the moves of a running game, from which the game can be restored after
+ * the application ended without finishing it.
+ *
+ * The journal starts with the position the game started from, followed by a record per move that
+ * holds the move and a checksum of the move and of its place in the game.  A record that was only
+ * partly written when the application ended fails its checksum and ends the journal, so a journal is
+ * always restored up to its last complete move.
+ *
+ * Appending a move only writes it to the file, which takes microseconds.  The writes are made durable
+ * by a thread of the journal that forces the file to the disk whenever moves are pending, so that
+ * the moves played while the disk is being synchronized are forced together by the next call rather
+ * than one call per move
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class MoveJournal implements Closeable {
+
+	/**
+	 * The system property holding the directory of the journals, an empty value disables the journals
+	 */
+	public static final String DIRECTORY_PROPERTY = "chess.journal";
+
+	/**
+	 * The first bytes of a journal, the characters "CHMJ"
+	 */
+	private static final int MAGIC = 0x43484D4A;
+
+	/**
+	 * The version of the format
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * The size in bytes of the record of a move
+	 */
+	private static final int RECORD_SIZE = 8;
+
+	/**
+	 * The extension of the journal files
+	 */
+	private static final String EXTENSION = ".journal";
+
+	/**
+	 * The path of the journal
+	 */
+	private final Path _file;
+
+	/**
+	 * The channel of the journal, positioned at its end
+	 */
+	private final FileChannel _channel;
+
+	/**
+	 * The position of the game, after the last move of the journal
+	 */
+	private final Position _position;
+
+	/**
+	 * The buffer holding the record being appended
+	 */
+	private final ByteBuffer _record = ByteBuffer.allocate(RECORD_SIZE);
+
+	/**
+	 * The checksum of the records
+	 */
+	private final CRC32 _checksum = new CRC32();
+
+	/**
+	 * The number of moves of the journal
+	 */
+	private int _moves;
+
+	/**
+	 * The number of writes made to the file
+	 */
+	private long _written;
+
+	/**
+	 * The number of writes made durable
+	 */
+	private long _forced;
+
+	/**
+	 * Indicates if the journal is closed, which ends its thread once the pending writes are forced
+	 */
+	private boolean _isClosed;
+
+	/**
+	 * The error that made the journal stop forcing its writes, or null
+	 */
+	private IOException _exception;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param file The path of the journal
+	 * @param channel The channel of the journal, positioned at its end
+	 * @param position The position after the last move of the journal
+	 * @param moves The number of moves of the journal
+	 */
+	private MoveJournal(Path file, FileChannel channel, Position position, int moves) {
+		_file = file;
+		_channel = channel;
+		_position = position;
+		_moves = moves;
+
+		Thread thread = new Thread(this::commit, "Journal");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Gets the directory of the journals, configured by the {@link #DIRECTORY_PROPERTY} system property
+	 *
+	 * @return The directory, which defaults to the journal directory in the home of the user, or null if the journals are disabled
+	 */
+	public static Path getDirectory() {
+		String directory = System.getProperty(DIRECTORY_PROPERTY);
+		if(directory == null) {
+			return Paths.get(System.getProperty("user.home"), ".chess", "journal");
+		}
+		return directory.isEmpty() ? null : Paths.get(directory);
+	}
+
+	/**
+	 * Creates the journal of a game
+	 *
+	 * @param directory The directory of the journals, which is created if needed
+	 * @param position The position the game starts from
+	 *
+	 * @return The journal
+	 *
+	 * @throws IOException If the journal cannot be created
+	 */
+	public static MoveJournal create(Path directory, Position position) throws IOException {
+		Files.createDirectories(directory);
+		Path file = directory.resolve("game-" + System.currentTimeMillis() + EXTENSION);
+		for(int i = 1; Files.exists(file); ++i) {
+			file = directory.resolve("game-" + System.currentTimeMillis() + "-" + i + EXTENSION);
+		}
+
+		byte[] fen = Fen.toString(position).getBytes(StandardCharsets.UTF_8);
+		ByteBuffer header = ByteBuffer.allocate(10 + fen.length);
+		header.putInt(MAGIC).putInt(VERSION).putShort((short)fen.length).put(fen);
+		header.flip();
+
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		while(header.hasRemaining()) {
+			channel.write(header);
+		}
+		MoveJournal journal = new MoveJournal(file, channel, new Position(position), 0);
+		journal.onWritten();
+		return journal;
+	}
+
+	/**
+	 * Finds the journal of a game that was not finished, which is the most recent one when there are several
+	 *
+	 * @param directory The directory of the journals
+	 *
+	 * @return The path of the journal, or null if every game was finished
+	 */
+	public static Path findInterrupted(Path directory) {
+		if(directory == null || !Files.isDirectory(directory)) {
+			return null;
+		}
+		Path interrupted = null;
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+			for(Path file : files) {
+				if(interrupted == null || Files.getLastModifiedTime(file).compareTo(Files.getLastModifiedTime(interrupted)) > 0) {
+					interrupted = file;
+				}
+			}
+		}
+		catch(IOException exception) {
+			Tracelog.log(Level.SEVERE, true, exception);
+		}
+		return interrupted;
+	}
+
+	/**
+	 * Restores the journal of a game that was not finished, so that its moves can be played again and
+	 * the game continued.  The records that follow the last complete move are removed
+	 *
+	 * @param file The path of the journal
+	 *
+	 * @return The journal, whose position is the one after its last move
+	 *
+	 * @throws IOException If the journal cannot be read or does not start with a valid position
+	 */
+	public static MoveJournal restore(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			ByteBuffer buffer = ByteBuffer.allocate((int)Math.min(channel.size(), Integer.MAX_VALUE));
+			while(buffer.hasRemaining() && channel.read(buffer) >= 0) {
+			}
+			buffer.flip();
+			if(buffer.remaining() < 10 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				throw new IOException(file + " is not a move journal of version " + VERSION);
+			}
+			byte[] fen = new byte[buffer.getShort() & 0xFFFF];
+			if(fen.length > buffer.remaining()) {
+				throw new IOException(file + " is truncated");
+			}
+			buffer.get(fen);
+			Position position;
+			try {
+				position = Fen.parse(new String(fen, StandardCharsets.UTF_8));
+			}
+			catch(IllegalArgumentException exception) {
+				throw new IOException(file + " does not start with a valid position", exception);
+			}
+
+			// The moves are played up to the first record that is incomplete, corrupted or not legal
+			CRC32 checksum = new CRC32();
+			int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+			int moves = 0;
+			while(buffer.remaining() >= RECORD_SIZE && position.getHistoryLength() < Position.MAX_HISTORY - 1) {
+				int move = buffer.getInt();
+				int expected = buffer.getInt();
+				if(expected != getChecksum(checksum, move, moves) || !isLegal(position, move, legalMoves)) {
+					break;
+				}
+				position.makeMove(move);
+				++moves;
+			}
+
+			long end = 10 + fen.length + (long)moves * RECORD_SIZE;
+			if(end < channel.size()) {
+				Tracelog.log(Level.WARNING, true, "Removed " + (channel.size() - end) + " bytes after the last complete move of " + file);
+				channel.truncate(end);
+			}
+			channel.position(end);
+			return new MoveJournal(file, channel, position, moves);
+		}
+		catch(IOException exception) {
+			channel.close();
+			throw exception;
+		}
+	}
+
+	/**
+	 * @return The path of the journal
+	 */
+	public Path getFile() {
+		return _file;
+	}
+
+	/**
+	 * @return The position after the last move of the journal, which must not be modified
+	 */
+	public Position getPosition() {
+		return _position;
+	}
+
+	/**
+	 * @return The number of moves of the journal
+	 */
+	public int getMoveCount() {
+		return _moves;
+	}
+
+	/**
+	 * Indicates if a move can be appended, which is not the case once the game holds as many moves as a position can
+	 *
+	 * @return TRUE if a move can be appended
+	 */
+	public boolean isFull() {
+		return _position.getHistoryLength() >= Position.MAX_HISTORY - 1;
+	}
+
+	/**
+	 * Appends a move, which returns once the move is written and before it is durable
+	 *
+	 * @param move The move, which must be legal in the position of the journal
+	 *
+	 * @throws IOException If the move cannot be written, or if the writes could not be made durable
+	 */
+	public void append(int move) throws IOException {
+		synchronized(this) {
+			if(_exception != null) {
+				throw _exception;
+			}
+		}
+		_record.clear();
+		_record.putInt(move).putInt(getChecksum(_checksum, move, _moves));
+		_record.flip();
+		while(_record.hasRemaining()) {
+			_channel.write(_record);
+		}
+		_position.makeMove(move);
+		++_moves;
+		onWritten();
+	}
+
+	/**
+	 * Waits until every move appended so far is durable
+	 *
+	 * @throws IOException If the writes could not be made durable
+	 * @throws InterruptedException If the calling thread is interrupted while waiting
+	 */
+	public synchronized void sync() throws IOException, InterruptedException {
+		while(_forced < _written && _exception == null) {
+			wait();
+		}
+		if(_exception != null) {
+			throw _exception;
+		}
+	}
+
+	/**
+	 * Closes the journal once the moves appended so far are durable, the game can still be restored from it
+	 *
+	 * @throws IOException If the writes could not be made durable
+	 */
+	@Override public void close() throws IOException {
+		synchronized(this) {
+			_isClosed = true;
+			notifyAll();
+		}
+		try {
+			sync();
+		}
+		catch(InterruptedException exception) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			_channel.close();
+		}
+	}
+
+	/**
+	 * Closes and removes the journal, as the game was finished and does not need to be restored
+	 *
+	 * @throws IOException If the journal cannot be removed
+	 */
+	public void delete() throws IOException {
+		synchronized(this) {
+			_isClosed = true;
+			notifyAll();
+		}
+		_channel.close();
+		Files.deleteIfExists(_file);
+	}
+
+	/**
+	 * Tells the thread of the journal that a write is pending
+	 */
+	private synchronized void onWritten() {
+		++_written;
+		notifyAll();
+	}
+
+	/**
+	 * Forces the pending writes to the disk until the journal is closed.  The writes made while the
+	 * disk is being synchronized are forced together by the next call
+	 */
+	private void commit() {
+		while(true) {
+			long target;
+			synchronized(this) {
+				while(_forced == _written && !_isClosed) {
+					try {
+						wait();
+					}
+					catch(InterruptedException exception) {
+						return;
+					}
+				}
+				if(_forced == _written || !_channel.isOpen()) {
+					return;
+				}
+				target = _written;
+			}
+			try {
+				_channel.force(false);
+				synchronized(this) {
+					_forced = target;
+					notifyAll();
+				}
+			}
+			catch(IOException exception) {
+				synchronized(this) {
+					if(_channel.isOpen()) {
+						Tracelog.log(Level.SEVERE, true, exception);
+						_exception = exception;
+					}
+					notifyAll();
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Computes the checksum of a record
+	 *
+	 * @param checksum The checksum, which is reset
+	 * @param move The move of the record
+	 * @param index The index of the move within the game
+	 *
+	 * @return The checksum
+	 */
+	private static int getChecksum(CRC32 checksum, int move, int index) {
+		checksum.reset();
+		checksum.update(move >>> 24);
+		checksum.update(move >>> 16);
+		checksum.update(move >>> 8);
+		checksum.update(move);
+		checksum.update(index >>> 24);
+		checksum.update(index >>> 16);
+		checksum.update(index >>> 8);
+		checksum.update(index);
+		return (int)checksum.getValue();
+	}
+
+	/**
+	 * Indicates if a move is legal
+	 *
+	 * @param position The position
+	 * @param move The move
+	 * @param legalMoves The buffer receiving the legal moves of the position
+	 *
+	 * @return TRUE if the move is one of the legal moves of the position
+	 */
+	private static boolean isLegal(Position position, int move, int[] legalMoves) {
+		int count = MoveGenerator.generateLegal(position, legalMoves);
+		for(int i = 0; i < count; ++i) {
+			if(legalMoves[i] == move) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
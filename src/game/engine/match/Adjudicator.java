@@ -0,0 +1,104 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.match;
+
+import game.engine.board.MoveGenerator;
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+import game.engine.interfaces.ITablebase;
+import game.engine.match.GameResult.Termination;
+
+/**
+ * The rules that end a game played without the user interface.
+ *
+ * The rules only read the engine position, so a game can be adjudicated by any thread without
+ * the board models or any signal being involved
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class Adjudicator {
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	private Adjudicator() {
+	}
+
+	/**
+	 * Verifies if the game of the specified position has ended
+	 *
+	 * @param position The position, holding the moves played since the last irreversible move
+	 * @param tablebase The endgame tablebases used to end the game early, or null to play until the end
+	 *
+	 * @return The result of the game, or null if the game continues
+	 */
+	public static GameResult adjudicate(Position position, ITablebase tablebase) {
+		int sideToMove = position.getSideToMove();
+		if(!MoveGenerator.hasLegalMove(position)) {
+			return position.isInCheck() ? new GameResult(sideToMove ^ 1, Termination.CHECKMATE) : new GameResult(GameResult.DRAW, Termination.STALEMATE);
+		}
+		if(position.getHalfMoveClock() >= 100) {
+			return new GameResult(GameResult.DRAW, Termination.FIFTY_MOVES);
+		}
+		if(position.getRepetitionCount() >= 2) {
+			return new GameResult(GameResult.DRAW, Termination.REPETITION);
+		}
+		if(isInsufficientMaterial(position)) {
+			return new GameResult(GameResult.DRAW, Termination.INSUFFICIENT_MATERIAL);
+		}
+		if(tablebase != null && position.getCastlingRights() == 0 && Long.bitCount(position.getOccupied()) <= tablebase.getMaxPieces()) {
+			int wdl = tablebase.probeWdl(position);
+			if(wdl == ITablebase.WIN) {
+				return new GameResult(sideToMove, Termination.TABLEBASE);
+			}
+			if(wdl == ITablebase.LOSS) {
+				return new GameResult(sideToMove ^ 1, Termination.TABLEBASE);
+			}
+			if(wdl != ITablebase.UNKNOWN) {
+				return new GameResult(GameResult.DRAW, Termination.TABLEBASE);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Verifies if neither player can checkmate, which is the case when a single knight or bishop remains besides the kings
+	 *
+	 * @param position The position
+	 *
+	 * @return TRUE if the position is a dead draw
+	 */
+	private static boolean isInsufficientMaterial(Position position) {
+		long minors = 0;
+		for(int color = Pieces.WHITE; color <= Pieces.BLACK; ++color) {
+			if((position.getPieces(Pieces.make(color, Pieces.PAWN)) | position.getPieces(Pieces.make(color, Pieces.ROOK)) | position.getPieces(Pieces.make(color, Pieces.QUEEN))) != 0) {
+				return false;
+			}
+			minors |= position.getPieces(Pieces.make(color, Pieces.KNIGHT)) | position.getPieces(Pieces.make(color, Pieces.BISHOP));
+		}
+		return Long.bitCount(minors) <= 1;
+	}
+}
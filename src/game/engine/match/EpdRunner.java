@@ -0,0 +1,445 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.match;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import engine.utils.io.logging.Tracelog;
+import game.engine.board.Fen;
+import game.engine.board.Move;
+import game.engine.board.Position;
+import game.engine.board.San;
+import game.engine.search.Search;
+import game.engine.search.SearchLimits;
+import game.engine.search.SearchResult;
+
+/**
+ * A run of an engine over a suite of test positions without the user interface.
+ *
+ * Each line of the suite is an Extended Position Description record, which is the position in the
+ * Forsyth-Edwards notation without the move counters followed by operations such as
+ * <code>bm Qg6; id "WAC.001";</code>.  A position is solved when the engine ends its search on one of
+ * the best moves given by "bm" and on none of the moves to avoid given by "am".  The positions are
+ * searched in parallel, one per thread, and the time and nodes to the solution are taken from the
+ * first iteration after which the engine kept a correct move until the end of its search
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class EpdRunner {
+
+	/**
+	 * The default time of a position in milliseconds
+	 */
+	public static final long DEFAULT_MOVE_TIME = 1000;
+
+	/**
+	 * A test position of a suite
+	 *
+	 * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+	 *
+	 */
+	public static final class EpdTest {
+
+		/**
+		 * The record of the position as written in the suite
+		 */
+		public final String record;
+
+		/**
+		 * The name of the position, given by the "id" operation or by the line of the record
+		 */
+		public final String id;
+
+		/**
+		 * The moves that solve the position, empty if any move that is not avoided does
+		 */
+		public final int[] bestMoves;
+
+		/**
+		 * The moves that must be avoided
+		 */
+		public final int[] avoidMoves;
+
+		/**
+		 * Constructs a new instance of this class type
+		 *
+		 * @param record The record of the position as written in the suite
+		 * @param id The name of the position
+		 * @param bestMoves The moves that solve the position
+		 * @param avoidMoves The moves that must be avoided
+		 */
+		public EpdTest(String record, String id, int[] bestMoves, int[] avoidMoves) {
+			this.record = record;
+			this.id = id;
+			this.bestMoves = bestMoves;
+			this.avoidMoves = avoidMoves;
+		}
+
+		/**
+		 * Parses a record of a suite
+		 *
+		 * @param record The record
+		 * @param line The line of the record, which names the position when it has no "id" operation
+		 *
+		 * @return The test position
+		 *
+		 * @throws IllegalArgumentException If the position or one of its moves is not valid, or if the record has neither "bm" nor "am"
+		 */
+		public static EpdTest parse(String record, int line) {
+			Position position = new Position();
+			int index = Fen.parse(record, 0, position);
+			String id = "line " + line;
+			List<Integer> bestMoves = new ArrayList<>();
+			List<Integer> avoidMoves = new ArrayList<>();
+			for(String operation : record.substring(index).split(";")) {
+				String[] operands = operation.trim().split("\\s+");
+				switch(operands[0]) {
+				case "id":
+					id = operation.trim().substring(2).trim().replace("\"", "");
+					break;
+				case "bm":
+				case "am":
+					for(int i = 1; i < operands.length; ++i) {
+						int move = San.parse(position, operands[i]);
+						if(move == Move.NONE) {
+							throw new IllegalArgumentException("The move " + operands[i] + " of " + record + " is not legal");
+						}
+						(operands[0].equals("bm") ? bestMoves : avoidMoves).add(move);
+					}
+					break;
+				}
+			}
+			if(bestMoves.isEmpty() && avoidMoves.isEmpty()) {
+				throw new IllegalArgumentException(record + " has no bm or am operation");
+			}
+			return new EpdTest(record, id, bestMoves.stream().mapToInt(Integer::intValue).toArray(), avoidMoves.stream().mapToInt(Integer::intValue).toArray());
+		}
+
+		/**
+		 * Indicates if a move solves the position
+		 *
+		 * @param move The move
+		 *
+		 * @return TRUE if the move is one of the best moves and not one of the moves to avoid
+		 */
+		public boolean isSolvedBy(int move) {
+			for(int avoidMove : avoidMoves) {
+				if(move == avoidMove) {
+					return false;
+				}
+			}
+			for(int bestMove : bestMoves) {
+				if(move == bestMove) {
+					return true;
+				}
+			}
+			return bestMoves.length == 0 && move != Move.NONE;
+		}
+	}
+
+	/**
+	 * The engine being tested
+	 */
+	private final MatchEngine _engine;
+
+	/**
+	 * The positions of the suite
+	 */
+	private final List<EpdTest> _tests;
+
+	/**
+	 * The index of the next position to search
+	 */
+	private final AtomicInteger _nextTest = new AtomicInteger();
+
+	/**
+	 * The number of positions searched at the same time
+	 */
+	private int _threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The time of a position in milliseconds, or zero for no limit
+	 */
+	private long _moveTime = DEFAULT_MOVE_TIME;
+
+	/**
+	 * The number of nodes of a position, or zero for no limit
+	 */
+	private long _moveNodes;
+
+	/**
+	 * The size of the transposition table of each search in megabytes
+	 */
+	private int _tableSize = MatchRunner.DEFAULT_TABLE_SIZE;
+
+	/**
+	 * The number of positions searched and solved
+	 */
+	private int _searched, _solved;
+
+	/**
+	 * The time and nodes to the solution of the solved positions, summed
+	 */
+	private long _solutionTime, _solutionNodes;
+
+	/**
+	 * The time and nodes of every search, summed
+	 */
+	private long _totalTime, _totalNodes;
+
+	/**
+	 * The names of the positions that were not solved
+	 */
+	private final List<String> _failures = new ArrayList<>();
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param engine The engine being tested
+	 * @param tests The positions of the suite
+	 */
+	public EpdRunner(MatchEngine engine, List<EpdTest> tests) {
+		if(tests.isEmpty()) {
+			throw new IllegalArgumentException("A suite needs at least one position");
+		}
+		_engine = engine;
+		_tests = tests;
+	}
+
+	/**
+	 * Loads the positions of the specified suite, using {@link MatchRunner#loadOpenings} to read its
+	 * records.  A record that cannot be read is reported and skipped
+	 *
+	 * @param records The records of the suite
+	 *
+	 * @return The positions of the suite
+	 */
+	public static List<EpdTest> loadTests(List<String> records) {
+		List<EpdTest> tests = new ArrayList<>();
+		for(int i = 0; i < records.size(); ++i) {
+			try {
+				tests.add(EpdTest.parse(records.get(i), i + 1));
+			}
+			catch(IllegalArgumentException exception) {
+				Tracelog.log(Level.WARNING, true, exception.getMessage());
+			}
+		}
+		return tests;
+	}
+
+	/**
+	 * @param threads The number of positions searched at the same time
+	 */
+	public void setThreads(int threads) {
+		_threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Sets the limits of each position, the search stops at the first one reached
+	 *
+	 * @param moveTime The time of a position in milliseconds, or zero for no limit
+	 * @param moveNodes The number of nodes of a position, or zero for no limit
+	 */
+	public void setMoveLimits(long moveTime, long moveNodes) {
+		_moveTime = moveTime;
+		_moveNodes = moveNodes;
+	}
+
+	/**
+	 * @param tableSize The size of the transposition table of each search in megabytes
+	 */
+	public void setTableSize(int tableSize) {
+		_tableSize = tableSize;
+	}
+
+	/**
+	 * @return The number of positions solved
+	 */
+	public synchronized int getSolved() {
+		return _solved;
+	}
+
+	/**
+	 * Searches every position of the suite and waits for the end
+	 *
+	 * @return The number of positions solved
+	 *
+	 * @throws InterruptedException If the calling thread is interrupted while waiting
+	 */
+	public int run() throws InterruptedException {
+		long startTime = System.currentTimeMillis();
+		System.out.println(_engine + ", " + _tests.size() + " positions on " + _threads + " threads, " + (_moveTime == 0 ? "" : _moveTime + "ms ") + (_moveNodes == 0 ? "" : _moveNodes + " nodes ") + "per position");
+
+		Thread[] threads = new Thread[Math.min(_threads, _tests.size())];
+		for(int i = 0; i < threads.length; ++i) {
+			threads[i] = new Thread(this::searchTests, "Epd-" + i);
+			threads[i].start();
+		}
+		for(Thread thread : threads) {
+			thread.join();
+		}
+
+		synchronized(this) {
+			System.out.println(String.format("Solved %d of %d (%.1f%%) in %.1fs", _solved, _searched, _solved * 100.0 / Math.max(1, _searched), (System.currentTimeMillis() - startTime) / 1000.0));
+			System.out.println(String.format("Time to solution %dms, nodes to solution %d, total nodes %d at %d nodes/s", _solutionTime, _solutionNodes, _totalNodes, _totalNodes * 1000 / Math.max(1, _totalTime)));
+			if(!_failures.isEmpty()) {
+				System.out.println("Not solved: " + String.join(", ", _failures));
+			}
+			return _solved;
+		}
+	}
+
+	/**
+	 * Searches positions until every position is taken
+	 */
+	private void searchTests() {
+		Search search = _engine.createSearch(_tableSize);
+		Position position = new Position();
+		int test;
+		while((test = _nextTest.getAndIncrement()) < _tests.size()) {
+			EpdTest epdTest = _tests.get(test);
+			try {
+				Fen.parse(epdTest.record, 0, position);
+				search.clear();
+
+				// The solution is the first iteration from which every iteration ended on a correct move
+				long[] solution = { -1, -1 };
+				search.setProgressListener((current, lines) -> {
+					if(!epdTest.isSolvedBy(lines[0].getBestMove())) {
+						solution[0] = -1;
+					}
+					else if(solution[0] == -1) {
+						solution[0] = current.getElapsedTime();
+						solution[1] = current.getStatistics().nodes;
+					}
+				});
+				SearchResult result = search.search(position, new SearchLimits(Search.MAX_PLY - 1, _moveNodes, _moveTime));
+				int move = result == null ? Move.NONE : result.getBestMove();
+				boolean isSolved = epdTest.isSolvedBy(move);
+				if(isSolved && solution[0] == -1) {
+					solution[0] = search.getElapsedTime();
+					solution[1] = search.getStatistics().nodes;
+				}
+				onTestCompleted(epdTest, result, move == Move.NONE ? "none" : San.toString(position, move), isSolved, solution, search.getElapsedTime(), search.getStatistics().nodes);
+			}
+			catch(Exception exception) {
+				Tracelog.log(Level.SEVERE, true, exception);
+			}
+		}
+	}
+
+	/**
+	 * Records the outcome of a position
+	 *
+	 * @param test The position
+	 * @param result The result of the search, or null if it returned none
+	 * @param move The notation of the move the search ended on
+	 * @param isSolved If the search ended on a correct move
+	 * @param solution The time and nodes to the solution
+	 * @param time The time of the search in milliseconds
+	 * @param nodes The nodes of the search
+	 */
+	private synchronized void onTestCompleted(EpdTest test, SearchResult result, String move, boolean isSolved, long[] solution, long time, long nodes) {
+		++_searched;
+		_totalTime += time;
+		_totalNodes += nodes;
+		if(isSolved) {
+			++_solved;
+			_solutionTime += solution[0];
+			_solutionNodes += solution[1];
+		}
+		else {
+			_failures.add(test.id);
+		}
+
+		System.out.println(String.format("%s: %s %s at depth %d", test.id, isSolved ? "solved" : "failed", move, result == null ? 0 : result.depth)
+			+ (isSolved ? String.format(" in %dms and %d nodes", solution[0], solution[1]) : "") + String.format(" (%d/%d)", _solved, _searched));
+	}
+
+	/**
+	 * Runs a suite from the command line
+	 *
+	 * @param args The arguments of the run, see the usage
+	 *
+	 * @throws IOException If the suite cannot be read
+	 * @throws InterruptedException If the run is interrupted
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String suite = null;
+		String engine = "default";
+		int threads = Runtime.getRuntime().availableProcessors();
+		long moveTime = -1;
+		long moveNodes = 0;
+		int tableSize = MatchRunner.DEFAULT_TABLE_SIZE;
+		for(int i = 0; i < args.length; ++i) {
+			switch(args[i]) {
+			case "-suite":
+				suite = args[++i];
+				break;
+			case "-engine":
+				engine = args[++i];
+				break;
+			case "-threads":
+				threads = Integer.parseInt(args[++i]);
+				break;
+			case "-movetime":
+				moveTime = Long.parseLong(args[++i]);
+				break;
+			case "-nodes":
+				moveNodes = Long.parseLong(args[++i]);
+				break;
+			case "-hash":
+				tableSize = Integer.parseInt(args[++i]);
+				break;
+			default:
+				suite = null;
+				i = args.length;
+				break;
+			}
+		}
+		if(suite == null) {
+			System.out.println("Usage: EpdRunner -suite <file> [-engine <options>] [-threads <count>] [-movetime <ms>] [-nodes <count>] [-hash <mb>]");
+			System.out.println("Engine options are separated by commas: default, nnue, -<selective technique>");
+			return;
+		}
+
+		// A node limit on its own makes the run independent of the speed of the machine
+		if(moveTime < 0) {
+			moveTime = moveNodes > 0 ? 0 : DEFAULT_MOVE_TIME;
+		}
+
+		EpdRunner runner = new EpdRunner(MatchEngine.parse(engine), loadTests(MatchRunner.loadOpenings(Paths.get(suite))));
+		runner.setThreads(threads);
+		runner.setMoveLimits(moveTime, moveNodes);
+		runner.setTableSize(tableSize);
+		runner.run();
+	}
+}
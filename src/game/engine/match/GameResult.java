@@ -0,0 +1,110 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.match;
+
+import game.engine.board.Pieces;
+
+/**
+ * The result of a finished game along with the reason it ended
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class GameResult {
+
+	/**
+	 * The reasons a game can end
+	 *
+	 * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+	 *
+	 */
+	public enum Termination {
+		/**
+		 * The player to move is checkmated
+		 */
+		CHECKMATE,
+		/**
+		 * The player to move has no legal move and is not in check
+		 */
+		STALEMATE,
+		/**
+		 * The same position occurred three times
+		 */
+		REPETITION,
+		/**
+		 * Fifty moves were played by each player without a capture or a pawn move
+		 */
+		FIFTY_MOVES,
+		/**
+		 * Neither player has the material to checkmate
+		 */
+		INSUFFICIENT_MATERIAL,
+		/**
+		 * The endgame tablebases hold the result of the position
+		 */
+		TABLEBASE,
+		/**
+		 * The game reached the maximum number of moves allowed
+		 */
+		MOVE_LIMIT
+	}
+
+	/**
+	 * The winner of a drawn game
+	 */
+	public static final int DRAW = -1;
+
+	/**
+	 * The color of the winner, or {@link #DRAW}
+	 */
+	public final int winner;
+
+	/**
+	 * The reason the game ended
+	 */
+	public final Termination termination;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param winner The color of the winner, or {@link #DRAW}
+	 * @param termination The reason the game ended
+	 */
+	public GameResult(int winner, Termination termination) {
+		this.winner = winner;
+		this.termination = termination;
+	}
+
+	/**
+	 * @return The result in the notation of a game record, such as "1-0"
+	 */
+	public String getNotation() {
+		return winner == Pieces.WHITE ? "1-0" : winner == Pieces.BLACK ? "0-1" : "1/2-1/2";
+	}
+
+	@Override public String toString() {
+		return getNotation() + " (" + termination + ")";
+	}
+}
@@ -0,0 +1,139 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.match;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+import game.engine.evaluation.NeuralNetwork;
+import game.engine.evaluation.NeuralNetworkEvaluator;
+import game.engine.search.Search;
+import game.engine.search.SearchSettings;
+import game.engine.search.SearchSettings.SelectiveTechnique;
+import game.engine.search.TranspositionTable;
+
+/**
+ * The configuration of an engine playing in a match.
+ *
+ * An engine is described by a list of options separated by commas.  The option "nnue" evaluates with
+ * the neural network of the {@link NeuralNetwork#PATH_PROPERTY} property, and an option made of a minus
+ * sign followed by the name of a {@link SelectiveTechnique} disables that technique, such as
+ * "nnue,-razoring".  The option "default" stands for the engine as it is
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class MatchEngine {
+
+	/**
+	 * The description of the engine
+	 */
+	private final String _name;
+
+	/**
+	 * Indicates if the engine evaluates with the neural network
+	 */
+	private final boolean _isNeuralNetwork;
+
+	/**
+	 * The selective search techniques disabled for this engine
+	 */
+	private final Set<SelectiveTechnique> _disabledTechniques;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param name The description of the engine
+	 * @param isNeuralNetwork If the engine evaluates with the neural network
+	 * @param disabledTechniques The selective search techniques disabled for this engine
+	 */
+	private MatchEngine(String name, boolean isNeuralNetwork, Set<SelectiveTechnique> disabledTechniques) {
+		_name = name;
+		_isNeuralNetwork = isNeuralNetwork;
+		_disabledTechniques = disabledTechniques;
+	}
+
+	/**
+	 * Creates the engine of the specified description
+	 *
+	 * @param description The options of the engine separated by commas
+	 *
+	 * @return The engine
+	 *
+	 * @throws IllegalArgumentException If an option is not known or the neural network cannot be loaded
+	 */
+	public static MatchEngine parse(String description) {
+		boolean isNeuralNetwork = false;
+		Set<SelectiveTechnique> disabledTechniques = EnumSet.noneOf(SelectiveTechnique.class);
+		for(String option : description.split(",")) {
+			option = option.trim();
+			if(option.isEmpty() || option.equalsIgnoreCase("default")) {
+				continue;
+			}
+			if(option.equalsIgnoreCase("nnue")) {
+				if(NeuralNetwork.instance() == null) {
+					throw new IllegalArgumentException("The engine " + description + " needs the " + NeuralNetwork.PATH_PROPERTY + " property to be set to a weights file");
+				}
+				isNeuralNetwork = true;
+			}
+			else if(option.startsWith("-")) {
+				try {
+					disabledTechniques.add(SelectiveTechnique.valueOf(option.substring(1).toUpperCase(Locale.ROOT).replace('-', '_')));
+				}
+				catch(IllegalArgumentException exception) {
+					throw new IllegalArgumentException("Unknown selective technique " + option.substring(1), exception);
+				}
+			}
+			else {
+				throw new IllegalArgumentException("Unknown engine option " + option);
+			}
+		}
+		return new MatchEngine(description, isNeuralNetwork, disabledTechniques);
+	}
+
+	/**
+	 * Creates a search configured for this engine, each thread playing the engine needs its own
+	 *
+	 * @param tableSize The size of the transposition table in megabytes
+	 *
+	 * @return The search
+	 */
+	public Search createSearch(int tableSize) {
+		SearchSettings settings = new SearchSettings();
+		for(SelectiveTechnique technique : _disabledTechniques) {
+			settings.setEnabled(technique, false);
+		}
+		Search search = new Search(new TranspositionTable(tableSize), settings);
+		if(_isNeuralNetwork) {
+			search.setEvaluator(new NeuralNetworkEvaluator(NeuralNetwork.instance()));
+		}
+		return search;
+	}
+
+	@Override public String toString() {
+		return _name;
+	}
+}
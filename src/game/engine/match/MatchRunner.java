@@ -0,0 +1,444 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.match;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import engine.utils.io.logging.Tracelog;
+import game.engine.board.Fen;
+import game.engine.board.Move;
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+import game.engine.interfaces.ITablebase;
+import game.engine.match.Sprt.Decision;
+import game.engine.search.Search;
+import game.engine.search.SearchLimits;
+import game.engine.search.SearchResult;
+import game.engine.tablebase.Tablebases;
+
+/**
+ * A match between two engines played without the user interface.
+ *
+ * The games are played in parallel, one per thread, from the positions of an opening file.  Each
+ * opening is played twice with the colors reversed so that an unbalanced opening favors neither
+ * engine.  Every thread owns the searches of both engines, and the games are ended by the rules of
+ * the {@link Adjudicator}.  When a {@link Sprt} is given the match stops as soon as it is decided
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class MatchRunner {
+
+	/**
+	 * The default number of games of a match
+	 */
+	public static final int DEFAULT_GAMES = 1000;
+
+	/**
+	 * The default time of a move in milliseconds
+	 */
+	public static final long DEFAULT_MOVE_TIME = 100;
+
+	/**
+	 * The default size of the transposition table of each search in megabytes
+	 */
+	public static final int DEFAULT_TABLE_SIZE = 16;
+
+	/**
+	 * The default number of half moves after which a game is drawn
+	 */
+	public static final int DEFAULT_MAX_PLIES = 600;
+
+	/**
+	 * The engine being tested
+	 */
+	private final MatchEngine _first;
+
+	/**
+	 * The engine being tested against
+	 */
+	private final MatchEngine _second;
+
+	/**
+	 * The notation of each opening position
+	 */
+	private final List<String> _openings;
+
+	/**
+	 * The endgame tablebases used to end the games early, or null
+	 */
+	private final ITablebase _tablebase = Tablebases.getDefault();
+
+	/**
+	 * The index of the next game to play
+	 */
+	private final AtomicInteger _nextGame = new AtomicInteger();
+
+	/**
+	 * The number of games to play
+	 */
+	private int _games = DEFAULT_GAMES;
+
+	/**
+	 * The number of games played at the same time
+	 */
+	private int _threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The time of a move in milliseconds, or zero for no limit
+	 */
+	private long _moveTime = DEFAULT_MOVE_TIME;
+
+	/**
+	 * The number of nodes of a move, or zero for no limit
+	 */
+	private long _moveNodes;
+
+	/**
+	 * The size of the transposition table of each search in megabytes
+	 */
+	private int _tableSize = DEFAULT_TABLE_SIZE;
+
+	/**
+	 * The number of half moves after which a game is drawn
+	 */
+	private int _maxPlies = DEFAULT_MAX_PLIES;
+
+	/**
+	 * The test that stops the match early, or null to play every game
+	 */
+	private Sprt _sprt;
+
+	/**
+	 * The number of games won, drawn and lost by the first engine
+	 */
+	private long _wins, _draws, _losses;
+
+	/**
+	 * The decision of the test, once the match is decided
+	 */
+	private volatile Decision _decision = Decision.CONTINUE;
+
+	/**
+	 * The time at which the match started
+	 */
+	private long _startTime;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param first The engine being tested
+	 * @param second The engine being tested against
+	 * @param openings The notation of each opening position
+	 */
+	public MatchRunner(MatchEngine first, MatchEngine second, List<String> openings) {
+		if(openings.isEmpty()) {
+			throw new IllegalArgumentException("A match needs at least one opening");
+		}
+		_first = first;
+		_second = second;
+		_openings = openings;
+	}
+
+	/**
+	 * Loads the openings of the specified file, one FEN or EPD record per line.  Empty lines and
+	 * lines starting with # are ignored
+	 *
+	 * @param file The path of the file
+	 *
+	 * @return The notation of each opening position
+	 *
+	 * @throws IOException If the file cannot be read
+	 */
+	public static List<String> loadOpenings(Path file) throws IOException {
+		List<String> openings = new ArrayList<>();
+		for(String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+			line = line.trim();
+			if(!line.isEmpty() && !line.startsWith("#")) {
+				openings.add(line);
+			}
+		}
+		return openings;
+	}
+
+	/**
+	 * @param games The number of games to play
+	 */
+	public void setGames(int games) {
+		_games = games;
+	}
+
+	/**
+	 * @param threads The number of games played at the same time
+	 */
+	public void setThreads(int threads) {
+		_threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Sets the limits of each move, the search stops at the first one reached
+	 *
+	 * @param moveTime The time of a move in milliseconds, or zero for no limit
+	 * @param moveNodes The number of nodes of a move, or zero for no limit
+	 */
+	public void setMoveLimits(long moveTime, long moveNodes) {
+		_moveTime = moveTime;
+		_moveNodes = moveNodes;
+	}
+
+	/**
+	 * @param tableSize The size of the transposition table of each search in megabytes
+	 */
+	public void setTableSize(int tableSize) {
+		_tableSize = tableSize;
+	}
+
+	/**
+	 * @param maxPlies The number of half moves after which a game is drawn
+	 */
+	public void setMaxPlies(int maxPlies) {
+		_maxPlies = maxPlies;
+	}
+
+	/**
+	 * @param sprt The test that stops the match early, or null to play every game
+	 */
+	public void setSprt(Sprt sprt) {
+		_sprt = sprt;
+	}
+
+	/**
+	 * @return The score of the first engine so far
+	 */
+	public synchronized MatchScore getScore() {
+		return new MatchScore(_wins, _draws, _losses);
+	}
+
+	/**
+	 * @return The decision of the test, or {@link Decision#CONTINUE} if the match was not decided by a test
+	 */
+	public Decision getDecision() {
+		return _decision;
+	}
+
+	/**
+	 * Plays the match and waits for its end
+	 *
+	 * @return The score of the first engine
+	 *
+	 * @throws InterruptedException If the calling thread is interrupted while waiting
+	 */
+	public MatchScore run() throws InterruptedException {
+		_startTime = System.currentTimeMillis();
+		System.out.println(_first + " vs " + _second + ", " + _games + " games on " + _threads + " threads" + (_sprt == null ? "" : ", " + _sprt));
+
+		Thread[] threads = new Thread[Math.min(_threads, _games)];
+		for(int i = 0; i < threads.length; ++i) {
+			threads[i] = new Thread(this::playGames, "Match-" + i);
+			threads[i].start();
+		}
+		for(Thread thread : threads) {
+			thread.join();
+		}
+
+		MatchScore score = getScore();
+		System.out.println("Finished " + score.getGames() + " games in " + (System.currentTimeMillis() - _startTime) / 1000 + "s: " + score
+			+ (_decision == Decision.CONTINUE ? "" : ", " + _decision));
+		return score;
+	}
+
+	/**
+	 * Plays games until every game is taken or the match is decided
+	 */
+	private void playGames() {
+		Search first = _first.createSearch(_tableSize);
+		Search second = _second.createSearch(_tableSize);
+		Position position = new Position();
+		int game;
+		while(_decision == Decision.CONTINUE && (game = _nextGame.getAndIncrement()) < _games) {
+			// Each opening is played by both engines with each color, one after the other
+			String opening = _openings.get((game / 2) % _openings.size());
+			boolean isFirstWhite = (game & 1) == 0;
+			try {
+				Fen.parse(opening, 0, position);
+				first.clear();
+				second.clear();
+				GameResult result = playGame(position, isFirstWhite ? first : second, isFirstWhite ? second : first);
+				onGameCompleted(game, isFirstWhite, result);
+			}
+			catch(Exception exception) {
+				Tracelog.log(Level.SEVERE, true, exception);
+			}
+		}
+	}
+
+	/**
+	 * Plays a game until it ends
+	 *
+	 * @param position The opening position, which is played on
+	 * @param white The search of the engine playing white
+	 * @param black The search of the engine playing black
+	 *
+	 * @return The result of the game
+	 */
+	private GameResult playGame(Position position, Search white, Search black) {
+		for(int ply = 0; ply < _maxPlies; ++ply) {
+			GameResult result = Adjudicator.adjudicate(position, _tablebase);
+			if(result != null) {
+				return result;
+			}
+			Search search = position.getSideToMove() == Pieces.WHITE ? white : black;
+			SearchResult searchResult = search.search(position, new SearchLimits(Search.MAX_PLY - 1, _moveNodes, _moveTime));
+			if(searchResult == null || searchResult.getBestMove() == Move.NONE) {
+				throw new IllegalStateException("The engine did not return a move for " + Fen.toString(position));
+			}
+			position.makeMove(searchResult.getBestMove());
+		}
+		return new GameResult(GameResult.DRAW, GameResult.Termination.MOVE_LIMIT);
+	}
+
+	/**
+	 * Records the result of a game and tests if the match is decided
+	 *
+	 * @param game The index of the game
+	 * @param isFirstWhite If the first engine played white
+	 * @param result The result of the game
+	 */
+	private synchronized void onGameCompleted(int game, boolean isFirstWhite, GameResult result) {
+		if(result.winner == GameResult.DRAW) {
+			++_draws;
+		}
+		else if((result.winner == Pieces.WHITE) == isFirstWhite) {
+			++_wins;
+		}
+		else {
+			++_losses;
+		}
+
+		MatchScore score = getScore();
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format("Game %d (%s vs %s): %s, %s", game + 1, isFirstWhite ? _first : _second, isFirstWhite ? _second : _first, result, score));
+		if(_sprt != null) {
+			builder.append(String.format(", LLR %.2f [%.2f, %.2f]", _sprt.getLogLikelihoodRatio(score), _sprt.getLowerBound(), _sprt.getUpperBound()));
+			if(_decision == Decision.CONTINUE) {
+				_decision = _sprt.test(score);
+			}
+		}
+		System.out.println(builder.toString());
+	}
+
+	/**
+	 * Runs a match from the command line
+	 *
+	 * @param args The arguments of the match, see the usage
+	 *
+	 * @throws Exception If the match cannot be played
+	 */
+	public static void main(String[] args) throws Exception {
+		String openings = null;
+		String first = "default";
+		String second = "default";
+		int games = DEFAULT_GAMES;
+		int threads = Runtime.getRuntime().availableProcessors();
+		long moveTime = DEFAULT_MOVE_TIME;
+		long moveNodes = 0;
+		int tableSize = DEFAULT_TABLE_SIZE;
+		int maxPlies = DEFAULT_MAX_PLIES;
+		Sprt sprt = null;
+		double alpha = 0.05;
+		double beta = 0.05;
+		double[] hypotheses = null;
+		for(int i = 0; i < args.length; ++i) {
+			switch(args[i]) {
+			case "-openings":
+				openings = args[++i];
+				break;
+			case "-engine1":
+				first = args[++i];
+				break;
+			case "-engine2":
+				second = args[++i];
+				break;
+			case "-games":
+				games = Integer.parseInt(args[++i]);
+				break;
+			case "-threads":
+				threads = Integer.parseInt(args[++i]);
+				break;
+			case "-movetime":
+				moveTime = Long.parseLong(args[++i]);
+				break;
+			case "-nodes":
+				moveNodes = Long.parseLong(args[++i]);
+				break;
+			case "-hash":
+				tableSize = Integer.parseInt(args[++i]);
+				break;
+			case "-maxplies":
+				maxPlies = Integer.parseInt(args[++i]);
+				break;
+			case "-sprt":
+				hypotheses = new double[] { Double.parseDouble(args[++i]), Double.parseDouble(args[++i]) };
+				break;
+			case "-alpha":
+				alpha = Double.parseDouble(args[++i]);
+				break;
+			case "-beta":
+				beta = Double.parseDouble(args[++i]);
+				break;
+			default:
+				openings = null;
+				i = args.length;
+				break;
+			}
+		}
+		if(openings == null) {
+			System.out.println("Usage: MatchRunner -openings <file> [-engine1 <options>] [-engine2 <options>] [-games <count>] [-threads <count>]");
+			System.out.println("                   [-movetime <ms>] [-nodes <count>] [-hash <mb>] [-maxplies <count>] [-sprt <elo0> <elo1> [-alpha <a>] [-beta <b>]]");
+			System.out.println("Engine options are separated by commas: default, nnue, -<selective technique>");
+			return;
+		}
+		if(hypotheses != null) {
+			sprt = new Sprt(hypotheses[0], hypotheses[1], alpha, beta);
+		}
+
+		MatchRunner runner = new MatchRunner(MatchEngine.parse(first), MatchEngine.parse(second), loadOpenings(Paths.get(openings)));
+		runner.setGames(games);
+		runner.setThreads(threads);
+		runner.setMoveLimits(moveTime, moveNodes);
+		runner.setTableSize(tableSize);
+		runner.setMaxPlies(maxPlies);
+		runner.setSprt(sprt);
+		runner.run();
+	}
+}
@@ -0,0 +1,179 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.match;
+
+/**
+ * The score of the first engine of a match against the second, and the difference in strength that it
+ * implies.
+ *
+ * The games are treated as independent trials of a win, draw or loss, and the strength is measured on
+ * the logistic Elo scale
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class MatchScore {
+
+	/**
+	 * The normal quantile of a 95% confidence interval
+	 */
+	private static final double CONFIDENCE_QUANTILE = 1.959964;
+
+	/**
+	 * The number of games won by the first engine
+	 */
+	private final long _wins;
+
+	/**
+	 * The number of drawn games
+	 */
+	private final long _draws;
+
+	/**
+	 * The number of games lost by the first engine
+	 */
+	private final long _losses;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param wins The number of games won by the first engine
+	 * @param draws The number of drawn games
+	 * @param losses The number of games lost by the first engine
+	 */
+	public MatchScore(long wins, long draws, long losses) {
+		_wins = wins;
+		_draws = draws;
+		_losses = losses;
+	}
+
+	/**
+	 * @return The number of games won by the first engine
+	 */
+	public long getWins() {
+		return _wins;
+	}
+
+	/**
+	 * @return The number of drawn games
+	 */
+	public long getDraws() {
+		return _draws;
+	}
+
+	/**
+	 * @return The number of games lost by the first engine
+	 */
+	public long getLosses() {
+		return _losses;
+	}
+
+	/**
+	 * @return The number of games played
+	 */
+	public long getGames() {
+		return _wins + _draws + _losses;
+	}
+
+	/**
+	 * @return The average points per game of the first engine, between zero and one
+	 */
+	public double getScore() {
+		long games = getGames();
+		return games == 0 ? 0.5 : (_wins + _draws * 0.5) / games;
+	}
+
+	/**
+	 * @return The variance of the points of a single game of the first engine
+	 */
+	public double getVariance() {
+		long games = getGames();
+		if(games == 0) {
+			return 0;
+		}
+		double score = getScore();
+		return (_wins * (1 - score) * (1 - score) + _draws * (0.5 - score) * (0.5 - score) + _losses * score * score) / games;
+	}
+
+	/**
+	 * @return The difference in Elo between the first engine and the second
+	 */
+	public double getElo() {
+		return toElo(getScore());
+	}
+
+	/**
+	 * @return The half width of the 95% confidence interval of the difference in Elo
+	 */
+	public double getEloError() {
+		long games = getGames();
+		if(games == 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		// The margin of the score is carried to the Elo scale by the slope of the conversion at the score
+		double score = getScore();
+		double margin = CONFIDENCE_QUANTILE * Math.sqrt(getVariance() / games);
+		return margin * 400 / (Math.log(10) * score * (1 - score));
+	}
+
+	/**
+	 * Converts an expected score to a difference in Elo
+	 *
+	 * @param score The expected score, between zero and one
+	 *
+	 * @return The difference in Elo, infinite when the score is zero or one
+	 */
+	public static double toElo(double score) {
+		if(score <= 0) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		if(score >= 1) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return 400 * Math.log10(score / (1 - score));
+	}
+
+	/**
+	 * Converts a difference in Elo to an expected score
+	 *
+	 * @param elo The difference in Elo
+	 *
+	 * @return The expected score, between zero and one
+	 */
+	public static double toScore(double elo) {
+		return 1 / (1 + Math.pow(10, -elo / 400));
+	}
+
+	@Override public String toString() {
+		String text = String.format("+%d =%d -%d", _wins, _draws, _losses);
+
+		// The difference in Elo is infinite as long as one of the engines has scored every point
+		double score = getScore();
+		if(getGames() == 0 || score <= 0 || score >= 1) {
+			return text;
+		}
+		return text + String.format(", Elo %.1f +/- %.1f", getElo(), getEloError());
+	}
+}
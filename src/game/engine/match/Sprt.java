@@ -0,0 +1,159 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.match;
+
+/**
+ * A sequential probability ratio test deciding between two hypotheses on the strength of an engine.
+ *
+ * After each game the log-likelihood ratio of the hypothesis that the engine is stronger by
+ * {@link #getElo1()} over the hypothesis that it is stronger by {@link #getElo0()} is computed with a
+ * normal approximation of the score.  The match stops as soon as the ratio leaves the bounds given by
+ * the accepted error rates, which on average needs far fewer games than a match of a fixed length
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class Sprt {
+
+	/**
+	 * The decisions of the test
+	 *
+	 * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+	 *
+	 */
+	public enum Decision {
+		/**
+		 * More games are needed
+		 */
+		CONTINUE,
+		/**
+		 * The engine is not stronger by the tested margin
+		 */
+		ACCEPT_H0,
+		/**
+		 * The engine is stronger by the tested margin
+		 */
+		ACCEPT_H1
+	}
+
+	/**
+	 * The difference in Elo of the null hypothesis
+	 */
+	private final double _elo0;
+
+	/**
+	 * The difference in Elo of the alternative hypothesis
+	 */
+	private final double _elo1;
+
+	/**
+	 * The log-likelihood ratio below which the null hypothesis is accepted
+	 */
+	private final double _lowerBound;
+
+	/**
+	 * The log-likelihood ratio above which the alternative hypothesis is accepted
+	 */
+	private final double _upperBound;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param elo0 The difference in Elo of the null hypothesis
+	 * @param elo1 The difference in Elo of the alternative hypothesis
+	 * @param alpha The probability of accepting the alternative hypothesis when the null hypothesis is true
+	 * @param beta The probability of accepting the null hypothesis when the alternative hypothesis is true
+	 */
+	public Sprt(double elo0, double elo1, double alpha, double beta) {
+		if(elo1 <= elo0) {
+			throw new IllegalArgumentException("The alternative hypothesis must be above the null hypothesis");
+		}
+		_elo0 = elo0;
+		_elo1 = elo1;
+		_lowerBound = Math.log(beta / (1 - alpha));
+		_upperBound = Math.log((1 - beta) / alpha);
+	}
+
+	/**
+	 * @return The difference in Elo of the null hypothesis
+	 */
+	public double getElo0() {
+		return _elo0;
+	}
+
+	/**
+	 * @return The difference in Elo of the alternative hypothesis
+	 */
+	public double getElo1() {
+		return _elo1;
+	}
+
+	/**
+	 * @return The log-likelihood ratio below which the null hypothesis is accepted
+	 */
+	public double getLowerBound() {
+		return _lowerBound;
+	}
+
+	/**
+	 * @return The log-likelihood ratio above which the alternative hypothesis is accepted
+	 */
+	public double getUpperBound() {
+		return _upperBound;
+	}
+
+	/**
+	 * Computes the log-likelihood ratio of the alternative hypothesis over the null hypothesis
+	 *
+	 * @param score The score of the match
+	 *
+	 * @return The log-likelihood ratio, zero until the games have some variance
+	 */
+	public double getLogLikelihoodRatio(MatchScore score) {
+		double variance = score.getVariance();
+		if(variance <= 0) {
+			return 0;
+		}
+		double score0 = MatchScore.toScore(_elo0);
+		double score1 = MatchScore.toScore(_elo1);
+		return score.getGames() * (score1 - score0) * (2 * score.getScore() - score0 - score1) / (2 * variance);
+	}
+
+	/**
+	 * Decides if the match can stop
+	 *
+	 * @param score The score of the match
+	 *
+	 * @return The decision of the test
+	 */
+	public Decision test(MatchScore score) {
+		double ratio = getLogLikelihoodRatio(score);
+		return ratio <= _lowerBound ? Decision.ACCEPT_H0 : ratio >= _upperBound ? Decision.ACCEPT_H1 : Decision.CONTINUE;
+	}
+
+	@Override public String toString() {
+		return String.format("SPRT elo0=%.1f elo1=%.1f bounds [%.2f, %.2f]", _elo0, _elo1, _lowerBound, _upperBound);
+	}
+}
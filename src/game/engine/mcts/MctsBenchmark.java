@@ -0,0 +1,148 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.mcts;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import game.engine.board.Fen;
+import game.engine.board.Move;
+import game.engine.board.Position;
+import game.engine.match.MatchRunner;
+import game.engine.search.Search;
+import game.engine.search.SearchLimits;
+import game.engine.search.SearchResult;
+import game.engine.search.SearchSettings;
+import game.engine.search.TranspositionTable;
+
+/**
+ * Measures how the {@link MctsSearch} scales with its number of threads.
+ *
+ * Every position is first searched by the alpha-beta {@link Search}, whose speed and best move are
+ * the reference, and then by the tree search with each number of threads for the same time.  The
+ * playouts per second, the speedup over the smallest number of threads and the share of positions
+ * where both engines agree on the best move are printed for each number of threads
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class MctsBenchmark {
+
+	/**
+	 * The default numbers of threads measured
+	 */
+	public static final String DEFAULT_THREADS = "4,8,16,32,64";
+
+	/**
+	 * The default time of a search in milliseconds
+	 */
+	public static final long DEFAULT_MOVE_TIME = 1000;
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	private MctsBenchmark() {
+	}
+
+	/**
+	 * Runs the benchmark from the command line
+	 *
+	 * @param args The arguments of the benchmark, see the usage
+	 *
+	 * @throws Exception If the positions cannot be read
+	 */
+	public static void main(String[] args) throws Exception {
+		String file = null;
+		String threadCounts = DEFAULT_THREADS;
+		long moveTime = DEFAULT_MOVE_TIME;
+		for(int i = 0; i < args.length; ++i) {
+			switch(args[i]) {
+			case "-positions":
+				file = args[++i];
+				break;
+			case "-threads":
+				threadCounts = args[++i];
+				break;
+			case "-movetime":
+				moveTime = Long.parseLong(args[++i]);
+				break;
+			default:
+				file = null;
+				i = args.length;
+				break;
+			}
+		}
+		if(file == null) {
+			System.out.println("Usage: MctsBenchmark -positions <file> [-threads <count,count,...>] [-movetime <ms>]");
+			return;
+		}
+
+		List<Position> positions = new ArrayList<>();
+		for(String line : MatchRunner.loadOpenings(Paths.get(file))) {
+			Position position = new Position();
+			Fen.parse(line, 0, position);
+			positions.add(position);
+		}
+
+		// The alpha-beta search is the reference for the speed and the best move of each position
+		Search search = new Search(new TranspositionTable(MatchRunner.DEFAULT_TABLE_SIZE), new SearchSettings());
+		int[] referenceMoves = new int[positions.size()];
+		long nodes = 0;
+		long time = 0;
+		for(int i = 0; i < positions.size(); ++i) {
+			search.clear();
+			SearchResult result = search.search(positions.get(i), new SearchLimits(Search.MAX_PLY - 1, 0, moveTime));
+			referenceMoves[i] = result == null ? Move.NONE : result.getBestMove();
+			nodes += search.getStatistics().nodes;
+			time += search.getElapsedTime();
+		}
+		System.out.println(String.format("Alpha-beta, 1 thread: %d nodes/s on %d positions", nodes * 1000 / Math.max(1, time), positions.size()));
+		System.out.println("Threads\tPlayouts/s\tSpeedup\tDepth\tAgreement");
+
+		double baseline = 0;
+		for(String count : threadCounts.split(",")) {
+			MctsSearch mcts = new MctsSearch(Integer.parseInt(count.trim()));
+			long playouts = 0;
+			long elapsed = 0;
+			long depth = 0;
+			int agreements = 0;
+			for(int i = 0; i < positions.size(); ++i) {
+				SearchResult result = mcts.search(positions.get(i), new SearchLimits(Search.MAX_PLY - 1, 0, moveTime));
+				playouts += mcts.getPlayouts();
+				elapsed += mcts.getElapsedTime();
+				depth += mcts.getSelectiveDepth();
+				if(result != null && result.getBestMove() == referenceMoves[i]) {
+					++agreements;
+				}
+			}
+			double rate = playouts * 1000.0 / Math.max(1, elapsed);
+			if(baseline == 0) {
+				baseline = rate;
+			}
+			System.out.println(String.format("%d\t%.0f\t\t%.2f\t%.1f\t%d%%", mcts.getThreads(), rate, rate / baseline, (double)depth / positions.size(), agreements * 100 / positions.size()));
+		}
+	}
+}
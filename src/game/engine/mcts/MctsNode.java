@@ -0,0 +1,182 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.mcts;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A node of the tree of a {@link MctsSearch}.
+ *
+ * The statistics of a node are updated with atomic operations only, so that any number of threads
+ * can descend and back up through the same node without taking a lock.  The value of a node is the
+ * sum of the results of its playouts from the point of view of the player who played the move of
+ * the node, in units of {@link #RESULT_SCALE}.  The virtual loss counts the threads currently below
+ * the node, each one is scored as a lost playout until it backs up its real result
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+final class MctsNode {
+
+	/**
+	 * The value of a won playout, a lost playout is worth zero and a draw half of this
+	 */
+	static final int RESULT_SCALE = 1 << 16;
+
+	/**
+	 * The updater of the number of visits
+	 */
+	private static final AtomicIntegerFieldUpdater<MctsNode> VISITS = AtomicIntegerFieldUpdater.newUpdater(MctsNode.class, "_visits");
+
+	/**
+	 * The updater of the number of virtual losses
+	 */
+	private static final AtomicIntegerFieldUpdater<MctsNode> VIRTUAL_LOSSES = AtomicIntegerFieldUpdater.newUpdater(MctsNode.class, "_virtualLosses");
+
+	/**
+	 * The updater of the sum of the results
+	 */
+	private static final AtomicLongFieldUpdater<MctsNode> VALUE = AtomicLongFieldUpdater.newUpdater(MctsNode.class, "_value");
+
+	/**
+	 * The updater of the children
+	 */
+	private static final AtomicReferenceFieldUpdater<MctsNode, MctsNode[]> CHILDREN = AtomicReferenceFieldUpdater.newUpdater(MctsNode.class, MctsNode[].class, "_children");
+
+	/**
+	 * The children of a node that is being expanded by another thread
+	 */
+	private static final MctsNode[] EXPANDING = new MctsNode[0];
+
+	/**
+	 * The move played to reach this node
+	 */
+	final int move;
+
+	/**
+	 * The number of playouts that went through this node
+	 */
+	private volatile int _visits;
+
+	/**
+	 * The number of threads currently below this node
+	 */
+	private volatile int _virtualLosses;
+
+	/**
+	 * The sum of the results of the playouts that went through this node
+	 */
+	private volatile long _value;
+
+	/**
+	 * The children of this node, null until the node is expanded
+	 */
+	private volatile MctsNode[] _children;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param move The move played to reach this node
+	 */
+	MctsNode(int move) {
+		this.move = move;
+	}
+
+	/**
+	 * Claims the expansion of this node, only one thread succeeds
+	 *
+	 * @return TRUE if the calling thread must expand this node
+	 */
+	boolean tryClaimExpansion() {
+		return CHILDREN.compareAndSet(this, null, EXPANDING);
+	}
+
+	/**
+	 * Publishes the children of this node once expanded by the thread that claimed the expansion
+	 *
+	 * @param children The children, an empty array when the game ended at this node
+	 */
+	void setChildren(MctsNode[] children) {
+		_children = children;
+	}
+
+	/**
+	 * @return The children of this node, or null if the node is not expanded yet or is being expanded
+	 */
+	MctsNode[] getChildren() {
+		MctsNode[] children = _children;
+		return children == EXPANDING ? null : children;
+	}
+
+	/**
+	 * @return TRUE if the game has ended at this node
+	 */
+	boolean isTerminal() {
+		MctsNode[] children = _children;
+		return children != null && children != EXPANDING && children.length == 0;
+	}
+
+	/**
+	 * Adds a virtual loss, before a thread descends below this node
+	 */
+	void addVirtualLoss() {
+		VIRTUAL_LOSSES.incrementAndGet(this);
+	}
+
+	/**
+	 * Records the result of a playout and removes the virtual loss of the thread
+	 *
+	 * @param result The result from the point of view of the player who played the move of this node, between zero and {@link #RESULT_SCALE}
+	 */
+	void update(int result) {
+		VALUE.addAndGet(this, result);
+		VISITS.incrementAndGet(this);
+		VIRTUAL_LOSSES.decrementAndGet(this);
+	}
+
+	/**
+	 * @return The number of playouts that went through this node
+	 */
+	int getVisits() {
+		return _visits;
+	}
+
+	/**
+	 * @return The average result of this node between zero and one, counting the virtual losses, or -1 if the node was never visited
+	 */
+	double getScore() {
+		int visits = _visits + _virtualLosses;
+		return visits == 0 ? -1 : (double)_value / RESULT_SCALE / visits;
+	}
+
+	/**
+	 * @return The number of playouts, counting the threads currently below this node
+	 */
+	int getEffectiveVisits() {
+		return _visits + _virtualLosses;
+	}
+}
@@ -0,0 +1,422 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.mcts;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+import engine.utils.io.logging.Tracelog;
+import game.engine.board.MoveGenerator;
+import game.engine.board.Position;
+import game.engine.evaluation.PawnStructureEvaluator;
+import game.engine.interfaces.IAccumulator;
+import game.engine.interfaces.IEvaluator;
+import game.engine.search.Search;
+import game.engine.search.SearchLimits;
+import game.engine.search.SearchResult;
+
+/**
+ * A Monte Carlo tree search, an alternative to the alpha-beta {@link Search}.
+ *
+ * Every thread descends the same tree from the root, choosing the child with the best upper
+ * confidence bound, expands the first node it reaches that was never visited and plays random legal
+ * moves from it for a few plies before scoring the position with the static evaluation.  The result
+ * is then backed up to the root.  The statistics of the nodes are atomic and each thread adds a
+ * virtual loss to the nodes it descends through, which steers the other threads towards different
+ * lines without any lock.  The move played is the child of the root with the most visits
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class MctsSearch {
+
+	/**
+	 * The number of playouts of a search without a node or time limit
+	 */
+	public static final long DEFAULT_PLAYOUTS = 100000;
+
+	/**
+	 * The number of random plies played from a leaf before the position is evaluated
+	 */
+	private static final int PLAYOUT_PLIES = 4;
+
+	/**
+	 * The weight of the exploration term of the upper confidence bound
+	 */
+	private static final double EXPLORATION = 1.0;
+
+	/**
+	 * The deepest the tree can grow, the playouts of a node this deep start from it
+	 */
+	private static final int MAX_DEPTH = Search.MAX_PLY - PLAYOUT_PLIES;
+
+	/**
+	 * The evaluation in centipawns that gives a player a winning chance of about three out of four
+	 */
+	private static final double EVALUATION_SCALE = 400;
+
+	/**
+	 * The number of threads playing out
+	 */
+	private final int _threads;
+
+	/**
+	 * Creates the evaluator of each thread, as evaluators are not shared between threads
+	 */
+	private Supplier<IEvaluator> _evaluatorFactory = PawnStructureEvaluator::new;
+
+	/**
+	 * The number of playouts of the current search
+	 */
+	private final AtomicLong _playouts = new AtomicLong();
+
+	/**
+	 * The deepest node reached by the current search
+	 */
+	private final AtomicInteger _selectiveDepth = new AtomicInteger();
+
+	/**
+	 * Indicates if the current search must stop
+	 */
+	private volatile boolean _stopped;
+
+	/**
+	 * The time at which the current search started
+	 */
+	private long _startTime;
+
+	/**
+	 * The elapsed time of the last search in milliseconds
+	 */
+	private volatile long _elapsedTime;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param threads The number of threads playing out
+	 */
+	public MctsSearch(int threads) {
+		_threads = Math.max(1, threads);
+	}
+
+	/**
+	 * @param evaluatorFactory Creates the evaluator of each thread
+	 */
+	public void setEvaluatorFactory(Supplier<IEvaluator> evaluatorFactory) {
+		_evaluatorFactory = evaluatorFactory;
+	}
+
+	/**
+	 * Searches the specified position until the node or time limit is reached, the number of nodes
+	 * being the number of playouts.  The depth of the limits is not used
+	 *
+	 * @param position The position, which is not modified
+	 * @param limits The limits of the search
+	 *
+	 * @return The result of the search, or null if there is no legal move
+	 */
+	public SearchResult search(Position position, SearchLimits limits) {
+		_stopped = false;
+		_playouts.set(0);
+		_selectiveDepth.set(0);
+		_startTime = System.currentTimeMillis();
+
+		long maxPlayouts = limits.nodes > 0 || limits.time > 0 ? limits.nodes : DEFAULT_PLAYOUTS;
+		long deadline = limits.time > 0 ? _startTime + limits.time : Long.MAX_VALUE;
+		MctsNode root = new MctsNode(0);
+		List<Thread> threads = new ArrayList<>(_threads);
+		for(int i = 0; i < _threads; ++i) {
+			Position copy = new Position(position);
+			Thread thread = new Thread(() -> {
+				try {
+					playOut(root, copy, maxPlayouts, deadline);
+				}
+				catch(Exception exception) {
+					Tracelog.log(Level.SEVERE, true, exception);
+					_stopped = true;
+				}
+			}, "Mcts-" + i);
+			thread.setDaemon(true);
+			threads.add(thread);
+			thread.start();
+		}
+		for(Thread thread : threads) {
+			try {
+				thread.join();
+			}
+			catch(InterruptedException exception) {
+				_stopped = true;
+				Thread.currentThread().interrupt();
+			}
+		}
+		_elapsedTime = System.currentTimeMillis() - _startTime;
+		return getResult(root);
+	}
+
+	/**
+	 * Stops the current search, which returns the best move found so far
+	 */
+	public void stop() {
+		_stopped = true;
+	}
+
+	/**
+	 * @return The number of playouts of the last search
+	 */
+	public long getPlayouts() {
+		return _playouts.get();
+	}
+
+	/**
+	 * @return The deepest node reached by the last search, counting the plies of the playouts
+	 */
+	public int getSelectiveDepth() {
+		return _selectiveDepth.get();
+	}
+
+	/**
+	 * @return The elapsed time of the last search in milliseconds
+	 */
+	public long getElapsedTime() {
+		return _elapsedTime;
+	}
+
+	/**
+	 * @return The number of threads playing out
+	 */
+	public int getThreads() {
+		return _threads;
+	}
+
+	/**
+	 * Plays out from the root until a limit is reached, this is the loop of each thread
+	 *
+	 * @param root The root of the tree
+	 * @param position The position of the root, owned by the calling thread
+	 * @param maxPlayouts The number of playouts of the search, or zero for no limit
+	 * @param deadline The time at which the search stops
+	 */
+	private void playOut(MctsNode root, Position position, long maxPlayouts, long deadline) {
+		IEvaluator evaluator = _evaluatorFactory.get();
+		IAccumulator accumulator = evaluator.createAccumulator();
+		if(accumulator != null) {
+			position.setAccumulator(accumulator);
+		}
+		SplittableRandom random = new SplittableRandom(System.nanoTime() ^ Thread.currentThread().getId());
+		MctsNode[] path = new MctsNode[MAX_DEPTH + 1];
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int[] playoutMoves = new int[PLAYOUT_PLIES];
+
+		while(!_stopped && System.currentTimeMillis() < deadline) {
+			// Threads finishing their last playout at the same time may go over the limit by a few playouts
+			if(maxPlayouts > 0 && _playouts.get() >= maxPlayouts) {
+				break;
+			}
+
+			// Descend to a node that was never visited, expanding the nodes on the way
+			MctsNode node = root;
+			node.addVirtualLoss();
+			path[0] = node;
+			int length = 1;
+			while(length <= MAX_DEPTH) {
+				MctsNode[] children = node.getChildren();
+				if(children == null) {
+					// A node being expanded by another thread is played out from instead of waiting
+					if(!node.tryClaimExpansion()) {
+						break;
+					}
+					children = expand(position, moves);
+					node.setChildren(children);
+				}
+				if(children.length == 0) {
+					break;
+				}
+				MctsNode child = select(node, children);
+				boolean isNew = child.getEffectiveVisits() == 0;
+				child.addVirtualLoss();
+				position.makeMove(child.move);
+				path[length++] = child;
+				node = child;
+				if(isNew) {
+					break;
+				}
+			}
+
+			// The result is from the point of view of the player to move at the leaf, which is the
+			// opponent of the player who played the move of the leaf
+			int result = simulate(position, evaluator, random, moves, playoutMoves, length - 1);
+			for(int i = length - 1; i >= 0; --i) {
+				result = MctsNode.RESULT_SCALE - result;
+				path[i].update(result);
+				if(i > 0) {
+					position.unmakeMove(path[i].move);
+				}
+			}
+			_playouts.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Creates the children of a node, one per legal move
+	 *
+	 * @param position The position of the node
+	 * @param moves The buffer that receives the moves
+	 *
+	 * @return The children, an empty array when the game has ended
+	 */
+	private static MctsNode[] expand(Position position, int[] moves) {
+		if(position.getHalfMoveClock() >= 100 || position.isRepetition()) {
+			return new MctsNode[0];
+		}
+		int count = MoveGenerator.generateLegal(position, moves);
+		MctsNode[] children = new MctsNode[count];
+		for(int i = 0; i < count; ++i) {
+			children[i] = new MctsNode(moves[i]);
+		}
+		return children;
+	}
+
+	/**
+	 * Selects the child with the best upper confidence bound, a child that was never visited comes first
+	 *
+	 * @param parent The node
+	 * @param children The children of the node
+	 *
+	 * @return The child to descend into
+	 */
+	private static MctsNode select(MctsNode parent, MctsNode[] children) {
+		double logVisits = Math.log(Math.max(1, parent.getEffectiveVisits()));
+		MctsNode best = children[0];
+		double bestBound = Double.NEGATIVE_INFINITY;
+		for(MctsNode child : children) {
+			int visits = child.getEffectiveVisits();
+			if(visits == 0) {
+				return child;
+			}
+			double bound = child.getScore() + EXPLORATION * Math.sqrt(logVisits / visits);
+			if(bound > bestBound) {
+				bestBound = bound;
+				best = child;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Plays random legal moves from a leaf and scores the position reached
+	 *
+	 * @param position The position of the leaf, restored before returning
+	 * @param evaluator The evaluator of the calling thread
+	 * @param random The random generator of the calling thread
+	 * @param moves The buffer that receives the moves
+	 * @param playoutMoves The buffer that receives the moves played
+	 * @param depth The depth of the leaf
+	 *
+	 * @return The result from the point of view of the player to move at the leaf, between zero and {@link MctsNode#RESULT_SCALE}
+	 */
+	private int simulate(Position position, IEvaluator evaluator, SplittableRandom random, int[] moves, int[] playoutMoves, int depth) {
+		int plies = 0;
+		int result;
+		while(true) {
+			if(position.getHalfMoveClock() >= 100 || position.isRepetition()) {
+				result = MctsNode.RESULT_SCALE / 2;
+				break;
+			}
+			int count = MoveGenerator.generateLegal(position, moves);
+			if(count == 0) {
+				result = position.isInCheck() ? 0 : MctsNode.RESULT_SCALE / 2;
+				break;
+			}
+			if(plies == PLAYOUT_PLIES) {
+				result = toResult(evaluator.evaluate(position));
+				break;
+			}
+			playoutMoves[plies] = moves[random.nextInt(count)];
+			position.makeMove(playoutMoves[plies++]);
+		}
+
+		int selectiveDepth = depth + plies;
+		for(int current = _selectiveDepth.get(); selectiveDepth > current && !_selectiveDepth.compareAndSet(current, selectiveDepth); current = _selectiveDepth.get());
+
+		for(int i = plies - 1; i >= 0; --i) {
+			position.unmakeMove(playoutMoves[i]);
+		}
+		return (plies & 1) == 0 ? result : MctsNode.RESULT_SCALE - result;
+	}
+
+	/**
+	 * Converts an evaluation into the winning chance of the player to move
+	 *
+	 * @param evaluation The evaluation in centipawns from the point of view of the player to move
+	 *
+	 * @return The winning chance between zero and {@link MctsNode#RESULT_SCALE}
+	 */
+	private static int toResult(int evaluation) {
+		return (int)(MctsNode.RESULT_SCALE / (1 + Math.pow(10, -evaluation / EVALUATION_SCALE)));
+	}
+
+	/**
+	 * Builds the result of a search by following the most visited children from the root
+	 *
+	 * @param root The root of the tree
+	 *
+	 * @return The result, or null if the root has no legal move
+	 */
+	private SearchResult getResult(MctsNode root) {
+		List<Integer> principalVariation = new ArrayList<>();
+		double rootScore = 0.5;
+		MctsNode node = root;
+		MctsNode[] children;
+		while((children = node.getChildren()) != null && children.length > 0) {
+			MctsNode best = null;
+			for(MctsNode child : children) {
+				if(child.getVisits() > 0 && (best == null || child.getVisits() > best.getVisits())) {
+					best = child;
+				}
+			}
+			if(best == null) {
+				break;
+			}
+			if(node == root) {
+				rootScore = best.getScore();
+			}
+			principalVariation.add(best.move);
+			node = best;
+		}
+		if(principalVariation.isEmpty()) {
+			return null;
+		}
+
+		// Convert the winning chance back into centipawns
+		double chance = Math.max(0.001, Math.min(0.999, rootScore));
+		int score = (int)Math.round(-EVALUATION_SCALE * Math.log10(1 / chance - 1));
+		return new SearchResult(principalVariation.size(), score, principalVariation.stream().mapToInt(Integer::intValue).toArray());
+	}
+}
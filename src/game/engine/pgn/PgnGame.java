@@ -0,0 +1,172 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.pgn;
+
+import java.util.Collections;
+import java.util.Map;
+
+import game.engine.board.Fen;
+import game.engine.board.MoveGenerator;
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+import game.engine.board.San;
+
+/**
+ * A game read from a Portable Game Notation file.
+ *
+ * The moves are kept in their engine encoding, which takes a single integer per move, and they were
+ * all verified to be legal when read.  A game whose movetext could not be read up to its end keeps
+ * the moves read before the problem and reports it through {@link #getError()}
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class PgnGame {
+
+	/**
+	 * The result of a game that has not ended or whose result is not known
+	 */
+	public static final String UNKNOWN_RESULT = "*";
+
+	/**
+	 * The tags of the game in the order they were read
+	 */
+	private final Map<String, String> _tags;
+
+	/**
+	 * The moves of the game
+	 */
+	private final int[] _moves;
+
+	/**
+	 * The result of the game, such as "1-0", "0-1", "1/2-1/2" or "*"
+	 */
+	private final String _result;
+
+	/**
+	 * The reason why the game could not be read up to its end, or null
+	 */
+	private final String _error;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param tags The tags of the game in the order they were read
+	 * @param moves The moves of the game
+	 * @param result The result of the game
+	 * @param error The reason why the game could not be read up to its end, or null
+	 */
+	public PgnGame(Map<String, String> tags, int[] moves, String result, String error) {
+		_tags = Collections.unmodifiableMap(tags);
+		_moves = moves;
+		_result = result;
+		_error = error;
+	}
+
+	/**
+	 * @return The tags of the game in the order they were read
+	 */
+	public Map<String, String> getTags() {
+		return _tags;
+	}
+
+	/**
+	 * Gets the value of a tag
+	 *
+	 * @param name The name of the tag, such as "White" or "Event"
+	 *
+	 * @return The value of the tag, or null if the game does not have it
+	 */
+	public String getTag(String name) {
+		return _tags.get(name);
+	}
+
+	/**
+	 * @return The moves of the game, the array is not copied and must not be modified
+	 */
+	public int[] getMoves() {
+		return _moves;
+	}
+
+	/**
+	 * @return The result of the game, such as "1-0", "0-1", "1/2-1/2" or "*"
+	 */
+	public String getResult() {
+		return _result;
+	}
+
+	/**
+	 * @return The reason why the game could not be read up to its end, or null
+	 */
+	public String getError() {
+		return _error;
+	}
+
+	/**
+	 * @return TRUE if every move of the game was read
+	 */
+	public boolean isValid() {
+		return _error == null;
+	}
+
+	/**
+	 * Creates the position the game started from, which is given by the FEN tag when the game did not
+	 * start from the standard position
+	 *
+	 * @return The starting position
+	 */
+	public Position createStartingPosition() {
+		String fen = _tags.get("FEN");
+		return Fen.parse(fen == null ? Fen.STARTING_POSITION : fen);
+	}
+
+	/**
+	 * Gets the movetext of the game, which is the numbered moves in Standard Algebraic Notation
+	 * followed by the result, such as "1. e4 e5 2. Nf3 Nc6 *"
+	 *
+	 * @return The movetext
+	 */
+	public String getMovetext() {
+		Position position = createStartingPosition();
+		int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+		StringBuilder builder = new StringBuilder(_moves.length * 6 + 8);
+		for(int i = 0; i < _moves.length; ++i) {
+			if(position.getSideToMove() == Pieces.WHITE) {
+				builder.append(position.getFullMoveNumber()).append(". ");
+			}
+			else if(i == 0) {
+				builder.append(position.getFullMoveNumber()).append("... ");
+			}
+			int count = MoveGenerator.generateLegal(position, legalMoves);
+			San.append(builder, position, _moves[i], legalMoves, count).append(' ');
+			position.makeMove(_moves[i]);
+		}
+		return builder.append(_result).toString();
+	}
+
+	@Override public String toString() {
+		return String.format("%s - %s %s (%d moves%s)", _tags.getOrDefault("White", "?"), _tags.getOrDefault("Black", "?"), _result, _moves.length, _error == null ? "" : ", " + _error);
+	}
+}
@@ -0,0 +1,407 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.pgn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import game.engine.interfaces.IGameWriter;
+
+/**
+ * An import of a Portable Game Notation file that reads its games on every core.
+ *
+ * The import is made of three stages.  A single thread reads the file and cuts it into chunks of
+ * whole games, a cut being made where the tags of a game start after the movetext of the previous
+ * one.  A pool of threads reads the games of each chunk with its own {@link PgnReader}, which plays
+ * and validates the moves on its own board.  The calling thread then hands the games to the
+ * writer, taking the chunks in the order they were cut so that the games keep the order of the
+ * file.  The queue between the stages is bounded, so a slow writer holds back the reading thread
+ * rather than filling the memory
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class PgnImporter {
+
+	/**
+	 * The default size of a chunk in bytes, a chunk holds more when a single game does not fit
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+	/**
+	 * The interval in milliseconds between two progress reports
+	 */
+	private static final long REPORT_INTERVAL = 5000;
+
+	/**
+	 * The file being imported
+	 */
+	private final Path _file;
+
+	/**
+	 * The destination of the games
+	 */
+	private final IGameWriter _writer;
+
+	/**
+	 * The number of threads reading the games
+	 */
+	private int _threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The size of a chunk in bytes
+	 */
+	private int _chunkSize = DEFAULT_CHUNK_SIZE;
+
+	/**
+	 * The number of games written
+	 */
+	private long _games;
+
+	/**
+	 * The number of games written that could not be read up to their end
+	 */
+	private long _invalidGames;
+
+	/**
+	 * The number of moves written
+	 */
+	private long _moves;
+
+	/**
+	 * The elapsed time of the import in milliseconds
+	 */
+	private long _elapsedTime;
+
+	/**
+	 * Indicates if the chunk being scanned is within a comment, where the text of a tag is not a cut
+	 */
+	private boolean _isComment;
+
+	/**
+	 * Indicates if the byte being scanned starts a line, not counting the leading white space
+	 */
+	private boolean _isLineStart = true;
+
+	/**
+	 * Indicates if the last line of text scanned was movetext rather than a tag
+	 */
+	private boolean _isMovetext;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param file The file to import
+	 * @param writer The destination of the games
+	 */
+	public PgnImporter(Path file, IGameWriter writer) {
+		_file = file;
+		_writer = writer;
+	}
+
+	/**
+	 * @param threads The number of threads reading the games
+	 */
+	public void setThreads(int threads) {
+		_threads = Math.max(1, threads);
+	}
+
+	/**
+	 * @param chunkSize The size of a chunk in bytes
+	 */
+	public void setChunkSize(int chunkSize) {
+		_chunkSize = Math.max(1024, chunkSize);
+	}
+
+	/**
+	 * @return The number of games written
+	 */
+	public long getGames() {
+		return _games;
+	}
+
+	/**
+	 * @return The number of games written that could not be read up to their end
+	 */
+	public long getInvalidGames() {
+		return _invalidGames;
+	}
+
+	/**
+	 * @return The number of moves written
+	 */
+	public long getMoves() {
+		return _moves;
+	}
+
+	/**
+	 * @return The elapsed time of the import in milliseconds
+	 */
+	public long getElapsedTime() {
+		return _elapsedTime;
+	}
+
+	/**
+	 * Imports the file and waits for its end
+	 *
+	 * @throws IOException If the file cannot be read or a game cannot be written
+	 * @throws InterruptedException If the calling thread is interrupted while waiting
+	 */
+	public void run() throws IOException, InterruptedException {
+		long startTime = System.currentTimeMillis();
+		long reportTime = startTime + REPORT_INTERVAL;
+		ExecutorService executor = Executors.newFixedThreadPool(_threads, runnable -> {
+			Thread thread = new Thread(runnable, "Import");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		// The chunks are queued in the order they were cut, the end of the file is marked by a null chunk
+		BlockingQueue<Future<List<PgnGame>>> chunks = new ArrayBlockingQueue<>(_threads * 2);
+		IOException[] readException = new IOException[1];
+		Thread reader = new Thread(() -> {
+			try {
+				split(executor, chunks);
+			}
+			catch(IOException exception) {
+				readException[0] = exception;
+			}
+			catch(InterruptedException exception) {
+				Thread.currentThread().interrupt();
+			}
+			finally {
+				try {
+					chunks.put(CompletableFuture.completedFuture(null));
+				}
+				catch(InterruptedException exception) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}, "Import Reader");
+		reader.setDaemon(true);
+		reader.start();
+
+		try {
+			List<PgnGame> games;
+			while((games = chunks.take().get()) != null) {
+				for(PgnGame game : games) {
+					_writer.write(game);
+					++_games;
+					_moves += game.getMoves().length;
+					if(!game.isValid()) {
+						++_invalidGames;
+					}
+				}
+				if(System.currentTimeMillis() >= reportTime) {
+					reportTime += REPORT_INTERVAL;
+					System.out.println(getProgress(System.currentTimeMillis() - startTime));
+				}
+			}
+		}
+		catch(ExecutionException exception) {
+			throw new IOException(exception.getCause());
+		}
+		finally {
+			reader.interrupt();
+			executor.shutdownNow();
+			_elapsedTime = System.currentTimeMillis() - startTime;
+		}
+		if(readException[0] != null) {
+			throw readException[0];
+		}
+	}
+
+	/**
+	 * Reads the file and cuts it into chunks of whole games, each chunk being read by the pool
+	 *
+	 * @param executor The pool of threads reading the games
+	 * @param chunks The queue of the chunks, in the order they were cut
+	 *
+	 * @throws IOException If the file cannot be read
+	 * @throws InterruptedException If the thread is interrupted while the queue is full
+	 */
+	private void split(ExecutorService executor, BlockingQueue<Future<List<PgnGame>>> chunks) throws IOException, InterruptedException {
+		try(FileChannel channel = FileChannel.open(_file, StandardOpenOption.READ)) {
+			byte[] pending = new byte[_chunkSize * 2];
+			int length = 0;
+			int cut = 0;
+			while(true) {
+				if(length == pending.length) {
+					pending = Arrays.copyOf(pending, pending.length * 2);
+				}
+				int count = channel.read(ByteBuffer.wrap(pending, length, pending.length - length));
+				if(count < 0) {
+					if(length > 0) {
+						submit(executor, chunks, Arrays.copyOf(pending, length));
+					}
+					return;
+				}
+
+				int lastCut = findLastCut(pending, length, length + count);
+				cut = lastCut == -1 ? cut : lastCut;
+				length += count;
+
+				// The bytes after the last cut belong to a game that is not complete, they start the next chunk
+				if(length >= _chunkSize && cut > 0) {
+					submit(executor, chunks, Arrays.copyOf(pending, cut));
+					System.arraycopy(pending, cut, pending, 0, length - cut);
+					length -= cut;
+					cut = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Queues a chunk to be read by the pool
+	 *
+	 * @param executor The pool of threads reading the games
+	 * @param chunks The queue of the chunks
+	 * @param chunk The bytes of the chunk
+	 *
+	 * @throws InterruptedException If the thread is interrupted while the queue is full
+	 */
+	private static void submit(ExecutorService executor, BlockingQueue<Future<List<PgnGame>>> chunks, byte[] chunk) throws InterruptedException {
+		chunks.put(executor.submit(() -> {
+			List<PgnGame> games = new ArrayList<>();
+			PgnReader reader = new PgnReader(ByteBuffer.wrap(chunk));
+			PgnGame game;
+			while((game = reader.next()) != null) {
+				games.add(game);
+			}
+			return games;
+		}));
+	}
+
+	/**
+	 * Scans bytes for the places where a game starts, which are the lines starting a tag that follow
+	 * movetext.  The state of the scan carries over from one call to the next
+	 *
+	 * @param bytes The bytes
+	 * @param start The index of the first byte to scan
+	 * @param end The index following the last byte to scan
+	 *
+	 * @return The index of the last place found, or -1 if there is none
+	 */
+	private int findLastCut(byte[] bytes, int start, int end) {
+		int cut = -1;
+		for(int i = start; i < end; ++i) {
+			byte character = bytes[i];
+			if(_isComment) {
+				_isComment = character != '}';
+			}
+			else if(character == '\n') {
+				_isLineStart = true;
+			}
+			else if(character > ' ') {
+				if(_isLineStart) {
+					_isLineStart = false;
+					if(character == '[') {
+						if(_isMovetext) {
+							cut = i;
+						}
+						_isMovetext = false;
+					}
+					else {
+						_isMovetext = true;
+					}
+				}
+				_isComment = character == '{';
+			}
+		}
+		return cut;
+	}
+
+	/**
+	 * Formats the progress of the import
+	 *
+	 * @param elapsedTime The time since the start of the import in milliseconds
+	 *
+	 * @return The progress
+	 */
+	private String getProgress(long elapsedTime) {
+		return String.format("%d games (%d invalid), %d moves in %.1fs: %.0f games/s", _games, _invalidGames, _moves, elapsedTime / 1000.0, _games * 1000.0 / Math.max(1, elapsedTime));
+	}
+
+	/**
+	 * Imports a file from the command line, printing the games that could not be read
+	 *
+	 * @param args The arguments of the import, see the usage
+	 *
+	 * @throws Exception If the import fails
+	 */
+	public static void main(String[] args) throws Exception {
+		String file = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int chunkSize = DEFAULT_CHUNK_SIZE;
+		for(int i = 0; i < args.length; ++i) {
+			switch(args[i]) {
+			case "-pgn":
+				file = args[++i];
+				break;
+			case "-threads":
+				threads = Integer.parseInt(args[++i]);
+				break;
+			case "-chunk":
+				chunkSize = Integer.parseInt(args[++i]);
+				break;
+			default:
+				file = null;
+				i = args.length;
+				break;
+			}
+		}
+		if(file == null) {
+			System.out.println("Usage: PgnImporter -pgn <file> [-threads <count>] [-chunk <bytes>]");
+			return;
+		}
+
+		long[] index = new long[1];
+		PgnImporter importer = new PgnImporter(Paths.get(file), game -> {
+			++index[0];
+			if(!game.isValid()) {
+				System.out.println("Game " + index[0] + ": " + game);
+			}
+		});
+		importer.setThreads(threads);
+		importer.setChunkSize(chunkSize);
+		importer.run();
+		System.out.println("Finished, " + importer.getProgress(importer.getElapsedTime()));
+	}
+}
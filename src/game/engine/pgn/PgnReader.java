@@ -0,0 +1,457 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.pgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import game.engine.board.Fen;
+import game.engine.board.Move;
+import game.engine.board.MoveGenerator;
+import game.engine.board.Position;
+import game.engine.board.San;
+
+/**
+ * A reader of Portable Game Notation files that streams the games one at a time.
+ *
+ * The file is read through a fixed buffer of a channel, so the memory used does not depend on the
+ * size of the file but only on the size of the largest game.  Each move is played on a board as it
+ * is read, which validates it against the rules of the engine and turns it into its engine
+ * encoding.  Comments, variations and numeric annotations are skipped
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class PgnReader implements Closeable {
+
+	/**
+	 * The size of the buffer of the channel in bytes
+	 */
+	public static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * The characters that end a token of the movetext
+	 */
+	private static final String DELIMITERS = "[]{}();$";
+
+	/**
+	 * The channel being read, or null when reading the bytes of a buffer
+	 */
+	private final ReadableByteChannel _channel;
+
+	/**
+	 * The buffer of the channel, or the buffer being read
+	 */
+	private final ByteBuffer _buffer;
+
+	/**
+	 * The token being read, reused for every token
+	 */
+	private final StringBuilder _token = new StringBuilder();
+
+	/**
+	 * The bytes of the tag value being read, reused for every tag and grown as needed
+	 */
+	private byte[] _tagBytes = new byte[256];
+
+	/**
+	 * The moves of the game being read, reused for every game and grown as needed
+	 */
+	private int[] _moves = new int[256];
+
+	/**
+	 * The buffer of the legal moves used to validate each move
+	 */
+	private final int[] _legalMoves = new int[MoveGenerator.MAX_MOVES];
+
+	/**
+	 * The board on which the moves of the game being read are played
+	 */
+	private final Position _position = new Position();
+
+	/**
+	 * The byte that was read ahead and must be returned by the next read, or -1
+	 */
+	private int _pushback = -1;
+
+	/**
+	 * The last byte read, used to find the start of the lines
+	 */
+	private int _previous = '\n';
+
+	/**
+	 * The number of bytes read from the channel
+	 */
+	private long _bytesRead;
+
+	/**
+	 * The number of games read
+	 */
+	private long _games;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param file The path of the file
+	 *
+	 * @throws IOException If the file cannot be opened
+	 */
+	public PgnReader(Path file) throws IOException {
+		this(FileChannel.open(file, StandardOpenOption.READ));
+	}
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param channel The channel to read, which is closed with this reader
+	 */
+	public PgnReader(ReadableByteChannel channel) {
+		_channel = channel;
+		_buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		_buffer.flip();
+	}
+
+	/**
+	 * Constructs a new instance of this class type that reads games already in memory, such as the
+	 * chunk of a file handed to a thread
+	 *
+	 * @param buffer The buffer holding the games, read from its position to its limit
+	 */
+	public PgnReader(ByteBuffer buffer) {
+		_channel = null;
+		_buffer = buffer;
+	}
+
+	/**
+	 * Reads the next game
+	 *
+	 * @return The game, or null if there are no more games
+	 *
+	 * @throws IOException If the channel cannot be read
+	 */
+	public PgnGame next() throws IOException {
+		Map<String, String> tags = new LinkedHashMap<>();
+		_position.setStartingPosition();
+		int moveCount = 0;
+		String result = null;
+		String error = null;
+		boolean hasContent = false;
+		boolean isMovetext = false;
+
+		while(result == null) {
+			int character = skipWhitespace();
+			if(character == -1) {
+				if(!hasContent) {
+					return null;
+				}
+				break;
+			}
+			hasContent = true;
+
+			switch(character) {
+			case '[':
+				// A tag after the movetext belongs to the next game, this one ended without a result
+				if(isMovetext) {
+					_pushback = character;
+					result = tags.getOrDefault("Result", PgnGame.UNKNOWN_RESULT);
+					break;
+				}
+				String tagError = readTag(tags);
+				if(error == null) {
+					error = tagError;
+				}
+				break;
+			case '{':
+				skipUntil('}');
+				break;
+			case ';':
+				skipUntil('\n');
+				break;
+			case '(':
+				skipVariation();
+				break;
+			case '$':
+				readToken(-1);
+				break;
+			default:
+				if(character == '%' && _previous == '\n') {
+					skipUntil('\n');
+					break;
+				}
+				isMovetext = true;
+				readToken(character);
+				if(isResult(_token)) {
+					result = _token.toString();
+					break;
+				}
+
+				// Skip the move number in front of the move, such as "12." or "12..."
+				int start = 0;
+				while(start < _token.length() && Character.isDigit(_token.charAt(start))) {
+					++start;
+				}
+				if(start > 0 && (start == _token.length() || _token.charAt(start) != '.')) {
+					error = error == null ? "Invalid token " + _token + " after " + moveCount + " half moves" : error;
+					break;
+				}
+				while(start < _token.length() && _token.charAt(start) == '.') {
+					++start;
+				}
+				if(start == _token.length() || error != null || "e.p.".contentEquals(_token)) {
+					break;
+				}
+
+				int move = San.parse(_position, _token, start, _token.length(), _legalMoves);
+				if(move == Move.NONE) {
+					error = "Illegal move " + _token.substring(start) + " after " + moveCount + " half moves";
+				}
+				else if(moveCount >= Position.MAX_HISTORY - 1) {
+					error = "The game is longer than " + moveCount + " half moves";
+				}
+				else {
+					_position.makeMove(move);
+					if(moveCount == _moves.length) {
+						_moves = Arrays.copyOf(_moves, moveCount * 2);
+					}
+					_moves[moveCount++] = move;
+				}
+				break;
+			}
+		}
+
+		++_games;
+		if(result == null) {
+			result = tags.getOrDefault("Result", PgnGame.UNKNOWN_RESULT);
+		}
+		return new PgnGame(tags, Arrays.copyOf(_moves, moveCount), result, error);
+	}
+
+	/**
+	 * @return The number of bytes read from the channel, which tells the progress within a file
+	 */
+	public long getBytesRead() {
+		return _bytesRead;
+	}
+
+	/**
+	 * @return The number of games read
+	 */
+	public long getGamesRead() {
+		return _games;
+	}
+
+	@Override public void close() throws IOException {
+		if(_channel != null) {
+			_channel.close();
+		}
+	}
+
+	/**
+	 * Reads the next byte
+	 *
+	 * @return The byte, or -1 at the end of the channel
+	 *
+	 * @throws IOException If the channel cannot be read
+	 */
+	private int read() throws IOException {
+		if(_pushback != -1) {
+			int character = _pushback;
+			_pushback = -1;
+			return character;
+		}
+		if(!_buffer.hasRemaining()) {
+			if(_channel == null) {
+				return -1;
+			}
+			_buffer.clear();
+			int count;
+			do {
+				count = _channel.read(_buffer);
+			} while(count == 0);
+			_buffer.flip();
+			if(count < 0) {
+				return -1;
+			}
+		}
+		++_bytesRead;
+		int character = _buffer.get() & 0xFF;
+
+		// The byte order mark that some programs write at the start of the file is not part of the text
+		if(_bytesRead <= 3 && (character == 0xEF || character == 0xBB || character == 0xBF)) {
+			return read();
+		}
+		return character;
+	}
+
+	/**
+	 * Skips the white space, keeping track of the start of the lines
+	 *
+	 * @return The first byte that is not white space, or -1 at the end of the channel
+	 *
+	 * @throws IOException If the channel cannot be read
+	 */
+	private int skipWhitespace() throws IOException {
+		int character;
+		while((character = read()) != -1 && character <= ' ') {
+			_previous = character;
+		}
+		return character;
+	}
+
+	/**
+	 * Skips the bytes up to and including the specified byte
+	 *
+	 * @param end The byte that ends the skipped text
+	 *
+	 * @throws IOException If the channel cannot be read
+	 */
+	private void skipUntil(int end) throws IOException {
+		int character;
+		while((character = read()) != -1 && character != end);
+		_previous = character;
+	}
+
+	/**
+	 * Skips a variation, including the variations and comments it holds
+	 *
+	 * @throws IOException If the channel cannot be read
+	 */
+	private void skipVariation() throws IOException {
+		int depth = 1;
+		int character;
+		while(depth > 0 && (character = read()) != -1) {
+			if(character == '(') {
+				++depth;
+			}
+			else if(character == ')') {
+				--depth;
+			}
+			else if(character == '{') {
+				skipUntil('}');
+			}
+		}
+	}
+
+	/**
+	 * Reads a token of the movetext into the token buffer
+	 *
+	 * @param first The first byte of the token, or -1 if it was not read yet
+	 *
+	 * @throws IOException If the channel cannot be read
+	 */
+	private void readToken(int first) throws IOException {
+		_token.setLength(0);
+		if(first != -1) {
+			_token.append((char)first);
+		}
+		int character;
+		while((character = read()) != -1 && character > ' ' && DELIMITERS.indexOf(character) == -1) {
+			_token.append((char)character);
+		}
+		if(character > ' ') {
+			_pushback = character;
+		}
+		_previous = character;
+	}
+
+	/**
+	 * Reads a tag such as [White "Kasparov, Garry"] whose opening bracket was read.  The FEN tag sets
+	 * up the board the moves are played from
+	 *
+	 * @param tags The tags of the game, which receive the tag
+	 *
+	 * @return The reason why the tag is not valid, or null
+	 *
+	 * @throws IOException If the channel cannot be read
+	 */
+	private String readTag(Map<String, String> tags) throws IOException {
+		_token.setLength(0);
+		int character = skipWhitespace();
+		while(character > ' ' && character != '"' && character != ']') {
+			_token.append((char)character);
+			character = read();
+		}
+		String name = _token.toString();
+		while(character != -1 && character <= ' ' && character != '\n') {
+			character = read();
+		}
+		if(character != '"') {
+			if(character != ']') {
+				skipUntil(']');
+			}
+			return "Invalid tag " + name;
+		}
+
+		// The value is decoded as UTF-8 once complete, a backslash escapes the next quote or backslash
+		int length = 0;
+		while((character = read()) != -1 && character != '"' && character != '\n') {
+			if(character == '\\') {
+				character = read();
+				if(character == -1) {
+					break;
+				}
+			}
+			if(length == _tagBytes.length) {
+				_tagBytes = Arrays.copyOf(_tagBytes, length * 2);
+			}
+			_tagBytes[length++] = (byte)character;
+		}
+		String value = new String(_tagBytes, 0, length, StandardCharsets.UTF_8);
+		if(character == '"') {
+			skipUntil(']');
+		}
+		tags.put(name, value);
+
+		if(name.equals("FEN")) {
+			try {
+				Fen.parse(value, 0, _position);
+			}
+			catch(IllegalArgumentException exception) {
+				return exception.getMessage();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Indicates if a token is the result that ends the movetext of a game
+	 *
+	 * @param token The token
+	 *
+	 * @return TRUE if the token is a result
+	 */
+	private static boolean isResult(CharSequence token) {
+		return "1-0".contentEquals(token) || "0-1".contentEquals(token) || "1/2-1/2".contentEquals(token) || PgnGame.UNKNOWN_RESULT.contentEquals(token);
+	}
+}
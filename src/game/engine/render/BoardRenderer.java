@@ -0,0 +1,608 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.render;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+import game.engine.archive.GameArchive;
+import game.engine.board.Fen;
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+
+/**
+ * Draws positions and games to images without going through the views of the board, so that it
+ * runs without a display and can render a large number of games.
+ *
+ * The pieces of the sprite sheet are drawn once on each color of square when the renderer is
+ * constructed, and the colors of those tiles are reduced to a palette of 256 colors.  A board is
+ * then drawn by copying the palette indices of its 64 tiles into an indexed image, which needs no
+ * drawing or color conversion per image and is written with its palette in both the PNG and the GIF formats.
+ * A renderer is not modified once constructed, so any number of threads can use it at once
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class BoardRenderer {
+
+	/**
+	 * The location of the sprite sheet within the class path
+	 */
+	public static final String SHEET_RESOURCE = "/generated/tilemap.png";
+
+	/**
+	 * The default size of a square in pixels, the size of a tile of the board view
+	 */
+	public static final int DEFAULT_SQUARE_SIZE = 64;
+
+	/**
+	 * The default delay between the frames of a game in milliseconds
+	 */
+	public static final int DEFAULT_FRAME_DELAY = 500;
+
+	/**
+	 * The color of the light squares, the color of the even files of the board view
+	 */
+	private static final Color LIGHT_SQUARE_COLOR = new Color(255, 205, 158);
+
+	/**
+	 * The color of the dark squares, the color of the odd files of the board view
+	 */
+	private static final Color DARK_SQUARE_COLOR = new Color(209, 139, 71);
+
+	/**
+	 * The first bytes of a PNG image
+	 */
+	private static final byte[] PNG_SIGNATURE = { (byte)137, 80, 78, 71, 13, 10, 26, 10 };
+
+	/**
+	 * The column of each piece type within the sprite sheet, the white pieces being on the first row
+	 * and the black pieces on the second, see tilemap.xml
+	 */
+	private static final int[] SHEET_COLUMNS = { 5, 3, 2, 4, 1, 0 };
+
+	/**
+	 * The number of games rendered by a thread of a batch before it claims more
+	 */
+	private static final int BLOCK_SIZE = 64;
+
+	/**
+	 * The size of a square in pixels
+	 */
+	private final int _squareSize;
+
+	/**
+	 * The palette shared by every image of the renderer
+	 */
+	private final IndexColorModel _palette;
+
+	/**
+	 * The palette indices of each tile, indexed by the piece plus one so that an empty square comes
+	 * first, then by the color of the square with the light squares first
+	 */
+	private final byte[][][] _tiles = new byte[Pieces.COUNT + 1][2][];
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param sheet The sprite sheet of the pieces
+	 * @param squareSize The size of a square in pixels
+	 */
+	public BoardRenderer(BufferedImage sheet, int squareSize) {
+		_squareSize = squareSize;
+
+		// Every tile is drawn side by side on a single image so that the palette is built from all of them
+		BufferedImage atlas = new BufferedImage(_squareSize * _tiles.length, _squareSize * 2, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = atlas.createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		int cellSize = sheet.getHeight() / 2;
+		Color[] squareColors = { LIGHT_SQUARE_COLOR, DARK_SQUARE_COLOR };
+		for(int tile = 0; tile < _tiles.length; ++tile) {
+			for(int squareColor = 0; squareColor < 2; ++squareColor) {
+				int x = tile * _squareSize;
+				int y = squareColor * _squareSize;
+				graphics.setColor(squareColors[squareColor]);
+				graphics.fillRect(x, y, _squareSize, _squareSize);
+				if(tile > 0) {
+					int piece = tile - 1;
+					int sheetX = SHEET_COLUMNS[Pieces.type(piece)] * cellSize;
+					int sheetY = Pieces.color(piece) * cellSize;
+					graphics.drawImage(sheet, x, y, x + _squareSize, y + _squareSize, sheetX, sheetY, sheetX + cellSize, sheetY + cellSize, null);
+				}
+			}
+		}
+		graphics.dispose();
+
+		int[] pixels = atlas.getRGB(0, 0, atlas.getWidth(), atlas.getHeight(), null, 0, atlas.getWidth());
+		int[] colors = createPalette(pixels);
+		_palette = new IndexColorModel(8, colors.length, colors, 0, false, -1, DataBuffer.TYPE_BYTE);
+
+		Map<Integer, Byte> indices = new HashMap<>();
+		for(int tile = 0; tile < _tiles.length; ++tile) {
+			for(int squareColor = 0; squareColor < 2; ++squareColor) {
+				byte[] indexedTile = new byte[_squareSize * _squareSize];
+				for(int y = 0; y < _squareSize; ++y) {
+					for(int x = 0; x < _squareSize; ++x) {
+						int rgb = pixels[(squareColor * _squareSize + y) * atlas.getWidth() + tile * _squareSize + x];
+						indexedTile[y * _squareSize + x] = indices.computeIfAbsent(rgb, key -> (byte)findNearest(colors, key));
+					}
+				}
+				_tiles[tile][squareColor] = indexedTile;
+			}
+		}
+	}
+
+	/**
+	 * Creates a renderer from the sprite sheet of the class path
+	 *
+	 * @param squareSize The size of a square in pixels
+	 *
+	 * @return The renderer
+	 *
+	 * @throws IOException If the sprite sheet cannot be read
+	 */
+	public static BoardRenderer load(int squareSize) throws IOException {
+		try(InputStream stream = BoardRenderer.class.getResourceAsStream(SHEET_RESOURCE)) {
+			if(stream == null) {
+				throw new IOException("The sprite sheet " + SHEET_RESOURCE + " is not in the class path");
+			}
+			return new BoardRenderer(ImageIO.read(stream), squareSize);
+		}
+	}
+
+	/**
+	 * @return The size of a square in pixels
+	 */
+	public int getSquareSize() {
+		return _squareSize;
+	}
+
+	/**
+	 * Draws a position, seen from the side of white
+	 *
+	 * @param position The position
+	 *
+	 * @return The image of the board
+	 */
+	public BufferedImage render(Position position) {
+		int[] pieces = new int[64];
+		for(int square = 0; square < 64; ++square) {
+			pieces[square] = position.getPiece(square);
+		}
+		return render(pieces);
+	}
+
+	/**
+	 * Draws the pieces of a board, seen from the side of white
+	 *
+	 * @param pieces The piece on each square, or {@link Pieces#NONE} for an empty square
+	 *
+	 * @return The image of the board
+	 */
+	public BufferedImage render(int[] pieces) {
+		int size = _squareSize * 8;
+		BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_BYTE_INDEXED, _palette);
+		byte[] pixels = ((DataBufferByte)image.getRaster().getDataBuffer()).getData();
+
+		// The eighth rank is drawn first, and the top left square is a light square
+		for(int row = 0; row < 8; ++row) {
+			for(int file = 0; file < 8; ++file) {
+				byte[] tile = _tiles[pieces[(7 - row) * 8 + file] + 1][(row + file) % 2];
+				int offset = row * _squareSize * size + file * _squareSize;
+				for(int y = 0; y < _squareSize; ++y) {
+					System.arraycopy(tile, y * _squareSize, pixels, offset + y * size, _squareSize);
+				}
+			}
+		}
+		return image;
+	}
+
+	/**
+	 * Draws every position of a game, the frames being drawn in parallel once the moves are played
+	 *
+	 * @param position The starting position of the game, which is left at the end of the game
+	 * @param moves The moves of the game
+	 * @param count The number of moves
+	 *
+	 * @return The image of the starting position followed by the image after each move
+	 */
+	public BufferedImage[] renderGame(Position position, int[] moves, int count) {
+		// Only the placement of the pieces is kept for each frame, playing the moves cannot be done in parallel
+		int[][] frames = new int[count + 1][64];
+		for(int i = 0; i <= count; ++i) {
+			if(i > 0) {
+				position.makeMove(moves[i - 1]);
+			}
+			for(int square = 0; square < 64; ++square) {
+				frames[i][square] = position.getPiece(square);
+			}
+		}
+		BufferedImage[] images = new BufferedImage[frames.length];
+		IntStream.range(0, frames.length).parallel().forEach(i -> images[i] = render(frames[i]));
+		return images;
+	}
+
+	/**
+	 * Writes an image drawn by a renderer in the PNG format.  The image is written with its palette
+	 * and without filtering its rows, which suits the few colors of a board and takes a fraction of
+	 * the time of the image writers that try every filter on every row
+	 *
+	 * @param image The image, drawn by a renderer
+	 * @param file The path of the image, which is created or replaced
+	 *
+	 * @throws IOException If the image cannot be written
+	 */
+	public static void writePng(BufferedImage image, Path file) throws IOException {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		IndexColorModel palette = (IndexColorModel)image.getColorModel();
+		byte[] pixels = ((DataBufferByte)image.getRaster().getDataBuffer()).getData();
+
+		try(DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 14))) {
+			stream.write(PNG_SIGNATURE);
+
+			ByteBuffer header = ByteBuffer.allocate(13);
+			header.putInt(width).putInt(height).put((byte)8).put((byte)3).put((byte)0).put((byte)0).put((byte)0);
+			writeChunk(stream, "IHDR", header.array(), header.capacity());
+
+			byte[] colors = new byte[palette.getMapSize() * 3];
+			for(int i = 0; i < palette.getMapSize(); ++i) {
+				colors[i * 3] = (byte)palette.getRed(i);
+				colors[i * 3 + 1] = (byte)palette.getGreen(i);
+				colors[i * 3 + 2] = (byte)palette.getBlue(i);
+			}
+			writeChunk(stream, "PLTE", colors, colors.length);
+
+			// Each row starts with the byte of its filter, none of them being filtered
+			byte[] rows = new byte[(width + 1) * height];
+			for(int y = 0; y < height; ++y) {
+				System.arraycopy(pixels, y * width, rows, y * (width + 1) + 1, width);
+			}
+			Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+			try {
+				deflater.setInput(rows);
+				deflater.finish();
+				byte[] data = new byte[rows.length + 64];
+				int length = 0;
+				while(!deflater.finished()) {
+					if(length == data.length) {
+						data = Arrays.copyOf(data, data.length * 2);
+					}
+					length += deflater.deflate(data, length, data.length - length);
+				}
+				writeChunk(stream, "IDAT", data, length);
+			}
+			finally {
+				deflater.end();
+			}
+			writeChunk(stream, "IEND", new byte[0], 0);
+		}
+	}
+
+	/**
+	 * Writes images as an animated GIF that repeats forever
+	 *
+	 * @param frames The images drawn by a renderer, which must all have the same size
+	 * @param delay The delay between the images in milliseconds
+	 * @param file The path of the animation, which is created or replaced
+	 *
+	 * @throws IOException If the animation cannot be written
+	 */
+	public static void writeGif(BufferedImage[] frames, int delay, Path file) throws IOException {
+		try(ImageOutputStream stream = ImageIO.createImageOutputStream(Files.newOutputStream(file))) {
+			ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+			try {
+				writer.setOutput(stream);
+				ImageWriteParam parameters = writer.getDefaultWriteParam();
+
+				// The palette of the images is written once as the global palette, the writer would otherwise map the indices to its own palette
+				IIOMetadata streamMetadata = writer.getDefaultStreamMetadata(parameters);
+				String streamFormat = streamMetadata.getNativeMetadataFormatName();
+				IIOMetadataNode streamRoot = (IIOMetadataNode)streamMetadata.getAsTree(streamFormat);
+				IndexColorModel palette = (IndexColorModel)frames[0].getColorModel();
+				IIOMetadataNode colorTable = new IIOMetadataNode("GlobalColorTable");
+				colorTable.setAttribute("sizeOfGlobalColorTable", Integer.toString(palette.getMapSize()));
+				colorTable.setAttribute("backgroundColorIndex", "0");
+				colorTable.setAttribute("sortFlag", "FALSE");
+				for(int i = 0; i < palette.getMapSize(); ++i) {
+					IIOMetadataNode entry = new IIOMetadataNode("ColorTableEntry");
+					entry.setAttribute("index", Integer.toString(i));
+					entry.setAttribute("red", Integer.toString(palette.getRed(i)));
+					entry.setAttribute("green", Integer.toString(palette.getGreen(i)));
+					entry.setAttribute("blue", Integer.toString(palette.getBlue(i)));
+					colorTable.appendChild(entry);
+				}
+				streamRoot.appendChild(colorTable);
+				streamMetadata.setFromTree(streamFormat, streamRoot);
+				writer.prepareWriteSequence(streamMetadata);
+
+				for(int i = 0; i < frames.length; ++i) {
+					IIOMetadata metadata = writer.getDefaultImageMetadata(new ImageTypeSpecifier(frames[i]), parameters);
+					String format = metadata.getNativeMetadataFormatName();
+					IIOMetadataNode root = (IIOMetadataNode)metadata.getAsTree(format);
+
+					IIOMetadataNode control = new IIOMetadataNode("GraphicControlExtension");
+					control.setAttribute("disposalMethod", "none");
+					control.setAttribute("userInputFlag", "FALSE");
+					control.setAttribute("transparentColorFlag", "FALSE");
+					control.setAttribute("delayTime", Integer.toString(delay / 10));
+					control.setAttribute("transparentColorIndex", "0");
+					root.appendChild(control);
+
+					// The first image tells the viewers to repeat the animation forever
+					if(i == 0) {
+						IIOMetadataNode extensions = new IIOMetadataNode("ApplicationExtensions");
+						IIOMetadataNode extension = new IIOMetadataNode("ApplicationExtension");
+						extension.setAttribute("applicationID", "NETSCAPE");
+						extension.setAttribute("authenticationCode", "2.0");
+						extension.setUserObject(new byte[] { 1, 0, 0 });
+						extensions.appendChild(extension);
+						root.appendChild(extensions);
+					}
+					metadata.setFromTree(format, root);
+					writer.writeToSequence(new IIOImage(frames[i], null, metadata), parameters);
+				}
+				writer.endWriteSequence();
+			}
+			finally {
+				writer.dispose();
+			}
+		}
+	}
+
+	/**
+	 * Writes a chunk of a PNG image, which is followed by the checksum of its type and data
+	 *
+	 * @param stream The stream of the image
+	 * @param type The type of the chunk
+	 * @param data The data of the chunk
+	 * @param length The length of the data
+	 *
+	 * @throws IOException If the chunk cannot be written
+	 */
+	private static void writeChunk(DataOutputStream stream, String type, byte[] data, int length) throws IOException {
+		byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		CRC32 checksum = new CRC32();
+		checksum.update(typeBytes);
+		checksum.update(data, 0, length);
+		stream.writeInt(length);
+		stream.write(typeBytes);
+		stream.write(data, 0, length);
+		stream.writeInt((int)checksum.getValue());
+	}
+
+	/**
+	 * Creates the palette of the tiles, which holds the colors most used by them.  The colors left
+	 * out are the blends along the edges of the pieces, which are drawn with the nearest color kept
+	 *
+	 * @param pixels The pixels of every tile
+	 *
+	 * @return The 256 colors of the palette, the unused ones being black since the GIF writer only
+	 * reads palettes whose size is a power of two
+	 */
+	private static int[] createPalette(int[] pixels) {
+		Map<Integer, Integer> counts = new HashMap<>();
+		for(int pixel : pixels) {
+			counts.merge(pixel, 1, Integer::sum);
+		}
+		List<Map.Entry<Integer, Integer>> entries = new ArrayList<>(counts.entrySet());
+		entries.sort((first, second) -> Integer.compare(second.getValue(), first.getValue()));
+		int[] colors = new int[256];
+		Iterator<Map.Entry<Integer, Integer>> iterator = entries.iterator();
+		for(int i = 0; i < Math.min(colors.length, entries.size()); ++i) {
+			colors[i] = iterator.next().getKey();
+		}
+		return colors;
+	}
+
+	/**
+	 * Finds the color of a palette nearest to a color
+	 *
+	 * @param colors The colors of the palette
+	 * @param rgb The color
+	 *
+	 * @return The index of the nearest color within the palette
+	 */
+	private static int findNearest(int[] colors, int rgb) {
+		int nearest = 0;
+		int nearestDistance = Integer.MAX_VALUE;
+		for(int i = 0; i < colors.length; ++i) {
+			int red = (colors[i] >> 16 & 0xFF) - (rgb >> 16 & 0xFF);
+			int green = (colors[i] >> 8 & 0xFF) - (rgb >> 8 & 0xFF);
+			int blue = (colors[i] & 0xFF) - (rgb & 0xFF);
+			int distance = red * red + green * green + blue * blue;
+			if(distance < nearestDistance) {
+				nearest = i;
+				nearestDistance = distance;
+			}
+		}
+		return nearest;
+	}
+
+	/**
+	 * Renders a position, a game or the games of an archive from the command line
+	 *
+	 * @param args The arguments, see the usage
+	 *
+	 * @throws Exception If an image cannot be written
+	 */
+	public static void main(String[] args) throws Exception {
+		String fen = null;
+		String archive = null;
+		String output = null;
+		long game = -1;
+		long first = 0;
+		long count = Long.MAX_VALUE;
+		boolean isAnimated = false;
+		int squareSize = DEFAULT_SQUARE_SIZE;
+		int delay = DEFAULT_FRAME_DELAY;
+		int threads = Runtime.getRuntime().availableProcessors();
+		for(int i = 0; i < args.length; ++i) {
+			switch(args[i]) {
+			case "-fen":
+				fen = args[++i];
+				break;
+			case "-archive":
+				archive = args[++i];
+				break;
+			case "-game":
+				game = Long.parseLong(args[++i]);
+				break;
+			case "-first":
+				first = Long.parseLong(args[++i]);
+				break;
+			case "-count":
+				count = Long.parseLong(args[++i]);
+				break;
+			case "-gif":
+				isAnimated = true;
+				break;
+			case "-out":
+				output = args[++i];
+				break;
+			case "-size":
+				squareSize = Integer.parseInt(args[++i]);
+				break;
+			case "-delay":
+				delay = Integer.parseInt(args[++i]);
+				break;
+			case "-threads":
+				threads = Integer.parseInt(args[++i]);
+				break;
+			default:
+				output = null;
+				i = args.length;
+				break;
+			}
+		}
+		if(output == null || (fen == null) == (archive == null)) {
+			System.out.println("Usage: BoardRenderer -fen <position> -out <png>");
+			System.out.println("       BoardRenderer -archive <file> -game <index> -out <gif>");
+			System.out.println("       BoardRenderer -archive <file> -out <directory> [-first <index>] [-count <games>] [-gif] [-threads <count>]");
+			System.out.println("       [-size <pixels>] [-delay <ms>]");
+			return;
+		}
+
+		// The images are only held in the heap, the cache files of the image streams would slow every write
+		System.setProperty("java.awt.headless", "true");
+		ImageIO.setUseCache(false);
+		BoardRenderer renderer = load(squareSize);
+		if(fen != null) {
+			writePng(renderer.render(Fen.parse(fen)), Paths.get(output));
+			return;
+		}
+
+		try(GameArchive gameArchive = new GameArchive(Paths.get(archive))) {
+			if(game >= 0) {
+				Position position = gameArchive.createStartingPosition(game);
+				int[] moves = new int[gameArchive.getMoveCount(game)];
+				int moveCount = gameArchive.getMoves(game, new Position(position), moves);
+				writeGif(renderer.renderGame(position, moves, moveCount), delay, Paths.get(output));
+				return;
+			}
+
+			// Each thread claims blocks of games and writes the last position of each, or all of its positions as an animation
+			Path directory = Files.createDirectories(Paths.get(output));
+			long last = Math.min(gameArchive.getGameCount(), first + Math.min(count, gameArchive.getGameCount()));
+			AtomicLong nextGame = new AtomicLong(first);
+			boolean writesAnimations = isAnimated;
+			int frameDelay = delay;
+			long startTime = System.currentTimeMillis();
+			ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+			try {
+				List<Future<Void>> workers = new ArrayList<>();
+				for(int i = 0; i < Math.max(1, threads); ++i) {
+					workers.add(executor.submit(() -> {
+						int[] moves = new int[Position.MAX_HISTORY];
+						long block;
+						while((block = nextGame.getAndAdd(BLOCK_SIZE)) < last) {
+							for(long index = block; index < Math.min(block + BLOCK_SIZE, last); ++index) {
+								Position position = gameArchive.createStartingPosition(index);
+								if(writesAnimations) {
+									int moveCount = gameArchive.getMoves(index, new Position(position), moves);
+									writeGif(renderer.renderGame(position, moves, moveCount), frameDelay, directory.resolve(index + ".gif"));
+								}
+								else {
+									gameArchive.getMoves(index, position, moves);
+									writePng(renderer.render(position), directory.resolve(index + ".png"));
+								}
+							}
+						}
+						return null;
+					}));
+				}
+				for(Future<Void> worker : workers) {
+					worker.get();
+				}
+			}
+			catch(ExecutionException exception) {
+				throw exception.getCause() instanceof IOException ? (IOException)exception.getCause() : new IOException(exception.getCause());
+			}
+			finally {
+				executor.shutdownNow();
+			}
+			long elapsedTime = Math.max(1, System.currentTimeMillis() - startTime);
+			System.out.println(String.format("Rendered %d games in %.1fs: %.0f games/s", last - first, elapsedTime / 1000.0, (last - first) * 1000.0 / elapsedTime));
+		}
+	}
+}
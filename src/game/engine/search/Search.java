@@ -0,0 +1,1194 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.search;
+
+import java.util.Arrays;
+
+import game.engine.board.Move;
+import game.engine.board.MoveGenerator;
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+import game.engine.evaluation.MaterialEvaluator;
+import game.engine.evaluation.PawnStructureEvaluator;
+import game.engine.interfaces.IEvaluator;
+import game.engine.interfaces.IProgressListener;
+import game.engine.interfaces.ITablebase;
+import game.engine.search.SearchSettings.SelectiveTechnique;
+import game.engine.tablebase.Tablebases;
+
+/**
+ * An iterative deepening principal variation search with a quiescence search at the horizon.
+ *
+ * The search operates on its own copy of the position so that the caller's position is never
+ * modified.  A single instance must not be used by more than one thread at a time, however
+ * the transposition table may be shared between instances
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class Search {
+
+	/**
+	 * The maximum ply that the search can reach
+	 */
+	public static final int MAX_PLY = 128;
+
+	/**
+	 * The number of moves a game can hold before a search, which leaves the history of the position
+	 * enough room for the moves made by the search itself
+	 */
+	public static final int MAX_GAME_HISTORY = Position.MAX_HISTORY - 1 - MAX_PLY;
+
+	/**
+	 * A score larger than any reachable score
+	 */
+	public static final int INFINITY = 32000;
+
+	/**
+	 * The score of being checkmated at the root
+	 */
+	public static final int MATE = 31000;
+
+	/**
+	 * Any score beyond this bound is a forced mate
+	 */
+	public static final int MATE_BOUND = MATE - MAX_PLY;
+
+	/**
+	 * The score of a position won according to the endgame tablebases, at the root
+	 */
+	public static final int TABLEBASE_WIN = MATE_BOUND - 1;
+
+	/**
+	 * The lowest score of a position won according to the endgame tablebases
+	 */
+	public static final int TABLEBASE_BOUND = TABLEBASE_WIN - MAX_PLY;
+
+	/**
+	 * The margin added to the static evaluation before pruning a quiet move, indexed by depth
+	 */
+	private static final int[] FUTILITY_MARGINS = { 0, 200, 350 };
+
+	/**
+	 * The margin added to the static evaluation before razoring, indexed by depth
+	 */
+	private static final int[] RAZOR_MARGINS = { 0, 300, 550 };
+
+	/**
+	 * The margin per ply removed from the static evaluation before cutting off a node that is far above beta
+	 */
+	private static final int REVERSE_FUTILITY_MARGIN = 120;
+
+	/**
+	 * The history scores are divided by two to the power of this value between two searches
+	 */
+	private static final int HISTORY_AGING = 2;
+
+	/**
+	 * The depth reduction of late moves, indexed by depth and then move number
+	 */
+	private static final int[][] LATE_MOVE_REDUCTIONS = new int[64][64];
+
+	static {
+		for(int depth = 1; depth < 64; ++depth) {
+			for(int moveNumber = 1; moveNumber < 64; ++moveNumber) {
+				LATE_MOVE_REDUCTIONS[depth][moveNumber] = (int)(0.75 + Math.log(depth) * Math.log(moveNumber) / 2.25);
+			}
+		}
+	}
+
+	/**
+	 * The transposition table used by the search
+	 */
+	private final TranspositionTable _table;
+
+	/**
+	 * The switches of the selective search techniques
+	 */
+	private final SearchSettings _settings;
+
+	/**
+	 * The counters of the current search
+	 */
+	private final SearchStatistics _statistics = new SearchStatistics();
+
+	/**
+	 * The evaluator applied at the leaves of the search
+	 */
+	private volatile IEvaluator _evaluator;
+
+	/**
+	 * The evaluator of the current search, whose accumulator is attached to the position being searched.
+	 * It is captured when the search starts, so that an evaluator set while searching only applies to
+	 * the next search and never evaluates a position whose accumulator it does not own
+	 */
+	private IEvaluator _accumulatedEvaluator;
+
+	/**
+	 * The listener notified after each completed iteration, or null
+	 */
+	private volatile IProgressListener _progressListener;
+
+	/**
+	 * The endgame tablebases, or null if there are none
+	 */
+	private ITablebase _tablebase;
+
+	/**
+	 * The position being searched
+	 */
+	private final Position _position = new Position();
+
+	/**
+	 * The move buffers of each ply
+	 */
+	private final int[][] _moves = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+
+	/**
+	 * The ordering scores of the move buffers of each ply
+	 */
+	private final int[][] _moveScores = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+
+	/**
+	 * The two most recent quiet moves that caused a cutoff at each ply
+	 */
+	private final int[][] _killers = new int[MAX_PLY + 1][2];
+
+	/**
+	 * The history score of quiet moves, indexed by piece and then to square
+	 */
+	private final int[][] _history = new int[Pieces.COUNT][64];
+
+	/**
+	 * The principal variation found at each ply
+	 */
+	private final int[][] _principalVariation = new int[MAX_PLY + 1][MAX_PLY + 1];
+
+	/**
+	 * The length of the principal variation at each ply
+	 */
+	private final int[] _principalVariationLength = new int[MAX_PLY + 1];
+
+	/**
+	 * Indicates that the search must stop as soon as possible
+	 */
+	private volatile boolean _stopped;
+
+	/**
+	 * Indicates that the search is pondering, during which the time limits are ignored
+	 */
+	private volatile boolean _pondering;
+
+	/**
+	 * Indicates that the stop and ponder requests of the next search were already reset by {@link #prepare(SearchLimits)}
+	 */
+	private volatile boolean _isPrepared;
+
+	/**
+	 * The time manager of the current search, or null
+	 */
+	private TimeManager _timeManager;
+
+	/**
+	 * The time at which the search must stop, or zero for no limit
+	 */
+	private volatile long _deadline;
+
+	/**
+	 * The time in milliseconds given to the search, or zero for no limit
+	 */
+	private long _deadlineTime;
+
+	/**
+	 * The number of nodes at which the search must stop, or zero for no limit
+	 */
+	private long _nodeLimit;
+
+	/**
+	 * The last depth that was completely searched
+	 */
+	private int _completedDepth;
+
+	/**
+	 * The result of the last completed iteration of the current search, or null
+	 */
+	private volatile SearchResult _lastResult;
+
+	/**
+	 * The best lines of the last completed iteration of the current search, ordered from the best
+	 */
+	private volatile SearchResult[] _lastLines = new SearchResult[0];
+
+	/**
+	 * The first move of each line already found in the current iteration, which are skipped at the root
+	 * when searching for the next line
+	 */
+	private final int[] _lineMoves = new int[MoveGenerator.MAX_MOVES];
+
+	/**
+	 * The index of the line being searched in the current iteration
+	 */
+	private int _lineIndex;
+
+	/**
+	 * The time at which the current search started
+	 */
+	private volatile long _startTime;
+
+	/**
+	 * The number of half moves played in the game before the root of the last search, or -1 before the first search
+	 */
+	private int _rootPly = -1;
+
+	/**
+	 * The hash of the position expected after the best move of the last search and its predicted reply, or zero
+	 */
+	private long _predictedKey;
+
+	/**
+	 * The rest of the principal variation of the last search after its predicted reply, or null
+	 */
+	private SearchResult _predictedResult;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param table The transposition table
+	 * @param settings The switches of the selective search techniques
+	 */
+	public Search(TranspositionTable table, SearchSettings settings) {
+		_table = table;
+		_settings = settings;
+		_evaluator = new PawnStructureEvaluator();
+		_tablebase = Tablebases.getDefault();
+	}
+
+	/**
+	 * Sets the endgame tablebases probed by the search
+	 *
+	 * @param tablebase The endgame tablebases, or null to not use any
+	 */
+	public void setTablebase(ITablebase tablebase) {
+		_tablebase = tablebase;
+	}
+
+	/**
+	 * Sets the evaluator applied at the leaves of the search, taking effect when the next search starts.
+	 * An evaluator that needs an accumulator gets it attached to the position being searched then
+	 *
+	 * @param evaluator The evaluator
+	 */
+	public void setEvaluator(IEvaluator evaluator) {
+		_evaluator = evaluator;
+	}
+
+	/**
+	 * Sets the listener notified from the searching thread after each completed iteration
+	 *
+	 * @param progressListener The listener, or null to not notify any
+	 */
+	public void setProgressListener(IProgressListener progressListener) {
+		_progressListener = progressListener;
+	}
+
+	/**
+	 * @return The evaluator applied at the leaves of the search
+	 */
+	public IEvaluator getEvaluator() {
+		return _evaluator;
+	}
+
+	/**
+	 * @return The counters of the current or last search
+	 */
+	public SearchStatistics getStatistics() {
+		return _statistics;
+	}
+
+	/**
+	 * @return The result of the last completed iteration of the current or last search, or null
+	 */
+	public SearchResult getLastResult() {
+		return _lastResult;
+	}
+
+	/**
+	 * @return The best lines of the last completed iteration of the current or last search, ordered from the best
+	 */
+	public SearchResult[] getLines() {
+		return _lastLines;
+	}
+
+	/**
+	 * @return The time in milliseconds since the current or last search started
+	 */
+	public long getElapsedTime() {
+		return System.currentTimeMillis() - _startTime;
+	}
+
+	/**
+	 * Forgets everything learned by the previous searches, this should be called when a new game starts
+	 */
+	public void clear() {
+		_table.clear();
+		for(int[] killers : _killers) {
+			Arrays.fill(killers, Move.NONE);
+		}
+		for(int[] history : _history) {
+			Arrays.fill(history, 0);
+		}
+		_rootPly = -1;
+		_predictedKey = 0;
+		_predictedResult = null;
+	}
+
+	/**
+	 * @return The transposition table of the search
+	 */
+	public TranspositionTable getTable() {
+		return _table;
+	}
+
+	/**
+	 * @return The switches of the selective search techniques
+	 */
+	public SearchSettings getSettings() {
+		return _settings;
+	}
+
+	/**
+	 * Resets the stop and ponder requests ahead of a search that another thread is about to start.
+	 * A stop or a ponder hit requested after this call applies to that search even if its thread has
+	 * not entered {@link #search(Position, SearchLimits)} yet, which would otherwise reset the request
+	 *
+	 * @param limits The limits of the next search
+	 */
+	public void prepare(SearchLimits limits) {
+		_stopped = false;
+		_pondering = limits.ponder;
+		_timeManager = limits.timeManager;
+		_isPrepared = true;
+	}
+
+	/**
+	 * Requests that the running search stops as soon as possible.  The search still returns
+	 * the result of the last completed iteration
+	 */
+	public void stop() {
+		_stopped = true;
+	}
+
+	/**
+	 * Indicates that the predicted move being pondered on was played.  The search continues as a
+	 * normal search and its time limits apply from now on
+	 */
+	public void ponderHit() {
+		if(_timeManager != null) {
+			_timeManager.restart();
+		}
+		if(_deadline != 0) {
+			_deadline = System.currentTimeMillis() + _deadlineTime;
+		}
+		_pondering = false;
+	}
+
+	/**
+	 * @return TRUE if the search is pondering on a predicted move
+	 */
+	public boolean isPondering() {
+		return _pondering;
+	}
+
+	/**
+	 * Searches the specified position
+	 *
+	 * @param position The position to search, it is not modified
+	 * @param limits The limits of the search
+	 *
+	 * @return The result of the last completed iteration, or null if there are no legal moves
+	 */
+	public SearchResult search(Position position, SearchLimits limits) {
+		IEvaluator evaluator = _evaluator;
+		if(evaluator != _accumulatedEvaluator) {
+			_position.setAccumulator(evaluator.createAccumulator());
+			_accumulatedEvaluator = evaluator;
+		}
+		_position.copyFrom(position);
+		_startTime = System.currentTimeMillis();
+		_lastResult = null;
+		_lastLines = new SearchResult[0];
+		_statistics.reset();
+		_table.incrementAge();
+		if(!_isPrepared) {
+			_stopped = false;
+			_pondering = limits.ponder;
+		}
+		_isPrepared = false;
+		_timeManager = limits.timeManager;
+		_completedDepth = 0;
+		_deadlineTime = limits.time;
+		_deadline = limits.time > 0 ? System.currentTimeMillis() + limits.time : 0;
+		_nodeLimit = limits.nodes;
+		ageHistory();
+
+		// When the expected reply was played, the rest of the previous principal variation stands in
+		// until the first iteration completes and its score centers the windows from the start
+		SearchResult predictedResult = _predictedKey == _position.getKey() ? _predictedResult : null;
+		_predictedKey = 0;
+		_predictedResult = null;
+
+		// A position held by the endgame tablebases is settled by a lookup rather than a search
+		SearchResult result = probeTablebaseRoot();
+		if(result != null) {
+			_lastResult = result;
+			_lastLines = new SearchResult[] { result };
+			notifyProgress();
+			return result;
+		}
+
+		// Each iteration searches the lines one after the other, the root of each line skipping the first
+		// moves of the lines already found, so that every line benefits from the table filled by the others
+		int lineCount = Math.max(1, Math.min(limits.lines, MoveGenerator.generateLegal(_position, _moves[0])));
+		int[] scores = new int[lineCount];
+		int windowDepth = 5;
+		if(predictedResult != null && lineCount == 1) {
+			scores[0] = predictedResult.score;
+			windowDepth = 1;
+			result = predictedResult;
+		}
+		for(int depth = 1; depth <= Math.min(limits.depth, MAX_PLY - 1); ++depth) {
+			SearchResult[] lines = new SearchResult[lineCount];
+			for(_lineIndex = 0; _lineIndex < lineCount; ++_lineIndex) {
+
+				// Use a narrow window around the previous score once the score has stabilized
+				int delta = 25;
+				int alpha = depth >= windowDepth ? Math.max(-INFINITY, scores[_lineIndex] - delta) : -INFINITY;
+				int beta = depth >= windowDepth ? Math.min(INFINITY, scores[_lineIndex] + delta) : INFINITY;
+				while(true) {
+					int value = search(depth, alpha, beta, 0, true);
+					if(_stopped) {
+						break;
+					}
+					if(value <= alpha) {
+						alpha = Math.max(-INFINITY, alpha - delta);
+						delta *= 2;
+					}
+					else if(value >= beta) {
+						beta = Math.min(INFINITY, beta + delta);
+						delta *= 2;
+					}
+					else {
+						scores[_lineIndex] = value;
+						break;
+					}
+				}
+
+				if(_stopped) {
+					break;
+				}
+				if(_principalVariationLength[0] == 0) {
+					return result != null ? result : createRootFallback();
+				}
+				lines[_lineIndex] = new SearchResult(depth, scores[_lineIndex], Arrays.copyOf(_principalVariation[0], _principalVariationLength[0]));
+				_lineMoves[_lineIndex] = _principalVariation[0][0];
+			}
+
+			if(_stopped) {
+				break;
+			}
+
+			// A later line can score above an earlier one when the earlier window failed, so order them again
+			Arrays.sort(lines, (first, second) -> Integer.compare(second.score, first.score));
+			for(int i = 0; i < lineCount; ++i) {
+				scores[i] = lines[i].score;
+			}
+
+			_completedDepth = depth;
+			result = lines[0];
+			_lastResult = result;
+			_lastLines = lines;
+			notifyProgress();
+
+			// A forced mate within the searched depth will not change with a deeper search
+			if(lineCount == 1 && result.isMateScore() && MATE - Math.abs(result.score) <= depth) {
+				break;
+			}
+
+			// Do not start an iteration that is not expected to complete within the allocated time
+			if(_timeManager != null) {
+				_timeManager.update(depth, result.getBestMove(), result.score);
+				if(!_pondering && _timeManager.isOptimumTimeReached()) {
+					break;
+				}
+			}
+		}
+
+		// A search stopped before its first iteration completed still answers with a legal move
+		if(result == null) {
+			result = createRootFallback();
+			_lastResult = result;
+		}
+		predict(result);
+		return result;
+	}
+
+	/**
+	 * Creates the result of a search that did not complete any iteration, which plays the move of
+	 * the transposition table if it is legal and the first legal move otherwise
+	 *
+	 * @return The result, or null if there are no legal moves
+	 */
+	private SearchResult createRootFallback() {
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegal(_position, moves);
+		if(count == 0) {
+			return null;
+		}
+		int move = moves[0];
+		int tableMove = TranspositionTable.getMove(_table.probe(_position.getKey()));
+		for(int i = 0; i < count; ++i) {
+			if(moves[i] == tableMove) {
+				move = tableMove;
+				break;
+			}
+		}
+		return new SearchResult(0, 0, new int[] { move });
+	}
+
+	/**
+	 * Ages the killer moves and the history scores of the previous search so that the next move of
+	 * the same game starts with them.  The killers move closer to the root by the number of half moves
+	 * played since, and everything is cleared when the position does not follow the previous one
+	 */
+	private void ageHistory() {
+		int rootPly = (_position.getFullMoveNumber() - 1) * 2 + (_position.getSideToMove() == Pieces.BLACK ? 1 : 0);
+		int shift = rootPly - _rootPly;
+		boolean isSameGame = _rootPly >= 0 && shift >= 0 && shift <= MAX_PLY;
+		_rootPly = rootPly;
+
+		for(int ply = 0; ply <= MAX_PLY; ++ply) {
+			int source = ply + shift;
+			boolean isKept = isSameGame && source <= MAX_PLY;
+			_killers[ply][0] = isKept ? _killers[source][0] : Move.NONE;
+			_killers[ply][1] = isKept ? _killers[source][1] : Move.NONE;
+		}
+		for(int[] history : _history) {
+			for(int i = 0; i < history.length; ++i) {
+				history[i] = isSameGame ? history[i] >> HISTORY_AGING : 0;
+			}
+		}
+	}
+
+	/**
+	 * Remembers the position expected two half moves after the root of the search, reached when the
+	 * best move is played and the opponent answers with the predicted reply
+	 *
+	 * @param result The result of the search, or null
+	 */
+	private void predict(SearchResult result) {
+		if(result == null || result.principalVariation.length < 3) {
+			return;
+		}
+		int[] principalVariation = result.principalVariation;
+		_position.makeMove(principalVariation[0]);
+		_position.makeMove(principalVariation[1]);
+		_predictedKey = _position.getKey();
+		_position.unmakeMove(principalVariation[1]);
+		_position.unmakeMove(principalVariation[0]);
+
+		// A mate is two half moves closer once the moves are played
+		int score = result.isMateScore() ? result.score + (result.score > 0 ? 2 : -2) : result.score;
+		_predictedResult = new SearchResult(Math.max(1, result.depth - 2), score, Arrays.copyOfRange(principalVariation, 2, principalVariation.length));
+	}
+
+	/**
+	 * Notifies the progress listener of the lines of the last completed iteration
+	 */
+	private void notifyProgress() {
+		IProgressListener progressListener = _progressListener;
+		if(progressListener != null) {
+			progressListener.onIterationCompleted(this, _lastLines);
+		}
+	}
+
+	/**
+	 * Verifies if any of the limits of the search have been reached.  The first iteration is always
+	 * completed so that there is a move to play, and the time limits do not apply while pondering
+	 */
+	private void checkLimits() {
+		if(_completedDepth > 0 && (_statistics.nodes & 1023) == 0) {
+			if(_nodeLimit != 0 && _statistics.nodes >= _nodeLimit) {
+				_stopped = true;
+			}
+			else if(!_pondering && ((_deadline != 0 && System.currentTimeMillis() >= _deadline) || (_timeManager != null && _timeManager.isMaximumTimeReached()))) {
+				_stopped = true;
+			}
+		}
+	}
+
+	/**
+	 * Searches the current position to the specified depth
+	 *
+	 * @param depth The remaining depth
+	 * @param alpha The lower bound of the window
+	 * @param beta The upper bound of the window
+	 * @param ply The distance from the root
+	 * @param allowNullMove If a null move may be tried at this node
+	 *
+	 * @return The score of the position
+	 */
+	private int search(int depth, int alpha, int beta, int ply, boolean allowNullMove) {
+		boolean isPrincipalVariation = beta - alpha > 1;
+		_principalVariationLength[ply] = 0;
+
+		if(ply > 0) {
+			if(_position.getHalfMoveClock() >= 100 || _position.isRepetition()) {
+				return 0;
+			}
+
+			// Do not search for mates that are longer than a mate already found
+			alpha = Math.max(alpha, -MATE + ply);
+			beta = Math.min(beta, MATE - ply - 1);
+			if(alpha >= beta) {
+				return alpha;
+			}
+		}
+
+		boolean isInCheck = _position.isInCheck();
+		if(isInCheck && _settings.isEnabled(SelectiveTechnique.CHECK_EXTENSIONS) && ply < MAX_PLY / 2) {
+			++depth;
+			++_statistics.checkExtensions;
+		}
+
+		if(depth <= 0) {
+			return quiescence(alpha, beta, ply);
+		}
+		if(ply >= MAX_PLY) {
+			return _accumulatedEvaluator.evaluate(_position);
+		}
+
+		++_statistics.nodes;
+		checkLimits();
+		if(_stopped) {
+			return 0;
+		}
+		_statistics.selectiveDepth = Math.max(_statistics.selectiveDepth, ply);
+
+		// Look up the position in the transposition table
+		long key = _position.getKey();
+		int tableMove = Move.NONE;
+		++_statistics.tableProbes;
+		long entry = _table.probe(key);
+		if(entry != 0) {
+			++_statistics.tableHits;
+			tableMove = TranspositionTable.getMove(entry);
+			if(!isPrincipalVariation && TranspositionTable.getDepth(entry) >= depth) {
+				int score = fromTable(TranspositionTable.getScore(entry), ply);
+				int bound = TranspositionTable.getBound(entry);
+				if(bound == TranspositionTable.BOUND_EXACT
+					|| (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+					|| (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+					return score;
+				}
+			}
+		}
+
+		// The tablebases are only probed right after a capture or a pawn move, as they do not account for
+		// the moves already played towards the fifty move rule
+		if(ply > 0 && _position.getHalfMoveClock() == 0 && canProbeTablebase()) {
+			int wdl = _tablebase.probeWdl(_position);
+			if(wdl != ITablebase.UNKNOWN) {
+				++_statistics.tablebaseHits;
+				int score = getTablebaseScore(wdl, ply);
+				_table.store(key, Move.NONE, toTable(score, ply), Math.min(depth + 6, MAX_PLY - 1), TranspositionTable.BOUND_EXACT);
+				return score;
+			}
+		}
+
+		int staticEvaluation = isInCheck ? -INFINITY : _accumulatedEvaluator.evaluate(_position);
+
+		if(!isPrincipalVariation && !isInCheck && Math.abs(beta) < MATE_BOUND) {
+
+			// Reverse futility pruning, the position is so far above beta that a quiet move will not bring it back
+			if(_settings.isEnabled(SelectiveTechnique.FUTILITY_PRUNING) && depth <= 3 && staticEvaluation - REVERSE_FUTILITY_MARGIN * depth >= beta) {
+				++_statistics.reverseFutilityPrunes;
+				return staticEvaluation - REVERSE_FUTILITY_MARGIN * depth;
+			}
+
+			// Razoring, the position is so far below alpha that only tactics can save it
+			if(_settings.isEnabled(SelectiveTechnique.RAZORING) && depth <= 2 && staticEvaluation + RAZOR_MARGINS[depth] <= alpha) {
+				++_statistics.razorSearches;
+				int score = quiescence(alpha, alpha + 1, ply);
+				if(score <= alpha) {
+					++_statistics.razorCutoffs;
+					return score;
+				}
+			}
+
+			// Null move pruning, if passing the turn still fails high then a real move will as well.  This is
+			// not done without pieces as zugzwang positions are common in pawn endings
+			if(_settings.isEnabled(SelectiveTechnique.NULL_MOVE_PRUNING) && allowNullMove && depth >= 3 && staticEvaluation >= beta && _position.hasNonPawnMaterial()) {
+				int reduction = 2 + depth / 4 + Math.min(2, (staticEvaluation - beta) / 200);
+				++_statistics.nullMoveSearches;
+				_position.makeNullMove();
+				int score = -search(depth - 1 - reduction, -beta, -beta + 1, ply + 1, false);
+				_position.unmakeNullMove();
+				if(_stopped) {
+					return 0;
+				}
+				if(score >= beta) {
+					++_statistics.nullMoveCutoffs;
+					return score >= MATE_BOUND ? beta : score;
+				}
+			}
+		}
+
+		// Quiet moves near the horizon that cannot bring the score back to alpha are not searched
+		boolean isFutile = _settings.isEnabled(SelectiveTechnique.FUTILITY_PRUNING)
+			&& !isPrincipalVariation
+			&& !isInCheck
+			&& depth < FUTILITY_MARGINS.length
+			&& Math.abs(alpha) < MATE_BOUND
+			&& staticEvaluation + FUTILITY_MARGINS[depth] <= alpha;
+
+		int[] moves = _moves[ply];
+		int[] scores = _moveScores[ply];
+		int count = MoveGenerator.generatePseudoLegal(_position, moves);
+		scoreMoves(moves, scores, count, tableMove, ply);
+
+		int originalAlpha = alpha;
+		int bestScore = -INFINITY;
+		int bestMove = Move.NONE;
+		int legalMoves = 0;
+
+		for(int i = 0; i < count; ++i) {
+			int move = nextMove(moves, scores, count, i);
+			if(ply == 0 && isSearchedLine(move)) {
+				continue;
+			}
+			boolean isQuiet = isQuiet(move);
+
+			_position.makeMove(move);
+			if(!_position.wasLegal()) {
+				_position.unmakeMove(move);
+				continue;
+			}
+			++legalMoves;
+
+			boolean givesCheck = _position.isInCheck();
+			if(isFutile && legalMoves > 1 && isQuiet && !givesCheck) {
+				++_statistics.futilityPrunes;
+				_position.unmakeMove(move);
+				continue;
+			}
+
+			int newDepth = depth - 1;
+			int score;
+			if(legalMoves == 1) {
+				score = -search(newDepth, -beta, -alpha, ply + 1, true);
+			}
+			else {
+				// Late quiet moves are unlikely to be best, search them with a reduced depth first
+				int reduction = 0;
+				if(_settings.isEnabled(SelectiveTechnique.LATE_MOVE_REDUCTIONS)
+					&& depth >= 3
+					&& legalMoves > 3
+					&& isQuiet
+					&& !isInCheck
+					&& !givesCheck
+					&& move != _killers[ply][0]
+					&& move != _killers[ply][1]) {
+					reduction = LATE_MOVE_REDUCTIONS[Math.min(depth, 63)][Math.min(legalMoves, 63)];
+					if(isPrincipalVariation) {
+						--reduction;
+					}
+					reduction = Math.max(0, Math.min(reduction, newDepth - 1));
+					if(reduction > 0) {
+						++_statistics.lateMoveReductions;
+					}
+				}
+
+				score = -search(newDepth - reduction, -alpha - 1, -alpha, ply + 1, true);
+				if(reduction > 0 && score > alpha) {
+					++_statistics.lateMoveResearches;
+					score = -search(newDepth, -alpha - 1, -alpha, ply + 1, true);
+				}
+				if(score > alpha && score < beta) {
+					score = -search(newDepth, -beta, -alpha, ply + 1, true);
+				}
+			}
+
+			_position.unmakeMove(move);
+			if(_stopped) {
+				return 0;
+			}
+
+			if(score > bestScore) {
+				bestScore = score;
+				bestMove = move;
+				if(score > alpha) {
+					alpha = score;
+					updatePrincipalVariation(ply, move);
+					if(score >= beta) {
+						++_statistics.betaCutoffs;
+						if(legalMoves == 1) {
+							++_statistics.firstMoveCutoffs;
+						}
+						if(isQuiet) {
+							updateQuietMoveHistory(move, depth, ply);
+						}
+						break;
+					}
+				}
+			}
+		}
+
+		if(legalMoves == 0) {
+			return isInCheck ? -MATE + ply : 0;
+		}
+
+		// Every move may have been pruned except the first, in which case the best score is already set
+		int bound = bestScore >= beta
+			? TranspositionTable.BOUND_LOWER
+			: bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+		// The root of a line other than the first does not hold the score of all of its moves
+		if(ply > 0 || _lineIndex == 0) {
+			_table.store(key, bestMove, toTable(bestScore, ply), depth, bound);
+		}
+
+		return bestScore;
+	}
+
+	/**
+	 * Verifies if the specified root move starts one of the lines already found in the current iteration
+	 *
+	 * @param move The encoded move
+	 *
+	 * @return TRUE if the move must be skipped by the root of the current line
+	 */
+	private boolean isSearchedLine(int move) {
+		for(int i = 0; i < _lineIndex; ++i) {
+			if(_lineMoves[i] == move) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return TRUE if the current position may be held by the endgame tablebases
+	 */
+	private boolean canProbeTablebase() {
+		return _tablebase != null && _position.getCastlingRights() == 0 && Long.bitCount(_position.getOccupied()) <= _tablebase.getMaxPieces();
+	}
+
+	/**
+	 * Converts a tablebase result into a score, a win being scored below any mate but above any evaluation
+	 *
+	 * @param wdl The win/draw/loss result from the point of view of the player to move
+	 * @param ply The distance from the root
+	 *
+	 * @return The score of the position
+	 */
+	private static int getTablebaseScore(int wdl, int ply) {
+		return wdl == ITablebase.WIN ? TABLEBASE_WIN - ply : wdl == ITablebase.LOSS ? -TABLEBASE_WIN + ply : 0;
+	}
+
+	/**
+	 * Ranks the moves of the root position by their distance to zero in the endgame tablebases.  Playing
+	 * the move that reaches the next capture or pawn move the soonest always converts a won position
+	 *
+	 * @return The result holding the best move, or null if the root position is not held by the tablebases
+	 */
+	private SearchResult probeTablebaseRoot() {
+		if(!canProbeTablebase()) {
+			return null;
+		}
+		int wdl = _tablebase.probeWdl(_position);
+		if(wdl == ITablebase.UNKNOWN) {
+			return null;
+		}
+
+		int[] moves = _moves[0];
+		int count = MoveGenerator.generateLegal(_position, moves);
+		int bestMove = Move.NONE;
+		int bestRank = Integer.MIN_VALUE;
+		for(int i = 0; i < count; ++i) {
+			int move = moves[i];
+			_position.makeMove(move);
+
+			// The distance of a capture or pawn move only depends on the result of the position it reaches
+			int dtz;
+			if(_position.getHalfMoveClock() == 0) {
+				int reply = _tablebase.probeWdl(_position);
+				dtz = reply == ITablebase.UNKNOWN ? ITablebase.UNKNOWN : reply == ITablebase.LOSS ? 1 : reply == ITablebase.BLESSED_LOSS ? 101 : reply == ITablebase.CURSED_WIN ? -101 : reply == ITablebase.WIN ? -1 : 0;
+			}
+			else if(_position.isRepetition() || _position.getHalfMoveClock() >= 100) {
+				dtz = 0;
+			}
+			else {
+				// The distance of the reply is one ply shorter than the distance of the move
+				dtz = _tablebase.probeDtz(_position);
+				if(dtz != ITablebase.UNKNOWN) {
+					dtz = -dtz + Integer.signum(-dtz);
+				}
+			}
+			if(dtz == 2 && _position.isInCheck() && !MoveGenerator.hasLegalMove(_position)) {
+				dtz = 1;
+			}
+			_position.unmakeMove(move);
+			if(dtz == ITablebase.UNKNOWN) {
+				return null;
+			}
+
+			// Wins are ranked by the shortest distance, and losses by the longest
+			int rank = dtz > 0 ? 100000 - dtz : dtz < 0 ? -100000 - dtz : 0;
+			if(rank > bestRank) {
+				bestRank = rank;
+				bestMove = move;
+			}
+		}
+		if(bestMove == Move.NONE) {
+			return null;
+		}
+		return new SearchResult(1, getTablebaseScore(wdl, 0), new int[] { bestMove });
+	}
+
+	/**
+	 * Searches the captures of the current position until the position is quiet
+	 *
+	 * @param alpha The lower bound of the window
+	 * @param beta The upper bound of the window
+	 * @param ply The distance from the root
+	 *
+	 * @return The score of the position
+	 */
+	private int quiescence(int alpha, int beta, int ply) {
+		++_statistics.nodes;
+		++_statistics.quiescenceNodes;
+		_principalVariationLength[ply] = 0;
+		checkLimits();
+		if(_stopped) {
+			return 0;
+		}
+		_statistics.selectiveDepth = Math.max(_statistics.selectiveDepth, ply);
+
+		boolean isInCheck = _position.isInCheck();
+		if(ply >= MAX_PLY) {
+			return isInCheck ? 0 : _accumulatedEvaluator.evaluate(_position);
+		}
+
+		// When not in check the player may decline every capture, when in check every move must be considered
+		int bestScore = -INFINITY;
+		int count;
+		int[] moves = _moves[ply];
+		int[] scores = _moveScores[ply];
+		if(isInCheck) {
+			count = MoveGenerator.generatePseudoLegal(_position, moves);
+		}
+		else {
+			bestScore = _accumulatedEvaluator.evaluate(_position);
+			if(bestScore >= beta) {
+				return bestScore;
+			}
+			alpha = Math.max(alpha, bestScore);
+			count = MoveGenerator.generateCaptures(_position, moves);
+		}
+		scoreMoves(moves, scores, count, Move.NONE, ply);
+
+		int legalMoves = 0;
+		for(int i = 0; i < count; ++i) {
+			int move = nextMove(moves, scores, count, i);
+			_position.makeMove(move);
+			if(!_position.wasLegal()) {
+				_position.unmakeMove(move);
+				continue;
+			}
+			++legalMoves;
+			int score = -quiescence(-beta, -alpha, ply + 1);
+			_position.unmakeMove(move);
+			if(_stopped) {
+				return 0;
+			}
+
+			if(score > bestScore) {
+				bestScore = score;
+				if(score > alpha) {
+					alpha = score;
+					updatePrincipalVariation(ply, move);
+					if(score >= beta) {
+						break;
+					}
+				}
+			}
+		}
+
+		if(isInCheck && legalMoves == 0) {
+			return -MATE + ply;
+		}
+
+		return bestScore;
+	}
+
+	/**
+	 * Indicates if the specified move is neither a capture nor a promotion in the current position
+	 *
+	 * @param move The encoded move
+	 *
+	 * @return TRUE if the move is quiet
+	 */
+	private boolean isQuiet(int move) {
+		return _position.getPiece(Move.to(move)) == Pieces.NONE && Move.flag(move) != Move.FLAG_EN_PASSENT && Move.promotion(move) == 0;
+	}
+
+	/**
+	 * Assigns an ordering score to each move.  The move of the transposition table is searched first,
+	 * followed by captures of the most valuable victim with the least valuable attacker, the killer
+	 * moves and then the quiet moves by their history score
+	 *
+	 * @param moves The moves
+	 * @param scores The buffer that receives the scores
+	 * @param count The number of moves
+	 * @param tableMove The move of the transposition table
+	 * @param ply The distance from the root
+	 */
+	private void scoreMoves(int[] moves, int[] scores, int count, int tableMove, int ply) {
+		for(int i = 0; i < count; ++i) {
+			int move = moves[i];
+			int victim = _position.getPiece(Move.to(move));
+			if(move == tableMove) {
+				scores[i] = 1 << 30;
+			}
+			else if(victim != Pieces.NONE || Move.flag(move) == Move.FLAG_EN_PASSENT || Move.promotion(move) == Pieces.QUEEN) {
+				int victimValue = victim == Pieces.NONE ? MaterialEvaluator.PIECE_VALUES[Pieces.PAWN] : MaterialEvaluator.PIECE_VALUES[Pieces.type(victim)];
+				scores[i] = (1 << 28) + victimValue * 8 - Pieces.type(_position.getPiece(Move.from(move))) + (Move.promotion(move) == Pieces.QUEEN ? 800 : 0);
+			}
+			else if(move == _killers[ply][0]) {
+				scores[i] = (1 << 27) + 1;
+			}
+			else if(move == _killers[ply][1]) {
+				scores[i] = 1 << 27;
+			}
+			else if(Move.promotion(move) != 0) {
+				scores[i] = -(1 << 20);
+			}
+			else {
+				scores[i] = _history[_position.getPiece(Move.from(move))][Move.to(move)];
+			}
+		}
+	}
+
+	/**
+	 * Swaps the best scored remaining move into the specified index and returns it
+	 *
+	 * @param moves The moves
+	 * @param scores The scores of the moves
+	 * @param count The number of moves
+	 * @param index The index of the next move to search
+	 *
+	 * @return The next move to search
+	 */
+	private static int nextMove(int[] moves, int[] scores, int count, int index) {
+		int best = index;
+		for(int i = index + 1; i < count; ++i) {
+			if(scores[i] > scores[best]) {
+				best = i;
+			}
+		}
+		if(best != index) {
+			int move = moves[index];
+			moves[index] = moves[best];
+			moves[best] = move;
+			int score = scores[index];
+			scores[index] = scores[best];
+			scores[best] = score;
+		}
+		return moves[index];
+	}
+
+	/**
+	 * Records a quiet move that caused a cutoff in the killer and history tables
+	 *
+	 * @param move The encoded move
+	 * @param depth The remaining depth at which the cutoff occurred
+	 * @param ply The distance from the root
+	 */
+	private void updateQuietMoveHistory(int move, int depth, int ply) {
+		if(_killers[ply][0] != move) {
+			_killers[ply][1] = _killers[ply][0];
+			_killers[ply][0] = move;
+		}
+
+		int[] history = _history[_position.getPiece(Move.from(move))];
+		history[Move.to(move)] += depth * depth;
+
+		// Keep the history scores below the killer scores
+		if(history[Move.to(move)] > (1 << 26)) {
+			for(int[] table : _history) {
+				for(int i = 0; i < table.length; ++i) {
+					table[i] >>= 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets the principal variation of the specified ply to the move followed by the variation of the next ply
+	 *
+	 * @param ply The distance from the root
+	 * @param move The move that raised alpha
+	 */
+	private void updatePrincipalVariation(int ply, int move) {
+		int[] variation = _principalVariation[ply];
+		variation[0] = move;
+		int length = ply + 1 <= MAX_PLY ? _principalVariationLength[ply + 1] : 0;
+		System.arraycopy(_principalVariation[ply + 1], 0, variation, 1, length);
+		_principalVariationLength[ply] = length + 1;
+	}
+
+	/**
+	 * Converts a score to be stored in the transposition table, where mate scores are relative to the stored position
+	 *
+	 * @param score The score relative to the root
+	 * @param ply The distance from the root
+	 *
+	 * @return The score relative to the position
+	 */
+	private static int toTable(int score, int ply) {
+		return score >= TABLEBASE_BOUND ? score + ply : score <= -TABLEBASE_BOUND ? score - ply : score;
+	}
+
+	/**
+	 * Converts a score read from the transposition table, where mate scores are relative to the stored position
+	 *
+	 * @param score The score relative to the position
+	 * @param ply The distance from the root
+	 *
+	 * @return The score relative to the root
+	 */
+	private static int fromTable(int score, int ply) {
+		return score >= TABLEBASE_BOUND ? score - ply : score <= -TABLEBASE_BOUND ? score + ply : score;
+	}
+}
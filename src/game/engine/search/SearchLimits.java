@@ -0,0 +1,84 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.search;
+
+/**
+ * The limits that bound a single search
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class SearchLimits {
+
+	/**
+	 * The maximum depth to search to
+	 */
+	public int depth = Search.MAX_PLY - 1;
+
+	/**
+	 * The maximum number of nodes to search, or zero for no limit
+	 */
+	public long nodes;
+
+	/**
+	 * The maximum time to search for in milliseconds, or zero for no limit
+	 */
+	public long time;
+
+	/**
+	 * The time manager that decides when to stop the search, or null to only use the other limits
+	 */
+	public TimeManager timeManager;
+
+	/**
+	 * Indicates if the search is pondering on a predicted move, in which case the time limits are
+	 * ignored until {@link Search#ponderHit()} is called
+	 */
+	public boolean ponder;
+
+	/**
+	 * The number of best moves of the root position to search, each reported with its own principal variation
+	 */
+	public int lines = 1;
+
+	/**
+	 * Constructs a new instance of this class type without any limits
+	 */
+	public SearchLimits() {
+	}
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param depth The maximum depth to search to
+	 * @param nodes The maximum number of nodes to search, or zero for no limit
+	 * @param time The maximum time to search for in milliseconds, or zero for no limit
+	 */
+	public SearchLimits(int depth, long nodes, long time) {
+		this.depth = depth;
+		this.nodes = nodes;
+		this.time = time;
+	}
+}
@@ -0,0 +1,93 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.search;
+
+import game.engine.board.Move;
+
+/**
+ * The result of a completed search iteration
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class SearchResult {
+
+	/**
+	 * The depth that was completed
+	 */
+	public final int depth;
+
+	/**
+	 * The score of the best move in centipawns, from the point of view of the player to move
+	 */
+	public final int score;
+
+	/**
+	 * The principal variation, starting with the best move
+	 */
+	public final int[] principalVariation;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param depth The depth that was completed
+	 * @param score The score of the best move
+	 * @param principalVariation The principal variation
+	 */
+	public SearchResult(int depth, int score, int[] principalVariation) {
+		this.depth = depth;
+		this.score = score;
+		this.principalVariation = principalVariation;
+	}
+
+	/**
+	 * @return The best move, or {@link Move#NONE} if there is none
+	 */
+	public int getBestMove() {
+		return principalVariation.length > 0 ? principalVariation[0] : Move.NONE;
+	}
+
+	/**
+	 * @return The expected reply to the best move, or {@link Move#NONE} if there is none
+	 */
+	public int getPonderMove() {
+		return principalVariation.length > 1 ? principalVariation[1] : Move.NONE;
+	}
+
+	/**
+	 * @return TRUE if the score is a forced mate for either player
+	 */
+	public boolean isMateScore() {
+		return Math.abs(score) >= Search.MATE_BOUND;
+	}
+
+	@Override public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for(int move : principalVariation) {
+			builder.append(Move.toString(move)).append(' ');
+		}
+		return String.format("depth %d score %d pv %s", depth, score, builder.toString().trim());
+	}
+}
@@ -0,0 +1,149 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.search;
+
+/**
+ * The switches of the selective search techniques.
+ *
+ * Each switch is read by the search at every node, so changing a switch while a search is running
+ * takes effect immediately
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class SearchSettings {
+
+	/**
+	 * The list of selective search techniques
+	 *
+	 * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+	 *
+	 */
+	public enum SelectiveTechnique {
+		/**
+		 * Skips a move to prove that the position is good enough to cut off
+		 */
+		NULL_MOVE_PRUNING,
+		/**
+		 * Searches late quiet moves with a reduced depth
+		 */
+		LATE_MOVE_REDUCTIONS,
+		/**
+		 * Prunes quiet moves near the horizon that cannot raise the score above alpha
+		 */
+		FUTILITY_PRUNING,
+		/**
+		 * Drops into the quiescence search near the horizon when the position is far below alpha
+		 */
+		RAZORING,
+		/**
+		 * Extends the search by one ply when the player to move is in check
+		 */
+		CHECK_EXTENSIONS
+	}
+
+	/**
+	 * Indicates if null move pruning is enabled
+	 */
+	private volatile boolean _nullMovePruning = true;
+
+	/**
+	 * Indicates if late move reductions are enabled
+	 */
+	private volatile boolean _lateMoveReductions = true;
+
+	/**
+	 * Indicates if futility pruning is enabled
+	 */
+	private volatile boolean _futilityPruning = true;
+
+	/**
+	 * Indicates if razoring is enabled
+	 */
+	private volatile boolean _razoring = true;
+
+	/**
+	 * Indicates if check extensions are enabled
+	 */
+	private volatile boolean _checkExtensions = true;
+
+	/**
+	 * Sets the enabled state of the specified technique
+	 *
+	 * @param technique The selective technique
+	 * @param enabled If the technique should be used by the search
+	 */
+	public void setEnabled(SelectiveTechnique technique, boolean enabled) {
+		switch(technique) {
+		case NULL_MOVE_PRUNING:
+			_nullMovePruning = enabled;
+			break;
+		case LATE_MOVE_REDUCTIONS:
+			_lateMoveReductions = enabled;
+			break;
+		case FUTILITY_PRUNING:
+			_futilityPruning = enabled;
+			break;
+		case RAZORING:
+			_razoring = enabled;
+			break;
+		case CHECK_EXTENSIONS:
+			_checkExtensions = enabled;
+			break;
+		}
+	}
+
+	/**
+	 * Gets the enabled state of the specified technique
+	 *
+	 * @param technique The selective technique
+	 *
+	 * @return TRUE if the technique is used by the search
+	 */
+	public boolean isEnabled(SelectiveTechnique technique) {
+		switch(technique) {
+		case NULL_MOVE_PRUNING:
+			return _nullMovePruning;
+		case LATE_MOVE_REDUCTIONS:
+			return _lateMoveReductions;
+		case FUTILITY_PRUNING:
+			return _futilityPruning;
+		case RAZORING:
+			return _razoring;
+		case CHECK_EXTENSIONS:
+			return _checkExtensions;
+		default:
+			return false;
+		}
+	}
+
+	@Override public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for(SelectiveTechnique technique : SelectiveTechnique.values()) {
+			builder.append(technique.toString() + ":\t" + (isEnabled(technique) ? "On" : "Off") + "\n");
+		}
+		return builder.toString();
+	}
+}
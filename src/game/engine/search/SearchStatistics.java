@@ -0,0 +1,162 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.search;
+
+/**
+ * The counters of a search.
+ *
+ * The counters are written by the searching thread only, other threads may read them at any
+ * time to display the progress of the search
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class SearchStatistics {
+
+	/**
+	 * The number of nodes visited, including the quiescence nodes
+	 */
+	public long nodes;
+
+	/**
+	 * The number of nodes visited within the quiescence search
+	 */
+	public long quiescenceNodes;
+
+	/**
+	 * The number of transposition table lookups
+	 */
+	public long tableProbes;
+
+	/**
+	 * The number of transposition table lookups that found an entry
+	 */
+	public long tableHits;
+
+	/**
+	 * The number of nodes that failed high
+	 */
+	public long betaCutoffs;
+
+	/**
+	 * The number of nodes that failed high on the first move searched
+	 */
+	public long firstMoveCutoffs;
+
+	/**
+	 * The number of null move searches performed
+	 */
+	public long nullMoveSearches;
+
+	/**
+	 * The number of null move searches that resulted in a cutoff
+	 */
+	public long nullMoveCutoffs;
+
+	/**
+	 * The number of moves searched with a reduced depth
+	 */
+	public long lateMoveReductions;
+
+	/**
+	 * The number of reduced moves that had to be searched again at full depth
+	 */
+	public long lateMoveResearches;
+
+	/**
+	 * The number of quiet moves pruned near the horizon
+	 */
+	public long futilityPrunes;
+
+	/**
+	 * The number of nodes cut off because the static evaluation was far above beta
+	 */
+	public long reverseFutilityPrunes;
+
+	/**
+	 * The number of nodes that dropped into the quiescence search through razoring
+	 */
+	public long razorSearches;
+
+	/**
+	 * The number of razored nodes that were cut off
+	 */
+	public long razorCutoffs;
+
+	/**
+	 * The number of check extensions applied
+	 */
+	public long checkExtensions;
+
+	/**
+	 * The number of nodes scored by the endgame tablebases
+	 */
+	public long tablebaseHits;
+
+	/**
+	 * The deepest ply reached, including the quiescence search
+	 */
+	public int selectiveDepth;
+
+	/**
+	 * Resets all the counters
+	 */
+	public void reset() {
+		nodes = 0;
+		quiescenceNodes = 0;
+		tableProbes = 0;
+		tableHits = 0;
+		betaCutoffs = 0;
+		firstMoveCutoffs = 0;
+		nullMoveSearches = 0;
+		nullMoveCutoffs = 0;
+		lateMoveReductions = 0;
+		lateMoveResearches = 0;
+		futilityPrunes = 0;
+		reverseFutilityPrunes = 0;
+		razorSearches = 0;
+		razorCutoffs = 0;
+		checkExtensions = 0;
+		tablebaseHits = 0;
+		selectiveDepth = 0;
+	}
+
+	@Override public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("::============Search Statistics============::\n");
+		builder.append("Nodes:\t\t\t" + nodes + "\n");
+		builder.append("Quiescence Nodes:\t" + quiescenceNodes + "\n");
+		builder.append("Selective Depth:\t" + selectiveDepth + "\n");
+		builder.append("Table Hits:\t\t" + tableHits + " / " + tableProbes + "\n");
+		builder.append("Beta Cutoffs:\t\t" + betaCutoffs + " (" + firstMoveCutoffs + " on first move)\n");
+		builder.append("Null Move:\t\t" + nullMoveCutoffs + " / " + nullMoveSearches + "\n");
+		builder.append("Late Move Reductions:\t" + lateMoveReductions + " (" + lateMoveResearches + " re-searched)\n");
+		builder.append("Futility Prunes:\t" + futilityPrunes + " (" + reverseFutilityPrunes + " reverse)\n");
+		builder.append("Razoring:\t\t" + razorCutoffs + " / " + razorSearches + "\n");
+		builder.append("Check Extensions:\t" + checkExtensions + "\n");
+		builder.append("Tablebase Hits:\t\t" + tablebaseHits + "\n");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,212 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.search;
+
+import java.util.logging.Level;
+
+import engine.utils.io.logging.Tracelog;
+import game.engine.board.Position;
+import game.engine.interfaces.ISearchListener;
+
+/**
+ * Runs the searches of a {@link Search} on a background thread so that the user interface stays
+ * responsive while the engine is thinking.
+ *
+ * A ponder search that completes before the predicted move is played holds its result until it
+ * either receives a ponder hit or is stopped, so that a move is never reported while pondering
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class SearchWorker {
+
+	/**
+	 * The search performed by this worker
+	 */
+	private final Search _search;
+
+	/**
+	 * The lock guarding the state of the worker
+	 */
+	private final Object _lock = new Object();
+
+	/**
+	 * The thread running the current search, or null
+	 */
+	private Thread _thread;
+
+	/**
+	 * The thread of the last search started, kept until it has reported its result
+	 */
+	private Thread _lastThread;
+
+	/**
+	 * Indicates that the result of the current search must not be reported
+	 */
+	private boolean _isCancelled;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param search The search performed by this worker
+	 */
+	public SearchWorker(Search search) {
+		_search = search;
+	}
+
+	/**
+	 * @return The search performed by this worker
+	 */
+	public Search getSearch() {
+		return _search;
+	}
+
+	/**
+	 * Starts searching the specified position in the background, cancelling any search in progress
+	 *
+	 * @param position The position to search, it is copied before this method returns
+	 * @param limits The limits of the search
+	 * @param listener The listener notified from the searching thread when the search completes
+	 */
+	public void start(Position position, SearchLimits limits, ISearchListener listener) {
+		cancel();
+		Position copy = new Position(position);
+		synchronized(_lock) {
+			// The requests are reset before the thread starts, so that a stop sent right after this call is kept
+			_search.prepare(limits);
+			_isCancelled = false;
+			_thread = new Thread(() -> run(copy, limits, listener), "Search");
+			_thread.setDaemon(true);
+			_lastThread = _thread;
+			_thread.start();
+		}
+	}
+
+	/**
+	 * Runs a search and reports its result
+	 *
+	 * @param position The position to search
+	 * @param limits The limits of the search
+	 * @param listener The listener to notify
+	 */
+	private void run(Position position, SearchLimits limits, ISearchListener listener) {
+		SearchResult result = null;
+		try {
+			result = _search.search(position, limits);
+		}
+		catch(Exception exception) {
+			Tracelog.log(Level.SEVERE, true, exception);
+		}
+
+		synchronized(_lock) {
+			// Hold the result of a ponder search until the predicted move is played
+			while(_search.isPondering() && !_isCancelled && _thread == Thread.currentThread()) {
+				try {
+					_lock.wait();
+				}
+				catch(InterruptedException exception) {
+					break;
+				}
+			}
+			if(_isCancelled || _thread != Thread.currentThread()) {
+				return;
+			}
+			_thread = null;
+		}
+		listener.onSearchCompleted(result);
+	}
+
+	/**
+	 * Indicates that the predicted move being pondered on was played, the search continues as a
+	 * normal search and reports its result once its limits are reached
+	 */
+	public void ponderHit() {
+		synchronized(_lock) {
+			_search.ponderHit();
+			_lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Stops the current search, which still reports the result of its last completed iteration
+	 */
+	public void stop() {
+		synchronized(_lock) {
+			_search.ponderHit();
+			_search.stop();
+			_lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Stops the current search without reporting its result, and waits for its thread to finish
+	 */
+	public void cancel() {
+		Thread thread;
+		synchronized(_lock) {
+			thread = _thread;
+			_isCancelled = true;
+			_thread = null;
+			_search.stop();
+			_lock.notifyAll();
+		}
+		if(thread != null && thread != Thread.currentThread()) {
+			try {
+				thread.join();
+			}
+			catch(InterruptedException exception) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Waits until the last search started has reported its result, which is useful after a stop
+	 * request when the result must be delivered before anything else happens
+	 */
+	public void join() {
+		Thread thread;
+		synchronized(_lock) {
+			thread = _lastThread;
+		}
+		if(thread != null && thread != Thread.currentThread()) {
+			try {
+				thread.join();
+			}
+			catch(InterruptedException exception) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * @return TRUE if a search is running or holding its result
+	 */
+	public boolean isSearching() {
+		synchronized(_lock) {
+			return _thread != null;
+		}
+	}
+}
@@ -0,0 +1,191 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.search;
+
+import game.engine.board.MoveGenerator;
+import game.engine.board.Position;
+
+/**
+ * Allocates the thinking time of a single move.
+ *
+ * The allocation starts from the remaining clock divided by the expected number of moves left, it
+ * is then scaled by the complexity of the position measured by its number of legal moves.  During
+ * the search the allocation shrinks while the best move stays the same between iterations, and grows
+ * when the best move changes or the score drops, within a hard limit that is never exceeded
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class TimeManager {
+
+	/**
+	 * The number of moves assumed to be left when the time control does not specify it
+	 */
+	private static final int DEFAULT_MOVES_TO_GO = 30;
+
+	/**
+	 * The time kept aside in milliseconds to play the move once the search has stopped
+	 */
+	private static final long MOVE_OVERHEAD = 50;
+
+	/**
+	 * The factor applied to the optimum time, indexed by the number of iterations the best move has stayed the same
+	 */
+	private static final double[] STABILITY_FACTORS = { 2.0, 1.4, 1.1, 0.9, 0.75 };
+
+	/**
+	 * The factor applied to the optimum time when the score dropped since the last iteration
+	 */
+	private static final double SCORE_DROP_FACTOR = 1.5;
+
+	/**
+	 * The score drop in centipawns between two iterations considered to be significant
+	 */
+	private static final int SCORE_DROP_MARGIN = 30;
+
+	/**
+	 * The time at which the clock of the move started
+	 */
+	private volatile long _startTime;
+
+	/**
+	 * The time in milliseconds that the move should ideally take
+	 */
+	private volatile long _optimumTime;
+
+	/**
+	 * The time in milliseconds that the move must never exceed
+	 */
+	private volatile long _maximumTime;
+
+	/**
+	 * The best move of the last completed iteration
+	 */
+	private int _lastBestMove;
+
+	/**
+	 * The score of the last completed iteration
+	 */
+	private int _lastScore;
+
+	/**
+	 * The number of consecutive iterations that returned the same best move
+	 */
+	private int _stability;
+
+	/**
+	 * Indicates if the score of the last iteration dropped significantly
+	 */
+	private boolean _isScoreDropping;
+
+	/**
+	 * Starts the clock of a new move and allocates its time
+	 *
+	 * @param remainingTime The time left on the clock in milliseconds
+	 * @param increment The time added to the clock after each move in milliseconds
+	 * @param movesToGo The number of moves until the next time control, or zero if the whole game must be played
+	 * @param position The position to move in
+	 */
+	public void start(long remainingTime, long increment, int movesToGo, Position position) {
+		long available = Math.max(1, remainingTime - MOVE_OVERHEAD);
+		long base = available / (movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO) + increment * 3 / 4;
+
+		// A position with many legal moves needs more time than one with few, a forced move needs none
+		int legalMoves = MoveGenerator.generateLegal(position, new int[MoveGenerator.MAX_MOVES]);
+		double complexity = legalMoves <= 1 ? 0 : 0.6 + Math.min(legalMoves, 50) * 0.8 / 50;
+
+		_optimumTime = Math.min((long)(base * complexity), available / 2);
+		_maximumTime = Math.max(_optimumTime, Math.min(_optimumTime * 5, available * 3 / 4));
+		_lastBestMove = 0;
+		_lastScore = 0;
+		_stability = 0;
+		_isScoreDropping = false;
+		_startTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Restarts the clock of the move without changing its allocation, used when a ponder search
+	 * becomes the real search
+	 */
+	public void restart() {
+		_startTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Records the result of a completed iteration
+	 *
+	 * @param depth The depth of the iteration
+	 * @param bestMove The best move of the iteration
+	 * @param score The score of the iteration
+	 */
+	public void update(int depth, int bestMove, int score) {
+		_stability = bestMove == _lastBestMove ? _stability + 1 : 0;
+		_isScoreDropping = depth > 1 && score < _lastScore - SCORE_DROP_MARGIN;
+		_lastBestMove = bestMove;
+		_lastScore = score;
+	}
+
+	/**
+	 * @return The time in milliseconds since the clock of the move started
+	 */
+	public long getElapsedTime() {
+		return System.currentTimeMillis() - _startTime;
+	}
+
+	/**
+	 * Indicates if another iteration should be started.  The allocation is scaled by the stability
+	 * of the best move and by any drop of the score
+	 *
+	 * @return TRUE if the search should stop after the iteration that just completed
+	 */
+	public boolean isOptimumTimeReached() {
+		double factor = STABILITY_FACTORS[Math.min(_stability, STABILITY_FACTORS.length - 1)];
+		if(_isScoreDropping) {
+			factor *= SCORE_DROP_FACTOR;
+		}
+		return getElapsedTime() >= Math.min(_maximumTime, (long)(_optimumTime * factor));
+	}
+
+	/**
+	 * @return TRUE if the search must stop immediately
+	 */
+	public boolean isMaximumTimeReached() {
+		return getElapsedTime() >= _maximumTime;
+	}
+
+	/**
+	 * @return The time in milliseconds that the move should ideally take
+	 */
+	public long getOptimumTime() {
+		return _optimumTime;
+	}
+
+	/**
+	 * @return The time in milliseconds that the move must never exceed
+	 */
+	public long getMaximumTime() {
+		return _maximumTime;
+	}
+}
@@ -0,0 +1,232 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.search;
+
+import java.util.Arrays;
+
+/**
+ * The transposition table of the search, mapping position hashes to previously searched results.
+ *
+ * Entries are held in two parallel primitive arrays in buckets of two, a depth-preferred slot and an
+ * always-replace slot.  The key is stored xor-ed with the data so that an entry torn by a concurrent
+ * writer is rejected by the key check rather than returning data of another position
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class TranspositionTable {
+
+	/**
+	 * The stored score is an upper bound of the real score
+	 */
+	public static final int BOUND_UPPER = 1;
+
+	/**
+	 * The stored score is a lower bound of the real score
+	 */
+	public static final int BOUND_LOWER = 2;
+
+	/**
+	 * The stored score is the real score
+	 */
+	public static final int BOUND_EXACT = 3;
+
+	/**
+	 * The keys of the entries, xor-ed with their data
+	 */
+	private long[] _keys;
+
+	/**
+	 * The packed data of the entries
+	 */
+	private long[] _data;
+
+	/**
+	 * The mask applied to a key to get its bucket
+	 */
+	private int _mask;
+
+	/**
+	 * The age of the current search, used to prefer replacing entries of older searches
+	 */
+	private int _age;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param megabytes The size of the table in megabytes
+	 */
+	public TranspositionTable(int megabytes) {
+		resize(megabytes);
+	}
+
+	/**
+	 * Resizes the table, which clears all of its entries
+	 *
+	 * @param megabytes The size of the table in megabytes
+	 */
+	public void resize(int megabytes) {
+		// Each entry is made of two longs, and the number of buckets must be a power of two
+		long entries = Math.max(2, (long)megabytes * 1024 * 1024 / 16);
+		int buckets = Integer.highestOneBit((int)Math.min(entries / 2, 1 << 29));
+		_keys = new long[buckets * 2];
+		_data = new long[buckets * 2];
+		_mask = buckets - 1;
+		_age = 0;
+	}
+
+	/**
+	 * Clears all the entries of the table
+	 */
+	public void clear() {
+		Arrays.fill(_keys, 0);
+		Arrays.fill(_data, 0);
+		_age = 0;
+	}
+
+	/**
+	 * Increments the age of the table, this should be called before each new search
+	 */
+	public void incrementAge() {
+		_age = (_age + 1) & 63;
+	}
+
+	/**
+	 * Gets the data stored for the specified key
+	 *
+	 * @param key The hash of the position
+	 *
+	 * @return The packed data, or zero if there is no entry for the key
+	 */
+	public long probe(long key) {
+		int index = ((int)key & _mask) << 1;
+		long data = _data[index];
+		if((_keys[index] ^ data) == key && data != 0) {
+			return data;
+		}
+		data = _data[index + 1];
+		if((_keys[index + 1] ^ data) == key && data != 0) {
+			return data;
+		}
+		return 0;
+	}
+
+	/**
+	 * Stores the specified result into the table
+	 *
+	 * @param key The hash of the position
+	 * @param move The best move found, or zero
+	 * @param score The score, with mate scores relative to the position being stored
+	 * @param depth The depth that was searched
+	 * @param bound The bound type of the score
+	 */
+	public void store(long key, int move, int score, int depth, int bound) {
+		int index = ((int)key & _mask) << 1;
+		long existing = _data[index];
+
+		// Keep the move of a previous search of the same position if none was found this time
+		if(move == 0 && (_keys[index] ^ existing) == key) {
+			move = getMove(existing);
+		}
+
+		long data = (move & 0x1FFFFL)
+			| ((long)(score + 32768) << 17)
+			| ((long)(Math.max(0, depth) & 0xFF) << 33)
+			| ((long)bound << 41)
+			| ((long)_age << 43);
+
+		// The depth-preferred slot is replaced by deeper searches, same-position results or stale entries,
+		// anything else goes to the always-replace slot
+		if(existing == 0 || (_keys[index] ^ existing) == key || getAge(existing) != _age || depth >= getDepth(existing)) {
+			_keys[index] = key ^ data;
+			_data[index] = data;
+		}
+		else {
+			_keys[index + 1] = key ^ data;
+			_data[index + 1] = data;
+		}
+	}
+
+	/**
+	 * Gets the approximate fill of the table in permill, counting only entries of the current search
+	 *
+	 * @return The number of used entries per thousand, from a sample of the table
+	 */
+	public int getFill() {
+		int sample = Math.min(1000, _data.length);
+		int used = 0;
+		for(int i = 0; i < sample; ++i) {
+			if(_data[i] != 0 && getAge(_data[i]) == _age) {
+				++used;
+			}
+		}
+		return used * 1000 / sample;
+	}
+
+	/**
+	 * @param data The packed data of an entry
+	 *
+	 * @return The move of the entry
+	 */
+	public static int getMove(long data) {
+		return (int)(data & 0x1FFFF);
+	}
+
+	/**
+	 * @param data The packed data of an entry
+	 *
+	 * @return The score of the entry
+	 */
+	public static int getScore(long data) {
+		return (int)((data >>> 17) & 0xFFFF) - 32768;
+	}
+
+	/**
+	 * @param data The packed data of an entry
+	 *
+	 * @return The depth of the entry
+	 */
+	public static int getDepth(long data) {
+		return (int)((data >>> 33) & 0xFF);
+	}
+
+	/**
+	 * @param data The packed data of an entry
+	 *
+	 * @return The bound type of the entry
+	 */
+	public static int getBound(long data) {
+		return (int)((data >>> 41) & 3);
+	}
+
+	/**
+	 * @param data The packed data of an entry
+	 *
+	 * @return The age of the entry
+	 */
+	private static int getAge(long data) {
+		return (int)((data >>> 43) & 63);
+	}
+}
@@ -0,0 +1,247 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+import game.engine.interfaces.ITablebase;
+
+/**
+ * The win/draw/loss bitbase of one material combination.
+ *
+ * The bitbase is stored with the stronger side as white.  A position is indexed by the square of
+ * each of its pieces, six bits per piece, and each side to move has one bit per index: whether
+ * white wins when white is to move, and whether black loses when black is to move.  Every other
+ * position is a draw, as the weaker side of these endings cannot win
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class Bitbase {
+
+	/**
+	 * The magic number of a bitbase file
+	 */
+	private static final int MAGIC = 0x43424231;
+
+	/**
+	 * The material of the bitbase, such as KRvK
+	 */
+	private final String _material;
+
+	/**
+	 * The pieces of the bitbase in the order that their squares are indexed
+	 */
+	private final int[] _pieces;
+
+	/**
+	 * The material key of the bitbase with the stronger side as white
+	 */
+	private final long _key;
+
+	/**
+	 * The positions with white to move that white wins
+	 */
+	private final long[] _whiteWins;
+
+	/**
+	 * The positions with black to move that black loses
+	 */
+	private final long[] _blackLosses;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param material The material of the bitbase, such as KRvK
+	 * @param whiteWins The positions with white to move that white wins
+	 * @param blackLosses The positions with black to move that black loses
+	 */
+	public Bitbase(String material, long[] whiteWins, long[] blackLosses) {
+		_material = material;
+		_pieces = getPieces(material);
+		_key = SyzygyTable.getMaterialKey(material);
+		if(whiteWins.length != getSize(_pieces.length) / 64 || blackLosses.length != whiteWins.length) {
+			throw new IllegalArgumentException("The bitbase " + material + " does not have the size of its material");
+		}
+		_whiteWins = whiteWins;
+		_blackLosses = blackLosses;
+	}
+
+	/**
+	 * Gets the pieces of the specified material in the order that their squares are indexed, the
+	 * pieces of white and then the pieces of black, each starting with the king
+	 *
+	 * @param material The material, such as KRvK
+	 *
+	 * @return The pieces
+	 */
+	static int[] getPieces(String material) {
+		String[] sides = material.split("v");
+		int[] pieces = new int[sides[0].length() + sides[1].length()];
+		int count = 0;
+		for(int color = Pieces.WHITE; color <= Pieces.BLACK; ++color) {
+			for(char character : sides[color].toCharArray()) {
+				pieces[count++] = Pieces.make(color, Pieces.type(Pieces.fromCharacter(character)));
+			}
+		}
+		return pieces;
+	}
+
+	/**
+	 * @param pieceCount The number of pieces
+	 *
+	 * @return The number of indices of a side to move
+	 */
+	static int getSize(int pieceCount) {
+		return 1 << (6 * pieceCount);
+	}
+
+	/**
+	 * @param squares The square of each piece
+	 *
+	 * @return The index of the position
+	 */
+	static int getIndex(int[] squares) {
+		int index = 0;
+		for(int i = squares.length - 1; i >= 0; --i) {
+			index = (index << 6) | squares[i];
+		}
+		return index;
+	}
+
+	/**
+	 * @return The material of the bitbase, such as KRvK
+	 */
+	public String getMaterial() {
+		return _material;
+	}
+
+	/**
+	 * @return The material key of the bitbase with the stronger side as white
+	 */
+	long getKey() {
+		return _key;
+	}
+
+	/**
+	 * @return The material key of the bitbase with the stronger side as black
+	 */
+	long getMirroredKey() {
+		String[] sides = _material.split("v");
+		return SyzygyTable.getMaterialKey(sides[1] + "v" + sides[0]);
+	}
+
+	/**
+	 * @return The number of pieces of the bitbase, kings included
+	 */
+	public int getPieceCount() {
+		return _pieces.length;
+	}
+
+	/**
+	 * Gets the result of the specified position, which must have the material of this bitbase
+	 *
+	 * @param position The position
+	 *
+	 * @return The win/draw/loss result from the point of view of the player to move
+	 */
+	public int probe(Position position) {
+		// Positions where black is the stronger side are looked up with the colors and the ranks swapped
+		boolean isFlipped = SyzygyTable.getMaterialKey(position) != _key;
+		int[] squares = new int[_pieces.length];
+		long used = 0;
+		for(int i = 0; i < _pieces.length; ++i) {
+			int piece = isFlipped ? Pieces.make(Pieces.color(_pieces[i]) ^ 1, Pieces.type(_pieces[i])) : _pieces[i];
+			long available = position.getPieces(piece) & ~used;
+			int square = Long.numberOfTrailingZeros(available);
+			used |= 1L << square;
+			squares[i] = isFlipped ? square ^ 56 : square;
+		}
+
+		int index = getIndex(squares);
+		int sideToMove = position.getSideToMove() ^ (isFlipped ? 1 : 0);
+		if(sideToMove == Pieces.WHITE) {
+			return (_whiteWins[index >>> 6] & (1L << index)) != 0 ? ITablebase.WIN : ITablebase.DRAW;
+		}
+		return (_blackLosses[index >>> 6] & (1L << index)) != 0 ? ITablebase.LOSS : ITablebase.DRAW;
+	}
+
+	/**
+	 * Loads a bitbase from the specified file
+	 *
+	 * @param file The path of the file
+	 *
+	 * @return The bitbase
+	 *
+	 * @throws IOException If the file cannot be read or is not a bitbase
+	 */
+	public static Bitbase load(Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate((int)channel.size());
+			while(buffer.hasRemaining() && channel.read(buffer) >= 0);
+			buffer.flip();
+			if(buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+				throw new IOException("The file " + file + " is not a bitbase");
+			}
+			byte[] material = new byte[buffer.getInt()];
+			buffer.get(material);
+			int length = buffer.getInt();
+			long[] whiteWins = new long[length];
+			long[] blackLosses = new long[length];
+			buffer.asLongBuffer().get(whiteWins).get(blackLosses);
+			return new Bitbase(new String(material, StandardCharsets.US_ASCII), whiteWins, blackLosses);
+		}
+		catch(RuntimeException exception) {
+			throw new IOException("The file " + file + " is not a valid bitbase", exception);
+		}
+	}
+
+	/**
+	 * Saves this bitbase to the specified file
+	 *
+	 * @param file The path of the file
+	 *
+	 * @throws IOException If the file cannot be written
+	 */
+	public void save(Path file) throws IOException {
+		byte[] material = _material.getBytes(StandardCharsets.US_ASCII);
+		ByteBuffer buffer = ByteBuffer.allocate(12 + material.length + _whiteWins.length * 16);
+		buffer.putInt(MAGIC).putInt(material.length).put(material).putInt(_whiteWins.length);
+		buffer.asLongBuffer().put(_whiteWins).put(_blackLosses);
+		buffer.rewind();
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while(buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+}
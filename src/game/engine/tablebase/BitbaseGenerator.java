@@ -0,0 +1,510 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.tablebase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.stream.IntStream;
+
+import engine.utils.io.logging.Tracelog;
+import game.engine.board.Bitboards;
+import game.engine.board.Move;
+import game.engine.board.MoveGenerator;
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+import game.engine.interfaces.ITablebase;
+
+/**
+ * Generates the win/draw/loss bitbases of small material combinations by retrograde analysis.
+ *
+ * Every position is first set up and its legal moves generated by the engine, which decides the
+ * mates, the stalemates and the results of the captures and promotions that leave the material.
+ * The results are then propagated backwards one ply at a time: a position with white to move is won
+ * when one of its moves reaches a lost position, and a position with black to move is lost once all
+ * of its moves reach won positions.  Each step is processed in parallel over its positions
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class BitbaseGenerator {
+
+	/**
+	 * The materials generated by default, in an order where the materials reached by a promotion come first
+	 */
+	public static final String[] DEFAULT_MATERIALS = { "KQvK", "KRvK", "KBNvK", "KPvK" };
+
+	/**
+	 * The largest number of pieces of a bitbase
+	 */
+	public static final int MAX_PIECES = 4;
+
+	/**
+	 * The number of remaining moves of a position that can never be lost
+	 */
+	private static final int NEVER_LOST = Integer.MAX_VALUE / 2;
+
+	/**
+	 * The bitbases already generated, used for the moves that leave the material
+	 */
+	private final BitbaseTablebase _tablebase;
+
+	/**
+	 * The position used by each thread to generate the moves
+	 */
+	private final ThreadLocal<Position> _position = ThreadLocal.withInitial(Position::new);
+
+	/**
+	 * The pieces of the material being generated
+	 */
+	private int[] _pieces;
+
+	/**
+	 * The positions with white to move that white wins
+	 */
+	private AtomicLongArray _whiteWins;
+
+	/**
+	 * The positions with black to move that black loses
+	 */
+	private AtomicLongArray _blackLosses;
+
+	/**
+	 * The number of moves of each position with black to move that do not reach a won position yet
+	 */
+	private AtomicIntegerArray _remainingMoves;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param tablebase The bitbases already generated, to which each generated bitbase is added
+	 */
+	public BitbaseGenerator(BitbaseTablebase tablebase) {
+		_tablebase = tablebase;
+	}
+
+	/**
+	 * Generates the bitbase of the specified material
+	 *
+	 * @param material The material with the stronger side first, such as KRvK
+	 *
+	 * @return The bitbase
+	 */
+	public Bitbase generate(String material) {
+		if(!material.matches("K[QRBNP]*vK") || material.length() - 1 > MAX_PIECES) {
+			throw new IllegalArgumentException("The material " + material + " cannot be generated");
+		}
+
+		long startTime = System.currentTimeMillis();
+		_pieces = Bitbase.getPieces(material);
+		int size = Bitbase.getSize(_pieces.length);
+		_whiteWins = new AtomicLongArray(size / 64);
+		_blackLosses = new AtomicLongArray(size / 64);
+		_remainingMoves = new AtomicIntegerArray(size);
+
+		int[] won = IntStream.range(0, size).parallel().filter(this::initializeWhite).toArray();
+		int[] lost = IntStream.range(0, size).parallel().filter(this::initializeBlack).toArray();
+		int plies = 0;
+		while(won.length > 0 || lost.length > 0) {
+			int[] newWins = IntStream.of(lost).parallel().flatMap(this::markWinningPredecessors).toArray();
+			won = IntStream.concat(IntStream.of(won), IntStream.of(newWins)).toArray();
+			lost = IntStream.of(won).parallel().flatMap(this::markLosingPredecessors).toArray();
+			won = new int[0];
+			++plies;
+		}
+
+		Bitbase bitbase = new Bitbase(material, toArray(_whiteWins), toArray(_blackLosses));
+		_tablebase.add(bitbase);
+		_whiteWins = null;
+		_blackLosses = null;
+		_remainingMoves = null;
+		Tracelog.log(Level.INFO, true, "Generated the bitbase " + material + " in " + (System.currentTimeMillis() - startTime) + "ms after " + plies + " iterations");
+		return bitbase;
+	}
+
+	/**
+	 * Sets up the position of the specified index
+	 *
+	 * @param index The index
+	 * @param sideToMove The side to move
+	 *
+	 * @return The position, or null if the index is not a legal position
+	 */
+	private Position getPosition(int index, int sideToMove) {
+		int[] squares = getSquares(index);
+		if(!isLegal(squares, sideToMove)) {
+			return null;
+		}
+		Position position = _position.get();
+		position.clear();
+		for(int i = 0; i < _pieces.length; ++i) {
+			position.setPiece(squares[i], _pieces[i]);
+		}
+		position.setSideToMove(sideToMove);
+		return position;
+	}
+
+	/**
+	 * Decides the positions with white to move that are won by leaving the material
+	 *
+	 * @param index The index of the position
+	 *
+	 * @return TRUE if the position is won
+	 */
+	private boolean initializeWhite(int index) {
+		Position position = getPosition(index, Pieces.WHITE);
+		if(position == null) {
+			return false;
+		}
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegal(position, moves);
+		for(int i = 0; i < count; ++i) {
+			if(isLeavingMaterial(position, moves[i]) && getResult(position, moves[i]) == ITablebase.LOSS) {
+				setBit(_whiteWins, index);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Counts the moves of the positions with black to move, and decides the ones that are lost at once
+	 *
+	 * @param index The index of the position
+	 *
+	 * @return TRUE if the position is lost
+	 */
+	private boolean initializeBlack(int index) {
+		Position position = getPosition(index, Pieces.BLACK);
+		if(position == null) {
+			_remainingMoves.set(index, NEVER_LOST);
+			return false;
+		}
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegal(position, moves);
+		if(count == 0) {
+			if(position.isInCheck()) {
+				setBit(_blackLosses, index);
+				return true;
+			}
+			_remainingMoves.set(index, NEVER_LOST);
+			return false;
+		}
+
+		int remainingMoves = 0;
+		for(int i = 0; i < count; ++i) {
+			if(!isLeavingMaterial(position, moves[i])) {
+				++remainingMoves;
+			}
+			else if(getResult(position, moves[i]) != ITablebase.WIN) {
+				// A move that leaves the material without losing saves the position
+				_remainingMoves.set(index, NEVER_LOST);
+				return false;
+			}
+		}
+		_remainingMoves.set(index, remainingMoves);
+		if(remainingMoves == 0) {
+			setBit(_blackLosses, index);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Marks the positions with white to move that reach the specified lost position in one move
+	 *
+	 * @param index The index of a position with black to move that black loses
+	 *
+	 * @return The indices of the positions that were newly marked as won
+	 */
+	private IntStream markWinningPredecessors(int index) {
+		return getPredecessors(index, Pieces.WHITE).filter(z -> setBit(_whiteWins, z));
+	}
+
+	/**
+	 * Counts down the moves of the positions with black to move that reach the specified won position
+	 * in one move, and marks the ones without any move left as lost
+	 *
+	 * @param index The index of a position with white to move that white wins
+	 *
+	 * @return The indices of the positions that were newly marked as lost
+	 */
+	private IntStream markLosingPredecessors(int index) {
+		return getPredecessors(index, Pieces.BLACK).filter(z -> !getBit(_blackLosses, z) && _remainingMoves.decrementAndGet(z) == 0 && setBit(_blackLosses, z));
+	}
+
+	/**
+	 * Gets the legal positions that reach the specified position with a move of the specified color
+	 * that stays within the material
+	 *
+	 * @param index The index of the position
+	 * @param color The color of the player that moved
+	 *
+	 * @return The indices of the positions, with the specified color to move
+	 */
+	private IntStream getPredecessors(int index, int color) {
+		int[] squares = getSquares(index);
+		long occupied = 0;
+		for(int square : squares) {
+			occupied |= 1L << square;
+		}
+
+		IntStream.Builder predecessors = IntStream.builder();
+		for(int i = 0; i < _pieces.length; ++i) {
+			if(Pieces.color(_pieces[i]) != color) {
+				continue;
+			}
+			int square = squares[i];
+			long origins;
+			switch(Pieces.type(_pieces[i])) {
+			case Pieces.PAWN:
+				// A pawn comes from the square behind it, or from its starting rank over two empty squares
+				int behind = color == Pieces.WHITE ? square - 8 : square + 8;
+				int rank = color == Pieces.WHITE ? Bitboards.rank(square) : 7 - Bitboards.rank(square);
+				origins = 0;
+				if(rank >= 2 && (occupied & (1L << behind)) == 0) {
+					origins |= 1L << behind;
+					int start = color == Pieces.WHITE ? square - 16 : square + 16;
+					if(rank == 3 && (occupied & (1L << start)) == 0) {
+						origins |= 1L << start;
+					}
+				}
+				break;
+			case Pieces.KNIGHT:
+				origins = Bitboards.KNIGHT_ATTACKS[square];
+				break;
+			case Pieces.BISHOP:
+				origins = Bitboards.bishopAttacks(square, occupied);
+				break;
+			case Pieces.ROOK:
+				origins = Bitboards.rookAttacks(square, occupied);
+				break;
+			case Pieces.QUEEN:
+				origins = Bitboards.bishopAttacks(square, occupied) | Bitboards.rookAttacks(square, occupied);
+				break;
+			default:
+				origins = Bitboards.KING_ATTACKS[square];
+				break;
+			}
+			for(origins &= ~occupied; origins != 0; origins &= origins - 1) {
+				squares[i] = Long.numberOfTrailingZeros(origins);
+				if(isLegal(squares, color)) {
+					predecessors.add(Bitbase.getIndex(squares));
+				}
+			}
+			squares[i] = square;
+		}
+		return predecessors.build();
+	}
+
+	/**
+	 * Indicates if the specified squares form a legal position
+	 *
+	 * @param squares The square of each piece
+	 * @param sideToMove The side to move
+	 *
+	 * @return TRUE if no two pieces share a square, no pawn is on the first or last rank, and the
+	 * player that is not to move is not in check
+	 */
+	private boolean isLegal(int[] squares, int sideToMove) {
+		long occupied = 0;
+		int king = -1;
+		for(int i = 0; i < _pieces.length; ++i) {
+			if((occupied & (1L << squares[i])) != 0) {
+				return false;
+			}
+			occupied |= 1L << squares[i];
+			if(Pieces.type(_pieces[i]) == Pieces.PAWN && (Bitboards.rank(squares[i]) == 0 || Bitboards.rank(squares[i]) == 7)) {
+				return false;
+			}
+			if(_pieces[i] == Pieces.make(sideToMove ^ 1, Pieces.KING)) {
+				king = squares[i];
+			}
+		}
+
+		for(int i = 0; i < _pieces.length; ++i) {
+			if(Pieces.color(_pieces[i]) != sideToMove) {
+				continue;
+			}
+			long attacks;
+			switch(Pieces.type(_pieces[i])) {
+			case Pieces.PAWN:
+				attacks = Bitboards.PAWN_ATTACKS[sideToMove][squares[i]];
+				break;
+			case Pieces.KNIGHT:
+				attacks = Bitboards.KNIGHT_ATTACKS[squares[i]];
+				break;
+			case Pieces.BISHOP:
+				attacks = Bitboards.bishopAttacks(squares[i], occupied);
+				break;
+			case Pieces.ROOK:
+				attacks = Bitboards.rookAttacks(squares[i], occupied);
+				break;
+			case Pieces.QUEEN:
+				attacks = Bitboards.bishopAttacks(squares[i], occupied) | Bitboards.rookAttacks(squares[i], occupied);
+				break;
+			default:
+				attacks = Bitboards.KING_ATTACKS[squares[i]];
+				break;
+			}
+			if((attacks & (1L << king)) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param position The position
+	 * @param move The move
+	 *
+	 * @return TRUE if the move is a capture or a promotion, which changes the material
+	 */
+	private static boolean isLeavingMaterial(Position position, int move) {
+		return Move.promotion(move) != 0 || Move.flag(move) == Move.FLAG_EN_PASSENT || position.getPiece(Move.to(move)) != Pieces.NONE;
+	}
+
+	/**
+	 * Gets the result of a move that leaves the material, from the bitbases already generated
+	 *
+	 * @param position The position
+	 * @param move The move
+	 *
+	 * @return The result from the point of view of the player to move after the move
+	 */
+	private int getResult(Position position, int move) {
+		position.makeMove(move);
+		int result;
+		if(!hasMatingMaterial(position)) {
+			result = ITablebase.DRAW;
+		}
+		else {
+			result = _tablebase.probeWdl(position);
+			if(result == ITablebase.UNKNOWN) {
+				throw new IllegalStateException("The bitbase reached by " + Move.toString(move) + " must be generated first");
+			}
+		}
+		position.unmakeMove(move);
+		return result;
+	}
+
+	/**
+	 * @param position The position
+	 *
+	 * @return TRUE if either side has more than a lone king or a king and a single minor piece
+	 */
+	private static boolean hasMatingMaterial(Position position) {
+		long minors = 0;
+		for(int color = Pieces.WHITE; color <= Pieces.BLACK; ++color) {
+			minors |= position.getPieces(Pieces.make(color, Pieces.KNIGHT)) | position.getPieces(Pieces.make(color, Pieces.BISHOP));
+		}
+		int pieces = Long.bitCount(position.getOccupied()) - 2;
+		return pieces > 1 || (pieces == 1 && minors == 0);
+	}
+
+	/**
+	 * @param index The index of a position
+	 *
+	 * @return The square of each piece
+	 */
+	private int[] getSquares(int index) {
+		int[] squares = new int[_pieces.length];
+		for(int i = 0; i < squares.length; ++i) {
+			squares[i] = (index >>> (6 * i)) & 63;
+		}
+		return squares;
+	}
+
+	/**
+	 * Sets a bit of a bit set
+	 *
+	 * @param bits The bit set
+	 * @param index The index of the bit
+	 *
+	 * @return TRUE if the bit was not set before
+	 */
+	private static boolean setBit(AtomicLongArray bits, int index) {
+		long mask = 1L << index;
+		while(true) {
+			long value = bits.get(index >>> 6);
+			if((value & mask) != 0) {
+				return false;
+			}
+			if(bits.compareAndSet(index >>> 6, value, value | mask)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * @param bits The bit set
+	 * @param index The index of the bit
+	 *
+	 * @return TRUE if the bit is set
+	 */
+	private static boolean getBit(AtomicLongArray bits, int index) {
+		return (bits.get(index >>> 6) & (1L << index)) != 0;
+	}
+
+	/**
+	 * @param bits The bit set
+	 *
+	 * @return A copy of the bit set
+	 */
+	private static long[] toArray(AtomicLongArray bits) {
+		long[] values = new long[bits.length()];
+		for(int i = 0; i < values.length; ++i) {
+			values[i] = bits.get(i);
+		}
+		return values;
+	}
+
+	/**
+	 * Generates the bitbases of the specified materials into a directory, for use through {@link BitbaseTablebase#PATH_PROPERTY}
+	 *
+	 * @param args The directory, followed by the materials to generate or none to generate {@link #DEFAULT_MATERIALS}
+	 *
+	 * @throws IOException If a bitbase cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if(args.length == 0) {
+			System.out.println("Usage: BitbaseGenerator <directory> [material...]");
+			return;
+		}
+		Path directory = Paths.get(args[0]);
+		Files.createDirectories(directory);
+		String[] materials = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : DEFAULT_MATERIALS;
+
+		BitbaseGenerator generator = new BitbaseGenerator(new BitbaseTablebase());
+		for(String material : materials) {
+			generator.generate(material).save(directory.resolve(material + BitbaseTablebase.EXTENSION));
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.tablebase;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+import engine.utils.io.logging.Tracelog;
+import game.engine.board.Position;
+import game.engine.interfaces.ITablebase;
+
+/**
+ * The win/draw/loss bitbases generated by {@link BitbaseGenerator}.
+ *
+ * The bitbases are small enough to be read entirely into memory when they are first used, and they
+ * do not hold any distance to zero
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class BitbaseTablebase implements ITablebase {
+
+	/**
+	 * The system property holding the directory of the default bitbases
+	 */
+	public static final String PATH_PROPERTY = "chess.bitbases";
+
+	/**
+	 * The file extension of the bitbases
+	 */
+	public static final String EXTENSION = ".bitbase";
+
+	/**
+	 * The default bitbases
+	 */
+	private static BitbaseTablebase _instance;
+
+	/**
+	 * The bitbases by material key, each bitbase being registered under both of its keys
+	 */
+	private final Map<Long, Bitbase> _bitbases = new HashMap<>();
+
+	/**
+	 * The largest number of pieces of the bitbases
+	 */
+	private int _maxPieces;
+
+	/**
+	 * Constructs a new instance of this class type without any bitbase
+	 */
+	public BitbaseTablebase() {
+	}
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param directory The directory holding the bitbase files
+	 */
+	public BitbaseTablebase(Path directory) {
+		try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+			for(Path file : stream) {
+				add(Bitbase.load(file));
+			}
+		}
+		catch(IOException exception) {
+			Tracelog.log(Level.SEVERE, true, exception);
+		}
+		Tracelog.log(Level.INFO, true, "Loaded " + _bitbases.size() / 2 + " bitbases from " + directory);
+	}
+
+	/**
+	 * Gets the default bitbases, found in the directory of the {@link #PATH_PROPERTY} system property
+	 *
+	 * @return The default bitbases, or null if no bitbase was found
+	 */
+	public static synchronized BitbaseTablebase instance() {
+		if(_instance == null) {
+			String path = System.getProperty(PATH_PROPERTY);
+			if(path == null || path.isEmpty()) {
+				return null;
+			}
+			_instance = new BitbaseTablebase(Paths.get(path));
+		}
+		return _instance.getMaxPieces() > 0 ? _instance : null;
+	}
+
+	/**
+	 * Adds the specified bitbase
+	 *
+	 * @param bitbase The bitbase
+	 */
+	public void add(Bitbase bitbase) {
+		_bitbases.put(bitbase.getKey(), bitbase);
+		_bitbases.put(bitbase.getMirroredKey(), bitbase);
+		_maxPieces = Math.max(_maxPieces, bitbase.getPieceCount());
+	}
+
+	@Override public int getMaxPieces() {
+		return _maxPieces;
+	}
+
+	@Override public int probeWdl(Position position) {
+		if(position.getCastlingRights() != 0 || Long.bitCount(position.getOccupied()) > _maxPieces) {
+			return UNKNOWN;
+		}
+		if(Long.bitCount(position.getOccupied()) == 2) {
+			return DRAW;
+		}
+		Bitbase bitbase = _bitbases.get(SyzygyTable.getMaterialKey(position));
+		return bitbase == null ? UNKNOWN : bitbase.probe(position);
+	}
+
+	@Override public int probeDtz(Position position) {
+		return UNKNOWN;
+	}
+}
@@ -0,0 +1,1121 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+import engine.utils.io.logging.Tracelog;
+import game.engine.board.Bitboards;
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+import game.engine.interfaces.ITablebase;
+
+/**
+ * A single Syzygy table file, holding either the win/draw/loss results or the distances to zero
+ * of one material combination.
+ *
+ * The file is memory-mapped on its first probe.  A position is reduced by symmetry and encoded
+ * into an index, and the value at that index is decompressed from the block of the file holding it
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+final class SyzygyTable {
+
+	/**
+	 * The compression data of one side and leading file of a table
+	 *
+	 * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+	 *
+	 */
+	private static final class PairsData {
+
+		/**
+		 * The flags of the table
+		 */
+		int flags;
+
+		/**
+		 * The length in bits of the shortest symbol
+		 */
+		int minSymbolLength;
+
+		/**
+		 * The length in bits of the longest symbol
+		 */
+		int maxSymbolLength;
+
+		/**
+		 * The size in bytes of a compressed block
+		 */
+		int blockSize;
+
+		/**
+		 * The number of indices between two entries of the sparse index
+		 */
+		long span;
+
+		/**
+		 * The number of compressed blocks
+		 */
+		int blockCount;
+
+		/**
+		 * The number of entries of the block length table
+		 */
+		int blockLengthCount;
+
+		/**
+		 * The number of entries of the sparse index
+		 */
+		int sparseIndexCount;
+
+		/**
+		 * The lowest code of each symbol length, left aligned on 64 bits
+		 */
+		long[] base;
+
+		/**
+		 * The number of values minus one that each symbol expands to
+		 */
+		int[] symbolLength;
+
+		/**
+		 * The offset of the lowest symbol of each symbol length
+		 */
+		int lowestSymbol;
+
+		/**
+		 * The offset of the symbol pairing tree
+		 */
+		int tree;
+
+		/**
+		 * The offset of the sparse index
+		 */
+		int sparseIndex;
+
+		/**
+		 * The offset of the block length table
+		 */
+		int blockLength;
+
+		/**
+		 * The offset of the compressed blocks
+		 */
+		int data;
+
+		/**
+		 * The pieces of the table in the order that they are encoded
+		 */
+		final int[] pieces = new int[MAX_PIECES];
+
+		/**
+		 * The multiplier of the index of each group of pieces
+		 */
+		final long[] groupIndex = new long[MAX_PIECES + 1];
+
+		/**
+		 * The number of pieces of each group, terminated by zero
+		 */
+		final int[] groupLength = new int[MAX_PIECES + 1];
+
+		/**
+		 * The offsets within the value map of the distance tables, for each result
+		 */
+		final int[] mapIndex = new int[4];
+	}
+
+	/**
+	 * The largest number of pieces of a table
+	 */
+	static final int MAX_PIECES = 7;
+
+	/**
+	 * The probe result of a distance table that only holds the other side to move
+	 */
+	static final int CHANGE_SIDE = Integer.MIN_VALUE + 1;
+
+	/**
+	 * The magic number of a win/draw/loss file
+	 */
+	private static final int WDL_MAGIC = 0x5D23E871;
+
+	/**
+	 * The magic number of a distance to zero file
+	 */
+	private static final int DTZ_MAGIC = 0xA50C66D7;
+
+	/**
+	 * The table holds the positions of black to move
+	 */
+	private static final int FLAG_SIDE_TO_MOVE = 1;
+
+	/**
+	 * The distance values are mapped through a value map
+	 */
+	private static final int FLAG_MAPPED = 2;
+
+	/**
+	 * The winning distances are stored in plies rather than moves
+	 */
+	private static final int FLAG_WIN_PLIES = 4;
+
+	/**
+	 * The losing distances are stored in plies rather than moves
+	 */
+	private static final int FLAG_LOSS_PLIES = 8;
+
+	/**
+	 * The value map holds two byte values
+	 */
+	private static final int FLAG_WIDE = 16;
+
+	/**
+	 * The table holds a single value
+	 */
+	private static final int FLAG_SINGLE_VALUE = 128;
+
+	/**
+	 * The index of each result within the value map of the distance tables
+	 */
+	private static final int[] WDL_MAP = { 1, 3, 0, 2, 0 };
+
+	/**
+	 * The code of each square below the a1-h8 diagonal
+	 */
+	private static final int[] MAP_B1H1H7 = new int[64];
+
+	/**
+	 * The code of each square of the a1-d1-d4 triangle, the diagonal squares are coded last
+	 */
+	private static final int[] MAP_A1D1D4 = new int[64];
+
+	/**
+	 * The code of each legal placement of two kings, the first being in the a1-d1-d4 triangle
+	 */
+	private static final int[][] MAP_KK = new int[10][64];
+
+	/**
+	 * The binomial coefficients, indexed by the number of elements to choose and then the size of the set
+	 */
+	private static final long[][] BINOMIAL = new long[MAX_PIECES][64];
+
+	/**
+	 * The number of squares available to the other pawns when the leading pawn is on each square
+	 */
+	private static final int[] MAP_PAWNS = new int[64];
+
+	/**
+	 * The index of the leading pawns, indexed by the number of leading pawns and then the square of the leading pawn
+	 */
+	private static final long[][] LEAD_PAWN_INDEX = new long[MAX_PIECES - 1][64];
+
+	/**
+	 * The number of placements of the leading pawns, indexed by the number of leading pawns and then the file of the leading pawn
+	 */
+	private static final long[][] LEAD_PAWNS_SIZE = new long[MAX_PIECES - 1][4];
+
+	static {
+		int code = 0;
+		for(int square = 0; square < 64; ++square) {
+			if(getDiagonalOffset(square) < 0) {
+				MAP_B1H1H7[square] = code++;
+			}
+		}
+
+		code = 0;
+		List<Integer> diagonal = new ArrayList<>();
+		for(int square = 0; square <= 27; ++square) {
+			if(getDiagonalOffset(square) < 0 && Bitboards.file(square) <= 3) {
+				MAP_A1D1D4[square] = code++;
+			}
+			else if(getDiagonalOffset(square) == 0 && Bitboards.file(square) <= 3) {
+				diagonal.add(square);
+			}
+		}
+		for(int square : diagonal) {
+			MAP_A1D1D4[square] = code++;
+		}
+
+		// Both kings on the diagonal are coded last
+		code = 0;
+		List<int[]> bothOnDiagonal = new ArrayList<>();
+		for(int index = 0; index < 10; ++index) {
+			for(int first = 0; first <= 27; ++first) {
+				// The squares outside of the triangle are also coded as zero, only b1 really is
+				if(MAP_A1D1D4[first] != index || (index == 0 && first != 1)) {
+					continue;
+				}
+				for(int second = 0; second < 64; ++second) {
+					if(((Bitboards.KING_ATTACKS[first] | (1L << first)) & (1L << second)) != 0) {
+						continue;
+					}
+					if(getDiagonalOffset(first) == 0 && getDiagonalOffset(second) > 0) {
+						continue;
+					}
+					if(getDiagonalOffset(first) == 0 && getDiagonalOffset(second) == 0) {
+						bothOnDiagonal.add(new int[] { index, second });
+					}
+					else {
+						MAP_KK[index][second] = code++;
+					}
+				}
+			}
+		}
+		for(int[] placement : bothOnDiagonal) {
+			MAP_KK[placement[0]][placement[1]] = code++;
+		}
+
+		BINOMIAL[0][0] = 1;
+		for(int n = 1; n < 64; ++n) {
+			for(int k = 0; k < MAX_PIECES && k <= n; ++k) {
+				BINOMIAL[k][n] = (k > 0 ? BINOMIAL[k - 1][n - 1] : 0) + (k < n ? BINOMIAL[k][n - 1] : 0);
+			}
+		}
+
+		// The leading pawn is the one nearest to the edge, and then with the lowest rank
+		int availableSquares = 47;
+		for(int leadPawnCount = 1; leadPawnCount < MAX_PIECES - 1; ++leadPawnCount) {
+			for(int file = 0; file < 4; ++file) {
+				long index = 0;
+				for(int rank = 1; rank <= 6; ++rank) {
+					int square = rank * 8 + file;
+					if(leadPawnCount == 1) {
+						MAP_PAWNS[square] = availableSquares--;
+						MAP_PAWNS[square ^ 7] = availableSquares--;
+					}
+					LEAD_PAWN_INDEX[leadPawnCount][square] = index;
+					index += BINOMIAL[leadPawnCount - 1][MAP_PAWNS[square]];
+				}
+				LEAD_PAWNS_SIZE[leadPawnCount][file] = index;
+			}
+		}
+	}
+
+	/**
+	 * The path of the file
+	 */
+	private final Path _file;
+
+	/**
+	 * Indicates if the file holds distances to zero rather than win/draw/loss results
+	 */
+	private final boolean _isDistance;
+
+	/**
+	 * The material key of the table with white as the first side of the file name
+	 */
+	private final long _key;
+
+	/**
+	 * The material key of the table with black as the first side of the file name
+	 */
+	private final long _mirroredKey;
+
+	/**
+	 * The number of pieces of the table, kings included
+	 */
+	private final int _pieceCount;
+
+	/**
+	 * Indicates if the table has any pawns
+	 */
+	private final boolean _hasPawns;
+
+	/**
+	 * Indicates if any side has exactly one piece of a type other than the king
+	 */
+	private final boolean _hasUniquePieces;
+
+	/**
+	 * The number of pawns of the leading color and then of the other color
+	 */
+	private final int[] _pawnCount = new int[2];
+
+	/**
+	 * The mapped file, or null if the file is not mapped yet
+	 */
+	private volatile MappedByteBuffer _buffer;
+
+	/**
+	 * Indicates if mapping the file failed, in which case it is not attempted again
+	 */
+	private volatile boolean _isUnavailable;
+
+	/**
+	 * The compression data, indexed by side to move and then by the file of the leading pawn
+	 */
+	private PairsData[][] _pairs;
+
+	/**
+	 * The offset of the value map of a distance table
+	 */
+	private int _mapOffset;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param file The path of the file
+	 * @param material The material of the table, such as KRvK
+	 * @param isDistance If the file holds distances to zero
+	 */
+	SyzygyTable(Path file, String material, boolean isDistance) {
+		_file = file;
+		_isDistance = isDistance;
+
+		String[] sides = material.split("v");
+		int[][] counts = getPieceCounts(material);
+		_key = getMaterialKey(counts[Pieces.WHITE], counts[Pieces.BLACK]);
+		_mirroredKey = getMaterialKey(counts[Pieces.BLACK], counts[Pieces.WHITE]);
+		_pieceCount = sides[0].length() + sides[1].length();
+		_hasPawns = counts[Pieces.WHITE][Pieces.PAWN] + counts[Pieces.BLACK][Pieces.PAWN] > 0;
+
+		boolean hasUniquePieces = false;
+		for(int color = Pieces.WHITE; color <= Pieces.BLACK; ++color) {
+			for(int type = Pieces.PAWN; type < Pieces.KING; ++type) {
+				hasUniquePieces |= counts[color][type] == 1;
+			}
+		}
+		_hasUniquePieces = hasUniquePieces;
+
+		// The leading color is the one with the fewest pawns, as it compresses better
+		int whitePawns = counts[Pieces.WHITE][Pieces.PAWN];
+		int blackPawns = counts[Pieces.BLACK][Pieces.PAWN];
+		boolean isWhiteLeading = blackPawns == 0 || (whitePawns != 0 && blackPawns >= whitePawns);
+		_pawnCount[0] = isWhiteLeading ? whitePawns : blackPawns;
+		_pawnCount[1] = isWhiteLeading ? blackPawns : whitePawns;
+	}
+
+	/**
+	 * Gets the number of pieces of each type of the specified material
+	 *
+	 * @param material The material, such as KRvK, with the pieces of white first
+	 *
+	 * @return The number of pieces indexed by color and then type
+	 */
+	static int[][] getPieceCounts(String material) {
+		String[] sides = material.split("v");
+		int[][] counts = new int[2][Pieces.KING + 1];
+		for(int color = Pieces.WHITE; color <= Pieces.BLACK; ++color) {
+			for(char character : sides[color].toCharArray()) {
+				++counts[color][Pieces.type(Pieces.fromCharacter(character))];
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Gets the material key of the specified material
+	 *
+	 * @param material The material, such as KRvK, with the pieces of white first
+	 *
+	 * @return The material key
+	 */
+	static long getMaterialKey(String material) {
+		int[][] counts = getPieceCounts(material);
+		return getMaterialKey(counts[Pieces.WHITE], counts[Pieces.BLACK]);
+	}
+
+	/**
+	 * Gets the material key of the specified piece counts
+	 *
+	 * @param white The number of white pieces of each type
+	 * @param black The number of black pieces of each type
+	 *
+	 * @return The material key
+	 */
+	private static long getMaterialKey(int[] white, int[] black) {
+		long key = 0;
+		for(int type = Pieces.PAWN; type < Pieces.KING; ++type) {
+			key |= (long)white[type] << (type * 4);
+			key |= (long)black[type] << ((type + Pieces.KING) * 4);
+		}
+		return key;
+	}
+
+	/**
+	 * Gets the material key of the specified position
+	 *
+	 * @param position The position
+	 *
+	 * @return The material key, identical for every position with the same pieces of each color
+	 */
+	static long getMaterialKey(Position position) {
+		long key = 0;
+		for(int type = Pieces.PAWN; type < Pieces.KING; ++type) {
+			key |= (long)Long.bitCount(position.getPieces(Pieces.make(Pieces.WHITE, type))) << (type * 4);
+			key |= (long)Long.bitCount(position.getPieces(Pieces.make(Pieces.BLACK, type))) << ((type + Pieces.KING) * 4);
+		}
+		return key;
+	}
+
+	/**
+	 * @return The material key of the table with white as the first side of the file name
+	 */
+	long getKey() {
+		return _key;
+	}
+
+	/**
+	 * @return The material key of the table with black as the first side of the file name
+	 */
+	long getMirroredKey() {
+		return _mirroredKey;
+	}
+
+	/**
+	 * @return The number of pieces of the table, kings included
+	 */
+	int getPieceCount() {
+		return _pieceCount;
+	}
+
+	/**
+	 * @param square The square
+	 *
+	 * @return Zero if the square is on the a1-h8 diagonal, negative below it and positive above it
+	 */
+	private static int getDiagonalOffset(int square) {
+		return Bitboards.rank(square) - Bitboards.file(square);
+	}
+
+	/**
+	 * @param piece The piece of the engine
+	 *
+	 * @return The code of the piece within the table files
+	 */
+	private static int toTableCode(int piece) {
+		return (Pieces.color(piece) << 3) | (Pieces.type(piece) + 1);
+	}
+
+	/**
+	 * Maps the file if it is not mapped yet and reads the compression data of its header
+	 *
+	 * @return TRUE if the file can be probed
+	 */
+	private boolean map() {
+		if(_buffer != null) {
+			return true;
+		}
+		synchronized(this) {
+			if(_buffer != null) {
+				return true;
+			}
+			if(_isUnavailable) {
+				return false;
+			}
+			try(FileChannel channel = FileChannel.open(_file, StandardOpenOption.READ)) {
+				if(channel.size() > Integer.MAX_VALUE) {
+					throw new IOException("The table " + _file + " is too large to be mapped");
+				}
+				MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+				buffer.order(ByteOrder.LITTLE_ENDIAN);
+				if(buffer.getInt(0) != (_isDistance ? DTZ_MAGIC : WDL_MAGIC)) {
+					throw new IOException("The table " + _file + " is not a valid Syzygy table");
+				}
+				readHeader(buffer);
+				_buffer = buffer;
+				return true;
+			}
+			catch(IOException | RuntimeException exception) {
+				Tracelog.log(Level.SEVERE, true, exception);
+				_isUnavailable = true;
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Reads the compression data of the table
+	 *
+	 * @param buffer The mapped file
+	 *
+	 * @throws IOException If the header does not match the material of the table
+	 */
+	private void readHeader(MappedByteBuffer buffer) throws IOException {
+		int offset = 4;
+		int flags = u8(buffer, offset++);
+		if(((flags & 2) != 0) != _hasPawns || (!_isDistance && ((flags & 1) != 0) != (_key != _mirroredKey))) {
+			throw new IOException("The table " + _file + " does not hold the material of its name");
+		}
+
+		int sides = !_isDistance && _key != _mirroredKey ? 2 : 1;
+		int maxFile = _hasPawns ? 3 : 0;
+		boolean hasBothPawns = _hasPawns && _pawnCount[1] != 0;
+		_pairs = new PairsData[sides][maxFile + 1];
+
+		for(int file = 0; file <= maxFile; ++file) {
+			for(int side = 0; side < sides; ++side) {
+				_pairs[side][file] = new PairsData();
+			}
+			int[][] order = {
+				{ u8(buffer, offset) & 0xF, hasBothPawns ? u8(buffer, offset + 1) & 0xF : 0xF },
+				{ u8(buffer, offset) >> 4, hasBothPawns ? u8(buffer, offset + 1) >> 4 : 0xF }
+			};
+			offset += hasBothPawns ? 2 : 1;
+			for(int i = 0; i < _pieceCount; ++i, ++offset) {
+				for(int side = 0; side < sides; ++side) {
+					_pairs[side][file].pieces[i] = side == 0 ? u8(buffer, offset) & 0xF : u8(buffer, offset) >> 4;
+				}
+			}
+			for(int side = 0; side < sides; ++side) {
+				setGroups(_pairs[side][file], order[side], file);
+			}
+		}
+		offset += offset & 1;
+
+		for(int file = 0; file <= maxFile; ++file) {
+			for(int side = 0; side < sides; ++side) {
+				offset = setSizes(buffer, _pairs[side][file], offset);
+			}
+		}
+
+		if(_isDistance) {
+			_mapOffset = offset;
+			for(int file = 0; file <= maxFile; ++file) {
+				PairsData pairs = _pairs[0][file];
+				if((pairs.flags & FLAG_MAPPED) == 0) {
+					continue;
+				}
+				if((pairs.flags & FLAG_WIDE) != 0) {
+					offset += offset & 1;
+					for(int i = 0; i < 4; ++i) {
+						pairs.mapIndex[i] = (offset - _mapOffset) / 2 + 1;
+						offset += 2 * u16(buffer, offset) + 2;
+					}
+				}
+				else {
+					for(int i = 0; i < 4; ++i) {
+						pairs.mapIndex[i] = offset - _mapOffset + 1;
+						offset += u8(buffer, offset) + 1;
+					}
+				}
+			}
+			offset += offset & 1;
+		}
+
+		for(int file = 0; file <= maxFile; ++file) {
+			for(int side = 0; side < sides; ++side) {
+				_pairs[side][file].sparseIndex = offset;
+				offset += _pairs[side][file].sparseIndexCount * 6;
+			}
+		}
+		for(int file = 0; file <= maxFile; ++file) {
+			for(int side = 0; side < sides; ++side) {
+				_pairs[side][file].blockLength = offset;
+				offset += _pairs[side][file].blockLengthCount * 2;
+			}
+		}
+		for(int file = 0; file <= maxFile; ++file) {
+			for(int side = 0; side < sides; ++side) {
+				offset = (offset + 0x3F) & ~0x3F;
+				_pairs[side][file].data = offset;
+				offset += _pairs[side][file].blockCount * _pairs[side][file].blockSize;
+			}
+		}
+		if(offset > buffer.capacity()) {
+			throw new IOException("The table " + _file + " is truncated");
+		}
+	}
+
+	/**
+	 * Sets the groups of pieces that are encoded together, and the multiplier of the index of each group
+	 *
+	 * @param pairs The compression data
+	 * @param order The order of the leading group and of the remaining pawns among the groups
+	 * @param file The file of the leading pawn
+	 */
+	private void setGroups(PairsData pairs, int[] order, int file) {
+		int count = 0;
+		int firstLength = _hasPawns ? 0 : _hasUniquePieces ? 3 : 2;
+		pairs.groupLength[count] = 1;
+		for(int i = 1; i < _pieceCount; ++i) {
+			if(--firstLength > 0 || pairs.pieces[i] == pairs.pieces[i - 1]) {
+				++pairs.groupLength[count];
+			}
+			else {
+				pairs.groupLength[++count] = 1;
+			}
+		}
+		pairs.groupLength[++count] = 0;
+
+		boolean hasBothPawns = _hasPawns && _pawnCount[1] != 0;
+		int next = hasBothPawns ? 2 : 1;
+		int freeSquares = 64 - pairs.groupLength[0] - (hasBothPawns ? pairs.groupLength[1] : 0);
+		long index = 1;
+		for(int k = 0; next < count || k == order[0] || k == order[1]; ++k) {
+			if(k == order[0]) {
+				pairs.groupIndex[0] = index;
+				index *= _hasPawns ? LEAD_PAWNS_SIZE[pairs.groupLength[0]][file] : _hasUniquePieces ? 31332 : 462;
+			}
+			else if(k == order[1]) {
+				pairs.groupIndex[1] = index;
+				index *= BINOMIAL[pairs.groupLength[1]][48 - pairs.groupLength[0]];
+			}
+			else {
+				pairs.groupIndex[next] = index;
+				index *= BINOMIAL[pairs.groupLength[next]][freeSquares];
+				freeSquares -= pairs.groupLength[next++];
+			}
+		}
+		pairs.groupIndex[count] = index;
+	}
+
+	/**
+	 * Reads the sizes and the symbol tables of the compressed data
+	 *
+	 * @param buffer The mapped file
+	 * @param pairs The compression data
+	 * @param offset The offset to read from
+	 *
+	 * @return The offset following the data that was read
+	 */
+	private static int setSizes(MappedByteBuffer buffer, PairsData pairs, int offset) {
+		pairs.flags = u8(buffer, offset++);
+		if((pairs.flags & FLAG_SINGLE_VALUE) != 0) {
+			// The single value of the table is held as the shortest symbol length
+			pairs.minSymbolLength = u8(buffer, offset++);
+			return offset;
+		}
+
+		int groups = 0;
+		while(pairs.groupLength[groups] != 0) {
+			++groups;
+		}
+		long tableSize = pairs.groupIndex[groups];
+
+		pairs.blockSize = 1 << u8(buffer, offset++);
+		pairs.span = 1L << u8(buffer, offset++);
+		pairs.sparseIndexCount = (int)((tableSize + pairs.span - 1) / pairs.span);
+		int padding = u8(buffer, offset++);
+		pairs.blockCount = buffer.getInt(offset);
+		offset += 4;
+		pairs.blockLengthCount = pairs.blockCount + padding;
+		pairs.maxSymbolLength = u8(buffer, offset++);
+		pairs.minSymbolLength = u8(buffer, offset++);
+		pairs.lowestSymbol = offset;
+
+		// Longer codes have lower values, the lowest code of each length is left aligned so that codes
+		// can be compared directly against the bits being decoded
+		pairs.base = new long[pairs.maxSymbolLength - pairs.minSymbolLength + 1];
+		for(int i = pairs.base.length - 2; i >= 0; --i) {
+			pairs.base[i] = (pairs.base[i + 1] + u16(buffer, pairs.lowestSymbol + i * 2) - u16(buffer, pairs.lowestSymbol + (i + 1) * 2)) / 2;
+		}
+		for(int i = 0; i < pairs.base.length; ++i) {
+			pairs.base[i] <<= 64 - i - pairs.minSymbolLength;
+		}
+		offset += pairs.base.length * 2;
+
+		pairs.symbolLength = new int[u16(buffer, offset)];
+		offset += 2;
+		pairs.tree = offset;
+		boolean[] visited = new boolean[pairs.symbolLength.length];
+		for(int symbol = 0; symbol < pairs.symbolLength.length; ++symbol) {
+			if(!visited[symbol]) {
+				pairs.symbolLength[symbol] = getSymbolLength(buffer, pairs, symbol, visited);
+			}
+		}
+		return offset + pairs.symbolLength.length * 3 + (pairs.symbolLength.length & 1);
+	}
+
+	/**
+	 * Computes the number of values minus one that a symbol expands to
+	 *
+	 * @param buffer The mapped file
+	 * @param pairs The compression data
+	 * @param symbol The symbol
+	 * @param visited The symbols whose length is already computed
+	 *
+	 * @return The length of the symbol
+	 */
+	private static int getSymbolLength(MappedByteBuffer buffer, PairsData pairs, int symbol, boolean[] visited) {
+		visited[symbol] = true;
+		int right = getRight(buffer, pairs, symbol);
+		if(right == 0xFFF) {
+			return 0;
+		}
+		int left = getLeft(buffer, pairs, symbol);
+		if(!visited[left]) {
+			pairs.symbolLength[left] = getSymbolLength(buffer, pairs, left, visited);
+		}
+		if(!visited[right]) {
+			pairs.symbolLength[right] = getSymbolLength(buffer, pairs, right, visited);
+		}
+		return pairs.symbolLength[left] + pairs.symbolLength[right] + 1;
+	}
+
+	/**
+	 * Probes the specified position
+	 *
+	 * @param position The position, which must have the material of this table
+	 * @param wdl The win/draw/loss result of the position, only used by distance tables
+	 *
+	 * @return The win/draw/loss result or the distance to zero in plies, {@link #CHANGE_SIDE} if this
+	 * distance table only holds the other side to move, or {@link ITablebase#UNKNOWN} if the file cannot be read
+	 */
+	int probe(Position position, int wdl) {
+		if(!map()) {
+			return ITablebase.UNKNOWN;
+		}
+		MappedByteBuffer buffer = _buffer;
+
+		int[] squares = new int[MAX_PIECES];
+		int[] pieces = new int[MAX_PIECES];
+		int size = 0;
+		int leadPawnCount = 0;
+		long leadPawns = 0;
+		int tableFile = 0;
+
+		// The tables are stored with the stronger side as white, and symmetric tables only with white to move
+		boolean isSymmetricBlackToMove = _key == _mirroredKey && position.getSideToMove() == Pieces.BLACK;
+		boolean isBlackStronger = getMaterialKey(position) != _key;
+		boolean isFlipped = isSymmetricBlackToMove || isBlackStronger;
+		int flipColor = isFlipped ? 8 : 0;
+		int flipSquares = isFlipped ? 56 : 0;
+		int sideToMove = (isFlipped ? 1 : 0) ^ position.getSideToMove();
+
+		// Tables with pawns are split by the file of the leading pawn
+		if(_hasPawns) {
+			int leadColor = (_pairs[0][0].pieces[0] ^ flipColor) >> 3;
+			leadPawns = position.getPieces(Pieces.make(leadColor, Pieces.PAWN));
+			for(long pawns = leadPawns; pawns != 0; pawns &= pawns - 1) {
+				squares[size++] = Long.numberOfTrailingZeros(pawns) ^ flipSquares;
+			}
+			leadPawnCount = size;
+			int lead = 0;
+			for(int i = 1; i < leadPawnCount; ++i) {
+				if(MAP_PAWNS[squares[i]] > MAP_PAWNS[squares[lead]]) {
+					lead = i;
+				}
+			}
+			swap(squares, 0, lead);
+			tableFile = Bitboards.file(squares[0]);
+			if(tableFile > 3) {
+				tableFile = Bitboards.file(squares[0] ^ 7);
+			}
+		}
+
+		if(_isDistance && (_pairs[0][tableFile].flags & FLAG_SIDE_TO_MOVE) != sideToMove && !(_key == _mirroredKey && !_hasPawns)) {
+			return CHANGE_SIDE;
+		}
+
+		for(long occupied = position.getOccupied() ^ leadPawns; occupied != 0; occupied &= occupied - 1) {
+			int square = Long.numberOfTrailingZeros(occupied);
+			squares[size] = square ^ flipSquares;
+			pieces[size++] = toTableCode(position.getPiece(square)) ^ flipColor;
+		}
+
+		PairsData pairs = _pairs[_isDistance ? 0 : sideToMove][tableFile];
+
+		// Order the pieces the way the table encodes them
+		for(int i = leadPawnCount; i < size - 1; ++i) {
+			for(int j = i + 1; j < size; ++j) {
+				if(pairs.pieces[i] == pieces[j]) {
+					swap(pieces, i, j);
+					swap(squares, i, j);
+					break;
+				}
+			}
+		}
+
+		// Mirror the board so that the leading piece is on the queen side
+		if(Bitboards.file(squares[0]) > 3) {
+			for(int i = 0; i < size; ++i) {
+				squares[i] ^= 7;
+			}
+		}
+
+		long index;
+		if(_hasPawns) {
+			index = LEAD_PAWN_INDEX[leadPawnCount][squares[0]];
+			sortByPawnMap(squares, 1, leadPawnCount);
+			for(int i = 1; i < leadPawnCount; ++i) {
+				index += BINOMIAL[i][MAP_PAWNS[squares[i]]];
+			}
+		}
+		else {
+			// Without pawns the board is also mirrored so that the leading piece is below the fifth rank
+			if(Bitboards.rank(squares[0]) > 3) {
+				for(int i = 0; i < size; ++i) {
+					squares[i] ^= 56;
+				}
+			}
+
+			// and then along the diagonal so that the first leading piece off the diagonal is below it
+			for(int i = 0; i < pairs.groupLength[0]; ++i) {
+				int diagonalOffset = getDiagonalOffset(squares[i]);
+				if(diagonalOffset == 0) {
+					continue;
+				}
+				if(diagonalOffset > 0) {
+					for(int j = i; j < size; ++j) {
+						squares[j] = ((squares[j] >> 3) | (squares[j] << 3)) & 63;
+					}
+				}
+				break;
+			}
+
+			if(_hasUniquePieces) {
+				int adjust1 = squares[1] > squares[0] ? 1 : 0;
+				int adjust2 = (squares[2] > squares[0] ? 1 : 0) + (squares[2] > squares[1] ? 1 : 0);
+				if(getDiagonalOffset(squares[0]) != 0) {
+					index = (MAP_A1D1D4[squares[0]] * 63 + (squares[1] - adjust1)) * 62 + squares[2] - adjust2;
+				}
+				else if(getDiagonalOffset(squares[1]) != 0) {
+					index = (6 * 63 + Bitboards.rank(squares[0]) * 28 + MAP_B1H1H7[squares[1]]) * 62 + squares[2] - adjust2;
+				}
+				else if(getDiagonalOffset(squares[2]) != 0) {
+					index = 6 * 63 * 62 + 4 * 28 * 62 + Bitboards.rank(squares[0]) * 7 * 28 + (Bitboards.rank(squares[1]) - adjust1) * 28 + MAP_B1H1H7[squares[2]];
+				}
+				else {
+					index = 6 * 63 * 62 + 4 * 28 * 62 + 4 * 7 * 28 + Bitboards.rank(squares[0]) * 7 * 6 + (Bitboards.rank(squares[1]) - adjust1) * 6 + (Bitboards.rank(squares[2]) - adjust2);
+				}
+			}
+			else {
+				index = MAP_KK[MAP_A1D1D4[squares[0]]][squares[1]];
+			}
+		}
+
+		// Encode the remaining groups, each piece counting the squares that are not taken by the previous groups
+		index *= pairs.groupIndex[0];
+		int groupStart = pairs.groupLength[0];
+		boolean hasRemainingPawns = _hasPawns && _pawnCount[1] != 0;
+		for(int group = 1; pairs.groupLength[group] != 0; ++group) {
+			int groupLength = pairs.groupLength[group];
+			sortBySquare(squares, groupStart, groupStart + groupLength);
+			long groupIndex = 0;
+			for(int i = 0; i < groupLength; ++i) {
+				int adjust = 0;
+				for(int j = 0; j < groupStart; ++j) {
+					if(squares[groupStart + i] > squares[j]) {
+						++adjust;
+					}
+				}
+				groupIndex += BINOMIAL[i + 1][squares[groupStart + i] - adjust - (hasRemainingPawns ? 8 : 0)];
+			}
+			hasRemainingPawns = false;
+			index += groupIndex * pairs.groupIndex[group];
+			groupStart += groupLength;
+		}
+
+		int value = decompress(buffer, pairs, index);
+		return _isDistance ? toDistance(buffer, tableFile, value, wdl) : value - 2;
+	}
+
+	/**
+	 * Converts a value of a distance table into a distance to zero in plies
+	 *
+	 * @param buffer The mapped file
+	 * @param file The file of the leading pawn
+	 * @param value The value read from the table
+	 * @param wdl The win/draw/loss result of the position
+	 *
+	 * @return The distance to zero in plies
+	 */
+	private int toDistance(MappedByteBuffer buffer, int file, int value, int wdl) {
+		PairsData pairs = _pairs[0][file];
+		if((pairs.flags & FLAG_MAPPED) != 0) {
+			int mapIndex = pairs.mapIndex[WDL_MAP[wdl + 2]];
+			value = (pairs.flags & FLAG_WIDE) != 0
+				? u16(buffer, _mapOffset + 2 * (mapIndex + value))
+				: u8(buffer, _mapOffset + mapIndex + value);
+		}
+		if((wdl == ITablebase.WIN && (pairs.flags & FLAG_WIN_PLIES) == 0)
+			|| (wdl == ITablebase.LOSS && (pairs.flags & FLAG_LOSS_PLIES) == 0)
+			|| wdl == ITablebase.CURSED_WIN
+			|| wdl == ITablebase.BLESSED_LOSS) {
+			value *= 2;
+		}
+		return value + 1;
+	}
+
+	/**
+	 * Decompresses the value at the specified index
+	 *
+	 * @param buffer The mapped file
+	 * @param pairs The compression data
+	 * @param index The index of the value
+	 *
+	 * @return The value
+	 */
+	private static int decompress(MappedByteBuffer buffer, PairsData pairs, long index) {
+		if((pairs.flags & FLAG_SINGLE_VALUE) != 0) {
+			return pairs.minSymbolLength;
+		}
+
+		// The sparse index gives a block and an offset near the index, which is then walked to the exact block
+		int entry = pairs.sparseIndex + (int)(index / pairs.span) * 6;
+		int block = buffer.getInt(entry);
+		long offset = u16(buffer, entry + 4) + (index % pairs.span) - pairs.span / 2;
+		while(offset < 0) {
+			offset += u16(buffer, pairs.blockLength + 2 * --block) + 1;
+		}
+		while(offset > u16(buffer, pairs.blockLength + 2 * block)) {
+			offset -= u16(buffer, pairs.blockLength + 2 * block++) + 1;
+		}
+
+		int pointer = pairs.data + block * pairs.blockSize;
+		long bits = Long.reverseBytes(buffer.getLong(pointer));
+		pointer += 8;
+		int bitCount = 64;
+		int symbol;
+		while(true) {
+			int length = 0;
+			while(Long.compareUnsigned(bits, pairs.base[length]) < 0) {
+				++length;
+			}
+			symbol = (int)((bits - pairs.base[length]) >>> (64 - length - pairs.minSymbolLength));
+			symbol = (symbol + u16(buffer, pairs.lowestSymbol + 2 * length)) & 0xFFFF;
+			if(offset < pairs.symbolLength[symbol] + 1) {
+				break;
+			}
+			offset -= pairs.symbolLength[symbol] + 1;
+			length += pairs.minSymbolLength;
+			bits <<= length;
+			bitCount -= length;
+			if(bitCount <= 32) {
+				bitCount += 32;
+				bits |= (Integer.reverseBytes(buffer.getInt(pointer)) & 0xFFFFFFFFL) << (64 - bitCount);
+				pointer += 4;
+			}
+		}
+
+		// Expand the pairs of the symbol until the value at the offset is reached
+		while(pairs.symbolLength[symbol] != 0) {
+			int left = getLeft(buffer, pairs, symbol);
+			if(offset < pairs.symbolLength[left] + 1) {
+				symbol = left;
+			}
+			else {
+				offset -= pairs.symbolLength[left] + 1;
+				symbol = getRight(buffer, pairs, symbol);
+			}
+		}
+		return getLeft(buffer, pairs, symbol);
+	}
+
+	/**
+	 * @param buffer The mapped file
+	 * @param pairs The compression data
+	 * @param symbol The symbol
+	 *
+	 * @return The left symbol of the pair that the symbol expands to, or its value if it does not expand
+	 */
+	private static int getLeft(MappedByteBuffer buffer, PairsData pairs, int symbol) {
+		int offset = pairs.tree + symbol * 3;
+		return ((u8(buffer, offset + 1) & 0xF) << 8) | u8(buffer, offset);
+	}
+
+	/**
+	 * @param buffer The mapped file
+	 * @param pairs The compression data
+	 * @param symbol The symbol
+	 *
+	 * @return The right symbol of the pair that the symbol expands to, or 0xFFF if it does not expand
+	 */
+	private static int getRight(MappedByteBuffer buffer, PairsData pairs, int symbol) {
+		int offset = pairs.tree + symbol * 3;
+		return (u8(buffer, offset + 2) << 4) | (u8(buffer, offset + 1) >> 4);
+	}
+
+	/**
+	 * Sorts a range of pawn squares by the number of squares available to the other pawns, keeping the order of equal squares
+	 *
+	 * @param squares The squares
+	 * @param from The first index of the range
+	 * @param to The index following the range
+	 */
+	private static void sortByPawnMap(int[] squares, int from, int to) {
+		for(int i = from + 1; i < to; ++i) {
+			int square = squares[i];
+			int j = i - 1;
+			for(; j >= from && MAP_PAWNS[squares[j]] > MAP_PAWNS[square]; --j) {
+				squares[j + 1] = squares[j];
+			}
+			squares[j + 1] = square;
+		}
+	}
+
+	/**
+	 * Sorts a range of squares in ascending order
+	 *
+	 * @param squares The squares
+	 * @param from The first index of the range
+	 * @param to The index following the range
+	 */
+	private static void sortBySquare(int[] squares, int from, int to) {
+		for(int i = from + 1; i < to; ++i) {
+			int square = squares[i];
+			int j = i - 1;
+			for(; j >= from && squares[j] > square; --j) {
+				squares[j + 1] = squares[j];
+			}
+			squares[j + 1] = square;
+		}
+	}
+
+	/**
+	 * Swaps two values of an array
+	 *
+	 * @param values The array
+	 * @param first The index of the first value
+	 * @param second The index of the second value
+	 */
+	private static void swap(int[] values, int first, int second) {
+		int value = values[first];
+		values[first] = values[second];
+		values[second] = value;
+	}
+
+	/**
+	 * @param buffer The mapped file
+	 * @param offset The offset
+	 *
+	 * @return The unsigned byte at the offset
+	 */
+	private static int u8(MappedByteBuffer buffer, int offset) {
+		return buffer.get(offset) & 0xFF;
+	}
+
+	/**
+	 * @param buffer The mapped file
+	 * @param offset The offset
+	 *
+	 * @return The unsigned little-endian short at the offset
+	 */
+	private static int u16(MappedByteBuffer buffer, int offset) {
+		return buffer.getShort(offset) & 0xFFFF;
+	}
+}
@@ -0,0 +1,466 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.tablebase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+import engine.utils.io.logging.Tracelog;
+import game.engine.board.Move;
+import game.engine.board.MoveGenerator;
+import game.engine.board.Pieces;
+import game.engine.board.Position;
+import game.engine.interfaces.ITablebase;
+
+/**
+ * The Syzygy endgame tablebases found in local directories.
+ *
+ * The directories are only listed when the tablebases are first used, and each table file is only
+ * memory-mapped when a position of its material is first probed.  The tables do not hold the
+ * positions where a capture is the only good move nor the en passent captures, so the captures
+ * of a position are always searched before its table is trusted
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class SyzygyTablebase implements ITablebase {
+
+	/**
+	 * The system property holding the directories of the default tablebases, separated by the path separator
+	 */
+	public static final String PATH_PROPERTY = "chess.syzygy";
+
+	/**
+	 * The file extension of the win/draw/loss tables
+	 */
+	private static final String WDL_EXTENSION = ".rtbw";
+
+	/**
+	 * The file extension of the distance to zero tables
+	 */
+	private static final String DTZ_EXTENSION = ".rtbz";
+
+	/**
+	 * The probe succeeded
+	 */
+	private static final int STATE_OK = 0;
+
+	/**
+	 * The probe failed because a table is missing or cannot be read
+	 */
+	private static final int STATE_FAILED = 1;
+
+	/**
+	 * The probe succeeded and the best move is a capture or a pawn move
+	 */
+	private static final int STATE_ZEROING_BEST_MOVE = 2;
+
+	/**
+	 * The materials whose tables are checked against the generated bitbases once the tables are found,
+	 * in the order that the bitbases must be generated.  The four pieces of KBNvK cover the grouping of
+	 * the pieces that the three-piece tables do not need
+	 */
+	private static final String[] VERIFIED_MATERIALS = { "KQvK", "KRvK", "KBNvK", "KPvK" };
+
+	/**
+	 * The number of indices of each material whose win/draw/loss result is checked
+	 */
+	private static final int WDL_CHECK_SAMPLES = 50000;
+
+	/**
+	 * The interval between the checked positions whose distance to zero is checked as well
+	 */
+	private static final int DTZ_CHECK_INTERVAL = 97;
+
+	/**
+	 * The default tablebases
+	 */
+	private static SyzygyTablebase _instance;
+
+	/**
+	 * The win/draw/loss tables by material key, each table being registered under both of its keys
+	 */
+	private final Map<Long, SyzygyTable> _wdlTables = new HashMap<>();
+
+	/**
+	 * The distance to zero tables by material key, each table being registered under both of its keys
+	 */
+	private final Map<Long, SyzygyTable> _dtzTables = new HashMap<>();
+
+	/**
+	 * The largest number of pieces of the tables found, or zero once the tables failed {@link #verify()}
+	 */
+	private volatile int _maxPieces;
+
+	/**
+	 * Constructs a new instance of this class type
+	 *
+	 * @param directories The directories holding the table files
+	 */
+	public SyzygyTablebase(Path... directories) {
+		for(Path directory : directories) {
+			try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + WDL_EXTENSION)) {
+				for(Path file : stream) {
+					String name = file.getFileName().toString();
+					String material = name.substring(0, name.length() - WDL_EXTENSION.length());
+					if(!material.matches("K[QRBNP]*vK[QRBNP]*") || material.length() - 1 > SyzygyTable.MAX_PIECES) {
+						continue;
+					}
+					register(_wdlTables, new SyzygyTable(file, material, false));
+					Path distanceFile = directory.resolve(material + DTZ_EXTENSION);
+					if(Files.exists(distanceFile)) {
+						register(_dtzTables, new SyzygyTable(distanceFile, material, true));
+					}
+				}
+			}
+			catch(IOException exception) {
+				Tracelog.log(Level.SEVERE, true, exception);
+			}
+		}
+		Tracelog.log(Level.INFO, true, "Found " + _wdlTables.size() / 2 + " Syzygy tables of up to " + _maxPieces + " pieces");
+	}
+
+	/**
+	 * Gets the default tablebases, found in the directories of the {@link #PATH_PROPERTY} system property.
+	 * The tables are verified by {@link #verify()} on a background thread since generating the bitbases
+	 * takes seconds, they are used meanwhile and stop being used if they fail the verification
+	 *
+	 * @return The default tablebases, or null if no tables were found or they failed the verification
+	 */
+	public static synchronized SyzygyTablebase instance() {
+		if(_instance == null) {
+			String paths = System.getProperty(PATH_PROPERTY);
+			if(paths == null || paths.isEmpty()) {
+				return null;
+			}
+			String[] names = paths.split(File.pathSeparator);
+			Path[] directories = new Path[names.length];
+			for(int i = 0; i < names.length; ++i) {
+				directories[i] = Paths.get(names[i]);
+			}
+			_instance = new SyzygyTablebase(directories);
+			if(_instance.getMaxPieces() > 0) {
+				Thread thread = new Thread(_instance::verify, "Syzygy verification");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				thread.start();
+			}
+		}
+		return _instance.getMaxPieces() > 0 ? _instance : null;
+	}
+
+	/**
+	 * Registers a table under both of its material keys
+	 *
+	 * @param tables The tables to register into
+	 * @param table The table
+	 */
+	private void register(Map<Long, SyzygyTable> tables, SyzygyTable table) {
+		tables.put(table.getKey(), table);
+		tables.put(table.getMirroredKey(), table);
+		_maxPieces = Math.max(_maxPieces, table.getPieceCount());
+	}
+
+	/**
+	 * Verifies the tables of {@link #VERIFIED_MATERIALS} that were found against the bitbases generated
+	 * by {@link BitbaseGenerator}, which solve these endings on their own.  The win/draw/loss result and
+	 * the sign of the distance to zero of a sample of the legal positions must match the bitbases, and
+	 * every table stops being probed otherwise so that no move is chosen nor game adjudicated from a
+	 * table that is not decoded properly
+	 *
+	 * @return TRUE if the tables match the bitbases
+	 */
+	public boolean verify() {
+		// The bitbases are only generated up to the last material that has a table
+		int count = 0;
+		for(int i = 0; i < VERIFIED_MATERIALS.length; ++i) {
+			if(_wdlTables.containsKey(SyzygyTable.getMaterialKey(VERIFIED_MATERIALS[i]))) {
+				count = i + 1;
+			}
+		}
+
+		long startTime = System.currentTimeMillis();
+		BitbaseGenerator generator = new BitbaseGenerator(new BitbaseTablebase());
+		Position position = new Position();
+		int checked = 0;
+		for(int i = 0; i < count; ++i) {
+			String material = VERIFIED_MATERIALS[i];
+			Bitbase bitbase = generator.generate(material);
+			if(!_wdlTables.containsKey(bitbase.getKey())) {
+				continue;
+			}
+			boolean hasDtzTable = _dtzTables.containsKey(bitbase.getKey());
+			int[] pieces = Bitbase.getPieces(material);
+			int size = Bitbase.getSize(pieces.length);
+
+			// An odd interval visits every square of each piece rather than a fixed set of them
+			int interval = Math.max(1, size / WDL_CHECK_SAMPLES) | 1;
+			for(int index = 0; index < size; index += interval) {
+				for(int sideToMove = Pieces.WHITE; sideToMove <= Pieces.BLACK; ++sideToMove) {
+					if(!setPosition(position, pieces, index, sideToMove)) {
+						continue;
+					}
+					++checked;
+					int expected = bitbase.probe(position);
+					int wdl = probeWdl(position);
+					boolean isMatching = wdl != UNKNOWN && Integer.signum(wdl) == Integer.signum(expected);
+
+					// The distance of a position without any legal move is not checked since it ends the game at once
+					if(isMatching && hasDtzTable && checked % DTZ_CHECK_INTERVAL == 0 && MoveGenerator.hasLegalMove(position)) {
+						int dtz = probeDtz(position);
+						isMatching = dtz != UNKNOWN && Integer.signum(dtz) == Integer.signum(expected);
+					}
+					if(!isMatching) {
+						Tracelog.log(Level.SEVERE, true, "The Syzygy table " + material + " does not match the bitbase for " + position + ", the Syzygy tables will not be used");
+						_maxPieces = 0;
+						return false;
+					}
+				}
+			}
+		}
+		Tracelog.log(Level.INFO, true, "Verified " + checked + " positions of the Syzygy tables in " + (System.currentTimeMillis() - startTime) + "ms");
+		return true;
+	}
+
+	/**
+	 * Sets up the position of the specified bitbase index
+	 *
+	 * @param position The position
+	 * @param pieces The pieces of the material, as ordered by the bitbase
+	 * @param index The index
+	 * @param sideToMove The side to move
+	 *
+	 * @return TRUE if the index is a legal position
+	 */
+	private static boolean setPosition(Position position, int[] pieces, int index, int sideToMove) {
+		position.clear();
+		for(int i = 0; i < pieces.length; ++i) {
+			int square = (index >>> (6 * i)) & 63;
+			boolean isPawnOnLastRank = Pieces.type(pieces[i]) == Pieces.PAWN && (square < 8 || square >= 56);
+			if(position.getPiece(square) != Pieces.NONE || isPawnOnLastRank) {
+				return false;
+			}
+			position.setPiece(square, pieces[i]);
+		}
+		position.setSideToMove(sideToMove);
+		return position.wasLegal();
+	}
+
+	@Override public int getMaxPieces() {
+		return _maxPieces;
+	}
+
+	@Override public int probeWdl(Position position) {
+		if(position.getCastlingRights() != 0 || Long.bitCount(position.getOccupied()) > _maxPieces) {
+			return UNKNOWN;
+		}
+		int[] state = { STATE_OK };
+		int wdl = search(position, false, state);
+		return state[0] == STATE_FAILED ? UNKNOWN : wdl;
+	}
+
+	@Override public int probeDtz(Position position) {
+		if(position.getCastlingRights() != 0 || Long.bitCount(position.getOccupied()) > _maxPieces) {
+			return UNKNOWN;
+		}
+		int[] state = { STATE_OK };
+		int dtz = probeDtz(position, state);
+		return state[0] == STATE_FAILED ? UNKNOWN : dtz;
+	}
+
+	/**
+	 * Probes the win/draw/loss table of the specified position
+	 *
+	 * @param position The position
+	 * @param state The state of the probe
+	 *
+	 * @return The win/draw/loss result
+	 */
+	private int probeWdlTable(Position position, int[] state) {
+		if(Long.bitCount(position.getOccupied()) == 2) {
+			return DRAW;
+		}
+		SyzygyTable table = _wdlTables.get(SyzygyTable.getMaterialKey(position));
+		int wdl = table == null ? UNKNOWN : table.probe(position, 0);
+		if(wdl == UNKNOWN) {
+			state[0] = STATE_FAILED;
+			return DRAW;
+		}
+		return wdl;
+	}
+
+	/**
+	 * Gets the win/draw/loss result of the specified position, searching the captures before
+	 * trusting the table since the table is not accurate when a capture is the best move
+	 *
+	 * @param position The position
+	 * @param checkZeroingMoves If the pawn moves are searched along with the captures
+	 * @param state The state of the probe
+	 *
+	 * @return The win/draw/loss result
+	 */
+	private int search(Position position, boolean checkZeroingMoves, int[] state) {
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegal(position, moves);
+		int bestValue = LOSS;
+		int searched = 0;
+
+		for(int i = 0; i < count; ++i) {
+			int move = moves[i];
+			if(!isCapture(position, move) && (!checkZeroingMoves || Pieces.type(position.getPiece(Move.from(move))) != Pieces.PAWN)) {
+				continue;
+			}
+			++searched;
+			position.makeMove(move);
+			int value = -search(position, false, state);
+			position.unmakeMove(move);
+			if(state[0] == STATE_FAILED) {
+				return DRAW;
+			}
+			if(value > bestValue) {
+				bestValue = value;
+				if(value >= WIN) {
+					state[0] = STATE_ZEROING_BEST_MOVE;
+					return value;
+				}
+			}
+		}
+
+		// When every legal move was searched the table is not needed, and it could be wrong with an en passent capture
+		boolean hasNoMoreMoves = searched != 0 && searched == count;
+		int value;
+		if(hasNoMoreMoves) {
+			value = bestValue;
+		}
+		else {
+			value = probeWdlTable(position, state);
+			if(state[0] == STATE_FAILED) {
+				return DRAW;
+			}
+		}
+
+		if(bestValue >= value) {
+			state[0] = bestValue > DRAW || hasNoMoreMoves ? STATE_ZEROING_BEST_MOVE : STATE_OK;
+			return bestValue;
+		}
+		state[0] = STATE_OK;
+		return value;
+	}
+
+	/**
+	 * Gets the distance to zero of the specified position
+	 *
+	 * @param position The position
+	 * @param state The state of the probe
+	 *
+	 * @return The distance to zero in plies
+	 */
+	private int probeDtz(Position position, int[] state) {
+		state[0] = STATE_OK;
+		int wdl = search(position, true, state);
+		if(state[0] == STATE_FAILED || wdl == DRAW) {
+			return 0;
+		}
+
+		// The table does not hold a meaningful distance when the best move is a capture or a pawn move
+		if(state[0] == STATE_ZEROING_BEST_MOVE) {
+			return getDistanceBeforeZeroing(wdl);
+		}
+
+		SyzygyTable table = _dtzTables.get(SyzygyTable.getMaterialKey(position));
+		int dtz = table == null ? UNKNOWN : table.probe(position, wdl);
+		if(dtz == UNKNOWN) {
+			state[0] = STATE_FAILED;
+			return 0;
+		}
+		if(dtz != SyzygyTable.CHANGE_SIDE) {
+			return (dtz + (wdl == BLESSED_LOSS || wdl == CURSED_WIN ? 100 : 0)) * Integer.signum(wdl);
+		}
+
+		// The table only holds the other side to move, so search one ply for the move with the best distance
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegal(position, moves);
+		int minimumDtz = 0xFFFF;
+		for(int i = 0; i < count; ++i) {
+			int move = moves[i];
+			boolean isZeroing = isCapture(position, move) || Pieces.type(position.getPiece(Move.from(move))) == Pieces.PAWN;
+			position.makeMove(move);
+
+			// The distance of a zeroing move is the one before playing it, the search only gives its sign
+			dtz = isZeroing ? -getDistanceBeforeZeroing(search(position, false, state)) : -probeDtz(position, state);
+			if(dtz == 1 && position.isInCheck() && !MoveGenerator.hasLegalMove(position)) {
+				minimumDtz = 1;
+			}
+			if(!isZeroing) {
+				dtz += Integer.signum(dtz);
+			}
+			if(dtz < minimumDtz && Integer.signum(dtz) == Integer.signum(wdl)) {
+				minimumDtz = dtz;
+			}
+			position.unmakeMove(move);
+			if(state[0] == STATE_FAILED) {
+				return 0;
+			}
+		}
+		return minimumDtz == 0xFFFF ? -1 : minimumDtz;
+	}
+
+	/**
+	 * @param wdl The win/draw/loss result of a position
+	 *
+	 * @return The distance to zero of a position whose best move is a capture or a pawn move
+	 */
+	private static int getDistanceBeforeZeroing(int wdl) {
+		switch(wdl) {
+		case WIN:
+			return 1;
+		case CURSED_WIN:
+			return 101;
+		case BLESSED_LOSS:
+			return -101;
+		case LOSS:
+			return -1;
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * @param position The position
+	 * @param move The move
+	 *
+	 * @return TRUE if the move captures a piece
+	 */
+	private static boolean isCapture(Position position, int move) {
+		return Move.flag(move) == Move.FLAG_EN_PASSENT || position.getPiece(Move.to(move)) != Pieces.NONE;
+	}
+}
@@ -91,6 +91,10 @@ class PawnEntity extends AbstractChessEntity {
     	return _canReceiveEnPassent;
     }
     
+    @Override public void setEnPassentCapturable(boolean isEnPassentCapturable) {
+    	_canReceiveEnPassent = isEnPassentCapturable;
+    }
+    
     @Override public boolean isMovementContinuous() {
         return false;
     }
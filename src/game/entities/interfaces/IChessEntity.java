@@ -111,6 +111,15 @@ public interface IChessEntity {
     	return false;
     }
     
+    /**
+     * Sets if the chess entity can be captured with an en-passent move, this is used when a position
+     * is set up rather than played
+     * 
+     * @param isEnPassentCapturable If the chess entity can be captured with en-passent
+     */
+    default public void setEnPassentCapturable(boolean isEnPassentCapturable) {
+    }
+    
     /**
      * Gets if the chess entity is a checkable entity
      * 
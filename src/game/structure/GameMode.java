@@ -6,4 +6,4 @@ package game.structure;
  * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
  *
  */
-public enum GameMode { DEBUG, GAME }
\ No newline at end of file
+public enum GameMode { DEBUG, GAME, COMPUTER }
\ No newline at end of file
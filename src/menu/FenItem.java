@@ -0,0 +1,83 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package menu;
+
+import java.awt.event.ActionEvent;
+
+import javax.swing.JComponent;
+import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
+
+import application.Application;
+import controllers.BoardController;
+import engine.core.factories.AbstractFactory;
+import engine.core.factories.AbstractSignalFactory;
+import engine.core.factories.ControllerFactory;
+import engine.core.menu.types.MenuItem;
+import resources.Resources;
+import resources.Resources.ResourceKeys;
+
+/**
+ * The position menu item, which shows the Forsyth-Edwards notation of the board so that it can be
+ * copied, and sets up the board from the notation entered in its place
+ * 
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public class FenItem extends MenuItem {
+
+	/**
+	 * Constructs a new instance of this class type
+	 * 
+	 * @param parent The parent of this menu item
+	 */
+	public FenItem(JComponent parent) {
+		super(new JMenuItem(Resources.instance().getLocalizedString(ResourceKeys.Fen)), parent);
+	}
+	
+	@Override public void onExecute(ActionEvent actionEvent) {
+		BoardController boardController = AbstractFactory.getFactory(ControllerFactory.class).get(BoardController.class);
+		if(boardController == null) {
+			return;
+		}
+		
+		String fen = boardController.getFen();
+		Object input = JOptionPane.showInputDialog(Application.instance(), null, Resources.instance().getLocalizedString(ResourceKeys.Fen), JOptionPane.PLAIN_MESSAGE, null, null, fen);
+		if(input == null || input.toString().trim().equals(fen)) {
+			return;
+		}
+		
+		try {
+			boardController.loadFen(input.toString().trim());
+		}
+		catch(IllegalArgumentException exception) {
+			JOptionPane.showMessageDialog(Application.instance(), exception.getMessage(), Resources.instance().getLocalizedString(ResourceKeys.Title), JOptionPane.ERROR_MESSAGE);
+		}
+	}
+	
+	@Override public boolean enabled() {
+		return AbstractSignalFactory.isRunning() && AbstractFactory.getFactory(ControllerFactory.class).get(BoardController.class) != null;
+	}
+}
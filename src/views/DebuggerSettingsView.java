@@ -27,6 +27,7 @@ package views;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.List;
 
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
@@ -34,18 +35,29 @@ import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JSpinner;
+import javax.swing.JTabbedPane;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.JToggleButton;
 
 import application.Application;
 import controllers.BoardController;
 import controllers.DebuggerSettingsController;
+import controllers.PlayerController;
 import engine.core.factories.AbstractFactory;
 import engine.core.factories.AbstractSignalFactory;
 import engine.core.factories.ControllerFactory;
 import engine.core.mvc.view.DialogView;
+import game.engine.archive.GameArchive;
+import game.engine.archive.OpeningTree.OpeningMove;
+import game.engine.board.Position;
 import generated.DataLookup.DataLayerName;
 import models.PlayerModel.PlayerTeam;
 import resources.Resources;
 import resources.Resources.ResourceKeys;
+import views.controls.GameListPanel;
+import views.controls.OpeningExplorerPanel;
+import views.controls.SearchInfoPanel;
 
 /**
  * The view associated to the chess debugger
@@ -104,11 +116,51 @@ public class DebuggerSettingsView extends DialogView {
 	 */
 	private JCheckBox _inspector = new JCheckBox();
 	
+	/**
+	 * The switch between the neural network and the hand-written evaluation
+	 */
+	private JCheckBox _neuralNetwork = new JCheckBox();
+	
+	/**
+	 * The analyze button that starts and stops the analysis of the board by the engine
+	 */
+	private JToggleButton _analyzeButton = new JToggleButton(Resources.instance().getLocalizedString(ResourceKeys.Analyze));
+	
+	/**
+	 * The number of best moves reported by the analysis
+	 */
+	private JSpinner _analysisLines = new JSpinner(new SpinnerNumberModel(1, 1, DebuggerSettingsController.MAX_ANALYSIS_LINES, 1));
+	
+	/**
+	 * The games button that displays the games of the position index that reached the board
+	 */
+	private JButton _gamesButton = new JButton(Resources.instance().getLocalizedString(ResourceKeys.Games));
+	
+	/**
+	 * The openings button that displays the moves of the opening tree played from the board
+	 */
+	private JButton _openingsButton = new JButton(Resources.instance().getLocalizedString(ResourceKeys.Openings));
+	
+	/**
+	 * The panel that displays the progress of the analysis
+	 */
+	private SearchInfoPanel _searchInfoPanel = new SearchInfoPanel();
+	
+	/**
+	 * The panel that displays the moves of the opening tree played from the board
+	 */
+	private OpeningExplorerPanel _openingExplorerPanel = new OpeningExplorerPanel();
+	
+	/**
+	 * The panel that lists the games of the position index that reached the board
+	 */
+	private GameListPanel _gameListPanel = new GameListPanel();
+	
 	/**
 	 * Constructs a new instance of this class type
 	 */
 	public DebuggerSettingsView() {
-		super(Application.instance(), Resources.instance().getLocalizedString(ResourceKeys.DebugWindow), 300, 300);
+		super(Application.instance(), Resources.instance().getLocalizedString(ResourceKeys.DebugWindow), 300, 640);
 		
 		// Prevent the properties window from being resized
 		this.setResizable(false);
@@ -170,6 +222,35 @@ public class DebuggerSettingsView extends DialogView {
 		actionPanel.add(_clearButton);
 		getContentPane().add(actionPanel);
 		
+		// Analysis of the board and the progress of its search
+		JPanel analysisPanel = new JPanel();
+		analysisPanel.add(_analyzeButton);
+		analysisPanel.add(new JLabel(Resources.instance().getLocalizedString(ResourceKeys.Lines)));
+		analysisPanel.add(_analysisLines);
+		getContentPane().add(analysisPanel);
+		
+		// Games of the position index that reached the board and moves of the opening tree played from it
+		JPanel gamesPanel = new JPanel();
+		gamesPanel.add(_gamesButton);
+		gamesPanel.add(_openingsButton);
+		getContentPane().add(gamesPanel);
+		
+		// Evaluation used by the analysis and by the computer player
+		JPanel evaluationPanel = new JPanel();
+		JLabel neuralNetworkLabel = new JLabel(Resources.instance().getLocalizedString(ResourceKeys.NeuralNetwork));
+		evaluationPanel.add(neuralNetworkLabel);
+		evaluationPanel.add(_neuralNetwork);
+		_neuralNetwork.setEnabled(controller.isNeuralNetworkAvailable());
+		getContentPane().add(evaluationPanel);
+		_searchInfoPanel.setSearch(controller.getAnalysisSearch());
+		getContentPane().add(_searchInfoPanel);
+		
+		// The opening explorer and the games share the bottom of the dialog
+		JTabbedPane archivePane = new JTabbedPane();
+		archivePane.addTab(Resources.instance().getLocalizedString(ResourceKeys.Openings), _openingExplorerPanel);
+		archivePane.addTab(Resources.instance().getLocalizedString(ResourceKeys.Games), _gameListPanel);
+		getContentPane().add(archivePane);
+		
 		// Set the states of the action buttons
 		_startButton.setEnabled(true);
 		_stopButton.setEnabled(false);
@@ -225,6 +306,11 @@ public class DebuggerSettingsView extends DialogView {
 				boardController.setIsInspecting(_inspector.isSelected());				
 			}
 		});
+		_neuralNetwork.addActionListener(new ActionListener() {
+			@Override public void actionPerformed(ActionEvent e) {
+				debuggerSettingsController.setNeuralNetworkEnabled(_neuralNetwork.isSelected());
+			}
+		});
 		_memoryStore.addActionListener(new ActionListener() {
             @Override public void actionPerformed(ActionEvent e) {
                 // add to the memory
@@ -252,9 +338,63 @@ public class DebuggerSettingsView extends DialogView {
                 System.out.println(debuggerSettingsController.toString());
             }
         });
+		_analyzeButton.addActionListener(new ActionListener() {
+			@Override public void actionPerformed(ActionEvent e) {
+				if(_analyzeButton.isSelected()) {
+					debuggerSettingsController.setAnalysisLines((Integer)_analysisLines.getValue());
+					
+					// Analyze for the player currently playing, or for the selected team if the game is not running
+					PlayerTeam team = boardController.isGameRunning() 
+						? AbstractFactory.getFactory(ControllerFactory.class).get(PlayerController.class).getCurrentPlayerTeam() 
+						: debuggerSettingsController.getSelectedTeamItem();
+					if(debuggerSettingsController.startAnalysis(team)) {
+						_searchInfoPanel.start();
+					}
+					else {
+						_analyzeButton.setSelected(false);
+					}
+				}
+				else {
+					debuggerSettingsController.stopAnalysis();
+					_searchInfoPanel.stop();
+				}
+			}
+		});
+		_gamesButton.addActionListener(new ActionListener() {
+			@Override public void actionPerformed(ActionEvent e) {
+				debuggerSettingsController.findGames();
+			}
+		});
+		_openingsButton.addActionListener(new ActionListener() {
+			@Override public void actionPerformed(ActionEvent e) {
+				debuggerSettingsController.exploreOpenings();
+			}
+		});
+		_openingExplorerPanel.setMoveListener(move -> debuggerSettingsController.followOpeningMove(move));
+		_gameListPanel.setGameListener(game -> debuggerSettingsController.openGame(game));
 		
 	}
 	
+	/**
+	 * Displays the moves of the opening tree played from the board
+	 * 
+	 * @param position The position on the board
+	 * @param moves The moves of the opening tree
+	 */
+	public void setOpeningMoves(Position position, List<OpeningMove> moves) {
+		_openingExplorerPanel.setMoves(position, moves);
+	}
+	
+	/**
+	 * Displays the games of the position index that reached the board
+	 * 
+	 * @param archive The archive holding the games
+	 * @param games The indices of the games within the archive
+	 */
+	public void setGames(GameArchive archive, long[] games) {
+		_gameListPanel.setGames(archive, games);
+	}
+	
 	@Override public void render() {
 		super.render();
 
@@ -27,8 +27,10 @@ package views;
 import java.awt.GridBagLayout;
 import java.util.logging.Level;
 
+import controllers.ComputerController;
 import engine.api.IView;
 import engine.core.factories.AbstractSignalFactory;
+import engine.core.factories.ControllerFactory;
 import engine.core.factories.ViewFactory;
 import engine.core.mvc.view.NavigationPanel;
 import engine.utils.io.logging.Tracelog;
@@ -71,6 +73,11 @@ public class MainView extends NavigationPanel {
 		if(_gameMode == GameMode.GAME) {
 			boardView = viewFactory.get(BoardView.class, true);
 		}
+		else if(_gameMode == GameMode.COMPUTER) {
+			// Create the computer player before the board so that it is told when the game starts
+			AbstractSignalFactory.getFactory(ControllerFactory.class).get(ComputerController.class, true);
+			boardView = viewFactory.get(BoardView.class, true);
+		}
 		else if(_gameMode == GameMode.DEBUG){
 			boardView = viewFactory.get(DebuggerView.class, true);
 		}
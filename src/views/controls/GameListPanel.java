@@ -0,0 +1,153 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+package views.controls;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.ListSelectionModel;
+import javax.swing.table.DefaultTableModel;
+
+import game.engine.archive.GameArchive;
+import resources.Resources;
+import resources.Resources.ResourceKeys;
+
+/**
+ * A panel that lists the games of the archive that reached a position.
+ * 
+ * Each row holds the players of a game along with their rating and the result of the game, and
+ * double-clicking a row opens the game
+ * 
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public class GameListPanel extends JPanel {
+
+	/**
+	 * The serial version of this class
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The number of rows visible without scrolling
+	 */
+	private static final int VISIBLE_ROWS = 6;
+
+	/**
+	 * The rows of the table, which cannot be edited
+	 */
+	private final DefaultTableModel _model = new DefaultTableModel(new Object[] {
+		Resources.instance().getLocalizedString(ResourceKeys.White),
+		Resources.instance().getLocalizedString(ResourceKeys.Black),
+		Resources.instance().getLocalizedString(ResourceKeys.Result)
+	}, 0) {
+		private static final long serialVersionUID = 1L;
+
+		@Override public boolean isCellEditable(int row, int column) {
+			return false;
+		}
+	};
+
+	/**
+	 * The table of the games
+	 */
+	private final JTable _table = new JTable(_model);
+
+	/**
+	 * The indices of the games displayed within the archive, in the order of the rows
+	 */
+	private long[] _games = new long[0];
+
+	/**
+	 * The listener called with the index of the game of a row when it is double-clicked
+	 */
+	private LongConsumer _gameListener;
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	public GameListPanel() {
+		super(new BorderLayout());
+		_table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		_table.getTableHeader().setReorderingAllowed(false);
+		_table.setPreferredScrollableViewportSize(new Dimension(_table.getPreferredScrollableViewportSize().width, _table.getRowHeight() * VISIBLE_ROWS));
+		_table.addMouseListener(new MouseAdapter() {
+			@Override public void mouseClicked(MouseEvent event) {
+				int row = _table.rowAtPoint(event.getPoint());
+				if(event.getClickCount() == 2 && row >= 0 && row < _games.length && _gameListener != null) {
+					_gameListener.accept(_games[row]);
+				}
+			}
+		});
+		add(new JScrollPane(_table), BorderLayout.CENTER);
+	}
+
+	/**
+	 * Sets the listener called with the index of the game of a row when it is double-clicked
+	 * 
+	 * @param gameListener The listener
+	 */
+	public void setGameListener(LongConsumer gameListener) {
+		_gameListener = gameListener;
+	}
+
+	/**
+	 * Displays the specified games
+	 * 
+	 * @param archive The archive holding the games
+	 * @param games The indices of the games within the archive
+	 */
+	public void setGames(GameArchive archive, long[] games) {
+		_games = games.clone();
+		_model.setRowCount(0);
+		for(long game : games) {
+			Map<String, String> tags = archive.getTags(game);
+			_model.addRow(new Object[] {
+				getPlayer(tags.get("White"), archive.getWhiteRating(game)),
+				getPlayer(tags.get("Black"), archive.getBlackRating(game)),
+				archive.getResult(game)
+			});
+		}
+	}
+
+	/**
+	 * Formats the name of a player along with the rating when it is known
+	 * 
+	 * @param name The name of the player, or null if it is not known
+	 * @param rating The rating of the player, or 0 if it is not known
+	 * 
+	 * @return The name and rating of the player
+	 */
+	private static String getPlayer(String name, int rating) {
+		String player = name == null ? "?" : name;
+		return rating == 0 ? player : player + " (" + rating + ")";
+	}
+}
@@ -0,0 +1,145 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+package views.controls;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.ListSelectionModel;
+import javax.swing.table.DefaultTableModel;
+
+import game.engine.archive.OpeningTree.OpeningMove;
+import game.engine.board.Position;
+import game.engine.board.San;
+import resources.Resources;
+import resources.Resources.ResourceKeys;
+
+/**
+ * A panel that displays the moves of the opening tree played from a position.
+ * 
+ * Each row holds a move along with the number of games, the score and the average rating of the
+ * players of that move, and clicking a row follows the move
+ * 
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public class OpeningExplorerPanel extends JPanel {
+
+	/**
+	 * The serial version of this class
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The number of rows visible without scrolling
+	 */
+	private static final int VISIBLE_ROWS = 6;
+
+	/**
+	 * The rows of the table, which cannot be edited
+	 */
+	private final DefaultTableModel _model = new DefaultTableModel(new Object[] {
+		Resources.instance().getLocalizedString(ResourceKeys.Move),
+		Resources.instance().getLocalizedString(ResourceKeys.Games),
+		Resources.instance().getLocalizedString(ResourceKeys.Score),
+		Resources.instance().getLocalizedString(ResourceKeys.Rating)
+	}, 0) {
+		private static final long serialVersionUID = 1L;
+
+		@Override public boolean isCellEditable(int row, int column) {
+			return false;
+		}
+	};
+
+	/**
+	 * The table of the moves
+	 */
+	private final JTable _table = new JTable(_model);
+
+	/**
+	 * The moves displayed, in the order of the rows
+	 */
+	private final List<OpeningMove> _moves = new ArrayList<>();
+
+	/**
+	 * The listener called with the move of a row when it is clicked
+	 */
+	private IntConsumer _moveListener;
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	public OpeningExplorerPanel() {
+		super(new BorderLayout());
+		_table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		_table.getTableHeader().setReorderingAllowed(false);
+		_table.setPreferredScrollableViewportSize(new Dimension(_table.getPreferredScrollableViewportSize().width, _table.getRowHeight() * VISIBLE_ROWS));
+		_table.addMouseListener(new MouseAdapter() {
+			@Override public void mouseClicked(MouseEvent event) {
+				int row = _table.rowAtPoint(event.getPoint());
+				if(row >= 0 && row < _moves.size() && _moveListener != null) {
+					_moveListener.accept(_moves.get(row).getMove());
+				}
+			}
+		});
+		add(new JScrollPane(_table), BorderLayout.CENTER);
+	}
+
+	/**
+	 * Sets the listener called with the move of a row when it is clicked
+	 * 
+	 * @param moveListener The listener
+	 */
+	public void setMoveListener(IntConsumer moveListener) {
+		_moveListener = moveListener;
+	}
+
+	/**
+	 * Displays the moves played from the specified position
+	 * 
+	 * @param position The position that the moves are played from
+	 * @param moves The moves of the opening tree, most played first
+	 */
+	public void setMoves(Position position, List<OpeningMove> moves) {
+		_moves.clear();
+		_moves.addAll(moves);
+		_model.setRowCount(0);
+		for(OpeningMove move : moves) {
+			_model.addRow(new Object[] {
+				San.toString(position, move.getMove()),
+				move.getGames(),
+				String.format("%.1f%%", move.getScore()),
+				move.getAverageRating()
+			});
+		}
+	}
+}
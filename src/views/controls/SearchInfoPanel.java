@@ -0,0 +1,226 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package views.controls;
+
+import java.awt.GridLayout;
+
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.Timer;
+
+import game.engine.board.Move;
+import game.engine.search.Search;
+import game.engine.search.SearchResult;
+import game.engine.search.SearchStatistics;
+import resources.Resources;
+import resources.Resources.ResourceKeys;
+
+/**
+ * A panel that displays the progress of a search while it is running.
+ * 
+ * The counters of the search are written by the searching thread, this panel only samples them on
+ * a timer so that the search is never slowed down by the user interface
+ * 
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public class SearchInfoPanel extends JPanel {
+
+	/**
+	 * The serial version of this class
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The delay between two refreshes of the panel in milliseconds
+	 */
+	private static final int REFRESH_DELAY = 250;
+
+	/**
+	 * The maximum number of moves of the principal variation that are displayed
+	 */
+	private static final int MAX_VARIATION_LENGTH = 8;
+
+	/**
+	 * The timer that refreshes the panel
+	 */
+	private final Timer _timer = new Timer(REFRESH_DELAY, event -> refresh());
+
+	/**
+	 * The depth label
+	 */
+	private final JLabel _depth = new JLabel("-");
+
+	/**
+	 * The selective depth label
+	 */
+	private final JLabel _selectiveDepth = new JLabel("-");
+
+	/**
+	 * The nodes per second label
+	 */
+	private final JLabel _nodesPerSecond = new JLabel("-");
+
+	/**
+	 * The transposition table hit rate label
+	 */
+	private final JLabel _tableHits = new JLabel("-");
+
+	/**
+	 * The transposition table fill label
+	 */
+	private final JLabel _tableFill = new JLabel("-");
+
+	/**
+	 * The first move cutoff rate label
+	 */
+	private final JLabel _firstMoveCutoffs = new JLabel("-");
+
+	/**
+	 * The principal variation label
+	 */
+	private final JLabel _principalVariation = new JLabel("-");
+
+	/**
+	 * The search being displayed
+	 */
+	private Search _search;
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	public SearchInfoPanel() {
+		super(new GridLayout(0, 2));
+		addRow(ResourceKeys.Depth, _depth);
+		addRow(ResourceKeys.SelectiveDepth, _selectiveDepth);
+		addRow(ResourceKeys.NodesPerSecond, _nodesPerSecond);
+		addRow(ResourceKeys.TableHits, _tableHits);
+		addRow(ResourceKeys.TableFill, _tableFill);
+		addRow(ResourceKeys.FirstMoveCutoffs, _firstMoveCutoffs);
+		addRow(ResourceKeys.PrincipalVariation, _principalVariation);
+	}
+
+	/**
+	 * Adds a row made of a caption and its value
+	 * 
+	 * @param caption The resource key of the caption
+	 * @param value The label holding the value
+	 */
+	private void addRow(ResourceKeys caption, JLabel value) {
+		add(new JLabel(Resources.instance().getLocalizedString(caption)));
+		add(value);
+	}
+
+	/**
+	 * Sets the search being displayed
+	 * 
+	 * @param search The search
+	 */
+	public void setSearch(Search search) {
+		_search = search;
+	}
+
+	/**
+	 * Starts refreshing the panel
+	 */
+	public void start() {
+		_timer.start();
+	}
+
+	/**
+	 * Stops refreshing the panel, the values of the last refresh remain displayed
+	 */
+	public void stop() {
+		_timer.stop();
+		refresh();
+	}
+
+	/**
+	 * Refreshes the values of the panel from the counters of the search
+	 */
+	private void refresh() {
+		if(_search == null) {
+			return;
+		}
+
+		SearchStatistics statistics = _search.getStatistics();
+		SearchResult result = _search.getLastResult();
+		long elapsed = Math.max(1, _search.getElapsedTime());
+
+		_depth.setText(result == null ? "-" : String.valueOf(result.depth));
+		_selectiveDepth.setText(String.valueOf(statistics.selectiveDepth));
+		_nodesPerSecond.setText(String.valueOf(statistics.nodes * 1000 / elapsed));
+		_tableHits.setText(getPercentage(statistics.tableHits, statistics.tableProbes));
+		_tableFill.setText(String.format("%.1f%%", _search.getTable().getFill() / 10.0));
+		_firstMoveCutoffs.setText(getPercentage(statistics.firstMoveCutoffs, statistics.betaCutoffs));
+
+		SearchResult[] lines = _search.getLines();
+		if(result == null) {
+			_principalVariation.setText("-");
+		}
+		else if(lines.length <= 1) {
+			_principalVariation.setText(getVariation(result));
+			_principalVariation.setToolTipText(result.toString());
+		}
+		else {
+			// Each line is displayed on its own row along with its score
+			StringBuilder text = new StringBuilder("<html>");
+			StringBuilder toolTip = new StringBuilder("<html>");
+			for(SearchResult line : lines) {
+				text.append(String.format("%+.2f ", line.score / 100.0)).append(getVariation(line)).append("<br>");
+				toolTip.append(line.toString()).append("<br>");
+			}
+			_principalVariation.setText(text.append("</html>").toString());
+			_principalVariation.setToolTipText(toolTip.append("</html>").toString());
+		}
+	}
+
+	/**
+	 * Formats the first moves of the principal variation of a result
+	 * 
+	 * @param result The result
+	 * 
+	 * @return The moves of the variation separated by spaces
+	 */
+	private static String getVariation(SearchResult result) {
+		StringBuilder builder = new StringBuilder();
+		for(int i = 0; i < Math.min(result.principalVariation.length, MAX_VARIATION_LENGTH); ++i) {
+			builder.append(Move.toString(result.principalVariation[i]) + " ");
+		}
+		return builder.toString().trim();
+	}
+
+	/**
+	 * Formats a ratio as a percentage
+	 * 
+	 * @param count The count
+	 * @param total The total
+	 * 
+	 * @return The percentage of the count over the total
+	 */
+	private static String getPercentage(long count, long total) {
+		return total == 0 ? "-" : String.format("%.1f%%", count * 100.0 / total);
+	}
+}
@@ -0,0 +1,120 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package application;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Checks that the UCI front-end answers a search that is stopped or hit right after it started.
+ *
+ * The tests have no dependency, each one is run by the main method which exits with a failure
+ * status when a check does not hold
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class UciApplicationTest {
+
+	/**
+	 * The number of times each test is repeated, the failures depend on the timing of the threads
+	 */
+	private static final int REPETITIONS = 200;
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	private UciApplicationTest() {
+	}
+
+	/**
+	 * Sends a stop right after an infinite search started, which must answer with a legal best move
+	 * before the stop command returns
+	 */
+	private static void testStopRightAfterGo() {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		UciApplication application = new UciApplication(new PrintStream(output, true));
+		for(int i = 0; i < REPETITIONS; ++i) {
+			output.reset();
+			application.execute("position startpos");
+			application.execute("go infinite");
+			application.execute("stop");
+			check(output, "stop right after go");
+		}
+		application.execute("quit");
+	}
+
+	/**
+	 * Sends a ponder hit right after a ponder search started, which must then answer with a legal best
+	 * move once its time is used
+	 */
+	private static void testPonderHitRightAfterGo() {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		UciApplication application = new UciApplication(new PrintStream(output, true));
+		for(int i = 0; i < REPETITIONS / 20; ++i) {
+			output.reset();
+			application.execute("position startpos");
+			application.execute("go ponder wtime 1000 btime 1000");
+			application.execute("ponderhit");
+			long deadline = System.currentTimeMillis() + 5000;
+			while(!new String(output.toByteArray(), StandardCharsets.UTF_8).contains("bestmove ") && System.currentTimeMillis() < deadline) {
+				try {
+					Thread.sleep(10);
+				}
+				catch(InterruptedException exception) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			check(output, "ponder hit right after go");
+		}
+		application.execute("quit");
+	}
+
+	/**
+	 * Checks that a best move was sent and that it is not the null move
+	 *
+	 * @param output The output of the front-end
+	 * @param test The name of the test
+	 */
+	private static void check(ByteArrayOutputStream output, String test) {
+		String text = new String(output.toByteArray(), StandardCharsets.UTF_8);
+		if(!text.contains("bestmove ") || text.contains("bestmove 0000")) {
+			throw new AssertionError(test + " did not answer with a legal best move:\n" + text);
+		}
+	}
+
+	/**
+	 * Runs the tests
+	 *
+	 * @param args The arguments, which are not used
+	 */
+	public static void main(String[] args) {
+		testStopRightAfterGo();
+		testPonderHitRightAfterGo();
+		System.out.println("All tests passed");
+	}
+}
@@ -0,0 +1,116 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+
+package game.engine.board;
+
+/**
+ * Counts the leaf nodes of the move tree of well-known positions, which exercises the generation
+ * of every kind of move along with making and unmaking them.
+ *
+ * The tests have no dependency, each one is run by the main method which exits with a failure
+ * status when a check does not hold
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class PerftTest {
+
+	/**
+	 * The positions and the number of leaf nodes of their move tree from a depth of one onwards,
+	 * as published for the starting position, Kiwipete and the positions three to six of the
+	 * Chess Programming Wiki
+	 */
+	private static final Object[][] POSITIONS = {
+		{ Fen.STARTING_POSITION, new long[] { 20, 400, 8902, 197281 } },
+		{ "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", new long[] { 48, 2039, 97862, 4085603 } },
+		{ "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", new long[] { 14, 191, 2812, 43238, 674624 } },
+		{ "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", new long[] { 6, 264, 9467, 422333 } },
+		{ "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", new long[] { 44, 1486, 62379, 2103487 } },
+		{ "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", new long[] { 46, 2079, 89890, 3894594 } }
+	};
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	private PerftTest() {
+	}
+
+	/**
+	 * Counts the leaf nodes of each position at each depth, and verifies that the position is
+	 * restored once every move was unmade
+	 */
+	private static void testPerft() {
+		int[][] moves = new int[8][MoveGenerator.MAX_MOVES];
+		for(Object[] test : POSITIONS) {
+			String fen = (String)test[0];
+			long[] counts = (long[])test[1];
+			Position position = Fen.parse(fen);
+			long key = position.getKey();
+			for(int depth = 1; depth <= counts.length; ++depth) {
+				long count = perft(position, depth, moves);
+				if(count != counts[depth - 1]) {
+					throw new AssertionError("The perft of " + fen + " at depth " + depth + " is " + count + " instead of " + counts[depth - 1]);
+				}
+			}
+			if(position.getKey() != key || !Fen.toString(position).equals(fen)) {
+				throw new AssertionError("The position " + fen + " was not restored, it became " + Fen.toString(position));
+			}
+		}
+	}
+
+	/**
+	 * Counts the leaf nodes of the move tree of a position, the moves of the last ply are counted
+	 * without being made
+	 *
+	 * @param position The position
+	 * @param depth The depth of the tree, at least one
+	 * @param moves The buffer of the moves of each ply
+	 *
+	 * @return The number of leaf nodes
+	 */
+	private static long perft(Position position, int depth, int[][] moves) {
+		int[] buffer = moves[depth];
+		int count = MoveGenerator.generateLegal(position, buffer);
+		if(depth == 1) {
+			return count;
+		}
+		long nodes = 0;
+		for(int i = 0; i < count; ++i) {
+			position.makeMove(buffer[i]);
+			nodes += perft(position, depth - 1, moves);
+			position.unmakeMove(buffer[i]);
+		}
+		return nodes;
+	}
+
+	/**
+	 * Runs the tests
+	 *
+	 * @param args The arguments, which are not used
+	 */
+	public static void main(String[] args) {
+		testPerft();
+		System.out.println("All tests passed");
+	}
+}
@@ -0,0 +1,90 @@
+/**
+* Daniel Ricci <thedanny09@gmail.com>
+*
+* Permission is hereby granted, free of charge, to any person
+* obtaining a copy of this software and associated documentation
+* files (the "Software"), to deal in the Software without restriction,
+* including without limitation the rights to use, copy, modify, merge,
+* publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject
+* to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+* THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+* FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+* IN THE SOFTWARE.
+*/
+package game.engine.book;
+
+import game.engine.board.Move;
+import game.engine.board.Position;
+
+/**
+ * Checks the built-in Polyglot keys against the keys listed by the Polyglot specification.
+ *
+ * The tests have no dependency, each one is run by the main method which exits with a failure
+ * status when a check does not hold
+ *
+ * @author Daniel Ricci {@literal <thedanny09@gmail.com>}
+ *
+ */
+public final class PolyglotKeysTest {
+
+	/**
+	 * The moves played from the starting position and the Polyglot key of the position they reach,
+	 * as listed by the Polyglot specification
+	 */
+	private static final String[][] SPECIFICATION_KEYS = {
+		{ "", "463b96181691fc9c" },
+		{ "e2e4", "823c9b50fd114196" },
+		{ "e2e4 d7d5", "0756b94461c50fb0" },
+		{ "e2e4 d7d5 e4e5", "662fafb965db29d4" },
+		{ "e2e4 d7d5 e4e5 f7f5", "22a48b5a8e47ff78" },
+		{ "e2e4 d7d5 e4e5 f7f5 e1e2", "652a607ca3f242c1" },
+		{ "e2e4 d7d5 e4e5 f7f5 e1e2 e8f7", "00fdd303c946bdd9" },
+		{ "a2a4 b7b5 h2h4 b5b4 c2c4", "3c8123ea7b067637" },
+		{ "a2a4 b7b5 h2h4 b5b4 c2c4 b4c3 a1a2", "5c3f9b829b279560" }
+	};
+
+	/**
+	 * Constructs a new instance of this class type
+	 */
+	private PolyglotKeysTest() {
+	}
+
+	/**
+	 * Hashes the positions of the specification with the built-in keys
+	 */
+	private static void testSpecificationKeys() {
+		for(String[] test : SPECIFICATION_KEYS) {
+			Position position = new Position();
+			position.setStartingPosition();
+			for(String move : test[0].split(" ")) {
+				if(!move.isEmpty()) {
+					position.makeMove(Move.parse(position, move));
+				}
+			}
+			long key = PolyglotKeys.DEFAULT.getKey(position);
+			if(key != Long.parseUnsignedLong(test[1], 16)) {
+				throw new AssertionError("The key after \"" + test[0] + "\" is " + Long.toHexString(key) + " instead of " + test[1]);
+			}
+		}
+	}
+
+	/**
+	 * Runs the tests
+	 *
+	 * @param args The arguments, which are not used
+	 */
+	public static void main(String[] args) {
+		testSpecificationKeys();
+		System.out.println("All tests passed");
+	}
+}